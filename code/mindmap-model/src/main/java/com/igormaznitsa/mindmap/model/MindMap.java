@@ -18,7 +18,6 @@ package com.igormaznitsa.mindmap.model;
 
 import com.igormaznitsa.meta.common.utils.Assertions;
 import com.igormaznitsa.mindmap.model.parser.MindMapLexer;
-import org.apache.commons.io.IOUtils;
 
 import java.io.*;
 import java.util.*;
@@ -34,12 +33,19 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
     public static final String FORMAT_VERSION = "1.1";
     private static final Pattern PATTERN_ATTRIBUTES = Pattern.compile("^\\s*\\>\\s(.+)$");
     private static final Pattern PATTERN_ATTRIBUTE = Pattern.compile("[,]?\\s*([\\S]+?)\\s*=\\s*(\\`+)(.*?)\\2");
-    private static final String GENERATOR_VERSION_NAME = "__version__";
+    public static final String GENERATOR_VERSION_NAME = "__version__";
     private final transient Lock locker = new ReentrantLock();
     private final Map<String, String> attributes = new TreeMap<>(ModelUtils.STRING_COMPARATOR);
 
     private T root;
 
+    // index of topics for jump links, built at the first lookup and then kept up to date by topics, null if not built.
+    // topics with the same UID (e.g. a cloned topic before its UID is removed) are kept in the order they're indexed.
+    private transient Map<String, List<T>> uidIndex;
+    // all topics in the tree, with the UIDs they are indexed with (null if not).
+    private transient Map<T, String> indexedTopics;
+    private transient Set<T> topicsWithJumps;
+
     public MindMap() {
     }
 
@@ -57,11 +63,18 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
     }
 
     public MindMap(Reader reader, RootCreate<T> creator) throws IOException {
-        String text = IOUtils.toString(Assertions.assertNotNull(reader));
-
         MindMapLexer lexer = new MindMapLexer();
-        lexer.start(text, 0, text.length(), MindMapLexer.TokenType.HEAD_LINE);
+        // the text is streamed to the lexer without loading it in whole.
+        lexer.start(Assertions.assertNotNull(reader), MindMapLexer.TokenType.HEAD_LINE);
+        try {
+            this.parse(lexer, creator);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        this.attributes.put(GENERATOR_VERSION_NAME, FORMAT_VERSION);
+    }
 
+    private void parse(MindMapLexer lexer, RootCreate<T> creator) {
         T rootTopic = null;
 
         boolean process = true;
@@ -79,7 +92,7 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
                 case HEAD_LINE:
                     continue;
                 case ATTRIBUTE: {
-                    fillMapByAttributes(lexer.getTokenText(), this.attributes);
+                    fillMapByAttributes(lexer.getTokenSequence(), this.attributes);
                 }
                 break;
                 case HEAD_DELIMITER: {
@@ -93,13 +106,12 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
         }
 
         this.root = rootTopic;
-        this.attributes.put(GENERATOR_VERSION_NAME, FORMAT_VERSION);
     }
 
-    static boolean fillMapByAttributes(String line, Map<String, String> map) {
+    static boolean fillMapByAttributes(CharSequence line, Map<String, String> map) {
         Matcher attrMatcher = PATTERN_ATTRIBUTES.matcher(line);
         if (attrMatcher.find()) {
-            Matcher attrParser = PATTERN_ATTRIBUTE.matcher(attrMatcher.group(1));
+            Matcher attrParser = PATTERN_ATTRIBUTE.matcher(line).region(attrMatcher.start(1), attrMatcher.end(1));
             while (attrParser.find()) {
                 map.put(attrParser.group(1), attrParser.group(3));
             }
@@ -147,48 +159,20 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
         if (start != null && start.getMap() != this) {
             throw new IllegalArgumentException("Topic doesn't belong to the mind map");
         }
-
-        boolean findPluginNote = (extrasToFind != null && !extrasToFind.isEmpty())
-                                 && (topicFinders != null && !topicFinders.isEmpty())
-                                 && extrasToFind.contains(Extra.ExtraType.NOTE);
-        boolean findPluginFile = (extrasToFind != null && !extrasToFind.isEmpty())
-                                 && (topicFinders != null && !topicFinders.isEmpty())
-                                 && extrasToFind.contains(Extra.ExtraType.FILE);
-
-        T result = null;
-
         this.lock();
         try {
-            boolean startFound = start == null;
-            for (T t : this) {
-                if (startFound) {
-                    if (t.containsPattern(baseFolder, pattern, findInTopicText, extrasToFind)) {
-                        result = t;
-                    }
-                    else if (topicFinders != null) {
-                        for (TopicFinder<T> f : topicFinders) {
-                            if (f.doesTopicContentMatches(t, baseFolder, pattern, extrasToFind)) {
-                                result = t;
-                                break;
-                            }
-                        }
-                    }
-                    if (result != null) {
-                        break;
-                    }
-                }
-                else if (t == start) {
-                    startFound = true;
-                }
+            List<T> plain = this.makePlainList();
+            int startIndex = start == null ? -1 : indexOfTopic(plain, start);
+            if (start != null && startIndex < 0) {
+                return null;
             }
+            return new TopicSearchCursor<>(this, plain, startIndex)
+                    .next(this.makeTopicMatcher(baseFolder, pattern, findInTopicText, extrasToFind, topicFinders));
         } finally {
             this.unlock();
         }
-
-        return result;
     }
 
-
     public T findPrev(File baseFolder, T start,
                       Pattern pattern, boolean findInTopicText,
                       Set<Extra.ExtraType> extrasToFind) {
@@ -202,37 +186,98 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
             throw new IllegalArgumentException("Topic doesn't belong to the mind map");
         }
 
-        T result = null;
+        this.lock();
+        try {
+            return this.searchCursor(start)
+                    .previous(this.makeTopicMatcher(baseFolder, pattern, findInTopicText, extrasToFind, topicFinders));
+        } finally {
+            this.unlock();
+        }
+    }
 
+    /**
+     * Find all matched topics after the start topic in one pass.
+     *
+     * @param baseFolder
+     * @param start           null to find from the root topic (included).
+     * @param pattern
+     * @param findInTopicText
+     * @param extrasToFind
+     * @param topicFinders
+     * @return matched topics in pre-order.
+     * @since 1.11
+     */
+    public List<T> findAll(File baseFolder, T start, Pattern pattern, boolean findInTopicText,
+                           Set<Extra.ExtraType> extrasToFind, Set<TopicFinder<T>> topicFinders) {
+        this.lock();
+        try {
+            return this.searchCursor(start)
+                    .findAll(this.makeTopicMatcher(baseFolder, pattern, findInTopicText, extrasToFind, topicFinders));
+        } finally {
+            this.unlock();
+        }
+    }
+
+    /**
+     * Create a cursor on the topic for searching topics around it, all topics are flattened once in pre-order.
+     *
+     * @param current the topic that the cursor is on, null if the cursor is not on any topic.
+     * @return
+     * @throws IllegalArgumentException if the topic doesn't belong to the mind map.
+     * @since 1.11
+     */
+    public TopicSearchCursor<T> searchCursor(T current) {
+        if (current != null && current.getMap() != this) {
+            throw new IllegalArgumentException("Topic doesn't belong to the mind map");
+        }
         this.lock();
         try {
             List<T> plain = this.makePlainList();
-            int startIndex = start == null ? plain.size() : plain.indexOf(start);
-            if (startIndex < 0) {
-                throw new IllegalArgumentException(
-                        "It looks like that topic doesn't belong to the mind map");
-            }
-            if (startIndex > 0) {
-                while (startIndex > 0 && result == null) {
-                    T candidate = plain.get(--startIndex);
-                    if (candidate.containsPattern(baseFolder, pattern, findInTopicText, extrasToFind)) {
-                        result = candidate;
-                    }
-                    else if (topicFinders != null) {
-                        for (TopicFinder<T> f : topicFinders) {
-                            if (f.doesTopicContentMatches(candidate, baseFolder, pattern, extrasToFind)) {
-                                result = candidate;
-                                break;
-                            }
-                        }
-                    }
-                }
+            int index = current == null ? -1 : indexOfTopic(plain, current);
+            if (current != null && index < 0) {
+                throw new IllegalArgumentException("It looks like that topic doesn't belong to the mind map");
             }
+            return new TopicSearchCursor<>(this, plain, index);
         } finally {
             this.unlock();
         }
+    }
 
-        return result;
+    private static <T> int indexOfTopic(List<T> topics, T topic) {
+        for (int i = 0; i < topics.size(); i++) {
+            if (topics.get(i) == topic) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Make a matcher which checks whether the text or extras of topic contain the pattern, by the topic finders as well.
+     *
+     * @param baseFolder
+     * @param pattern
+     * @param findInTopicText
+     * @param extrasToFind
+     * @param topicFinders    nullable
+     * @return
+     * @since 1.11
+     */
+    public Predicate<T> makeTopicMatcher(File baseFolder, Pattern pattern, boolean findInTopicText,
+                                         Set<Extra.ExtraType> extrasToFind, Set<TopicFinder<T>> topicFinders) {
+        return t -> {
+            if (t.containsPattern(baseFolder, pattern, findInTopicText, extrasToFind)) {
+                return true;
+            }
+            if (topicFinders != null) {
+                for (TopicFinder<T> f : topicFinders) {
+                    if (f.doesTopicContentMatches(t, baseFolder, pattern, extrasToFind)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        };
     }
 
     public void setRoot(T newRoot) {
@@ -244,6 +289,7 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
                 }
             }
             this.root = newRoot;
+            this.uidIndex = null;
         } finally {
             this.unlock();
         }
@@ -299,6 +345,14 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
         return this.attributes.get(name);
     }
 
+    /**
+     * @return unmodifiable attributes of the mind map.
+     * @since 1.11
+     */
+    public Map<String, String> getAttributes() {
+        return Collections.unmodifiableMap(this.attributes);
+    }
+
     public void setAttribute(String name, String value) {
         this.lock();
         try {
@@ -555,7 +609,8 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
             if (rootTopic != null) {
                 this.lock();
                 try {
-                    result = rootTopic.findForAttribute(ExtraTopic.TOPIC_UID_ATTR, link.getValue());
+                    List<T> topics = this.ensureLinkIndex().get(link.getValue());
+                    result = topics == null ? null : firstInTreeOrder(topics);
                 } finally {
                     this.unlock();
                 }
@@ -564,10 +619,130 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
         return result;
     }
 
+    /**
+     * Find all topics that have jump link to other topic, without traversing the whole tree.
+     *
+     * @return
+     * @since 1.11
+     */
+    public List<T> findAllTopicsWithJumps() {
+        this.lock();
+        try {
+            if (this.root == null) {
+                return Collections.emptyList();
+            }
+            this.ensureLinkIndex();
+            return new ArrayList<>(this.topicsWithJumps);
+        } finally {
+            this.unlock();
+        }
+    }
+
+    private Map<String, List<T>> ensureLinkIndex() {
+        if (this.uidIndex == null) {
+            this.uidIndex = new HashMap<>();
+            this.indexedTopics = new IdentityHashMap<>();
+            this.topicsWithJumps = Collections.newSetFromMap(new IdentityHashMap<>());
+            if (this.root != null) {
+                this.indexSubtree(this.root);
+            }
+        }
+        return this.uidIndex;
+    }
+
+    /**
+     * Invoked by topic after the topic (with its descendants) is added to a parent.
+     */
+    void onTopicAttached(T parent, T topic) {
+        if (this.uidIndex != null && this.indexedTopics.containsKey(parent)) {
+            this.indexSubtree(topic);
+        }
+    }
+
+    /**
+     * Invoked by topic after the topic (with its descendants) is removed from its parent.
+     */
+    void onTopicDetached(T topic) {
+        if (this.uidIndex != null) {
+            this.traverseTopicTree(topic, this::unindexTopic);
+        }
+    }
+
+    /**
+     * Invoked by topic after the attributes or extras of it are changed.
+     */
+    void onTopicContentChanged(T topic) {
+        if (this.uidIndex != null && this.indexedTopics.containsKey(topic)) {
+            this.unindexTopic(topic);
+            this.indexTopic(topic);
+        }
+    }
+
+    private void indexSubtree(T topic) {
+        this.traverseTopicTree(topic, this::indexTopic);
+    }
+
+    private void indexTopic(T topic) {
+        String uid = topic.getAttribute(ExtraTopic.TOPIC_UID_ATTR);
+        if (uid != null) {
+            // the first one in tree order wins if duplicated, see findTopicForLink().
+            this.uidIndex.computeIfAbsent(uid, k -> new ArrayList<>(1)).add(topic);
+        }
+        this.indexedTopics.put(topic, uid);
+        if (topic.hasExtra(Extra.ExtraType.TOPIC)) {
+            this.topicsWithJumps.add(topic);
+        }
+    }
+
+    /**
+     * @param topics topics in the tree.
+     * @return the first topic in pre-order (the order of topics in file).
+     */
+    private static <T extends Topic<T>> T firstInTreeOrder(List<T> topics) {
+        T first = topics.get(0);
+        if (topics.size() > 1) {
+            int[] firstPath = indexPath(first);
+            for (int i = 1; i < topics.size(); i++) {
+                int[] path = indexPath(topics.get(i));
+                if (Arrays.compare(path, firstPath) < 0) {
+                    first = topics.get(i);
+                    firstPath = path;
+                }
+            }
+        }
+        return first;
+    }
+
+    /**
+     * @return indexes of the topic and its ancestors in their parents, from the child of root.
+     */
+    private static <T extends Topic<T>> int[] indexPath(T topic) {
+        int[] path = new int[topic.getTopicLevel()];
+        T t = topic;
+        for (int i = path.length - 1; i >= 0; i--) {
+            T parent = t.getParent();
+            path[i] = parent.getChildren().indexOf(t);
+            t = parent;
+        }
+        return path;
+    }
+
+    private void unindexTopic(T topic) {
+        String uid = this.indexedTopics.remove(topic);
+        if (uid != null) {
+            List<T> topics = this.uidIndex.get(uid);
+            topics.removeIf(t -> t == topic);
+            if (topics.isEmpty()) {
+                this.uidIndex.remove(uid);
+            }
+        }
+        this.topicsWithJumps.remove(topic);
+    }
+
     /**
      * @param type
      * @return
-     * @deprecated
+     * @deprecated use {@link #findAllTopicsWithJumps()} for {@link Extra.ExtraType#TOPIC}
      */
     public List<T> findAllTopicsForExtraType(Extra.ExtraType type) {
         List<T> result = new ArrayList<>();
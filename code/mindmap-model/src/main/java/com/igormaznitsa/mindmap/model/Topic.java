@@ -36,6 +36,8 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
     private static final Logger logger = LoggerFactory.getLogger(Topic.class);
     private final EnumMap<Extra.ExtraType, Extra<?>> extras = new EnumMap<>(Extra.ExtraType.class);
     private final Map<Extra.ExtraType, Extra<?>> unmodifableExtras = Collections.unmodifiableMap(this.extras);
+    // extras loaded from file, they are decoded at the first access.
+    private RawExtras rawExtras;
     private final Map<String, String> attributes = new TreeMap<>(ModelUtils.STRING_COMPARATOR);
     private final Map<String, String> unmodifableAttributes = Collections.unmodifiableMap(this.attributes);
     private final Map<String, String> codeSnippets = new TreeMap<>(ModelUtils.STRING_COMPARATOR);
@@ -77,7 +79,7 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
     public Topic(MindMap<T> mindMap, T base, boolean copyChildren) {
         this(mindMap, base.getText());
         this.attributes.putAll(base.getAttributes());
-        this.extras.putAll(base.getExtras());
+        this.extras().putAll(base.getExtras());
         this.codeSnippets.putAll(base.getCodeSnippets());
 
         if (copyChildren) {
@@ -207,30 +209,18 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
                     break;
                     case ATTRIBUTE: {
                         if (topic != null) {
-                            String text = lexer.getTokenText().trim();
-                            Map<String, String> attrs = new TreeMap<>();
-                            MindMap.fillMapByAttributes(text, attrs);
-                            topic.putAttributes(attrs);
+                            MindMap.fillMapByAttributes(lexer.getTokenSequence(), ((Topic<T>) topic).attributes);
+                            ((Topic<T>) topic).keepLoadedAttributes();
                         }
                         extraType = null;
                     }
                     break;
                     case EXTRA_TEXT: {
                         if (topic != null && extraType != null) {
-                            try {
-                                String text = lexer.getTokenText();
-                                String groupPre = extraType.preprocessString(text.substring(5, text.length() - 6));
-                                if (groupPre != null) {
-                                    topic.setExtra(extraType.parseLoaded(groupPre, topic.getAttributes()));
-                                }
-                                else {
-                                    logger.error("Detected invalid extra data " + extraType);
-                                }
-                            } catch (Exception ex) {
-                                logger.error("Unexpected exception #23241", ex);
-                            } finally {
-                                extraType = null;
-                            }
+                            // without <pre> and </pre>
+                            String text = lexer.getBufferSequence().subSequence(lexer.getTokenStartOffset() + 5, lexer.getTokenEndOffset() - 6).toString();
+                            ((Topic<T>) topic).putRawExtra(extraType, text);
+                            extraType = null;
                         }
                     }
                     break;
@@ -321,7 +311,7 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
             result = true;
         }
         else if (extrasForSearch != null && !extrasForSearch.isEmpty()) {
-            for (Extra<?> e : this.extras.values()) {
+            for (Extra<?> e : this.extras().values()) {
                 if (extrasForSearch.contains(e.getType()) && e.containsPattern(baseFolder, pattern)) {
                     result = true;
                     break;
@@ -344,6 +334,24 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         this.payload = value;
     }
 
+    /**
+     * Invoked after the text, attributes, extras or code snippets of this topic are changed.
+     *
+     * @since 1.11
+     */
+    protected void onContentChanged() {
+        // INHERIT
+    }
+
+    /**
+     * Invoked after any child of this topic is added, removed or re-ordered.
+     *
+     * @since 1.11
+     */
+    protected void onChildrenChanged() {
+        // INHERIT
+    }
+
 
     public MindMap<T> getMap() {
         return this.map;
@@ -409,23 +417,85 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
 
     public void addChild(T t) {
         this.children.add(t);
+        this.onChildrenChanged();
+        this.map.onTopicAttached((T) this, t);
     }
 
     public void addChild(int idx, T t) {
         this.children.add(idx, t);
+        this.onChildrenChanged();
+        this.map.onTopicAttached((T) this, t);
     }
 
     public int getNumberOfExtras() {
-        return this.extras.size();
+        return this.extras().size();
     }
 
 
     public Map<Extra.ExtraType, Extra<?>> getExtras() {
+        this.extras();
         return this.unmodifableExtras;
     }
 
+    /**
+     * Check the extra without decoding the extras loaded from file.
+     *
+     * @param type
+     * @return true if this topic has the extra.
+     * @since 1.11
+     */
+    public boolean hasExtra(Extra.ExtraType type) {
+        RawExtras raw = this.rawExtras;
+        return (raw != null && raw.texts.containsKey(type)) || this.extras.containsKey(type);
+    }
+
+    /**
+     * @return the extras loaded from file that are not decoded yet, null if they are decoded.
+     * @since 1.11
+     */
+    public RawExtras getRawExtras() {
+        return this.rawExtras;
+    }
+
+    private EnumMap<Extra.ExtraType, Extra<?>> extras() {
+        if (this.rawExtras != null) {
+            this.decodeRawExtras();
+        }
+        return this.extras;
+    }
+
+    private void putRawExtra(Extra.ExtraType type, String text) {
+        if (this.rawExtras == null) {
+            this.rawExtras = new RawExtras();
+        }
+        this.rawExtras.texts.put(type, text);
+        this.keepLoadedAttributes();
+    }
+
+    // the raw extras are decoded with the attributes loaded with them, rather than the ones changed later.
+    private void keepLoadedAttributes() {
+        if (this.rawExtras != null) {
+            this.rawExtras.attributes = new TreeMap<>(this.attributes);
+        }
+    }
+
+    private void decodeRawExtras() {
+        this.map.lock();
+        try {
+            if (this.rawExtras == null) {
+                return;
+            }
+            this.extras.putAll(this.rawExtras.decode());
+            this.rawExtras = null;
+        } finally {
+            this.map.unlock();
+        }
+    }
+
     public void putExtra(Extra.ExtraType type, Extra<?> extra) {
-        this.extras.put(type, extra);
+        this.extras().put(type, extra);
+        this.map.onTopicContentChanged((T) this);
+        this.onContentChanged();
     }
 
 
@@ -446,21 +516,29 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
 
     public void putCodeSnippet(String k, String snippet) {
         this.codeSnippets.put(k, snippet);
+        this.onContentChanged();
     }
 
     public void putCodeSnippets(Map<String, String> codeSnippets) {
         this.codeSnippets.putAll(codeSnippets);
+        this.onContentChanged();
     }
 
     public boolean setAttribute(String name, String value) {
         this.map.lock();
         try {
+            boolean changed;
             if (value == null) {
-                return this.attributes.remove(name) != null;
+                changed = this.attributes.remove(name) != null;
             }
             else {
-                return !value.equals(this.attributes.put(name, value));
+                changed = !value.equals(this.attributes.put(name, value));
+            }
+            if (changed) {
+                this.map.onTopicContentChanged((T) this);
+                this.onContentChanged();
             }
+            return changed;
         } finally {
             this.map.unlock();
         }
@@ -468,17 +546,24 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
 
     public void putAttributes(Map<String, String> attributes) {
         this.attributes.putAll(attributes);
+        this.map.onTopicContentChanged((T) this);
+        this.onContentChanged();
     }
 
     public boolean setCodeSnippet(String language, String text) {
         this.map.lock();
         try {
+            boolean changed;
             if (text == null) {
-                return this.codeSnippets.remove(language) != null;
+                changed = this.codeSnippets.remove(language) != null;
             }
             else {
-                return !text.equals(this.codeSnippets.put(language, text));
+                changed = !text.equals(this.codeSnippets.put(language, text));
             }
+            if (changed) {
+                this.onContentChanged();
+            }
+            return changed;
         } finally {
             this.map.unlock();
         }
@@ -524,6 +609,7 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         this.map.lock();
         try {
             this.text = Assertions.assertNotNull(text);
+            this.onContentChanged();
         } finally {
             this.map.unlock();
         }
@@ -546,12 +632,16 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         try {
             boolean result = false;
             for (Extra.ExtraType e : Assertions.assertDoesntContainNull(types)) {
-                Extra<?> removed = this.extras.remove(e);
+                Extra<?> removed = this.extras().remove(e);
                 if (removed != null) {
                     removed.detachedToTopic(this);
                 }
                 result |= removed != null;
             }
+            if (result) {
+                this.map.onTopicContentChanged((T) this);
+                this.onContentChanged();
+            }
             return result;
         } finally {
             this.map.unlock();
@@ -562,9 +652,11 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         this.map.lock();
         try {
             for (Extra<?> e : Assertions.assertDoesntContainNull(extras)) {
-                this.extras.put(e.getType(), e);
+                this.extras().put(e.getType(), e);
                 e.attachedToTopic(this);
             }
+            this.map.onTopicContentChanged((T) this);
+            this.onContentChanged();
         } finally {
             this.map.unlock();
         }
@@ -693,9 +785,9 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         ModelUtils.writeChar(out, '#', level);
         out.append(' ').append(ModelUtils.escapeMarkdownStr(this.text)).append(NEXT_LINE);
 
-        if (!this.attributes.isEmpty() || !this.extras.isEmpty()) {
+        if (!this.attributes.isEmpty() || !this.extras().isEmpty()) {
             Map<String, String> attributesToWrite = new HashMap<>(this.attributes);
-            for (Map.Entry<Extra.ExtraType, Extra<?>> e : this.extras.entrySet()) {
+            for (Map.Entry<Extra.ExtraType, Extra<?>> e : this.extras().entrySet()) {
                 e.getValue().addAttributesForWrite(attributesToWrite);
             }
 
@@ -705,12 +797,12 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
             }
         }
 
-        if (!this.extras.entrySet().isEmpty()) {
-            List<Extra.ExtraType> types = new ArrayList<>(this.extras.keySet());
+        if (!this.extras().entrySet().isEmpty()) {
+            List<Extra.ExtraType> types = new ArrayList<>(this.extras().keySet());
             types.sort(Comparator.comparing(Enum::name));
 
             for (Extra.ExtraType e : types) {
-                this.extras.get(e).write(out);
+                this.extras().get(e).write(out);
                 out.append(NEXT_LINE);
             }
         }
@@ -798,6 +890,8 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
             T t = iterator.next();
             if (t == topic) {
                 iterator.remove();
+                this.onChildrenChanged();
+                this.map.onTopicDetached(t);
                 return true;
             }
             else if (t.removeTopic(topic)) {
@@ -808,7 +902,10 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
     }
 
     public void removeAllChildren() {
+        List<T> removed = new ArrayList<>(this.children);
         this.children.clear();
+        this.onChildrenChanged();
+        removed.forEach(this.map::onTopicDetached);
     }
 
     public boolean moveToNewParent(T newParent) {
@@ -902,15 +999,17 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         this.map.lock();
         try {
             if (extras == null || extras.length == 0) {
-                this.extras.clear();
+                this.extras().clear();
             }
             else {
                 for (Extra<?> e : extras) {
                     if (e != null) {
-                        this.extras.remove(e.getType());
+                        this.extras().remove(e.getType());
                     }
                 }
             }
+            this.map.onTopicContentChanged((T) this);
+            this.onContentChanged();
         } finally {
             this.map.unlock();
         }
@@ -989,8 +1088,8 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         try {
             //
             T result = parent == null ?
-                    creator.createRoot(newMindMap, this.text, this.extras.values().toArray(new Extra<?>[0])) :
-                    parent.createChild(text, this.extras.values().toArray(new Extra<?>[0]));
+                    creator.createRoot(newMindMap, this.text, this.extras().values().toArray(new Extra<?>[0])) :
+                    parent.createChild(text, this.extras().values().toArray(new Extra<?>[0]));
             for (T c : this.children) {
                 c.makeCopy(newMindMap, result, creator);
             }
@@ -1008,7 +1107,11 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         this.map.lock();
         try {
             for (Extra.ExtraType t : type) {
-                result |= this.extras.remove(t) != null;
+                result |= this.extras().remove(t) != null;
+            }
+            if (result) {
+                this.map.onTopicContentChanged((T) this);
+                this.onContentChanged();
             }
             for (T c : this.children) {
                 result |= c.removeExtraFromSubtree(type);
@@ -1027,6 +1130,10 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
             for (String t : names) {
                 result |= this.attributes.remove(t) != null;
             }
+            if (result) {
+                this.map.onTopicContentChanged((T) this);
+                this.onContentChanged();
+            }
             for (T c : this.children) {
                 result |= c.removeAttributeFromSubtree(names);
             }
@@ -1038,10 +1145,13 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
 
     public boolean deleteLinkToFileIfPresented(File baseFolder, MMapURI file) {
         boolean result = false;
-        if (this.extras.containsKey(Extra.ExtraType.FILE)) {
-            ExtraFile fileLink = (ExtraFile) this.extras.get(Extra.ExtraType.FILE);
+        if (this.extras().containsKey(Extra.ExtraType.FILE)) {
+            ExtraFile fileLink = (ExtraFile) this.extras().get(Extra.ExtraType.FILE);
             if (fileLink.isSameOrHasParent(baseFolder, file)) {
-                result = this.extras.remove(Extra.ExtraType.FILE) != null;
+                result = this.extras().remove(Extra.ExtraType.FILE) != null;
+                if (result) {
+                    this.onContentChanged();
+                }
             }
         }
         for (T c : this.children) {
@@ -1052,8 +1162,8 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
 
     public boolean replaceLinkToFileIfPresented(File baseFolder, MMapURI oldFile, MMapURI newFile) {
         boolean result = false;
-        if (this.extras.containsKey(Extra.ExtraType.FILE)) {
-            ExtraFile fileLink = (ExtraFile) this.extras.get(Extra.ExtraType.FILE);
+        if (this.extras().containsKey(Extra.ExtraType.FILE)) {
+            ExtraFile fileLink = (ExtraFile) this.extras().get(Extra.ExtraType.FILE);
             ExtraFile replacement;
 
             if (fileLink.isSame(baseFolder, oldFile)) {
@@ -1065,8 +1175,9 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
 
             if (replacement != null) {
                 result = true;
-                this.extras.remove(Extra.ExtraType.FILE);
-                this.extras.put(Extra.ExtraType.FILE, replacement);
+                this.extras().remove(Extra.ExtraType.FILE);
+                this.extras().put(Extra.ExtraType.FILE, replacement);
+                this.onContentChanged();
             }
         }
 
@@ -1077,8 +1188,8 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
     }
 
     public boolean doesContainFileLink(File baseFolder, MMapURI file) {
-        if (this.extras.containsKey(Extra.ExtraType.FILE)) {
-            ExtraFile fileLink = (ExtraFile) this.extras.get(Extra.ExtraType.FILE);
+        if (this.extras().containsKey(Extra.ExtraType.FILE)) {
+            ExtraFile fileLink = (ExtraFile) this.extras().get(Extra.ExtraType.FILE);
             if (fileLink.isSame(baseFolder, file)) {
                 return true;
             }
@@ -1098,15 +1209,20 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         return new Iterator<T>() {
             T childTopic;
             Iterator<T> childIterator;
+            // the direct child that is removed by iter.remove().
+            T lastChild;
 
             @Override
             public void remove() {
                 iter.remove();
+                Topic.this.onChildrenChanged();
+                Topic.this.map.onTopicDetached(this.lastChild);
             }
 
             Iterator<T> init() {
                 if (iter.hasNext()) {
                     this.childTopic = iter.next();
+                    this.lastChild = this.childTopic;
                 }
                 return this;
             }
@@ -1131,6 +1247,7 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
                     }
                     else {
                         result = iter.next();
+                        this.lastChild = result;
                         this.childIterator = result.iterator();
                     }
                 }
@@ -1161,4 +1278,44 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         }
         return result;
     }
+
+    /**
+     * Extras loaded from file that are not decoded yet, with the attributes of the topic when it's loaded.
+     * It's not changed after the topic is loaded.
+     *
+     * @since 1.11
+     */
+    public static final class RawExtras implements Serializable {
+
+        private final EnumMap<Extra.ExtraType, String> texts = new EnumMap<>(Extra.ExtraType.class);
+        private Map<String, String> attributes;
+
+        private RawExtras() {
+        }
+
+        /**
+         * Decode the extras with the attributes loaded with them (e.g. encryption of note), a new map is returned
+         * for every call.
+         *
+         * @return
+         */
+        public Map<Extra.ExtraType, Extra<?>> decode() {
+            Map<Extra.ExtraType, Extra<?>> result = new EnumMap<>(Extra.ExtraType.class);
+            for (Map.Entry<Extra.ExtraType, String> entry : this.texts.entrySet()) {
+                Extra.ExtraType extraType = entry.getKey();
+                try {
+                    String groupPre = extraType.preprocessString(entry.getValue());
+                    if (groupPre != null) {
+                        result.put(extraType, extraType.parseLoaded(groupPre, this.attributes));
+                    }
+                    else {
+                        logger.error("Detected invalid extra data " + extraType);
+                    }
+                } catch (Exception ex) {
+                    logger.error("Unexpected exception #23241", ex);
+                }
+            }
+            return result;
+        }
+    }
 }
@@ -0,0 +1,101 @@
+package com.igormaznitsa.mindmap.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Cursor for searching topics of a mind map in pre-order (the order of topics in file), the topics are flattened
+ * once when the cursor is created and the cursor keeps its position, so that finding the matches one by one or all
+ * at once is a single linear pass.
+ * The cursor doesn't reflect the topics added, removed or moved after it's created, changing the content of topics
+ * (like replacing the text) is fine.
+ *
+ * @author mindolph.com@gmail.com
+ * @see MindMap#searchCursor(Topic)
+ * @since 1.11
+ */
+public final class TopicSearchCursor<T extends Topic<T>> {
+
+    private final MindMap<T> map;
+    private final List<T> topics;
+    // index of the current topic, -1 if the cursor is not on any topic.
+    private int current;
+
+    TopicSearchCursor(MindMap<T> map, List<T> topics, int current) {
+        this.map = map;
+        this.topics = topics;
+        this.current = current;
+    }
+
+    /**
+     * Move to the next matched topic after the current one, from the first topic if the cursor is not on any topic.
+     *
+     * @param matcher
+     * @return null if no more matched topic, the cursor is not moved in that case.
+     */
+    public T next(Predicate<T> matcher) {
+        this.map.lock();
+        try {
+            for (int i = this.current + 1; i < this.topics.size(); i++) {
+                T t = this.topics.get(i);
+                if (matcher.test(t)) {
+                    this.current = i;
+                    return t;
+                }
+            }
+            return null;
+        } finally {
+            this.map.unlock();
+        }
+    }
+
+    /**
+     * Move to the previous matched topic before the current one, from the last topic if the cursor is not on any topic.
+     *
+     * @param matcher
+     * @return null if no more matched topic, the cursor is not moved in that case.
+     */
+    public T previous(Predicate<T> matcher) {
+        this.map.lock();
+        try {
+            for (int i = (this.current < 0 ? this.topics.size() : this.current) - 1; i >= 0; i--) {
+                T t = this.topics.get(i);
+                if (matcher.test(t)) {
+                    this.current = i;
+                    return t;
+                }
+            }
+            return null;
+        } finally {
+            this.map.unlock();
+        }
+    }
+
+    /**
+     * Find all matched topics after the current one in one pass, the cursor is moved to the last matched topic.
+     *
+     * @param matcher
+     * @return matched topics in pre-order, empty if nothing matched.
+     */
+    public List<T> findAll(Predicate<T> matcher) {
+        List<T> result = new ArrayList<>();
+        this.map.lock();
+        try {
+            T t;
+            while ((t = this.next(matcher)) != null) {
+                result.add(t);
+            }
+        } finally {
+            this.map.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * @return the topic that the cursor is on, null if it's not on any topic.
+     */
+    public T getCurrent() {
+        return this.current < 0 ? null : this.topics.get(this.current);
+    }
+}
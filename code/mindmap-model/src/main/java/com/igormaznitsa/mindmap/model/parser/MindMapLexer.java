@@ -19,6 +19,8 @@ package com.igormaznitsa.mindmap.model.parser;
 import com.igormaznitsa.meta.annotation.ReturnsOriginal;
 import com.igormaznitsa.meta.common.utils.Assertions;
 
+import java.io.Reader;
+
 /**
  * Allows to extract lexeme from mind map file.
  */
@@ -26,6 +28,8 @@ public final class MindMapLexer {
 
     private final LexerPosition position = new LexerPosition(0, TokenType.UNKNOWN_LINE);
     private CharSequence buffer = "";
+    // not null if the lexer is reading from a stream.
+    private StreamCharSequence stream;
     private int endOffset;
     private int tokenStart;
     private int tokenEnd;
@@ -42,6 +46,7 @@ public final class MindMapLexer {
     public void start(CharSequence buffer, int startOffset, int endOffset,
                       MindMapLexer.TokenType initialState) {
         this.buffer = buffer;
+        this.stream = null;
         this.tokenType = initialState;
         this.position.offset = startOffset;
         this.position.tokenCompleted = true;
@@ -49,6 +54,19 @@ public final class MindMapLexer {
         this.endOffset = endOffset;
     }
 
+    /**
+     * Start to read tokens from the reader, only the chars of the current token are kept in memory,
+     * so the text got from {@link #getBufferSequence()} is only valid within the current token.
+     *
+     * @param reader
+     * @param initialState
+     * @since 1.11
+     */
+    public void start(Reader reader, MindMapLexer.TokenType initialState) {
+        this.start(new StreamCharSequence(reader), 0, Integer.MAX_VALUE, initialState);
+        this.stream = (StreamCharSequence) this.buffer;
+    }
+
     public void setBufferEndOffset(int value) {
         this.endOffset = value;
     }
@@ -80,6 +98,10 @@ public final class MindMapLexer {
     public void advance() {
         boolean tokenHasBeenCompleted = this.position.isTokenCompleted();
         this.tokenStart = tokenHasBeenCompleted ? this.position.offset : this.tokenStart;
+        if (this.stream != null) {
+            // keep the previous line end to detect line start.
+            this.stream.release(this.tokenStart - 1);
+        }
         boolean inAction = true;
 
         while (inAction && !isBufferEnd()) {
@@ -267,7 +289,7 @@ public final class MindMapLexer {
 
     private boolean hasTextAt(String text, int position) {
         boolean result = false;
-        if (position >= 0 && position + text.length() <= this.buffer.length()) {
+        if (position >= 0 && isAvailable(position + text.length() - 1)) {
             boolean ok = true;
             for (int i = 0; i < text.length(); i++) {
                 if (text.charAt(i) != this.buffer.charAt(position++)) {
@@ -281,7 +303,11 @@ public final class MindMapLexer {
     }
 
     private boolean isBufferEnd() {
-        return this.position.offset >= this.endOffset;
+        return this.position.offset >= this.endOffset || (this.stream != null && !this.stream.isAvailable(this.position.offset));
+    }
+
+    private boolean isAvailable(int offset) {
+        return this.stream == null ? offset < this.buffer.length() : this.stream.isAvailable(offset);
     }
 
     private boolean tokenStartsWith(String text) {
@@ -408,7 +434,7 @@ public final class MindMapLexer {
                 break;
             }
         }
-        return this.buffer.length() == this.position.offset || result;
+        return !isAvailable(this.position.offset) || result;
     }
 
     private char readChar() {
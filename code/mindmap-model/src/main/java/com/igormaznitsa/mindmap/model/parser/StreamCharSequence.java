@@ -0,0 +1,114 @@
+package com.igormaznitsa.mindmap.model.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Char sequence over a reader, which keeps only a window of chars in memory instead of the whole text.
+ * Indexes are absolute offsets in the whole text, chars are read from the reader on demand, and chars
+ * before the released offset are dropped when the window needs room.
+ * The length is the count of chars that have been read so far, use {@link #isAvailable(int)} to detect the end.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public final class StreamCharSequence implements CharSequence {
+
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    private final Reader reader;
+    private char[] buffer;
+    // absolute offset of the first char in buffer.
+    private int base;
+    private int count;
+    // chars before this absolute offset are not needed any more.
+    private int released;
+    private boolean eof;
+
+    public StreamCharSequence(Reader reader) {
+        this(reader, DEFAULT_CAPACITY);
+    }
+
+    public StreamCharSequence(Reader reader, int initialCapacity) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * @param offset absolute offset
+     * @return true if the char at the offset exists, false if the end of the text reached.
+     */
+    public boolean isAvailable(int offset) {
+        while (offset >= base + count) {
+            if (eof || !fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Release the chars before the offset, they won't be accessed any more.
+     *
+     * @param offset absolute offset
+     */
+    public void release(int offset) {
+        this.released = Math.max(this.released, offset);
+    }
+
+    private boolean fill() {
+        if (count == buffer.length) {
+            int drop = Math.max(0, Math.min(released, base + count) - base);
+            // grow only if the window is mostly occupied by the chars still needed.
+            char[] target = drop > buffer.length / 2 ? buffer : new char[buffer.length * 2];
+            System.arraycopy(buffer, drop, target, 0, count - drop);
+            base += drop;
+            count -= drop;
+            buffer = target;
+        }
+        try {
+            int len = reader.read(buffer, count, buffer.length - count);
+            if (len < 0) {
+                eof = true;
+                return false;
+            }
+            count += len;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int length() {
+        return base + count;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < base || !isAvailable(index)) {
+            throw new IndexOutOfBoundsException("Char is not available at " + index);
+        }
+        return buffer[index - base];
+    }
+
+    /**
+     * @return a copy of chars between the absolute offsets, they must not be released.
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < base || start > end || (end > start && !isAvailable(end - 1))) {
+            throw new IndexOutOfBoundsException("Chars are not available between %d and %d".formatted(start, end));
+        }
+        return new String(buffer, start - base, end - start);
+    }
+
+    /**
+     * @return chars in the window.
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, count);
+    }
+}
@@ -29,8 +29,10 @@ import java.io.ObjectOutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 import org.junit.Assert;
@@ -104,6 +106,36 @@ public class MindMapTest {
         assertNull(map.findPrev(null, solar, Pattern.compile(Pattern.quote("ar")), true, null));
     }
 
+    @Test
+    public void testFindAll() throws Exception {
+        MindMap<TestTopicNode> map = new MindMap<>(new StringReader("test\n---\n# Solar\n## Mercury\n## Venus\n## Earth\n### Moon\n## Mars\n### Phobos\n### Deimos"), TestTopicNode.testTopicCreator);
+        List<TestTopicNode> found = map.findAll(null, null, Pattern.compile(Pattern.quote("ar")), true, null, null);
+        assertEquals(List.of("Solar", "Earth", "Mars"), found.stream().map(Topic::getText).toList());
+        found = map.findAll(null, map.getRoot(), Pattern.compile(Pattern.quote("ar")), true, null, null);
+        assertEquals(List.of("Earth", "Mars"), found.stream().map(Topic::getText).toList());
+        assertTrue(map.findAll(null, null, Pattern.compile(Pattern.quote("Pluto")), true, null, null).isEmpty());
+    }
+
+    @Test
+    public void testSearchCursor() throws Exception {
+        MindMap<TestTopicNode> map = new MindMap<>(new StringReader("test\n---\n# Solar\n## Mercury\n## Venus\n## Earth\n### Moon\n## Mars\n### Phobos\n### Deimos"), TestTopicNode.testTopicCreator);
+        Pattern pattern = Pattern.compile(Pattern.quote("o"));
+        TopicSearchCursor<TestTopicNode> cursor = map.searchCursor(null);
+        Predicate<TestTopicNode> matcher = map.makeTopicMatcher(null, pattern, true, null, null);
+        assertNull(cursor.getCurrent());
+        assertEquals("Solar", cursor.next(matcher).getText());
+        assertEquals("Moon", cursor.next(matcher).getText());
+        assertEquals("Phobos", cursor.next(matcher).getText());
+        assertEquals("Deimos", cursor.next(matcher).getText());
+        assertNull(cursor.next(matcher));
+        assertEquals("Deimos", cursor.getCurrent().getText());
+        assertEquals("Phobos", cursor.previous(matcher).getText());
+        assertEquals("Moon", cursor.previous(matcher).getText());
+
+        cursor = map.searchCursor(null);
+        assertEquals("Deimos", cursor.previous(matcher).getText());
+    }
+
     @Test
     public void testMindMapParse_NoAttributes() throws Exception {
         MindMap<TestTopicNode> map = new MindMap<>(new StringReader("lkf\n---\n# Hello"), TestTopicNode.testTopicCreator);
@@ -225,4 +257,77 @@ public class MindMapTest {
         Assert.assertEquals("child2.2", firstInTree.get().getText());
         System.out.println(firstInTree.get().getText());
     }
+
+    @Test
+    public void testJumpLinkIndex() throws Exception {
+        MindMap<TestTopicNode> map = new MindMap<>(new StringReader("""
+                ---
+                # root
+                ## child1
+                > topicLinkUID=`UID1`
+                ## child2
+                - TOPIC
+                <pre>UID1</pre>
+                """), TestTopicNode.testTopicCreator);
+        TestTopicNode child1 = map.getRoot().getChildren().get(0);
+        TestTopicNode child2 = map.getRoot().getChildren().get(1);
+        assertEquals(child1, map.findTopicForLink(new ExtraTopic("UID1")));
+        assertEquals(List.of(child2), map.findAllTopicsWithJumps());
+
+        // index is updated with changes of topics
+        TestTopicNode child3 = new TestTopicNode(map, child1, "child3");
+        child3.setExtra(ExtraTopic.makeLinkTo(map, child2));
+        assertEquals(child2, map.findTopicForLink((ExtraTopic) child3.getExtras().get(Extra.ExtraType.TOPIC)));
+        assertEquals(2, map.findAllTopicsWithJumps().size());
+
+        TestTopicNode cloned = map.cloneTopic(child1, true);
+        assertEquals(child1, map.findTopicForLink(new ExtraTopic("UID1")));
+        assertEquals(3, map.findAllTopicsWithJumps().size());
+
+        map.removeTopic(cloned);
+        map.removeTopic(child1);
+        assertNull(map.findTopicForLink(new ExtraTopic("UID1")));
+        assertTrue(map.findAllTopicsWithJumps().isEmpty()); // links to removed topic are removed as well
+
+        child1.setAttribute(ExtraTopic.TOPIC_UID_ATTR, "UID2");
+        assertNull(map.findTopicForLink(new ExtraTopic("UID2"))); // not in the tree any more
+        child1.moveToNewParent(child2);
+        assertEquals(child1, map.findTopicForLink(new ExtraTopic("UID2")));
+
+        // the duplicated one is found after the first one is removed.
+        TestTopicNode duplicated = new TestTopicNode(map, map.getRoot(), "duplicated");
+        duplicated.setAttribute(ExtraTopic.TOPIC_UID_ATTR, "UID2");
+        assertEquals(child1, map.findTopicForLink(new ExtraTopic("UID2")));
+        map.removeTopic(child1);
+        assertEquals(duplicated, map.findTopicForLink(new ExtraTopic("UID2")));
+    }
+
+    @Test
+    public void testJumpLinkIndex_duplicatedUidMoved() throws Exception {
+        MindMap<TestTopicNode> map = new MindMap<>(new StringReader("""
+                ---
+                # root
+                ## child1
+                > topicLinkUID=`UID1`
+                ## child2
+                ### child2.1
+                > topicLinkUID=`UID1`
+                """), TestTopicNode.testTopicCreator);
+        TestTopicNode child1 = map.getRoot().getChildren().get(0);
+        TestTopicNode child2 = map.getRoot().getChildren().get(1);
+        TestTopicNode child21 = child2.getChildren().get(0);
+        assertEquals(child1, map.findTopicForLink(new ExtraTopic("UID1")));
+        // the first one in tree order is found after moving.
+        child2.makeFirst();
+        assertEquals(child21, map.findTopicForLink(new ExtraTopic("UID1")));
+        child1.moveBefore(child2);
+        assertEquals(child1, map.findTopicForLink(new ExtraTopic("UID1")));
+        child1.moveToNewParent(child21);
+        assertEquals(child21, map.findTopicForLink(new ExtraTopic("UID1")));
+        // removed by the iterator of topic.
+        Iterator<TestTopicNode> it = child2.iterator();
+        it.next();
+        it.remove();
+        assertNull(map.findTopicForLink(new ExtraTopic("UID1")));
+    }
 }
@@ -0,0 +1,90 @@
+package com.igormaznitsa.mindmap.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse a big mind map file with notes, links and images.
+ * The throughput of parsing is reported as "megabytes" (MB/s) and "topics" (topics/s) by the counters,
+ * the allocation per topic is "gc.alloc.rate.norm" of the GC profiler divided by the topic count.
+ *
+ * @author mindolph.com@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class ParseBenchmark {
+
+    @Param({"2000", "20000"})
+    private int topicCount;
+
+    // decode all extras after parsing, like the mind map is displayed.
+    @Param({"false", "true"})
+    private boolean accessExtras;
+
+    private String text;
+    private double megabytes;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ParseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public double megabytes;
+        public long topics;
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        byte[] image = new byte[3000];
+        MindMap<TestTopicNode> map = new MindMap<>();
+        TestTopicNode root = new TestTopicNode(map, null, "Root topic");
+        map.setRoot(root);
+        TestTopicNode parent = root;
+        for (int i = 0; i < topicCount; i++) {
+            if (i % 10 == 0) {
+                parent = new TestTopicNode(map, root, "Branch " + i);
+            }
+            TestTopicNode topic = new TestTopicNode(map, parent, "Topic %d with some text".formatted(i));
+            switch (i % 4) {
+                case 0 -> topic.setExtra(new ExtraNote("Note of topic %d\n".formatted(i).repeat(20)));
+                case 1 -> topic.setExtra(new ExtraLink(new MMapURI(URI.create("https://mindolph.com/topic/" + i))));
+                case 2 -> {
+                    random.nextBytes(image);
+                    topic.setAttribute("mmd.image", Base64.getEncoder().encodeToString(image));
+                }
+                default -> topic.setAttribute("fillColor", "#ff00%02x".formatted(i % 256));
+            }
+        }
+        text = map.packToString();
+        megabytes = text.length() / 1024d / 1024d;
+    }
+
+    @Benchmark
+    public MindMap<TestTopicNode> parse(Counters counters) throws IOException {
+        MindMap<TestTopicNode> map = new MindMap<>(new StringReader(text), TestTopicNode.testTopicCreator);
+        if (accessExtras) {
+            map.traverseTopicTree(Topic::getExtras);
+        }
+        counters.megabytes += megabytes;
+        counters.topics += topicCount;
+        return map;
+    }
+}
@@ -17,6 +17,8 @@
 package com.igormaznitsa.mindmap.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -385,6 +387,27 @@ public class TopicTest {
     assertEquals("tip", parsedNote.getHint());
   }
 
+  @Test
+  public void testParse_extrasDecodedLazily() throws Exception {
+    MindMap mm = createMindMapWithRoot();
+    Topic root = new Topic(mm, null, "root");
+    mm.setRoot(root);
+    root.setExtra(new ExtraNote("Encrypted world", true, "tip"));
+    String written = mm.write(new StringWriter()).toString();
+
+    MindMap parsed = new MindMap(new StringReader(written), TestTopicNode.testTopicCreator);
+    Topic parsedRoot = parsed.getRoot();
+    assertTrue(parsedRoot.hasExtra(Extra.ExtraType.NOTE));
+    assertFalse(parsedRoot.hasExtra(Extra.ExtraType.LINK));
+    assertNotNull(parsedRoot.getRawExtras()); // not decoded by the check
+
+    // decoded with the attributes it's loaded with.
+    parsedRoot.setAttribute(ExtraNote.ATTR_ENCRYPTED, null);
+    ExtraNote parsedNote = (ExtraNote) parsedRoot.getExtras().get(Extra.ExtraType.NOTE);
+    assertTrue(parsedNote.isEncrypted());
+    assertNull(parsedRoot.getRawExtras());
+  }
+
   @Test
   public void testParse_noteContainsTicks() throws Exception {
     MindMap mm = createMindMapWithRoot();
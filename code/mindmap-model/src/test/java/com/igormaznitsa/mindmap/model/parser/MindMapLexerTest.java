@@ -24,6 +24,7 @@ import static org.junit.Assert.assertTrue;
 import org.apache.commons.io.IOUtils;
 import com.igormaznitsa.mindmap.model.parser.MindMapLexer.TokenType;
 
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 
 public class MindMapLexerTest {
@@ -551,4 +552,29 @@ public class MindMapLexerTest {
     assertEquals(etalon,accum3.toString());
   }
   
+  @Test
+  public void testStreamingSameAsBuffer() throws Exception {
+    // long note is bigger than the window of stream
+    final String etalon = IOUtils.toString(MindMapLexerTest.class.getResourceAsStream("cancer_risk.mmd"), StandardCharsets.UTF_8)
+        + "\n## Long note\n- NOTE\n<pre>" + "0123456789\n".repeat(3000) + "</pre>\n";
+
+    final MindMapLexer bufferLexer = new MindMapLexer();
+    bufferLexer.start(etalon, 0, etalon.length(), MindMapLexer.TokenType.HEAD_LINE);
+    final MindMapLexer streamLexer = new MindMapLexer();
+    streamLexer.start(new StringReader(etalon), MindMapLexer.TokenType.HEAD_LINE);
+
+    int tokens = 0;
+    while (true) {
+      bufferLexer.advance();
+      streamLexer.advance();
+      assertEquals(bufferLexer.getTokenType(), streamLexer.getTokenType());
+      if (bufferLexer.getTokenType() == null) {
+        break;
+      }
+      assertEquals(bufferLexer.getTokenStartOffset(), streamLexer.getTokenStartOffset());
+      assertEquals(bufferLexer.getTokenText(), streamLexer.getTokenText());
+      tokens++;
+    }
+    assertTrue(tokens > 100);
+  }
 }
@@ -57,7 +57,6 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -102,8 +101,10 @@ public class MindMapView extends BaseScalableView implements Anchorable {
     private ModelChangedEventHandler modelChangedEventHandler;
 
     // For Undo/Redo
-    private final UndoRedoStorage<String> undoStorage = new UndoRedoStorage<>(20);
-    private final AtomicReference<String> currentModelState = new AtomicReference<>();
+    private static final long UNDO_MAX_BYTES = 32 * 1024 * 1024;
+    private static final int UNDO_CHECKPOINT_INTERVAL = 20;
+    private final UndoRedoStorage<ModelPatch> undoStorage = new UndoRedoStorage<>(20, UNDO_MAX_BYTES, ModelPatch::getSize);
+    private final ModelPatchTracker patchTracker = new ModelPatchTracker(UNDO_CHECKPOINT_INTERVAL);
     private final AtomicBoolean preventAddUndo = new AtomicBoolean();
 
     private final BooleanProperty undoAvailable = new SimpleBooleanProperty(false);
@@ -144,7 +145,7 @@ public class MindMapView extends BaseScalableView implements Anchorable {
         // TODO this could be refactored to createDefaultSkin method
         this.skinProperty().addListener((observableValue, oldSkin, newSkin) -> {
             setModel(model, false, false, true);
-            currentModelState.set(model.packToString()); // init the model state for undo/redo
+            patchTracker.reset(model); // init the model state for undo/redo
             log.debug("Mind map model loaded.");
         });
         log.info("MindMapView constructed.");
@@ -451,7 +452,7 @@ public class MindMapView extends BaseScalableView implements Anchorable {
 
 
     public void loadModel(MindMap<TopicNode> model) {
-        currentModelState.set(model.packToString()); // init the model state for undo/redo
+        patchTracker.reset(model); // init the model state for undo/redo
         setModel(model, false, false, true);
     }
 
@@ -497,23 +498,27 @@ public class MindMapView extends BaseScalableView implements Anchorable {
 
     public void reload() {
         log.debug("Reload from preferences");
+        if (model != null) {
+            model.resetPayload(); // elements are re-created with the changed preferences.
+        }
         forceRefresh();
     }
 
     public void onMindMapModelChanged(boolean saveToHistory) {
         log.debug("MindMap Model Changed");
         log.debug("Save to history? " + saveToHistory);
-        if (saveToHistory && !this.preventAddUndo.get() && this.currentModelState.get() != null) {
-            log.debug("Save to undo");
-            String state = this.currentModelState.getAndSet(model.packToString());
-            // backup(state);
-            this.undoStorage.addToUndo(state);
-            this.undoStorage.clearRedo();
-            undoAvailable.set(true);
-            redoAvailable.set(false);
+        if (saveToHistory && !this.preventAddUndo.get()) {
+            ModelPatch patch = this.patchTracker.diff(model);
+            if (patch != null) {
+                log.debug("Save to undo");
+                this.undoStorage.addToUndo(patch);
+                this.undoStorage.clearRedo();
+                undoAvailable.set(true);
+                redoAvailable.set(false);
+            }
         }
         else {
-            this.currentModelState.set(model.packToString());
+            this.patchTracker.reset(model);
         }
         log.debug("Force re-calculate and repaint mind map when model changed");
         forceRefresh();
@@ -1597,13 +1602,7 @@ public class MindMapView extends BaseScalableView implements Anchorable {
         TopicNode found = getLastSelectedTopic();
         if (found != null) {
             log.debug("found and replace '%s' with '%s'".formatted(found.getText(), replacement));
-            String newText;
-            if (options.isCaseSensitive()) {
-                newText = StringUtils.replaceIgnoreCase(found.getText(), keywords, replacement);
-            }
-            else {
-                newText = StringUtils.replace(found.getText(), keywords, replacement);
-            }
+            String newText = this.replaceInText(found.getText(), keywords, options, replacement);
             BaseElement element = (BaseElement) found.getPayload();
             element.setText(newText);
             onMindMapModelChanged(true);
@@ -1611,36 +1610,60 @@ public class MindMapView extends BaseScalableView implements Anchorable {
         }
     }
 
+    /**
+     * Replace in all matched topics as a batch: the topics are found in one pass, and the model changed event
+     * is fired only once, so that all the replacements are undone with one undo.
+     *
+     * @param keywords
+     * @param options
+     * @param replacement
+     */
     public void replaceAll(String keywords, TextSearchOptions options, String replacement) {
-        TopicNode found = getModel().getRoot();
-        boolean replaced = false;
-        while (found != null) {
-            log.debug("found and replace '%s' with '%s'".formatted(found.getText(), replacement));
-            String newText;
-            if (options.isCaseSensitive()) {
-                newText = StringUtils.replaceIgnoreCase(found.getText(), keywords, replacement);
+        Pattern pattern = SearchUtils.string2pattern(keywords, options.isCaseSensitive() ? 0 : Pattern.CASE_INSENSITIVE);
+        List<TopicNode> matched = this.getModel().findAll(null, null, pattern, true, null, TOPIC_FINDERS);
+        int replaced = 0;
+        for (TopicNode found : matched) {
+            String newText = this.replaceInText(found.getText(), keywords, options, replacement);
+            if (StringUtils.equals(newText, found.getText())) {
+                continue; // matched in extras only
+            }
+            BaseElement element = (BaseElement) found.getPayload();
+            if (element != null) {
+                element.setText(newText);
             }
             else {
-                newText = StringUtils.replace(found.getText(), keywords, replacement);
+                found.setText(newText);
             }
-            BaseElement element = (BaseElement) found.getPayload();
-            element.setText(newText);
-            replaced = true;
-            log.debug("  with new text: %s".formatted(newText));
-            Pattern pattern = SearchUtils.string2pattern(keywords, options.isCaseSensitive() ? 0 : Pattern.CASE_INSENSITIVE);
-            found = this.getModel().findNext(null, found, pattern, true, null, TOPIC_FINDERS);
+            replaced++;
+        }
+        log.debug("%d of %d matched topics replaced with '%s'".formatted(replaced, matched.size(), replacement));
+        if (replaced > 0) onMindMapModelChanged(true);
+    }
+
+    private String replaceInText(String text, String keywords, TextSearchOptions options, String replacement) {
+        if (options.isCaseSensitive()) {
+            return StringUtils.replace(text, keywords, replacement);
+        }
+        else {
+            return StringUtils.replaceIgnoreCase(text, keywords, replacement);
         }
-        if (replaced) onMindMapModelChanged(true);
     }
 
     public void undo() {
         if (!endEdit(null, false)) {
             if (this.undoStorage.hasUndo()) {
-                // move model from undo to redo
-                this.undoStorage.addToRedo(currentModelState.getAndSet(this.undoStorage.fromUndo()));
+                // move patch from undo to redo
+                ModelPatch patch = this.undoStorage.fromUndo();
+                this.undoStorage.addToRedo(patch);
                 this.preventAddUndo.set(true);
                 try {
-                    this.setModel(new MindMap<>(new StringReader(this.currentModelState.get()), RootTopicCreator.defaultCreator), true, false, false);
+                    MindMap<TopicNode> patched = patch.undo(this.model);
+                    ModelPatch previous = this.undoStorage.peekUndo();
+                    MindMap<TopicNode> restored = previous == null ? patched : previous.verifyCheckpoint(patched);
+                    if (restored != patched) {
+                        this.clearHistory();
+                    }
+                    this.setModel(restored, true, false, false);
 //                        this.title.setChanged(
 //                                this.undoStorage.hasUndo() || this.undoStorage.hasRemovedUndoStateForFullBuffer());
                     log.debug("%s have undo".formatted(this.undoStorage.hasUndo() ? "still" : "not"));
@@ -1661,10 +1684,16 @@ public class MindMapView extends BaseScalableView implements Anchorable {
     public void redo() {
         if (!this.endEdit(null, false)) {
             if (this.undoStorage.hasRedo()) {
-                this.undoStorage.addToUndo(this.currentModelState.getAndSet(this.undoStorage.fromRedo()));
+                ModelPatch patch = this.undoStorage.fromRedo();
+                this.undoStorage.addToUndo(patch);
                 this.preventAddUndo.set(true);
                 try {
-                    this.setModel(new MindMap<>(new StringReader(this.currentModelState.get()), RootTopicCreator.defaultCreator), true, false, false);
+                    MindMap<TopicNode> patched = patch.redo(this.model);
+                    MindMap<TopicNode> restored = patch.verifyCheckpoint(patched);
+                    if (restored != patched) {
+                        this.clearHistory();
+                    }
+                    this.setModel(restored, true, false, false);
 //                        this.title.setChanged(
 //                                this.undoStorage.hasUndo() || this.undoStorage.hasRemovedUndoStateForFullBuffer());
                     redoAvailable.set(this.undoStorage.hasRedo());
@@ -1682,6 +1711,13 @@ public class MindMapView extends BaseScalableView implements Anchorable {
     }
 
 
+    // the patches refer to the topics of current model, they can't be applied to a model re-created from checkpoint.
+    private void clearHistory() {
+        log.debug("Clear undo and redo history");
+        this.undoStorage.clearUndo();
+        this.undoStorage.clearRedo();
+    }
+
     public void copy() {
         boolean result = copyTopicsToClipboard(MindMapUtils.removeDuplicatedAndDescendants(this.getSelectedTopics()), false);
         log.debug("topics copied: " + result);
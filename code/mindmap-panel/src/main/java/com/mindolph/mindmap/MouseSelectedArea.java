@@ -3,6 +3,7 @@ package com.mindolph.mindmap;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.mindolph.mindmap.model.BaseCollapsableElement;
 import com.mindolph.mindmap.model.BaseElement;
+import com.mindolph.mindmap.model.ElementRoot;
 import com.mindolph.mindmap.model.TopicNode;
 import javafx.geometry.Point2D;
 import javafx.geometry.Rectangle2D;
@@ -38,7 +39,17 @@ public class MouseSelectedArea {
     public List<TopicNode> getAllSelectedElements(MindMap<TopicNode> map) {
         List<TopicNode> result = new ArrayList<>();
         Rectangle2D rect = asRectangle();
-        addCoveredToList(result, map.getRoot(), rect);
+        TopicNode root = map.getRoot();
+        if (root != null && root.getPayload() instanceof ElementRoot rootElement && rootElement.getElementIndex() != null) {
+            for (BaseElement element : rootElement.getElementIndex().findIntersecting(rect)) {
+                if (rect.contains(element.getBounds())) {
+                    result.add(element.getModel());
+                }
+            }
+        }
+        else {
+            addCoveredToList(result, root, rect);
+        }
         return result;
     }
 
@@ -2,11 +2,8 @@ package com.mindolph.mindmap.gfx;
 
 import com.igormaznitsa.mindmap.model.*;
 import com.mindolph.base.constant.StrokeType;
-import com.mindolph.base.graphic.CanvasGraphicsWrapper;
 import com.mindolph.base.graphic.Graphics;
-import com.mindolph.base.util.GeometryConvertUtils;
 import com.mindolph.mindmap.I18n;
-import com.mindolph.mindmap.MindMapCalculateHelper;
 import com.mindolph.mindmap.MindMapConfig;
 import com.mindolph.mindmap.MindMapContext;
 import com.mindolph.mindmap.constant.MindMapConstants;
@@ -43,6 +40,8 @@ public class MindMapCanvas {
     private final MindMapConfig config;
     private final MindMapContext mindMapContext;
     private List<TopicNode> selectedTopics;
+    // scale that the elements were calculated with.
+    private double elementsScale = -1;
 
     public MindMapCanvas(Graphics g, MindMapConfig config, MindMapContext context) {
         this.g = g;
@@ -50,49 +49,127 @@ public class MindMapCanvas {
         this.mindMapContext = context;
     }
 
+    private BaseElement createElement(TopicNode topic, int level) {
+        return switch (level) {
+            case 0 -> new ElementRoot(topic, g, config, mindMapContext);
+            case 1 -> new ElementLevelFirst(topic, g, config, mindMapContext);
+            default -> new ElementLevelOther(topic, g, config, mindMapContext);
+        };
+    }
+
+    /**
+     * @param element
+     * @param level
+     * @return false if the topic of element has been moved to another level.
+     */
+    private boolean isElementForLevel(BaseElement element, int level) {
+        return switch (level) {
+            case 0 -> element instanceof ElementRoot;
+            case 1 -> element instanceof ElementLevelFirst;
+            default -> element instanceof ElementLevelOther;
+        };
+    }
+
+    /**
+     * @param topic
+     * @param level
+     * @return true if the element of topic or any of its descendants need to be (re)calculated.
+     */
+    private boolean isElementOutOfDate(TopicNode topic, int level) {
+        BaseElement element = (BaseElement) topic.getPayload();
+        return element == null || topic.isLayoutChanged() || !isElementForLevel(element, level);
+    }
+
+    /**
+     * Only the out-of-date elements are (re)created and calculated, the block sizes of their ancestors are re-calculated,
+     * the untouched branches are skipped.
+     *
+     * @param topic
+     * @param level
+     */
     private void setElementSizesForElementAndChildren(TopicNode topic, int level) {
         BaseElement element = (BaseElement) topic.getPayload();
-        if (element == null) {
-            switch (level) {
-                case 0:
-                    element = new ElementRoot(topic, g, config, mindMapContext);
-                    break;
-                case 1:
-                    element = new ElementLevelFirst(topic, g, config, mindMapContext);
-                    break;
-                default:
-                    element = new ElementLevelOther(topic, g, config, mindMapContext);
-                    break;
-            }
+        if (element == null || topic.isChanged() || !isElementForLevel(element, level)) {
+            element = createElement(topic, level);
             topic.setPayload(element);
+            element.updateElementBounds();
         }
-
-        element.updateElementBounds();
         for (TopicNode t : topic.getChildren()) {
-            setElementSizesForElementAndChildren(t, level + 1);
+            if (isElementOutOfDate(t, level + 1)) {
+                setElementSizesForElementAndChildren(t, level + 1);
+            }
         }
         element.updateBlockSize();
+        element.invalidateAlignment();
+        topic.clearChanged();
     }
 
+    /**
+     * Re-create and calculate all elements of the model.
+     *
+     * @param model
+     * @return
+     */
     public boolean calculateElementSizes(MindMap<TopicNode> model) {
         boolean result = false;
         TopicNode root = model == null ? null : model.getRoot();
         if (root != null && model != null) {
             model.resetPayload();
             setElementSizesForElementAndChildren(root, 0);
+            elementsScale = mindMapContext.getScale();
             result = true;
         }
         return result;
     }
 
+    /**
+     * Calculate only the elements changed since last calculation, all elements are calculated if they were not
+     * calculated by this canvas or the scale has been changed.
+     *
+     * @param model
+     * @return
+     * @since 1.11
+     */
+    public boolean updateElementSizes(MindMap<TopicNode> model) {
+        TopicNode root = model == null ? null : model.getRoot();
+        if (root == null) {
+            return false;
+        }
+        BaseElement rootElement = (BaseElement) root.getPayload();
+        if (rootElement == null || rootElement.getGraphics() != g || rootElement.getConfig() != config
+                || rootElement.getMindMapContext() != mindMapContext || elementsScale != mindMapContext.getScale()) {
+            return calculateElementSizes(model);
+        }
+        if (isElementOutOfDate(root, 0)) {
+            setElementSizesForElementAndChildren(root, 0);
+        }
+        return true;
+    }
+
     public Dimension2D layoutModelElements(MindMap<TopicNode> model) {
+        return layoutModelElements(model, 0, 0);
+    }
+
+    /**
+     * Layout elements with the root element at the position, the branches that not changed are just moved.
+     *
+     * @param model
+     * @param rootX
+     * @param rootY
+     * @return block size of the root element.
+     * @since 1.11
+     */
+    public Dimension2D layoutModelElements(MindMap<TopicNode> model, double rootX, double rootY) {
         Dimension2D result = null;
         if (model != null) {
             TopicNode rootTopic = model.getRoot();
             if (rootTopic != null) {
                 BaseElement root = (BaseElement) rootTopic.getPayload();
                 if (root != null) {
-                    root.alignElementAndChildren(true, 0, 0);
+                    if (root instanceof ElementRoot er) {
+                        er.setElementIndex(null); // the index is out of date.
+                    }
+                    root.alignOrMoveElementAndChildren(true, rootX, rootY);
                     result = root.getBlockSize();
                 }
             }
@@ -172,7 +249,16 @@ public class MindMapCanvas {
 
             TopicNode root = map.getRoot();
             if (root != null) {
-                drawTopicTree(root, collapsingTopic, drawSelection);
+                Rectangle2D clipBounds = g.getClipBounds();
+                if (root.getPayload() instanceof ElementRoot rootElement && rootElement.getElementIndex() != null && clipBounds != null) {
+                    // only paint the elements in the viewport.
+                    for (BaseElement element : rootElement.getElementIndex().findIntersecting(clipBounds)) {
+                        paintTopic(element.getModel(), collapsingTopic, drawSelection);
+                    }
+                }
+                else {
+                    drawTopicTree(root, collapsingTopic, drawSelection);
+                }
             }
         }
     }
@@ -210,7 +296,7 @@ public class MindMapCanvas {
     }
 
     private void drawJumps(MindMap<TopicNode> map) {
-        List<TopicNode> allTopicsWithJumps = map.findAllTopicsForExtraType(Extra.ExtraType.TOPIC);
+        List<TopicNode> allTopicsWithJumps = map.findAllTopicsWithJumps();
         float lineWidth = mindMapContext.safeScale(config.getTheme().getJumpLinkWidth(), 0.1f);
         mindMapContext.safeScale(config.getTheme().getJumpLinkWidth(), 0.3f);
         Color jumpLinkColor = config.getTheme().getJumpLinkColor();
@@ -329,21 +415,21 @@ public class MindMapCanvas {
      */
     public Dimension2D layoutFullDiagramWithCenteringToPaper(MindMap<TopicNode> model, Bounds paperSize) {
         Dimension2D resultSize = null;
-        if (calculateElementSizes(model)) {
-            Dimension2D rootBlockSize = layoutModelElements(model);
+        if (updateElementSizes(model)) {
             double paperMargin = config.getTheme().getPaperMargins() * mindMapContext.getScale();
+            ElementRoot rootElement = (ElementRoot) model.getRoot().getPayload();
+            Dimension2D rootBlockSize = rootElement.getBlockSize();
 
-            if (rootBlockSize != null) {
-                ElementRoot rootElement = (ElementRoot) model.getRoot().getPayload();
-
-                double rootOffsetXInBlock = rootElement.getLeftBlockSize().getWidth();
-                double rootOffsetYInBlock = (rootBlockSize.getHeight() - rootElement.getBounds().getHeight()) / 2;
+            double rootOffsetXInBlock = rootElement.getLeftBlockSize().getWidth();
+            double rootOffsetYInBlock = (rootBlockSize.getHeight() - rootElement.getBounds().getHeight()) / 2;
 
-                rootOffsetXInBlock += paperMargin;
-                rootOffsetYInBlock += paperMargin;
+            rootOffsetXInBlock += paperMargin;
+            rootOffsetYInBlock += paperMargin;
 
-                // extend the map in model?
-                moveDiagram(model, rootOffsetXInBlock, rootOffsetYInBlock);
+            // layout with the offset directly instead of moving the whole diagram after layout.
+            rootBlockSize = layoutModelElements(model, rootOffsetXInBlock, rootOffsetYInBlock);
+            if (rootBlockSize != null) {
+                rootElement.setElementIndex(ElementIndex.build(rootElement));
                 resultSize = new Dimension2D(Math.round(rootBlockSize.getWidth() + paperMargin * 2), Math.round(rootBlockSize.getHeight() + paperMargin * 2));
             }
         }
@@ -351,28 +437,8 @@ public class MindMapCanvas {
     }
 
     public static WritableImage renderMindMapAsImage(MindMap<TopicNode> model, MindMapConfig config, boolean expandAll) {
-        MindMap<TopicNode> workMap = new MindMap<>(model);
-        workMap.resetPayload();
-
-        if (expandAll) {
-            workMap.getRoot().removeCollapseAttr();
-        }
-        MindMapContext context = new MindMapContext();
-        Dimension2D blockSize = MindMapCalculateHelper.calculateSizeOfMapInPixels(workMap, config, context, expandAll);
-        if (blockSize == null) {
-            return null;
-        }
-
-        Graphics gfx = CanvasGraphicsWrapper.create(blockSize.getWidth(), blockSize.getHeight());
-        MindMapCanvas mmCanvas = new MindMapCanvas(gfx, config, new MindMapContext());
-        try {
-            gfx.setClip(0, 0, blockSize.getWidth(), blockSize.getHeight());
-            mmCanvas.layoutFullDiagramWithCenteringToPaper(workMap, GeometryConvertUtils.dimension2DToBounds(blockSize));
-            mmCanvas.drawOnGraphicsForConfiguration(workMap, false, null);
-        } finally {
-            gfx.dispose();
-        }
-        return ((CanvasGraphicsWrapper) gfx).getCanvas().snapshot(null, null);
+        TiledMindMapRenderer renderer = TiledMindMapRenderer.create(model, config, expandAll);
+        return renderer == null ? null : renderer.renderImage();
     }
 
     static String makeHtmlTooltipForExtra(MindMap<TopicNode> model, Extra<?> extra) {
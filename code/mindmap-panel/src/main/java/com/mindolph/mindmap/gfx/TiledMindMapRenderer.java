@@ -0,0 +1,169 @@
+package com.mindolph.mindmap.gfx;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.base.graphic.CanvasGraphicsWrapper;
+import com.mindolph.base.graphic.StreamingPngWriter;
+import com.mindolph.mindmap.MindMapConfig;
+import com.mindolph.mindmap.MindMapContext;
+import com.mindolph.mindmap.model.BaseElement;
+import com.mindolph.mindmap.model.TopicNode;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Render a whole mind map as image tile by tile: the map is laid out only once, then each tile is drawn on a small
+ * canvas with only the elements intersecting it (found by the element index), so the size of image is not limited
+ * by the max texture size of canvas, and the image can be streamed to PNG without holding all its pixels in memory.
+ * <p>
+ * The tiles of one strip (a row of tiles) are rendered in the FX application thread (which is the only thread canvas can
+ * be rendered), while the previous strips are encoded in parallel.
+ *
+ * @author mindolph.com@gmail.com
+ * @see StreamingPngWriter
+ * @since 1.11
+ */
+public class TiledMindMapRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(TiledMindMapRenderer.class);
+
+    public static final int TILE_WIDTH = 2048;
+    public static final int TILE_HEIGHT = 256;
+
+    private final MindMap<TopicNode> workMap;
+    private final MindMapCanvas mmCanvas;
+    private final CanvasGraphicsWrapper gfx;
+    private final WritableImage tileImage = new WritableImage(TILE_WIDTH, TILE_HEIGHT);
+    private final int width;
+    private final int height;
+
+    private TiledMindMapRenderer(MindMap<TopicNode> workMap, MindMapCanvas mmCanvas, CanvasGraphicsWrapper gfx, Dimension2D size) {
+        this.workMap = workMap;
+        this.mmCanvas = mmCanvas;
+        this.gfx = gfx;
+        this.width = (int) Math.ceil(size.getWidth());
+        this.height = (int) Math.ceil(size.getHeight());
+    }
+
+    /**
+     * Layout a copy of the mind map for rendering, must be called in FX application thread.
+     *
+     * @param model
+     * @param config
+     * @param expandAll whether to expand all collapsed topics.
+     * @return null if the mind map can't be rendered.
+     */
+    public static TiledMindMapRenderer create(MindMap<TopicNode> model, MindMapConfig config, boolean expandAll) {
+        MindMap<TopicNode> workMap = new MindMap<>(model);
+        workMap.resetPayload();
+        if (expandAll) {
+            workMap.getRoot().removeCollapseAttr();
+        }
+        Canvas canvas = new Canvas(TILE_WIDTH, TILE_HEIGHT);
+        CanvasGraphicsWrapper gfx = new CanvasGraphicsWrapper(canvas, new Rectangle2D(0, 0, TILE_WIDTH, TILE_HEIGHT));
+        MindMapCanvas mmCanvas = new MindMapCanvas(gfx, config, new MindMapContext());
+        if (!mmCanvas.calculateElementSizes(workMap)) {
+            return null;
+        }
+        if (expandAll) {
+            BaseElement root = (BaseElement) workMap.getRoot().getPayload();
+            root.collapseOrExpandAllChildren(false);
+            mmCanvas.calculateElementSizes(workMap);
+        }
+        Dimension2D size = mmCanvas.layoutFullDiagramWithCenteringToPaper(workMap, null);
+        if (size == null || size.getWidth() < 1 || size.getHeight() < 1) {
+            return null;
+        }
+        log.debug("Mind map laid out for rendering with size %dx%d".formatted((int) size.getWidth(), (int) size.getHeight()));
+        return new TiledMindMapRenderer(workMap, mmCanvas, gfx, size);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Render and write the image to the output stream as PNG, the stream is not closed.
+     *
+     * @param out
+     * @param parallel whether to encode the rendered strips in parallel.
+     * @throws IOException
+     */
+    public void writePng(OutputStream out, boolean parallel) throws IOException {
+        long start = System.currentTimeMillis();
+        ExecutorService executor = parallel ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "png-encoder");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        int[] strip = new int[width * TILE_HEIGHT];
+        try (StreamingPngWriter writer = new StreamingPngWriter(out, width, height, executor)) {
+            for (int y = 0; y < height; y += TILE_HEIGHT) {
+                int rows = Math.min(TILE_HEIGHT, height - y);
+                this.renderStrip(y, rows, strip);
+                writer.writeRows(strip, 0, rows);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        log.debug("Mind map image %dx%d written in %dms".formatted(width, height, System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Render the whole image, the image is held in memory but it's not limited by the max texture size of canvas.
+     *
+     * @return
+     */
+    public WritableImage renderImage() {
+        WritableImage image = new WritableImage(width, height);
+        int[] strip = new int[width * TILE_HEIGHT];
+        for (int y = 0; y < height; y += TILE_HEIGHT) {
+            int rows = Math.min(TILE_HEIGHT, height - y);
+            this.renderStrip(y, rows, strip);
+            image.getPixelWriter().setPixels(0, y, width, rows, PixelFormat.getIntArgbInstance(), strip, 0, width);
+        }
+        return image;
+    }
+
+    /**
+     * Render all tiles in a strip to the buffer, with the width of image as scanline stride.
+     */
+    private void renderStrip(int y, int rows, int[] buffer) {
+        for (int x = 0; x < width; x += TILE_WIDTH) {
+            int cols = Math.min(TILE_WIDTH, width - x);
+            this.renderTile(x, y, cols, rows);
+            tileImage.getPixelReader().getPixels(0, 0, cols, rows, PixelFormat.getIntArgbInstance(), buffer, x, width);
+        }
+    }
+
+    private void renderTile(int x, int y, int w, int h) {
+        GraphicsContext gc = gfx.getCanvas().getGraphicsContext2D();
+        gc.save();
+        try {
+            gc.clearRect(0, 0, TILE_WIDTH, TILE_HEIGHT);
+            gfx.translate(-x, -y);
+            // elements out of the clip bounds are culled.
+            gfx.setClipBounds(new Rectangle2D(x, y, w, h));
+            mmCanvas.drawOnGraphicsForConfiguration(workMap, false, null);
+        } finally {
+            gc.restore();
+        }
+        gfx.getCanvas().snapshot(null, tileImage);
+    }
+}
@@ -106,7 +106,8 @@ public abstract class BaseCollapsableElement extends BaseElement {
                     else {
                         notFirstChiild = true;
                     }
-                    result = ((BaseElement) t.getPayload()).calcBlockSize(result, false);
+                    // block sizes of children are always calculated before their parent's.
+                    result = ((BaseElement) t.getPayload()).getBlockSize();
                     width = Math.max(baseWidth + result.getWidth(), width);
                     childrenHeight += result.getHeight();
                 }
@@ -168,7 +169,7 @@ public abstract class BaseCollapsableElement extends BaseElement {
                     notFirstChild = true;
                 }
                 BaseElement w = (BaseElement) t.getPayload();
-                w.alignElementAndChildren(leftSide, leftSide ? childrenX - w.getBlockSize().getWidth() : childrenX, currentY);
+                w.alignOrMoveElementAndChildren(leftSide, leftSide ? childrenX - w.getBlockSize().getWidth() : childrenX, currentY);
                 currentY += w.getBlockSize().getHeight();
             }
         }
@@ -177,7 +178,10 @@ public abstract class BaseCollapsableElement extends BaseElement {
     @Override
     public void doPaintConnectors(boolean isLeftDirection) {
         for (TopicNode t : this.model.getChildren()) {
-            this.drawConnector(super.bounds, ((BaseElement) t.getPayload()).getBounds(), isLeftDirection());
+            Rectangle2D destination = ((BaseElement) t.getPayload()).getBounds();
+            if (isConnectorVisible(super.bounds, destination)) {
+                this.drawConnector(super.bounds, destination, isLeftDirection());
+            }
         }
     }
 
@@ -225,6 +229,21 @@ public abstract class BaseCollapsableElement extends BaseElement {
     }
 
 
+    @Override
+    public boolean containsPoint(Point2D point) {
+        return this.bounds.contains(point.getX(), point.getY())
+                || this.collapsatorZone.contains(point.getX() - this.bounds.getMinX(), point.getY() - this.bounds.getMinY());
+    }
+
+    @Override
+    public Rectangle2D getHitBounds() {
+        double minX = Math.min(bounds.getMinX(), bounds.getMinX() + collapsatorZone.getMinX());
+        double minY = Math.min(bounds.getMinY(), bounds.getMinY() + collapsatorZone.getMinY());
+        double maxX = Math.max(bounds.getMaxX(), bounds.getMinX() + collapsatorZone.getMaxX());
+        double maxY = Math.max(bounds.getMaxY(), bounds.getMinY() + collapsatorZone.getMaxY());
+        return new Rectangle2D(minX, minY, maxX - minX, maxY - minY);
+    }
+
     @Override
     public BaseElement findForPoint(Point2D point) {
         BaseElement result = null;
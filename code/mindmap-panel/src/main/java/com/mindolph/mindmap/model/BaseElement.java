@@ -47,6 +47,12 @@ public abstract class BaseElement {
     protected Color borderColor;
     protected boolean selected;
 
+    // where the element and its children were aligned to, an untouched branch is moved instead of being re-aligned.
+    private boolean aligned;
+    private boolean alignedLeftSide;
+    private double alignedX;
+    private double alignedY;
+
     protected BaseElement(BaseElement orig) {
         this.model = orig.model;
         this.config = orig.config;
@@ -70,8 +76,8 @@ public abstract class BaseElement {
         this.theme = config.getTheme();
         this.g = g;
         this.mindMapContext = context;
-        this.textBlock = new TextBlock(this.model.getText(), TextAlign.findForName(model.getAttribute("align")), g, config, context);
-        this.textBlock.setTextAlign(TextAlign.findForName(model.getAttribute("align")));
+        this.textBlock = new TextBlock(this.model.getText(), model.getTextAlign(), g, config, context);
+        this.textBlock.setTextAlign(model.getTextAlign());
         this.extrasIconBlock = new IconBlock(this, model, g, config, context);
         this.visualAttributeImageBlock = new VisualAttributeImageBlock(model, g, config, context);
         updateColorAttributeFromModel();
@@ -79,9 +85,9 @@ public abstract class BaseElement {
 
 
     public final void updateColorAttributeFromModel() {
-        this.borderColor = ColorUtils.html2color(this.model.getAttribute(ATTR_BORDER_COLOR.getText()), false);
-        this.textColor = ColorUtils.html2color(this.model.getAttribute(ATTR_TEXT_COLOR.getText()), false);
-        this.fillColor = ColorUtils.html2color(this.model.getAttribute(ATTR_FILL_COLOR.getText()), false);
+        this.borderColor = this.model.getColorFromAttribute(ATTR_BORDER_COLOR);
+        this.textColor = this.model.getColorFromAttribute(ATTR_TEXT_COLOR);
+        this.fillColor = this.model.getColorFromAttribute(ATTR_FILL_COLOR);
     }
 
     public BaseElement getParent() {
@@ -121,6 +127,8 @@ public abstract class BaseElement {
 
     public void moveWholeTreeBranchCoordinates(double deltaX, double deltaY) {
         moveTo(this.bounds.getMinX() + deltaX, this.bounds.getMinY() + deltaY);
+        this.alignedX += deltaX;
+        this.alignedY += deltaY;
         for (TopicNode t : this.model.getChildren()) {
             BaseElement el = (BaseElement) t.getPayload();
             if (el != null) {
@@ -163,10 +171,30 @@ public abstract class BaseElement {
     public void doPaintConnectors(boolean isLeftDirection) {
         Rectangle2D source = this.bounds;
         for (TopicNode t : this.model.getChildren()) {
-            drawConnector(source, ((BaseElement) t.getPayload()).getBounds(), isLeftDirection);
+            Rectangle2D destination = ((BaseElement) t.getPayload()).getBounds();
+            if (isConnectorVisible(source, destination)) {
+                drawConnector(source, destination, isLeftDirection);
+            }
         }
     }
 
+    /**
+     * Whether the connector between two elements might be in the clip bounds, the connector never goes out of the
+     * rectangle that covers both of the elements.
+     *
+     * @param source
+     * @param destination
+     * @return
+     * @since 1.11
+     */
+    protected boolean isConnectorVisible(Rectangle2D source, Rectangle2D destination) {
+        Rectangle2D clip = g.getClipBounds();
+        return clip == null || (Math.min(source.getMinX(), destination.getMinX()) <= clip.getMaxX()
+                && Math.max(source.getMaxX(), destination.getMaxX()) >= clip.getMinX()
+                && Math.min(source.getMinY(), destination.getMinY()) <= clip.getMaxY()
+                && Math.max(source.getMaxY(), destination.getMaxY()) >= clip.getMinY());
+    }
+
 
     public abstract void drawComponent(boolean drawCollapsator);
 
@@ -232,6 +260,41 @@ public abstract class BaseElement {
         }
     }
 
+    /**
+     * Align the element and its children like {@link #alignElementAndChildren(boolean, double, double)}, but if the
+     * branch has been aligned before and is not invalidated since then, it is only moved by the offset.
+     *
+     * @param leftSide
+     * @param x
+     * @param y
+     * @since 1.11
+     */
+    public void alignOrMoveElementAndChildren(boolean leftSide, double x, double y) {
+        if (this.aligned && this.alignedLeftSide == leftSide) {
+            double dx = x - this.alignedX;
+            double dy = y - this.alignedY;
+            if (dx != 0 || dy != 0) {
+                this.moveWholeTreeBranchCoordinates(dx, dy);
+            }
+        }
+        else {
+            this.alignElementAndChildren(leftSide, x, y);
+            this.aligned = true;
+            this.alignedLeftSide = leftSide;
+            this.alignedX = x;
+            this.alignedY = y;
+        }
+    }
+
+    /**
+     * Invalidate the alignment of this element, it will be re-aligned in next layout.
+     *
+     * @since 1.11
+     */
+    public void invalidateAlignment() {
+        this.aligned = false;
+    }
+
     /**
      *
      * @param point point in mind map.
@@ -260,6 +323,27 @@ public abstract class BaseElement {
         return result;
     }
 
+    /**
+     * Whether the point hits this element itself (children excluded).
+     *
+     * @param point
+     * @return
+     * @since 1.11
+     */
+    public boolean containsPoint(Point2D point) {
+        return this.bounds.contains(point);
+    }
+
+    /**
+     * Bounds that can be hit by mouse, it might be larger than the element bounds.
+     *
+     * @return
+     * @since 1.11
+     */
+    public Rectangle2D getHitBounds() {
+        return this.bounds;
+    }
+
     public BaseElement findForPoint(Point2D point) {
         BaseElement result = null;
         if (point != null) {
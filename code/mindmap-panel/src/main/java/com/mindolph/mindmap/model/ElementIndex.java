@@ -0,0 +1,191 @@
+package com.mindolph.mindmap.model;
+
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Spatial index (an R-tree packed by Sort-Tile-Recursive) of all visible elements of a laid out mind map,
+ * to find elements intersecting the viewport for painting and elements under mouse for hit-testing without walking
+ * through the whole topic tree.
+ * Each element is indexed by its paint bounds, which include the connectors to its children, so the painting of
+ * a visible connector is not skipped even if both topics of it are out of the viewport.
+ * The index is immutable, it must be built again after the elements are laid out.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class ElementIndex {
+
+    private static final int NODE_CAPACITY = 16;
+
+    // visible elements in the order of painting (depth-first).
+    private final BaseElement[] elements;
+    private final Node root;
+
+    private ElementIndex(List<BaseElement> elements, double margin) {
+        this.elements = elements.toArray(new BaseElement[0]);
+        List<Node> nodes = new ArrayList<>(elements.size());
+        for (int i = 0; i < this.elements.length; i++) {
+            Rectangle2D b = paintBounds(this.elements[i]);
+            nodes.add(new Node(b.getMinX() - margin, b.getMinY() - margin, b.getMaxX() + margin, b.getMaxY() + margin, null, i));
+        }
+        this.root = nodes.isEmpty() ? null : pack(nodes);
+    }
+
+    /**
+     * Build index for all visible elements from the root element.
+     *
+     * @param rootElement
+     * @return
+     */
+    public static ElementIndex build(BaseElement rootElement) {
+        List<BaseElement> elements = new ArrayList<>();
+        collectVisible(rootElement, elements);
+        double scale = rootElement.getMindMapContext().getScale();
+        // selection frame is drawn out of the element bounds.
+        double margin = (rootElement.theme.getSelectLineGap() + rootElement.theme.getSelectLineWidth()) * scale + 1;
+        return new ElementIndex(elements, margin);
+    }
+
+    private static void collectVisible(BaseElement element, List<BaseElement> elements) {
+        elements.add(element);
+        if (!element.isCollapsed()) {
+            for (TopicNode t : element.getModel().getChildren()) {
+                BaseElement child = (BaseElement) t.getPayload();
+                if (child != null) {
+                    collectVisible(child, elements);
+                }
+            }
+        }
+    }
+
+    private static Rectangle2D paintBounds(BaseElement element) {
+        Rectangle2D hit = element.getHitBounds();
+        double minX = hit.getMinX(), minY = hit.getMinY(), maxX = hit.getMaxX(), maxY = hit.getMaxY();
+        if (!element.isCollapsed()) {
+            for (TopicNode t : element.getModel().getChildren()) {
+                BaseElement child = (BaseElement) t.getPayload();
+                if (child != null) {
+                    Rectangle2D b = child.getBounds();
+                    minX = Math.min(minX, b.getMinX());
+                    minY = Math.min(minY, b.getMinY());
+                    maxX = Math.max(maxX, b.getMaxX());
+                    maxY = Math.max(maxY, b.getMaxY());
+                }
+            }
+        }
+        return new Rectangle2D(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /**
+     * Pack nodes level by level until only one node left.
+     */
+    private static Node pack(List<Node> nodes) {
+        while (nodes.size() > 1) {
+            int parentCount = (nodes.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            int sliceCount = (int) Math.ceil(Math.sqrt(parentCount));
+            int sliceSize = sliceCount * NODE_CAPACITY;
+            nodes.sort(Comparator.comparingDouble(n -> n.minX + n.maxX));
+            List<Node> parents = new ArrayList<>(parentCount);
+            for (int s = 0; s < nodes.size(); s += sliceSize) {
+                List<Node> slice = nodes.subList(s, Math.min(s + sliceSize, nodes.size()));
+                slice.sort(Comparator.comparingDouble(n -> n.minY + n.maxY));
+                for (int i = 0; i < slice.size(); i += NODE_CAPACITY) {
+                    parents.add(Node.of(slice.subList(i, Math.min(i + NODE_CAPACITY, slice.size())).toArray(new Node[0])));
+                }
+            }
+            nodes = parents;
+        }
+        return nodes.get(0);
+    }
+
+    /**
+     * Find all visible elements whose paint bounds intersect the area.
+     *
+     * @param area
+     * @return elements in painting order.
+     */
+    public List<BaseElement> findIntersecting(Rectangle2D area) {
+        int[] found = this.search(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY());
+        Arrays.sort(found);
+        List<BaseElement> result = new ArrayList<>(found.length);
+        for (int i : found) {
+            result.add(elements[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Find the element under the point, like {@link BaseElement#findForPoint(Point2D)} for the root element.
+     *
+     * @param point
+     * @return
+     */
+    public BaseElement findForPoint(Point2D point) {
+        int[] found = this.search(point.getX(), point.getY(), point.getX(), point.getY());
+        Arrays.sort(found);
+        for (int i : found) {
+            if (elements[i].containsPoint(point)) {
+                return elements[i];
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return elements.length;
+    }
+
+    private int[] search(double minX, double minY, double maxX, double maxY) {
+        IntList result = new IntList();
+        if (root != null) {
+            search(root, minX, minY, maxX, maxY, result);
+        }
+        return result.toArray();
+    }
+
+    private void search(Node node, double minX, double minY, double maxX, double maxY, IntList result) {
+        if (node.maxX < minX || node.minX > maxX || node.maxY < minY || node.minY > maxY) {
+            return;
+        }
+        if (node.children == null) {
+            result.add(node.entry);
+            return;
+        }
+        for (Node child : node.children) {
+            search(child, minX, minY, maxX, maxY, result);
+        }
+    }
+
+    private record Node(double minX, double minY, double maxX, double maxY, Node[] children, int entry) {
+        static Node of(Node[] children) {
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (Node c : children) {
+                minX = Math.min(minX, c.minX);
+                minY = Math.min(minY, c.minY);
+                maxX = Math.max(maxX, c.maxX);
+                maxY = Math.max(maxY, c.maxY);
+            }
+            return new Node(minX, minY, maxX, maxY, children, -1);
+        }
+    }
+
+    private static class IntList {
+        private int[] values = new int[32];
+        private int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -21,6 +21,8 @@ public final class ElementRoot extends BaseElement {
 
     private Dimension2D leftBlockSize = new Dimension2D(0, 0);
     private Dimension2D rightBlockSize = new Dimension2D(0, 0);
+    // index of all visible elements, built after the whole diagram is laid out.
+    private ElementIndex elementIndex;
 
     public ElementRoot(TopicNode topic, Graphics g, MindMapConfig cfg, MindMapContext context) {
         super(topic, g, cfg, context);
@@ -141,7 +143,7 @@ public final class ElementRoot extends BaseElement {
             for (TopicNode t : this.model.getChildren()) {
                 BaseCollapsableElement c = assertNotNull((BaseCollapsableElement) t.getPayload());
                 if (c.isLeftDirection()) {
-                    c.alignElementAndChildren(true, ddx - c.getBlockSize().getWidth(), ddy);
+                    c.alignOrMoveElementAndChildren(true, ddx - c.getBlockSize().getWidth(), ddy);
                     ddy += c.getBlockSize().getHeight() + insetVert;
                 }
             }
@@ -153,7 +155,7 @@ public final class ElementRoot extends BaseElement {
             for (TopicNode t : this.model.getChildren()) {
                 BaseCollapsableElement c = assertNotNull((BaseCollapsableElement) t.getPayload());
                 if (!c.isLeftDirection()) {
-                    c.alignElementAndChildren(false, ddx, ddy);
+                    c.alignOrMoveElementAndChildren(false, ddx, ddy);
                     ddy += c.getBlockSize().getHeight() + insetVert;
                 }
             }
@@ -193,7 +195,7 @@ public final class ElementRoot extends BaseElement {
         for (TopicNode t : this.model.getChildren()) {
             ElementLevelFirst w = assertNotNull((ElementLevelFirst) t.getPayload());
 
-            result = w.calcBlockSize(result, false);
+            result = w.getBlockSize();
 
             if (w.isLeftDirection()) {
                 leftWidth = Math.max(leftWidth, result.getWidth());
@@ -234,6 +236,22 @@ public final class ElementRoot extends BaseElement {
         return result;
     }
 
+    @Override
+    public BaseElement findForPoint(Point2D point) {
+        if (point != null && elementIndex != null) {
+            return elementIndex.findForPoint(point);
+        }
+        return super.findForPoint(point);
+    }
+
+    public ElementIndex getElementIndex() {
+        return elementIndex;
+    }
+
+    public void setElementIndex(ElementIndex elementIndex) {
+        this.elementIndex = elementIndex;
+    }
+
     @Override
     public boolean isMoveable() {
         return false;
@@ -0,0 +1,313 @@
+package com.mindolph.mindmap.model;
+
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.mindmap.RootTopicCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Changes of a mind map model made by one user action, which can be undone and redone directly on the topic tree
+ * instead of re-parsing the whole document. Insertion, deletion and moving of topics are all recorded as the
+ * changes of children of their parents, the removed topics are held by the patch to be restored.
+ * A patch might carry a compressed snapshot (checkpoint) of the model after it, to recover the model if the
+ * patches are not able to restore it exactly.
+ *
+ * @author mindolph.com@gmail.com
+ * @see ModelPatchTracker
+ * @since 1.11
+ */
+public class ModelPatch {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelPatch.class);
+
+    private static final int OBJECT_OVERHEAD = 32;
+
+    private final List<Op> ops;
+    // for the patch that the whole model is replaced.
+    private final MindMap<TopicNode> modelBefore;
+    private final MindMap<TopicNode> modelAfter;
+    private final long size;
+    private byte[] checkpoint;
+
+    ModelPatch(List<Op> ops) {
+        this.ops = ops;
+        this.modelBefore = null;
+        this.modelAfter = null;
+        this.size = ops.stream().mapToLong(Op::size).sum();
+    }
+
+    ModelPatch(MindMap<TopicNode> modelBefore, MindMap<TopicNode> modelAfter) {
+        this.ops = Collections.emptyList();
+        this.modelBefore = modelBefore;
+        this.modelAfter = modelAfter;
+        this.size = modelBefore.getRoot() == null ? OBJECT_OVERHEAD : sizeOf(modelBefore.getRoot());
+    }
+
+    /**
+     * Revert the changes.
+     *
+     * @param model
+     * @return the model after reverted, it's another instance if the whole model was replaced.
+     */
+    public MindMap<TopicNode> undo(MindMap<TopicNode> model) {
+        if (modelBefore != null) {
+            return modelBefore;
+        }
+        for (int i = ops.size() - 1; i >= 0; i--) {
+            ops.get(i).undo();
+        }
+        return model;
+    }
+
+    /**
+     * Apply the changes again.
+     *
+     * @param model
+     * @return the model after changed, it's another instance if the whole model was replaced.
+     */
+    public MindMap<TopicNode> redo(MindMap<TopicNode> model) {
+        if (modelAfter != null) {
+            return modelAfter;
+        }
+        for (Op op : ops) {
+            op.redo();
+        }
+        return model;
+    }
+
+    void setCheckpoint(String packedModel) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(packedModel.length() / 4);
+        try (GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+            gos.write(packedModel.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.warn("Failed to compress checkpoint", e);
+            return;
+        }
+        this.checkpoint = bos.toByteArray();
+    }
+
+    public boolean hasCheckpoint() {
+        return checkpoint != null;
+    }
+
+    /**
+     * Verify the model with the checkpoint (if exists) that is made after this patch.
+     *
+     * @param model
+     * @return the model itself if it matches the checkpoint, otherwise a new model restored from the checkpoint.
+     * @throws IOException
+     */
+    public MindMap<TopicNode> verifyCheckpoint(MindMap<TopicNode> model) throws IOException {
+        if (checkpoint == null) {
+            return model;
+        }
+        String packed;
+        try (InputStreamReader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(checkpoint)), StandardCharsets.UTF_8)) {
+            StringBuilder buf = new StringBuilder(checkpoint.length * 4);
+            char[] chars = new char[8192];
+            int len;
+            while ((len = reader.read(chars)) >= 0) {
+                buf.append(chars, 0, len);
+            }
+            packed = buf.toString();
+        }
+        if (packed.equals(model.packToString())) {
+            return model;
+        }
+        log.warn("Model doesn't match the checkpoint, restore from the checkpoint");
+        return new MindMap<>(new java.io.StringReader(packed), RootTopicCreator.defaultCreator);
+    }
+
+    public boolean isEmpty() {
+        return ops.isEmpty() && modelBefore == null;
+    }
+
+    /**
+     * @return estimated bytes held by this patch.
+     */
+    public long getSize() {
+        return size + (checkpoint == null ? 0 : checkpoint.length);
+    }
+
+    static long sizeOf(String str) {
+        return str == null ? 0 : OBJECT_OVERHEAD + str.length() * 2L;
+    }
+
+    /**
+     * Estimate bytes of the topic and all its descendants.
+     *
+     * @param topic
+     * @return
+     */
+    static long sizeOf(TopicNode topic) {
+        long result = OBJECT_OVERHEAD + sizeOf(topic.getText());
+        for (Map.Entry<String, String> attr : topic.getAttributes().entrySet()) {
+            result += sizeOf(attr.getKey()) + sizeOf(attr.getValue());
+        }
+        for (Extra<?> extra : topic.getExtras().values()) {
+            result += sizeOf(extra.getAsString());
+        }
+        for (String snippet : topic.getCodeSnippets().values()) {
+            result += sizeOf(snippet);
+        }
+        for (TopicNode child : topic.getChildren()) {
+            result += sizeOf(child);
+        }
+        return result;
+    }
+
+    interface Op {
+        void undo();
+
+        void redo();
+
+        long size();
+    }
+
+    record TextOp(TopicNode topic, String oldText, String newText) implements Op {
+        @Override
+        public void undo() {
+            topic.setText(oldText);
+        }
+
+        @Override
+        public void redo() {
+            topic.setText(newText);
+        }
+
+        @Override
+        public long size() {
+            return OBJECT_OVERHEAD + sizeOf(oldText) + sizeOf(newText);
+        }
+    }
+
+    record AttributeOp(TopicNode topic, String name, String oldValue, String newValue) implements Op {
+        @Override
+        public void undo() {
+            topic.setAttribute(name, oldValue);
+        }
+
+        @Override
+        public void redo() {
+            topic.setAttribute(name, newValue);
+        }
+
+        @Override
+        public long size() {
+            return OBJECT_OVERHEAD + sizeOf(name) + sizeOf(oldValue) + sizeOf(newValue);
+        }
+    }
+
+    record ExtraOp(TopicNode topic, Extra.ExtraType type, Extra<?> oldExtra, Extra<?> newExtra) implements Op {
+        @Override
+        public void undo() {
+            this.set(oldExtra);
+        }
+
+        @Override
+        public void redo() {
+            this.set(newExtra);
+        }
+
+        private void set(Extra<?> extra) {
+            if (extra == null) {
+                topic.removeExtra(type);
+            }
+            else {
+                topic.setExtra(extra);
+            }
+        }
+
+        @Override
+        public long size() {
+            return OBJECT_OVERHEAD + (oldExtra == null ? 0 : sizeOf(oldExtra.getAsString()))
+                    + (newExtra == null ? 0 : sizeOf(newExtra.getAsString()));
+        }
+    }
+
+    record CodeSnippetOp(TopicNode topic, String language, String oldSnippet, String newSnippet) implements Op {
+        @Override
+        public void undo() {
+            topic.setCodeSnippet(language, oldSnippet);
+        }
+
+        @Override
+        public void redo() {
+            topic.setCodeSnippet(language, newSnippet);
+        }
+
+        @Override
+        public long size() {
+            return OBJECT_OVERHEAD + sizeOf(language) + sizeOf(oldSnippet) + sizeOf(newSnippet);
+        }
+    }
+
+    /**
+     * Topics inserted, deleted, moved or re-ordered in a parent.
+     *
+     * @param heldSize estimated bytes of the topics that are only held by this op (not in the model) after undo or redo.
+     */
+    record ChildrenOp(TopicNode parent, List<TopicNode> oldChildren, List<TopicNode> newChildren,
+                      long heldSize) implements Op {
+        @Override
+        public void undo() {
+            parent.replaceChildren(oldChildren);
+        }
+
+        @Override
+        public void redo() {
+            parent.replaceChildren(newChildren);
+        }
+
+        @Override
+        public long size() {
+            return OBJECT_OVERHEAD + 8L * (oldChildren.size() + newChildren.size()) + heldSize;
+        }
+    }
+
+    record MapAttributeOp(MindMap<TopicNode> model, String name, String oldValue, String newValue) implements Op {
+        @Override
+        public void undo() {
+            model.setAttribute(name, oldValue);
+        }
+
+        @Override
+        public void redo() {
+            model.setAttribute(name, newValue);
+        }
+
+        @Override
+        public long size() {
+            return OBJECT_OVERHEAD + sizeOf(name) + sizeOf(oldValue) + sizeOf(newValue);
+        }
+    }
+
+    record RootOp(MindMap<TopicNode> model, TopicNode oldRoot, TopicNode newRoot) implements Op {
+        @Override
+        public void undo() {
+            model.setRoot(oldRoot);
+        }
+
+        @Override
+        public void redo() {
+            model.setRoot(newRoot);
+        }
+
+        @Override
+        public long size() {
+            return OBJECT_OVERHEAD + (oldRoot == null ? 0 : sizeOf(oldRoot));
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.mindolph.mindmap.model;
+
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.mindolph.mindmap.model.ModelPatch.*;
+
+import java.util.*;
+
+/**
+ * Track the state of a mind map model to make a {@link ModelPatch} for the changes since last time,
+ * by comparing the changed topics with a lightweight shadow of them (no text is copied, only references).
+ * Only the topics whose revisions are newer than the last baseline are compared, see {@link TopicNode#getTreeRevision()}.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class ModelPatchTracker {
+
+    // make checkpoint for every N patches, 0 to disable.
+    private final int checkpointInterval;
+
+    private MindMap<TopicNode> model;
+    private TopicNode root;
+    private Map<String, String> mapAttributes;
+    private final Map<TopicNode, TopicState> shadow = new IdentityHashMap<>();
+    // the topic revision of the baseline.
+    private long revision;
+    private int patchCount;
+
+    public ModelPatchTracker(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Take the current state of model as baseline.
+     *
+     * @param model
+     */
+    public void reset(MindMap<TopicNode> model) {
+        if (model != null && model == this.model) {
+            this.collect(model); // only the changed topics are taken.
+            return;
+        }
+        this.model = model;
+        this.shadow.clear();
+        this.revision = TopicNode.currentRevision();
+        if (model == null) {
+            this.root = null;
+            this.mapAttributes = Collections.emptyMap();
+            return;
+        }
+        this.root = model.getRoot();
+        this.mapAttributes = Map.copyOf(model.getAttributes());
+        if (root != null) {
+            this.snapshot(root);
+        }
+    }
+
+    /**
+     * Make patch for changes of model since last reset or diff, and take the current state as new baseline.
+     *
+     * @param model
+     * @return null if nothing changed.
+     */
+    public ModelPatch diff(MindMap<TopicNode> model) {
+        if (model != this.model) {
+            MindMap<TopicNode> before = this.model;
+            this.reset(model);
+            return before == null || model == null ? null : this.withCheckpoint(new ModelPatch(before, model));
+        }
+        List<Op> ops = this.collect(model);
+        return ops.isEmpty() ? null : this.withCheckpoint(new ModelPatch(ops));
+    }
+
+    private List<Op> collect(MindMap<TopicNode> model) {
+        List<Op> ops = new ArrayList<>();
+        for (String name : union(mapAttributes.keySet(), model.getAttributes().keySet())) {
+            if (MindMap.GENERATOR_VERSION_NAME.equals(name)) {
+                continue; // written by the model itself.
+            }
+            String oldValue = mapAttributes.get(name);
+            String newValue = model.getAttribute(name);
+            if (!Objects.equals(oldValue, newValue)) {
+                ops.add(new MapAttributeOp(model, name, oldValue, newValue));
+            }
+        }
+        this.mapAttributes = Map.copyOf(model.getAttributes());
+        // topics removed from the tree are still compared, because they might be changed before removed.
+        List<TopicNode> removed = new ArrayList<>();
+        if (model.getRoot() != root) {
+            ops.add(new RootOp(model, root, model.getRoot()));
+            if (root != null) {
+                removed.add(root);
+            }
+            this.root = model.getRoot();
+        }
+        Set<TopicNode> attached = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (root != null) {
+            this.diff(root, ops, removed, attached);
+        }
+        for (TopicNode topic : removed) {
+            if (!attached.contains(topic)) {
+                this.drop(topic, ops, attached);
+            }
+        }
+        this.revision = TopicNode.currentRevision();
+        return ops;
+    }
+
+    private void diff(TopicNode topic, List<Op> ops, List<TopicNode> removed, Set<TopicNode> attached) {
+        attached.add(topic);
+        TopicState state = shadow.get(topic);
+        Set<TopicNode> moved = Collections.emptySet();
+        if (state == null) {
+            // new topic, the changes of it are included by the insertion.
+            shadow.put(topic, TopicState.of(topic));
+            moved = Collections.newSetFromMap(new IdentityHashMap<>());
+            moved.addAll(topic.getChildren());
+        }
+        else {
+            List<TopicNode> oldChildren = state.children();
+            if (topic.getContentRevision() > revision) {
+                state = this.diffContent(topic, state, ops);
+            }
+            if (topic.getChildrenRevision() > revision && !oldChildren.equals(topic.getChildren())) {
+                List<TopicNode> newChildren = List.copyOf(topic.getChildren());
+                ops.add(new ChildrenOp(topic, oldChildren, newChildren, heldSize(oldChildren, newChildren)));
+                moved = Collections.newSetFromMap(new IdentityHashMap<>());
+                moved.addAll(newChildren);
+                for (TopicNode child : oldChildren) {
+                    if (!moved.remove(child)) {
+                        removed.add(child);
+                    }
+                }
+                state = state.withChildren(newChildren);
+            }
+            shadow.put(topic, state);
+        }
+        for (TopicNode child : topic.getChildren()) {
+            // unchanged sub-trees are skipped, the ones moved from elsewhere are always visited to be attached.
+            if (child.getTreeRevision() > revision || moved.contains(child)) {
+                this.diff(child, ops, removed, attached);
+            }
+        }
+    }
+
+    // compare the topics of a removed sub-tree and take them out of the shadow.
+    private void drop(TopicNode topic, List<Op> ops, Set<TopicNode> attached) {
+        TopicState state = shadow.remove(topic);
+        if (state == null) {
+            return;
+        }
+        if (topic.getContentRevision() > revision) {
+            this.diffContent(topic, state, ops);
+        }
+        Set<TopicNode> children = Collections.newSetFromMap(new IdentityHashMap<>());
+        children.addAll(state.children());
+        children.addAll(topic.getChildren());
+        for (TopicNode child : children) {
+            if (!attached.contains(child)) {
+                this.drop(child, ops, attached);
+            }
+        }
+    }
+
+    private TopicState diffContent(TopicNode topic, TopicState state, List<Op> ops) {
+        TopicState newState = TopicState.of(topic);
+        if (!newState.text().equals(state.text())) {
+            ops.add(new TextOp(topic, state.text(), newState.text()));
+        }
+        for (String name : union(state.attributes().keySet(), newState.attributes().keySet())) {
+            String oldValue = state.attributes().get(name);
+            String newValue = newState.attributes().get(name);
+            if (!Objects.equals(oldValue, newValue)) {
+                ops.add(new AttributeOp(topic, name, oldValue, newValue));
+            }
+        }
+        if (state.rawExtras() == null || state.rawExtras() != newState.rawExtras()) {
+            Map<Extra.ExtraType, Extra<?>> oldExtras = state.decodedExtras();
+            Map<Extra.ExtraType, Extra<?>> newExtras = newState.decodedExtras();
+            for (Extra.ExtraType type : union(oldExtras.keySet(), newExtras.keySet())) {
+                Extra<?> oldExtra = oldExtras.get(type);
+                Extra<?> newExtra = newExtras.get(type);
+                if (!Objects.equals(oldExtra, newExtra)) {
+                    ops.add(new ExtraOp(topic, type, oldExtra, newExtra));
+                }
+            }
+        }
+        for (String language : union(state.codeSnippets().keySet(), newState.codeSnippets().keySet())) {
+            String oldSnippet = state.codeSnippets().get(language);
+            String newSnippet = newState.codeSnippets().get(language);
+            if (!Objects.equals(oldSnippet, newSnippet)) {
+                ops.add(new CodeSnippetOp(topic, language, oldSnippet, newSnippet));
+            }
+        }
+        // the children are compared separately.
+        return newState.withChildren(state.children());
+    }
+
+    private void snapshot(TopicNode topic) {
+        shadow.put(topic, TopicState.of(topic));
+        for (TopicNode child : topic.getChildren()) {
+            this.snapshot(child);
+        }
+    }
+
+    private ModelPatch withCheckpoint(ModelPatch patch) {
+        patchCount++;
+        if (checkpointInterval > 0 && patchCount % checkpointInterval == 0 && this.model != null) {
+            patch.setCheckpoint(this.model.packToString());
+        }
+        return patch;
+    }
+
+    private static long heldSize(List<TopicNode> oldChildren, List<TopicNode> newChildren) {
+        long result = 0;
+        Set<TopicNode> olds = Collections.newSetFromMap(new IdentityHashMap<>());
+        olds.addAll(oldChildren);
+        Set<TopicNode> news = Collections.newSetFromMap(new IdentityHashMap<>());
+        news.addAll(newChildren);
+        for (TopicNode child : oldChildren) {
+            if (!news.contains(child)) {
+                result += ModelPatch.sizeOf(child);
+            }
+        }
+        for (TopicNode child : newChildren) {
+            if (!olds.contains(child)) {
+                result += ModelPatch.sizeOf(child);
+            }
+        }
+        return result;
+    }
+
+    private static <K> Set<K> union(Set<K> a, Set<K> b) {
+        Set<K> result = new LinkedHashSet<>(a);
+        result.addAll(b);
+        return result;
+    }
+
+    // the extras loaded from file are kept as they are (extras is null), so that they are not decoded for tracking.
+    private record TopicState(String text, Map<String, String> attributes, Map<Extra.ExtraType, Extra<?>> extras,
+                              Topic.RawExtras rawExtras, Map<String, String> codeSnippets, List<TopicNode> children) {
+
+        static TopicState of(TopicNode topic) {
+            Topic.RawExtras rawExtras = topic.getRawExtras();
+            return new TopicState(topic.getText(), Map.copyOf(topic.getAttributes()),
+                    rawExtras == null ? Map.copyOf(topic.getExtras()) : null, rawExtras,
+                    Map.copyOf(topic.getCodeSnippets()), List.copyOf(topic.getChildren()));
+        }
+
+        TopicState withChildren(List<TopicNode> children) {
+            return new TopicState(text, attributes, extras, rawExtras, codeSnippets, children);
+        }
+
+        Map<Extra.ExtraType, Extra<?>> decodedExtras() {
+            return rawExtras == null ? extras : rawExtras.decode();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.mindolph.core.constant.TextConstants;
 import com.mindolph.core.model.ItemData;
 import com.mindolph.mfx.util.TextUtils;
 import com.mindolph.mindmap.constant.StandardTopicAttribute;
+import com.mindolph.mindmap.constant.TextAlign;
 import javafx.scene.paint.Color;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.IOUtils;
@@ -20,6 +21,8 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.mindolph.mindmap.constant.StandardTopicAttribute.*;
 
@@ -29,6 +32,38 @@ import static com.mindolph.mindmap.constant.StandardTopicAttribute.*;
 public class TopicNode extends Topic<TopicNode> implements ItemData {
     static final Logger log = LoggerFactory.getLogger(TopicNode.class);
 
+    private static final int FLAG_PARSED = 1;
+    private static final int FLAG_COLLAPSED = 1 << 1;
+    private static final int FLAG_HAS_COLLAPSED = 1 << 2; // the collapsed attribute exists, even it's "false".
+    private static final int FLAG_LEFT_SIDE = 1 << 3;
+    private static final int FLAG_HIDDEN = 1 << 4; // hidden by the first ancestor that has collapsed attribute.
+    private static final int FLAG_INVISIBLE = 1 << 5; // any of ancestors is collapsed.
+    private static final int ATTRIBUTE_FLAGS = FLAG_PARSED | FLAG_COLLAPSED | FLAG_HAS_COLLAPSED | FLAG_LEFT_SIDE;
+    private static final int COLLAPSE_FLAGS = FLAG_COLLAPSED | FLAG_HAS_COLLAPSED;
+    // increased when the collapsed attribute of any topic or the structure of any tree is changed,
+    // the hidden flags cached with a different version are calculated again.
+    private static final AtomicInteger collapseVersion = new AtomicInteger();
+    // increased for every change of any topic, the revisions of a topic tell whether it's changed since a revision.
+    private static final AtomicLong revisionCounter = new AtomicLong();
+
+    // the content of this topic has been changed since the last layout.
+    private transient boolean changed;
+    // this topic or any of its descendants has been changed since the last layout.
+    private transient boolean layoutChanged;
+    // revisions of the last change of the content, the children, and this topic or any of its descendants.
+    private transient long contentRevision;
+    private transient long childrenRevision;
+    private transient long treeRevision;
+
+    // typed values of the standard attributes, parsed lazily from the string attributes (which are only for
+    // serialization) and invalidated when the content of this topic is changed.
+    private transient int flags;
+    private transient int hiddenVersion = -1;
+    private transient Color borderColor;
+    private transient Color fillColor;
+    private transient Color textColor;
+    private transient TextAlign textAlign;
+
     public TopicNode(MindMap<TopicNode> mindMap, TopicNode base, boolean copyChildren) {
         super(mindMap, base, copyChildren);
     }
@@ -58,9 +93,166 @@ public class TopicNode extends Topic<TopicNode> implements ItemData {
         return new TopicNode(getMap(), this, copyChildren);
     }
 
+    @Override
+    protected void onContentChanged() {
+        this.changed = true;
+        this.contentRevision = revisionCounter.incrementAndGet();
+        this.markLayoutChanged(this.contentRevision);
+        this.invalidateAttributes();
+    }
+
+    @Override
+    protected void onChildrenChanged() {
+        this.childrenRevision = revisionCounter.incrementAndGet();
+        this.markLayoutChanged(this.childrenRevision);
+        collapseVersion.incrementAndGet();
+    }
+
+    private void invalidateAttributes() {
+        int oldFlags = this.flags;
+        this.flags = 0;
+        this.hiddenVersion = -1;
+        this.borderColor = null;
+        this.fillColor = null;
+        this.textColor = null;
+        this.textAlign = null;
+        if ((oldFlags & FLAG_PARSED) == 0 || (oldFlags & COLLAPSE_FLAGS) != (this.attributeFlags() & COLLAPSE_FLAGS)) {
+            collapseVersion.incrementAndGet();
+        }
+    }
+
+    private int attributeFlags() {
+        int f = this.flags;
+        if ((f & FLAG_PARSED) == 0) {
+            f = FLAG_PARSED;
+            String collapsed = this.getAttribute(ATTR_COLLAPSED.getText());
+            if (collapsed != null) {
+                f |= FLAG_HAS_COLLAPSED;
+                if ("true".equalsIgnoreCase(collapsed)) {
+                    f |= FLAG_COLLAPSED;
+                }
+            }
+            if ("true".equals(this.getAttribute(ATTR_LEFTSIDE.getText()))) {
+                f |= FLAG_LEFT_SIDE;
+            }
+            this.flags = f;
+        }
+        return f;
+    }
+
+    private int hiddenFlags() {
+        int version = collapseVersion.get();
+        if (this.hiddenVersion != version) {
+            int f = 0;
+            TopicNode parent = this.getParent();
+            if (parent != null) {
+                int parentFlags = parent.attributeFlags();
+                int parentHidden = parent.hiddenFlags();
+                if ((parentFlags & FLAG_HAS_COLLAPSED) != 0) {
+                    f |= (parentFlags & FLAG_COLLAPSED) != 0 ? FLAG_HIDDEN : 0;
+                }
+                else {
+                    f |= parentHidden & FLAG_HIDDEN;
+                }
+                if ((parentFlags & FLAG_COLLAPSED) != 0) {
+                    f |= FLAG_INVISIBLE;
+                }
+                else {
+                    f |= parentHidden & FLAG_INVISIBLE;
+                }
+            }
+            this.flags = (this.attributeFlags() & ATTRIBUTE_FLAGS) | f;
+            this.hiddenVersion = version;
+        }
+        return this.flags;
+    }
+
+    private void markLayoutChanged(long revision) {
+        TopicNode t = this;
+        while (t != null) {
+            t.layoutChanged = true;
+            t.treeRevision = revision;
+            t = t.getParent();
+        }
+    }
+
+    /**
+     * @return the revision of the latest change of any topic.
+     * @since 1.11
+     */
+    public static long currentRevision() {
+        return revisionCounter.get();
+    }
+
+    /**
+     * @return the revision of the last change of the text, attributes, extras or code snippets of this topic.
+     * @since 1.11
+     */
+    public long getContentRevision() {
+        return contentRevision;
+    }
+
+    /**
+     * @return the revision of the last change of the children list of this topic.
+     * @since 1.11
+     */
+    public long getChildrenRevision() {
+        return childrenRevision;
+    }
+
+    /**
+     * @return the revision of the last change of this topic or any of its descendants.
+     * @since 1.11
+     */
+    public long getTreeRevision() {
+        return treeRevision;
+    }
+
+    /**
+     * @return true if the content of this topic has been changed since the last layout.
+     * @since 1.11
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * @return true if this topic or any of its descendants has been changed since the last layout.
+     * @since 1.11
+     */
+    public boolean isLayoutChanged() {
+        return layoutChanged;
+    }
+
+    /**
+     * Clear the change flags after the element of this topic is laid out.
+     *
+     * @since 1.11
+     */
+    public void clearChanged() {
+        this.changed = false;
+        this.layoutChanged = false;
+    }
+
+    /**
+     * Replace all children with the topics in order, the topics might be detached or from other parents.
+     *
+     * @param children
+     * @since 1.11
+     */
+    public void replaceChildren(List<TopicNode> children) {
+        this.removeAllChildren();
+        for (TopicNode child : children) {
+            child.setParent(this);
+            this.addChild(child);
+        }
+    }
+
+    /**
+     * @return true if the first ancestor that has the collapsed attribute is collapsed.
+     */
     public boolean isHidden() {
-        String collapsed = this.findAttributeInAncestors(ATTR_COLLAPSED.getText());
-        return Boolean.parseBoolean(collapsed);
+        return (this.hiddenFlags() & FLAG_HIDDEN) != 0;
     }
 
     public boolean setCollapsed(boolean fold) {
@@ -68,15 +260,15 @@ public class TopicNode extends Topic<TopicNode> implements ItemData {
     }
 
     public boolean isCollapsed() {
-        return "true".equalsIgnoreCase(this.getAttribute(ATTR_COLLAPSED.getText()));
+        return (this.attributeFlags() & FLAG_COLLAPSED) != 0;
     }
 
     public boolean isSameDirection(TopicNode t2) {
-        return StringUtils.equals(this.getAttribute(ATTR_LEFTSIDE.getText()), t2.getAttribute(ATTR_LEFTSIDE.getText()));
+        return this.isLeftSidedTopic() == t2.isLeftSidedTopic();
     }
 
     public boolean isLeftSidedTopic() {
-        return "true".equals(this.getAttribute(ATTR_LEFTSIDE.getText()));
+        return (this.attributeFlags() & FLAG_LEFT_SIDE) != 0;
     }
 
     public void makeTopicLeftSided(boolean left) {
@@ -89,16 +281,7 @@ public class TopicNode extends Topic<TopicNode> implements ItemData {
     }
 
     public boolean isTopicVisible() {
-        boolean result = true;
-        TopicNode current = this.getParent();
-        while (current != null) {
-            if (current.isCollapsed()) {
-                result = false;
-                break;
-            }
-            current = current.getParent();
-        }
-        return result;
+        return (this.hiddenFlags() & FLAG_INVISIBLE) == 0;
     }
 
     public boolean foldOrUnfoldChildren(boolean fold, int levelCount) {
@@ -138,8 +321,7 @@ public class TopicNode extends Topic<TopicNode> implements ItemData {
         if (path.size() > 0) {
             for (TopicNode t : path) {
                 lastVisible = t;
-                boolean collapsed = Boolean.parseBoolean(t.getAttribute(ATTR_COLLAPSED.getText()));
-                if (collapsed) {
+                if (t.isCollapsed()) {
                     break;
                 }
             }
@@ -159,9 +341,35 @@ public class TopicNode extends Topic<TopicNode> implements ItemData {
         return result.toArray(new TopicNode[0]);
     }
 
+    /**
+     * Get the parsed color of the color attribute, it's parsed only once until the attribute is changed.
+     *
+     * @param attribute one of the color attributes.
+     * @return null if the attribute is absent.
+     */
     public Color getColorFromAttribute(StandardTopicAttribute attribute) {
-        String textColor = this.getAttribute(attribute.getText());
-        return StringUtils.isBlank(textColor) ? null : Color.web(textColor, 1);
+        return switch (attribute) {
+            case ATTR_BORDER_COLOR -> borderColor != null ? borderColor : (borderColor = this.parseColor(attribute));
+            case ATTR_FILL_COLOR -> fillColor != null ? fillColor : (fillColor = this.parseColor(attribute));
+            case ATTR_TEXT_COLOR -> textColor != null ? textColor : (textColor = this.parseColor(attribute));
+            default -> this.parseColor(attribute);
+        };
+    }
+
+    private Color parseColor(StandardTopicAttribute attribute) {
+        String color = this.getAttribute(attribute.getText());
+        return StringUtils.isBlank(color) ? null : Color.web(color, 1);
+    }
+
+    /**
+     * @return the text alignment parsed from the "align" attribute, LEFT if it's absent.
+     * @since 1.11
+     */
+    public TextAlign getTextAlign() {
+        if (textAlign == null) {
+            textAlign = TextAlign.findForName(this.getAttribute("align"));
+        }
+        return textAlign;
     }
 
     public void copyColorAttributes(TopicNode source) {
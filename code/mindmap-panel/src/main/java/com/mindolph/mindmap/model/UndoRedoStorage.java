@@ -2,17 +2,34 @@ package com.mindolph.mindmap.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.ToLongFunction;
 
 public final class UndoRedoStorage<T> {
 
     private final List<T> undoItems = new ArrayList<>();
     private final List<T> redoItems = new ArrayList<>();
     private int maxSize;
+    // max memory (estimated by sizeOf) of all items in both undo and redo, the latest item is always kept.
+    private final long maxBytes;
+    private final ToLongFunction<T> sizeOf;
+    private long bytes;
 
     private boolean hasUndoStateRemovedForFullBuffer = false;
 
     public UndoRedoStorage(int max) {
+        this(max, Long.MAX_VALUE, t -> 0);
+    }
+
+    /**
+     * @param max      max count of items in undo or redo.
+     * @param maxBytes max bytes of all items in undo and redo.
+     * @param sizeOf   estimate bytes of an item.
+     * @since 1.11
+     */
+    public UndoRedoStorage(int max, long maxBytes, ToLongFunction<T> sizeOf) {
         this.maxSize = max;
+        this.maxBytes = maxBytes;
+        this.sizeOf = sizeOf;
     }
 
     public boolean hasUndo() {
@@ -24,26 +41,37 @@ public final class UndoRedoStorage<T> {
     }
 
     public T fromUndo() {
-        return this.undoItems.isEmpty() ? null : this.undoItems.remove(this.undoItems.size() - 1);
+        return this.undoItems.isEmpty() ? null : this.release(this.undoItems.remove(this.undoItems.size() - 1));
     }
 
     public T fromRedo() {
-        return this.redoItems.isEmpty() ? null : this.redoItems.remove(this.redoItems.size() - 1);
+        return this.redoItems.isEmpty() ? null : this.release(this.redoItems.remove(this.redoItems.size() - 1));
+    }
+
+    /**
+     * @return the latest item in undo without removing it.
+     * @since 1.11
+     */
+    public T peekUndo() {
+        return this.undoItems.isEmpty() ? null : this.undoItems.get(this.undoItems.size() - 1);
     }
 
     public void addToRedo(T val) {
         this.redoItems.add(val);
-        while (this.redoItems.size() > maxSize) {
-            this.redoItems.remove(0);
+        this.bytes += sizeOf.applyAsLong(val);
+        while (this.redoItems.size() > maxSize || (this.bytes > maxBytes && this.redoItems.size() > 1)) {
+            this.release(this.redoItems.remove(0));
         }
     }
 
     public void clearRedo() {
+        this.redoItems.forEach(this::release);
         this.redoItems.clear();
     }
 
     public void clearUndo() {
         this.hasUndoStateRemovedForFullBuffer = false;
+        this.undoItems.forEach(this::release);
         this.undoItems.clear();
     }
 
@@ -57,12 +85,26 @@ public final class UndoRedoStorage<T> {
 
     public void addToUndo(T val) {
         this.undoItems.add(val);
-        while (this.undoItems.size() > maxSize) {
+        this.bytes += sizeOf.applyAsLong(val);
+        while (this.undoItems.size() > maxSize || (this.bytes > maxBytes && this.undoItems.size() > 1)) {
             this.hasUndoStateRemovedForFullBuffer = true;
-            this.undoItems.remove(0);
+            this.release(this.undoItems.remove(0));
         }
     }
 
+    private T release(T val) {
+        this.bytes -= sizeOf.applyAsLong(val);
+        return val;
+    }
+
+    /**
+     * @return estimated bytes of all items in undo and redo.
+     * @since 1.11
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
     public int getMaxSize() {
         return maxSize;
     }
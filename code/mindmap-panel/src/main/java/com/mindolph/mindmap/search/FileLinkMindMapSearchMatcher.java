@@ -29,17 +29,12 @@ import java.util.regex.Pattern;
 public class FileLinkMindMapSearchMatcher implements SearchMatcher {
 
     private static final Logger log = LoggerFactory.getLogger(FileLinkMindMapSearchMatcher.class);
-    private Set<Extra.ExtraType> extras;
-    private Set<TopicFinder<TopicNode>> TOPIC_FINDERS;
+    private static final Set<Extra.ExtraType> extras = EnumSet.of(Extra.ExtraType.TOPIC, Extra.ExtraType.NOTE, Extra.ExtraType.FILE, Extra.ExtraType.LINK);
+    private volatile Set<TopicFinder<TopicNode>> TOPIC_FINDERS; // lazy loaded because the extensions might not be registered yet.
 
     @Override
-    public boolean matches(File file, SearchParams searchParams) {
-        if (this.extras == null) {
-            this.extras = EnumSet.noneOf(Extra.ExtraType.class);
-            extras.add(Extra.ExtraType.TOPIC);
-            extras.add(Extra.ExtraType.NOTE);
-            extras.add(Extra.ExtraType.FILE);
-            extras.add(Extra.ExtraType.LINK);
+    public List<MatchedItem> matches(File file, SearchParams searchParams) {
+        if (this.TOPIC_FINDERS == null) {
             this.TOPIC_FINDERS = MindMapExtensionRegistry.getInstance().findAllTopicFinders();
         }
 
@@ -50,16 +45,11 @@ public class FileLinkMindMapSearchMatcher implements SearchMatcher {
             Pattern pattern = SearchUtils.string2pattern(absolutPathFile.getPath(), 0);
             if (mindMap.findNext(file.getParentFile(), mindMap.getRoot(), pattern, true, extras, TOPIC_FINDERS) != null) {
                 log.debug("Found");
-                return true;
+                return List.of();
             }
         } catch (Exception ex) {
             ex.printStackTrace();
         }
-        return false;
-    }
-
-    @Override
-    public List<MatchedItem> getMatched() {
         return null;
     }
 }
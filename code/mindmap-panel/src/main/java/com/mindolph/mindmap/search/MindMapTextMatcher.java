@@ -31,23 +31,17 @@ public class MindMapTextMatcher extends BaseSearchMatcher {
     private static final Logger log = LoggerFactory.getLogger(MindMapTextMatcher.class);
 
     private static final String NODE_CONNECTOR = " → ";
-    private Set<Extra.ExtraType> extras;
-    private Set<TopicFinder<TopicNode>> TOPIC_FINDERS;
+    private static final Set<Extra.ExtraType> extras = EnumSet.of(Extra.ExtraType.TOPIC, Extra.ExtraType.NOTE, Extra.ExtraType.FILE, Extra.ExtraType.LINK);
+    private volatile Set<TopicFinder<TopicNode>> TOPIC_FINDERS; // lazy loaded because the extensions might not be registered yet.
 
     public MindMapTextMatcher(boolean returnContextEnabled) {
         super(returnContextEnabled);
     }
 
     @Override
-    public boolean matches(File file, SearchParams searchParams) {
-        super.matches(file, searchParams);
+    public List<MatchedItem> matches(File file, SearchParams searchParams) {
         log.debug("try match in file: " + file);
-        if (this.extras == null) {
-            this.extras = EnumSet.noneOf(Extra.ExtraType.class);
-            extras.add(Extra.ExtraType.TOPIC);
-            extras.add(Extra.ExtraType.NOTE);
-            extras.add(Extra.ExtraType.FILE);
-            extras.add(Extra.ExtraType.LINK);
+        if (this.TOPIC_FINDERS == null) {
             this.TOPIC_FINDERS = MindMapExtensionRegistry.getInstance().findAllTopicFinders();
         }
 
@@ -56,10 +50,9 @@ public class MindMapTextMatcher extends BaseSearchMatcher {
             mindMap = new MindMap<>(reader, RootTopicCreator.defaultCreator);
             Pattern pattern = searchParams.getPattern();
             Map<TopicNode, String> foundMap = new HashMap<>();// store found topic and remove if it's sub-topic found.
-            TopicNode next = mindMap.findNext(file.getParentFile(), mindMap.getRoot(), pattern, true, extras, TOPIC_FINDERS);
-            boolean contained = false;
-            while (next != null) {
-                contained = true;
+            // the root topic is excluded.
+            List<TopicNode> found = mindMap.findAll(file.getParentFile(), mindMap.getRoot(), pattern, true, extras, TOPIC_FINDERS);
+            for (TopicNode next : found) {
                 log.debug("found topic: " + StringUtils.abbreviate(next.getText(), 100));
                 if (returnContextEnabled) {
                     List<TopicNode> pathNodes = next.getPath();
@@ -86,17 +79,15 @@ public class MindMapTextMatcher extends BaseSearchMatcher {
                         }
                     }
                 }
-                next = mindMap.findNext(file.getParentFile(), next, pattern, true, extras, TOPIC_FINDERS);
             }
-            if (returnContextEnabled) {
-                List<MatchedItem> matched = foundMap.keySet().stream().map(t -> new MatchedItem(foundMap.get(t), createAnchor(t))).toList();
-                super.matched.addAll(matched);
+            if (found.isEmpty()) {
+                return null;
             }
-            return contained;
+            return foundMap.keySet().stream().map(t -> new MatchedItem(foundMap.get(t), createAnchor(t))).toList();
         } catch (Exception ex) {
             ex.printStackTrace();
         }
-        return false;
+        return null;
     }
 
     private MindMapAnchor createAnchor(TopicNode topicNode) {
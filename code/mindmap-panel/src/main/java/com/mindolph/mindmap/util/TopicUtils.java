@@ -42,9 +42,7 @@ public class TopicUtils {
         TopicNode linkedTopic = null;
         for (Map.Entry<Extra.ExtraType, Extra<?>> e : topic.getExtras().entrySet()) {
             if (e.getKey() == Extra.ExtraType.TOPIC) {
-                ExtraTopic topicLink = ((ExtraTopic) e.getValue());
-                TopicNode root = topic.findRoot();
-                linkedTopic = root.findForAttribute(ExtraTopic.TOPIC_UID_ATTR, topicLink.getValue());
+                linkedTopic = topic.getMap().findTopicForLink((ExtraTopic) e.getValue());
             }
         }
 
@@ -0,0 +1,82 @@
+package com.mindolph.mindmap.gfx;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.base.graphic.CanvasGraphicsWrapper;
+import com.mindolph.mindmap.MindMapConfig;
+import com.mindolph.mindmap.MindMapContext;
+import com.mindolph.mindmap.model.TopicNode;
+import javafx.application.Platform;
+import javafx.geometry.Dimension2D;
+import javafx.scene.canvas.Canvas;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relayout after editing text of one leaf topic in a big mind map, incrementally or fully.
+ *
+ * @author mindolph.com@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementalRelayoutBenchmark {
+
+    @Param({"5000"})
+    private int topicCount;
+
+    @Param({"true", "false"})
+    private boolean incremental;
+
+    private MindMap<TopicNode> model;
+    private MindMapCanvas mindMapCanvas;
+    private TopicNode leaf;
+    private int edits;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IncrementalRelayoutBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException e) {
+            // already started
+        }
+        model = new MindMap<>();
+        TopicNode root = new TopicNode(model, null, "Root topic");
+        model.setRoot(root);
+        TopicNode branch = root;
+        TopicNode parent = root;
+        for (int i = 0; i < topicCount; i++) {
+            if (i % 100 == 0) {
+                branch = new TopicNode(model, root, "Branch " + i);
+            }
+            if (i % 10 == 0) {
+                parent = new TopicNode(model, branch, "Sub branch " + i);
+            }
+            leaf = new TopicNode(model, parent, "Topic %d with some text".formatted(i));
+        }
+        mindMapCanvas = new MindMapCanvas(new CanvasGraphicsWrapper(new Canvas(32, 32)),
+                new MindMapConfig(), new MindMapContext());
+        mindMapCanvas.layoutFullDiagramWithCenteringToPaper(model, null);
+    }
+
+    @Benchmark
+    public Dimension2D editLeafAndRelayout() {
+        // the text gets longer and shorter, so the block sizes of ancestors are changed.
+        leaf.setText(edits++ % 2 == 0 ? "Topic edited with much more text" : "Topic");
+        if (!incremental) {
+            model.resetPayload();
+        }
+        return mindMapCanvas.layoutFullDiagramWithCenteringToPaper(model, null);
+    }
+}
@@ -0,0 +1,96 @@
+package com.mindolph.mindmap.gfx;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.base.graphic.CanvasGraphicsWrapper;
+import com.mindolph.mindmap.MindMapConfig;
+import com.mindolph.mindmap.MindMapContext;
+import com.mindolph.mindmap.model.TopicNode;
+import javafx.application.Platform;
+import javafx.geometry.Bounds;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.layout.StackPane;
+import javafx.scene.text.Text;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relayout of a big mind map, with and without the string bounds cache.
+ *
+ * @author mindolph.com@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RelayoutBenchmark {
+
+    @Param({"500", "3000"})
+    private int topicCount;
+
+    @Param({"true", "false"})
+    private boolean cached;
+
+    private MindMap<TopicNode> model;
+    private MindMapCanvas mindMapCanvas;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RelayoutBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException e) {
+            // already started
+        }
+        model = new MindMap<>();
+        TopicNode root = new TopicNode(model, null, "Root topic");
+        model.setRoot(root);
+        TopicNode parent = root;
+        for (int i = 0; i < topicCount; i++) {
+            if (i % 10 == 0) {
+                parent = new TopicNode(model, root, "Branch " + i);
+            }
+            new TopicNode(model, parent, "Topic %d with some text\nand the second line".formatted(i));
+        }
+        Canvas canvas = new Canvas(32, 32);
+        mindMapCanvas = new MindMapCanvas(cached ? new CanvasGraphicsWrapper(canvas) : new UncachedGraphics(canvas),
+                new MindMapConfig(), new MindMapContext());
+    }
+
+    @Benchmark
+    public Dimension2D relayout() {
+        mindMapCanvas.calculateElementSizes(model);
+        return mindMapCanvas.layoutModelElements(model);
+    }
+
+    /**
+     * Measures string like before the cache was introduced.
+     */
+    private static class UncachedGraphics extends CanvasGraphicsWrapper {
+
+        public UncachedGraphics(Canvas canvas) {
+            super(canvas);
+        }
+
+        @Override
+        public Rectangle2D getStringBounds(String s) {
+            Text text = new Text(s);
+            text.setFont(getCanvas().getGraphicsContext2D().getFont());
+            StackPane stackPane = new StackPane(text);
+            stackPane.layout();
+            Bounds layoutBounds = text.getLayoutBounds();
+            return new Rectangle2D(layoutBounds.getMinX(), layoutBounds.getMinY(), layoutBounds.getWidth(), layoutBounds.getHeight());
+        }
+    }
+}
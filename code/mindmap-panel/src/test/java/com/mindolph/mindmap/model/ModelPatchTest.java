@@ -0,0 +1,134 @@
+package com.mindolph.mindmap.model;
+
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.mindmap.RootTopicCreator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class ModelPatchTest {
+
+    @Test
+    public void undoRedo() {
+        MindMap<TopicNode> map = new MindMap<>();
+        map.setRoot(new TopicNode(map, null, "root"));
+        TopicNode son = new TopicNode(map, map.getRoot(), "son");
+        TopicNode daughter = new TopicNode(map, map.getRoot(), "daughter");
+        new TopicNode(map, son, "grandson");
+        ModelPatchTracker tracker = new ModelPatchTracker(0);
+        tracker.reset(map);
+        String original = map.packToString();
+        Assert.assertNull(tracker.diff(map));
+
+        // edit and delete
+        daughter.setText("changed");
+        daughter.setExtra(new ExtraNote("note"));
+        daughter.setAttribute("fillColor", "#ff0000");
+        map.removeTopic(son);
+        String changed = map.packToString();
+        ModelPatch patch = tracker.diff(map);
+        Assert.assertNotNull(patch);
+        Assert.assertSame(map, patch.undo(map));
+        Assert.assertEquals(original, map.packToString());
+        Assert.assertSame(map, patch.redo(map));
+        Assert.assertEquals(changed, map.packToString());
+
+        // insert and move
+        patch.undo(map);
+        tracker.reset(map);
+        TopicNode newTopic = new TopicNode(map, daughter, "new");
+        son.getChildren().get(0).moveToNewParent(newTopic);
+        changed = map.packToString();
+        patch = tracker.diff(map);
+        Assert.assertNotNull(patch);
+        patch.undo(map);
+        Assert.assertEquals(original, map.packToString());
+        Assert.assertSame(son, son.getChildren().get(0).getParent());
+        patch.redo(map);
+        Assert.assertEquals(changed, map.packToString());
+        Assert.assertTrue(patch.getSize() > 0);
+    }
+
+    @Test
+    public void onlyChangedTopics() {
+        MindMap<TopicNode> map = new MindMap<>();
+        map.setRoot(new TopicNode(map, null, "root"));
+        TopicNode a = new TopicNode(map, map.getRoot(), "a");
+        TopicNode b = new TopicNode(map, map.getRoot(), "b");
+        TopicNode deep = new TopicNode(map, new TopicNode(map, a, "a1"), "a11");
+        TopicNode b1 = new TopicNode(map, b, "b1");
+        new TopicNode(map, b1, "b11");
+        ModelPatchTracker tracker = new ModelPatchTracker(0);
+        tracker.reset(map);
+        String original = map.packToString();
+
+        // change a nested topic, change a topic and then remove it, and move a sub-tree into a new topic.
+        deep.setText("deep");
+        b1.setText("removed");
+        map.removeTopic(b1);
+        TopicNode newTopic = new TopicNode(map, map.getRoot(), "new");
+        a.getChildren().get(0).moveToNewParent(newTopic);
+        String changed = map.packToString();
+        ModelPatch patch = tracker.diff(map);
+        Assert.assertNotNull(patch);
+        Assert.assertNull(tracker.diff(map));
+        patch.undo(map);
+        Assert.assertEquals(original, map.packToString());
+        patch.redo(map);
+        Assert.assertEquals(changed, map.packToString());
+
+        // the changes made by patch are taken as baseline by reset.
+        patch.undo(map);
+        tracker.reset(map);
+        Assert.assertNull(tracker.diff(map));
+        deep.setText("again");
+        patch = tracker.diff(map);
+        patch.undo(map);
+        Assert.assertEquals(original, map.packToString());
+    }
+
+    @Test
+    public void loadedExtras() throws IOException {
+        MindMap<TopicNode> map = new MindMap<>();
+        map.setRoot(new TopicNode(map, null, "root"));
+        new TopicNode(map, map.getRoot(), "child").setExtra(new ExtraNote("note"));
+        String original = map.packToString();
+        map = new MindMap<>(new StringReader(original), RootTopicCreator.defaultCreator);
+        TopicNode child = map.getRoot().getChildren().get(0);
+        ModelPatchTracker tracker = new ModelPatchTracker(0);
+        tracker.reset(map);
+        child.setText("changed");
+        Assert.assertNotNull(tracker.diff(map));
+        Assert.assertNotNull(child.getRawExtras()); // not decoded by tracking
+
+        child.setExtra(new ExtraNote("changed"));
+        ModelPatch patch = tracker.diff(map);
+        patch.undo(map);
+        Assert.assertEquals("note", child.getExtras().get(Extra.ExtraType.NOTE).getValue());
+    }
+
+    @Test
+    public void checkpoint() throws IOException {
+        MindMap<TopicNode> map = new MindMap<>();
+        map.setRoot(new TopicNode(map, null, "root"));
+        ModelPatchTracker tracker = new ModelPatchTracker(1);
+        tracker.reset(map);
+        map.getRoot().setText("changed");
+        ModelPatch patch = tracker.diff(map);
+        Assert.assertTrue(patch.hasCheckpoint());
+        Assert.assertSame(map, patch.verifyCheckpoint(map));
+
+        // the model diverged from the checkpoint is restored from it.
+        map.getRoot().setText("diverged");
+        MindMap<TopicNode> restored = patch.verifyCheckpoint(map);
+        Assert.assertNotSame(map, restored);
+        Assert.assertEquals("changed", restored.getRoot().getText());
+    }
+}
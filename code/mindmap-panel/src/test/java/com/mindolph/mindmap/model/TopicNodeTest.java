@@ -0,0 +1,93 @@
+package com.mindolph.mindmap.model;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.mindmap.constant.TextAlign;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class TopicNodeTest {
+
+    @Test
+    public void changeFlags() {
+        MindMap<TopicNode> map = new MindMap<>();
+        map.setRoot(new TopicNode(map, null, "root"));
+        TopicNode son = new TopicNode(map, map.getRoot(), "son");
+        TopicNode daughter = new TopicNode(map, map.getRoot(), "daughter");
+        TopicNode grandson = new TopicNode(map, son, "grandson");
+        map.getRoot().clearChanged();
+        son.clearChanged();
+        daughter.clearChanged();
+        grandson.clearChanged();
+
+        grandson.setText("changed");
+        Assert.assertTrue(grandson.isChanged());
+        Assert.assertTrue(son.isLayoutChanged());
+        Assert.assertFalse(son.isChanged());
+        Assert.assertTrue(map.getRoot().isLayoutChanged());
+        Assert.assertFalse(daughter.isLayoutChanged());
+
+        map.getRoot().clearChanged();
+        son.clearChanged();
+        grandson.clearChanged();
+        Assert.assertFalse(grandson.setAttribute("align", null)); // nothing changed
+        Assert.assertFalse(map.getRoot().isLayoutChanged());
+
+        grandson.moveToNewParent(daughter);
+        Assert.assertTrue(son.isLayoutChanged());
+        Assert.assertTrue(daughter.isLayoutChanged());
+        Assert.assertFalse(daughter.isChanged());
+
+        map.getRoot().clearChanged();
+        son.clearChanged();
+        daughter.clearChanged();
+        map.removeTopic(grandson);
+        Assert.assertTrue(daughter.isLayoutChanged());
+        Assert.assertTrue(map.getRoot().isLayoutChanged());
+        Assert.assertFalse(son.isLayoutChanged());
+    }
+
+    @Test
+    public void typedAttributes() {
+        MindMap<TopicNode> map = new MindMap<>();
+        map.setRoot(new TopicNode(map, null, "root"));
+        TopicNode son = new TopicNode(map, map.getRoot(), "son");
+        TopicNode daughter = new TopicNode(map, map.getRoot(), "daughter");
+        TopicNode grandson = new TopicNode(map, son, "grandson");
+        Assert.assertFalse(grandson.isHidden());
+        Assert.assertTrue(grandson.isTopicVisible());
+
+        son.setCollapsed(true);
+        Assert.assertTrue(son.isCollapsed());
+        Assert.assertTrue(grandson.isHidden());
+        Assert.assertFalse(grandson.isTopicVisible());
+        Assert.assertTrue(son.isTopicVisible());
+
+        grandson.moveToNewParent(daughter);
+        Assert.assertFalse(grandson.isHidden());
+        Assert.assertTrue(grandson.isTopicVisible());
+
+        // the first ancestor with the collapsed attribute decides whether it's hidden.
+        map.getRoot().setCollapsed(true);
+        daughter.setAttribute("collapsed", "false");
+        Assert.assertFalse(grandson.isHidden());
+        Assert.assertFalse(grandson.isTopicVisible());
+        daughter.setAttribute("collapsed", null);
+        Assert.assertTrue(grandson.isHidden());
+
+        son.makeTopicLeftSided(true);
+        Assert.assertTrue(son.isLeftSidedTopic());
+        Assert.assertFalse(son.isSameDirection(daughter));
+        son.putAttributes(Map.of("leftSide", "false"));
+        Assert.assertFalse(son.isLeftSidedTopic());
+        Assert.assertTrue(son.isSameDirection(daughter));
+
+        Assert.assertEquals(TextAlign.LEFT, son.getTextAlign());
+        son.setAttribute("align", "center");
+        Assert.assertEquals(TextAlign.CENTER, son.getTextAlign());
+    }
+}
@@ -52,5 +52,6 @@ public interface PrefConstants {
     String PREF_KEY_MD_FONT_FILE_PDF = "mmd.fontFile4Pdf";
     String PREF_KEY_MD_SANS_FONT_FILE = "md.fontFilePath.sans";
     String PREF_KEY_MD_MONO_FONT_FILE = "md.fontFilePath.mono";
+    String PREF_KEY_MD_PREVIEW_DELAY = "md.previewDelay";
 
 }
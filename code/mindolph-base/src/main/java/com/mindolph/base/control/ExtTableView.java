@@ -34,6 +34,7 @@ public class ExtTableView extends TableView<Row> {
     protected TableColumn<Row, String> indexCol;
     private int stubColIdx;
     private int stubRowIdx;
+    private ObservableList<Row> unfilteredRows; // all rows when filtered, otherwise null
 
     public ExtTableView() {
         super.setEditable(true);
@@ -81,6 +82,22 @@ public class ExtTableView extends TableView<Row> {
         this.afterRowAdded();
     }
 
+    /**
+     * Replace all rows, like with rows of {@link LazyRowList}.
+     *
+     * @param rows
+     * @since 1.11
+     */
+    public void resetRows(ObservableList<Row> rows) {
+        super.getSelectionModel().clearSelection();
+        if (unfilteredRows != null) {
+            unfilteredRows = null;
+            super.setEditable(true);
+        }
+        super.setItems(rows);
+        this.afterRowAdded();
+    }
+
     private void afterRowAdded() {
         stubRowIdx = super.getItems().size() - 1;
         Platform.runLater(() -> {
@@ -168,6 +185,18 @@ public class ExtTableView extends TableView<Row> {
         return column;
     }
 
+    /**
+     * Remove the last column, like the stub column.
+     *
+     * @since 1.11
+     */
+    public void removeLastColumn() {
+        if (super.getColumns().size() > 1) {
+            super.getColumns().removeLast();
+            stubColIdx = super.getColumns().size() - 1;
+        }
+    }
+
     public boolean isStubColumn(TableColumn<Row, String> column) {
         return super.getColumns().indexOf(column) == stubColIdx;
     }
@@ -188,9 +217,97 @@ public class ExtTableView extends TableView<Row> {
         return true;
     }
 
+    /**
+     * @param index
+     * @return the removed row.
+     * @since 1.11
+     */
+    public Row removeRow(int index) {
+        super.getSelectionModel().clearSelection();
+        Row removed = super.getItems().remove(index);
+        this.reOrder();
+        stubRowIdx = super.getItems().size() - 1;
+        return removed;
+    }
+
+    /**
+     * Move rows in range to new positions.
+     *
+     * @param from  index of the first row in range.
+     * @param order the old positions (relative to from) of rows at new positions.
+     * @since 1.11
+     */
+    public void reorderRows(int from, int[] order) {
+        super.getSelectionModel().clearSelection();
+        ObservableList<Row> items = super.getItems();
+        if (items instanceof LazyRowList lazyRows) {
+            lazyRows.reorder(from, order);
+        }
+        else {
+            List<Row> moved = new ArrayList<>(order.length);
+            for (int i : order) {
+                moved.add(items.get(from + i));
+            }
+            for (int i = 0; i < moved.size(); i++) {
+                items.set(from + i, moved.get(i));
+            }
+        }
+        this.reOrder();
+        super.refresh();
+    }
+
+    /**
+     * Show only the rows at the indexes, the rows are read-only until the filter is cleared.
+     *
+     * @param indexes indexes of rows in all rows.
+     * @since 1.11
+     */
+    public void filterRows(int[] indexes) {
+        if (unfilteredRows == null) {
+            unfilteredRows = super.getItems();
+        }
+        super.getSelectionModel().clearSelection();
+        super.setItems(new RowSubList(unfilteredRows, indexes));
+        super.setEditable(false);
+    }
+
+    /**
+     * @return true if the filter was applied.
+     * @since 1.11
+     */
+    public boolean clearFilter() {
+        if (unfilteredRows == null) {
+            return false;
+        }
+        super.getSelectionModel().clearSelection();
+        super.setItems(unfilteredRows);
+        unfilteredRows = null;
+        super.setEditable(true);
+        return true;
+    }
+
+    /**
+     * @since 1.11
+     */
+    public boolean isFiltered() {
+        return unfilteredRows != null;
+    }
+
+    /**
+     * @return all rows even they are filtered.
+     * @since 1.11
+     */
+    public ObservableList<Row> getAllRows() {
+        return unfilteredRows != null ? unfilteredRows : super.getItems();
+    }
+
     public void reOrder() {
         ObservableList<Row> items = super.getItems();
         log.debug("%d rows left.".formatted(items.size()));
+        if (items instanceof LazyRowList lazyRows) {
+            lazyRows.reindex(); // avoid loading all rows
+            return;
+        }
         for (int i = 0; i < items.size(); i++) {
             Row item = items.get(i);
             item.setIndex(i);
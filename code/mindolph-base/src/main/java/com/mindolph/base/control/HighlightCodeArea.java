@@ -1,19 +1,194 @@
 package com.mindolph.base.control;
 
+import com.mindolph.base.control.ParagraphHighlighter.Block;
+import javafx.application.Platform;
+import org.apache.commons.lang3.StringUtils;
+import org.fxmisc.richtext.model.PlainTextChange;
 import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+import org.fxmisc.richtext.model.TwoDimensional.Bias;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
 
 /**
+ * Code area with syntax highlighting, which is computed incrementally in background:
+ * only the paragraphs touched by text changes are highlighted again, and the following paragraphs
+ * if the multi-line block state at the end of them changes.
+ *
  * @author mindolph.com@gmail.com
  */
 public abstract class HighlightCodeArea extends SearchableCodeArea {
 
+    private static final Logger log = LoggerFactory.getLogger(HighlightCodeArea.class);
+
+    // max paragraphs highlighted in one background task.
+    private static final int CHUNK_SIZE = 500;
+
+    private static final int STATE_UNKNOWN = -1;
+
+    private static final ExecutorService highlightExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "highlight");
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
      * Pattern for highlighting.
      */
     protected Pattern pattern;
 
+    private final ParagraphHighlighter paragraphHighlighter = new ParagraphHighlighter(this::computeHighlighting);
+
+    // the state at the end of each paragraph.
+    private final List<Integer> paragraphStates = new ArrayList<>();
+    // range of paragraphs to be highlighted (inclusive), -1 for nothing.
+    private int dirtyFrom = -1;
+    private int dirtyTo = -1;
+    // increased on each text change to drop the highlighting of outdated text.
+    private long textVersion;
+    private boolean highlighting;
+
+    public HighlightCodeArea() {
+        super();
+        this.resetParagraphStates();
+        this.plainTextChanges().subscribe(this::onTextChanged);
+    }
+
+    /**
+     * Multi-line blocks that can't be matched by the pattern in one paragraph.
+     *
+     * @param blocks
+     * @since 1.11
+     */
+    protected void setMultiLineBlocks(Block... blocks) {
+        paragraphHighlighter.setBlocks(blocks);
+    }
+
+    /**
+     * Compute highlighting of text, it's called in background for one paragraph (or part of it) at a time.
+     *
+     * @param text
+     * @return
+     */
     protected abstract StyleSpans<Collection<String>> computeHighlighting(String text);
+
+    /**
+     * Highlighting is updated with text changes automatically, this only applies pending highlighting.
+     */
+    @Override
+    public void refresh() {
+        this.scheduleHighlighting();
+    }
+
+    private void onTextChanged(PlainTextChange change) {
+        textVersion++;
+        int paragraph = this.offsetToPosition(change.getPosition(), Bias.Forward).getMajor();
+        int removedLines = StringUtils.countMatches(change.getRemoved(), '\n');
+        int insertedLines = StringUtils.countMatches(change.getInserted(), '\n');
+        for (int i = 0; i < removedLines && paragraph + 1 < paragraphStates.size(); i++) {
+            paragraphStates.remove(paragraph + 1);
+        }
+        for (int i = 0; i < insertedLines; i++) {
+            paragraphStates.add(paragraph + 1, STATE_UNKNOWN);
+        }
+        int paragraphCount = this.getParagraphs().size();
+        if (paragraphStates.size() != paragraphCount) {
+            log.debug("Paragraph states are out of sync, highlight all");
+            this.resetParagraphStates();
+            this.markDirty(0, paragraphCount - 1);
+        }
+        else {
+            if (dirtyTo > paragraph) {
+                dirtyTo = Math.max(paragraph, dirtyTo + insertedLines - removedLines);
+            }
+            this.markDirty(paragraph, paragraph + insertedLines);
+        }
+        this.scheduleHighlighting();
+    }
+
+    private void resetParagraphStates() {
+        paragraphStates.clear();
+        paragraphStates.addAll(Collections.nCopies(this.getParagraphs().size(), STATE_UNKNOWN));
+    }
+
+    private void markDirty(int from, int to) {
+        int last = paragraphStates.size() - 1;
+        dirtyFrom = dirtyFrom < 0 ? from : Math.min(dirtyFrom, from);
+        dirtyTo = Math.min(last, Math.max(dirtyTo, to));
+        dirtyFrom = Math.min(dirtyFrom, dirtyTo);
+    }
+
+    private void scheduleHighlighting() {
+        if (highlighting || dirtyFrom < 0) {
+            return;
+        }
+        highlighting = true;
+        int from = dirtyFrom;
+        int to = Math.min(dirtyTo, from + CHUNK_SIZE - 1);
+        // paragraphs before the dirty range are always highlighted, so is the state of them.
+        int startState = from == 0 ? ParagraphHighlighter.STATE_NONE : paragraphStates.get(from - 1);
+        List<String> texts = new ArrayList<>(to - from + 1);
+        for (int i = from; i <= to; i++) {
+            texts.add(this.getParagraph(i).getText());
+        }
+        long version = textVersion;
+        highlightExecutor.execute(() -> {
+            List<StyleSpans<Collection<String>>> spansList = new ArrayList<>(texts.size());
+            int[] states = new int[texts.size()];
+            try {
+                int state = startState;
+                for (int i = 0; i < texts.size(); i++) {
+                    StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
+                    state = paragraphHighlighter.highlight(texts.get(i), state, spansBuilder);
+                    spansList.add(spansBuilder.create());
+                    states[i] = state;
+                }
+            } catch (Exception e) {
+                log.error("Failed to highlight paragraphs from %d to %d".formatted(from, to), e);
+                Platform.runLater(() -> {
+                    highlighting = false;
+                    dirtyFrom = dirtyTo = -1;
+                });
+                return;
+            }
+            Platform.runLater(() -> this.applyHighlighting(version, from, spansList, states));
+        });
+    }
+
+    private void applyHighlighting(long version, int from, List<StyleSpans<Collection<String>>> spansList, int[] states) {
+        highlighting = false;
+        if (version != textVersion) {
+            // text changed in the meantime, the dirty range covers the changes, highlight it again.
+            this.scheduleHighlighting();
+            return;
+        }
+        int to = from + spansList.size() - 1;
+        for (int i = 0; i < spansList.size(); i++) {
+            this.setStyleSpans(from + i, 0, spansList.get(i));
+        }
+        int oldEndState = paragraphStates.get(to);
+        for (int i = 0; i < states.length; i++) {
+            paragraphStates.set(from + i, states[i]);
+        }
+        if (to < dirtyTo) {
+            dirtyFrom = to + 1;
+        }
+        else if (states[states.length - 1] != oldEndState && to + 1 < paragraphStates.size()) {
+            // the block state changes, which affects the following paragraphs.
+            dirtyFrom = to + 1;
+            dirtyTo = Math.min(paragraphStates.size() - 1, to + CHUNK_SIZE);
+        }
+        else {
+            dirtyFrom = dirtyTo = -1;
+        }
+        this.scheduleHighlighting();
+    }
 }
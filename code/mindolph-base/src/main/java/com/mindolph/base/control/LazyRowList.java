@@ -0,0 +1,337 @@
+package com.mindolph.base.control;
+
+import javafx.collections.ObservableListBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Rows for {@link ExtTableView} that are read from a {@link RowSource} lazily by windows around the accessed row,
+ * the decoded rows are kept in a LRU cache, the rows that are changed or added are kept in an overlay until rebased.
+ * The index of row is updated when it is accessed, so it's not necessary to re-order all rows after structure changes.
+ * Changes of a decoded row are detected by comparing with its original data when it's evicted from cache,
+ * so the rows must be accessed by {@link #get(int)} before changing.
+ *
+ * @author mindolph.com@gmail.com
+ * @see ExtTableView
+ * @since 1.11
+ */
+public class LazyRowList extends ObservableListBase<Row> {
+
+    private static final Logger log = LoggerFactory.getLogger(LazyRowList.class);
+
+    public static final int DEFAULT_WINDOW_SIZE = 256;
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private RowSource source;
+    private final int columnSize;
+    private final int windowSize;
+    private final int cacheSize;
+
+    // keys of rows in order, key >= 0 is the index of row in source, key < 0 is for added row.
+    private int[] keys;
+    private int size;
+    private int nextAddedKey = -1;
+
+    private final Map<Integer, CachedRow> cache;
+    private final Map<Integer, Row> overlay = new HashMap<>();
+    private final Map<Row, Integer> rowKeys = new IdentityHashMap<>();
+
+    /**
+     * @param source
+     * @param columnSize size of data for each row.
+     */
+    public LazyRowList(RowSource source, int columnSize) {
+        this(source, columnSize, DEFAULT_WINDOW_SIZE, DEFAULT_CACHE_SIZE);
+    }
+
+    public LazyRowList(RowSource source, int columnSize, int windowSize, int cacheSize) {
+        this.columnSize = columnSize;
+        this.windowSize = windowSize;
+        this.cacheSize = Math.max(cacheSize, windowSize * 2);
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedRow> eldest) {
+                if (size() > LazyRowList.this.cacheSize) {
+                    onEvicted(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.resetKeys(source);
+    }
+
+    private void resetKeys(RowSource source) {
+        this.source = source;
+        this.size = source.getRowCount();
+        this.keys = new int[Math.max(16, size + 16)];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+    }
+
+    @Override
+    public Row get(int index) {
+        Objects.checkIndex(index, size);
+        int key = keys[index];
+        Row row = overlay.get(key);
+        if (row == null) {
+            CachedRow cached = cache.get(key);
+            if (cached == null) {
+                this.loadWindow(key);
+                cached = cache.get(key);
+            }
+            row = cached.row;
+        }
+        row.setIndex(index);
+        return row;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(int index, Row row) {
+        Objects.checkIndex(index, size + 1);
+        int key = nextAddedKey--;
+        this.ensureCapacity(size + 1);
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        keys[index] = key;
+        size++;
+        overlay.put(key, row);
+        rowKeys.put(row, key);
+        row.setIndex(index);
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    @Override
+    public Row set(int index, Row row) {
+        Row old = this.get(index);
+        int key = keys[index];
+        this.forget(key, old);
+        overlay.put(key, row);
+        rowKeys.put(row, key);
+        row.setIndex(index);
+        beginChange();
+        nextSet(index, old);
+        endChange();
+        return old;
+    }
+
+    @Override
+    public Row remove(int index) {
+        Row old = this.get(index);
+        this.forget(keys[index], old);
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        size--;
+        beginChange();
+        nextRemove(index, old);
+        endChange();
+        return old;
+    }
+
+    /**
+     * Remove rows by their positions instead of iterating all rows.
+     */
+    @Override
+    public boolean removeAll(Collection<?> rows) {
+        List<Integer> positions = new ArrayList<>();
+        for (Object o : rows) {
+            Integer key = o instanceof Row ? rowKeys.get(o) : null;
+            int pos = key == null ? -1 : this.indexOfKey(key);
+            if (pos >= 0) {
+                positions.add(pos);
+            }
+        }
+        if (positions.isEmpty()) {
+            return false;
+        }
+        positions.sort(Comparator.reverseOrder());
+        beginChange();
+        for (int pos : positions) {
+            Row old = this.get(pos);
+            this.forget(keys[pos], old);
+            System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+            size--;
+            nextRemove(pos, old);
+        }
+        endChange();
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Integer key = o instanceof Row ? rowKeys.get(o) : null;
+        return key == null ? -1 : this.indexOfKey(key);
+    }
+
+    /**
+     * Move rows in range by their keys without loading them.
+     *
+     * @param from  index of the first row in range.
+     * @param order the old positions (relative to from) of rows at new positions.
+     */
+    public void reorder(int from, int[] order) {
+        Objects.checkFromIndexSize(from, order.length, size);
+        int[] moved = new int[order.length];
+        int[] perm = new int[order.length]; // new indexes of the old positions
+        for (int i = 0; i < order.length; i++) {
+            moved[i] = keys[from + order[i]];
+            perm[order[i]] = from + i;
+        }
+        System.arraycopy(moved, 0, keys, from, moved.length);
+        beginChange();
+        nextPermutation(from, from + order.length, perm);
+        endChange();
+    }
+
+    /**
+     * Update indexes of all decoded rows, the other rows get their indexes when they are accessed.
+     */
+    public void reindex() {
+        for (int i = 0; i < size; i++) {
+            int key = keys[i];
+            Row row = overlay.get(key);
+            if (row == null) {
+                CachedRow cached = cache.get(key);
+                row = cached == null ? null : cached.row;
+            }
+            if (row != null) {
+                row.setIndex(i);
+            }
+        }
+    }
+
+    /**
+     * Replace the source with a new one which has the same data of the rows in order (like the file is saved),
+     * the rows after the rows of source (like a stub row) are kept.
+     *
+     * @param newSource
+     */
+    public void rebase(RowSource newSource) {
+        List<Row> tail = new ArrayList<>();
+        for (int i = newSource.getRowCount(); i < size; i++) {
+            tail.add(this.get(i));
+        }
+        cache.clear();
+        overlay.clear();
+        rowKeys.clear();
+        this.resetKeys(newSource);
+        for (Row row : tail) {
+            int key = nextAddedKey--;
+            this.ensureCapacity(size + 1);
+            keys[size] = key;
+            row.setIndex(size++);
+            overlay.put(key, row);
+            rowKeys.put(row, key);
+        }
+        log.debug("Rebased %d rows with %d rows kept".formatted(size, tail.size()));
+    }
+
+    /**
+     * Replace the source with a new one which has exactly the same rows as the current source (like the file is
+     * opened again), the changes of rows are kept.
+     *
+     * @param newSource
+     */
+    public void reopen(RowSource newSource) {
+        if (newSource.getRowCount() != source.getRowCount()) {
+            throw new IllegalArgumentException("Expect %d rows but got %d".formatted(source.getRowCount(), newSource.getRowCount()));
+        }
+        this.source = newSource;
+    }
+
+    private int indexOfKey(int key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void forget(int key, Row row) {
+        overlay.remove(key);
+        cache.remove(key);
+        rowKeys.remove(row);
+    }
+
+    private void loadWindow(int key) {
+        int from = Math.max(0, key - windowSize / 2);
+        int to = Math.min(source.getRowCount(), from + windowSize);
+        long start = System.currentTimeMillis();
+        List<List<String>> window = source.readRows(from, to);
+        for (int i = 0; i < window.size(); i++) {
+            int k = from + i;
+            if (overlay.containsKey(k) || cache.containsKey(k)) {
+                continue; // the row in use must not be replaced.
+            }
+            List<String> values = window.get(i);
+            Row row = ExtTableView.createRow(Math.max(columnSize, values.size()));
+            for (int j = 0; j < values.size(); j++) {
+                row.getData().set(j, values.get(j));
+            }
+            cache.put(k, new CachedRow(row, row.getData().stream().map(v -> v == null ? "" : v).toList()));
+            rowKeys.put(row, k);
+        }
+        if (!cache.containsKey(key)) {
+            throw new IllegalStateException("Row %d is not available from source".formatted(key));
+        }
+        if (log.isTraceEnabled()) log.trace("Loaded rows %d-%d in %d ms".formatted(from, to, System.currentTimeMillis() - start));
+    }
+
+    private void onEvicted(int key, CachedRow cached) {
+        if (cached.isChanged()) {
+            overlay.put(key, cached.row); // keep the changes.
+        }
+        else {
+            rowKeys.remove(cached.row);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(capacity, keys.length + (keys.length >> 1)));
+        }
+    }
+
+    /**
+     * Row with its original data to detect changes.
+     */
+    private record CachedRow(Row row, List<String> original) {
+        boolean isChanged() {
+            List<String> data = row.getData();
+            if (data.size() != original.size()) {
+                return true;
+            }
+            for (int i = 0; i < data.size(); i++) {
+                String v = data.get(i);
+                if (!original.get(i).equals(v == null ? "" : v)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Source of rows that can be read by ranges.
+     */
+    public interface RowSource {
+
+        int getRowCount();
+
+        /**
+         * @param from inclusive
+         * @param to   exclusive
+         * @return values of rows in the range.
+         */
+        List<List<String>> readRows(int from, int to);
+    }
+}
@@ -0,0 +1,138 @@
+package com.mindolph.base.control;
+
+import org.fxmisc.richtext.model.StyleSpan;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.mindolph.core.constant.TextConstants.LINE_SEPARATOR;
+
+/**
+ * Highlight text paragraph by paragraph, the multi-line blocks (like code block or block comment) are
+ * tracked by the state at the end of each paragraph, so that a paragraph can be highlighted by knowing
+ * only the state at the end of the previous paragraph.
+ * Text out of blocks is highlighted by the function, with a line separator appended to it, a block doesn't start
+ * inside the tokens highlighted by the function.
+ * This class is thread-safe, it is used in background.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class ParagraphHighlighter {
+
+    /**
+     * State of paragraph that is not ended in any block.
+     */
+    public static final int STATE_NONE = 0;
+
+    private final Function<String, StyleSpans<Collection<String>>> highlighting;
+
+    private volatile List<Block> blocks = Collections.emptyList();
+
+    public ParagraphHighlighter(Function<String, StyleSpans<Collection<String>>> highlighting) {
+        this.highlighting = highlighting;
+    }
+
+    public void setBlocks(Block... blocks) {
+        this.blocks = List.of(blocks);
+    }
+
+    /**
+     * @param text  text of one paragraph, without line separator.
+     * @param state state at the end of previous paragraph.
+     * @param spansBuilder
+     * @return state at the end of this paragraph.
+     */
+    public int highlight(String text, int state, StyleSpansBuilder<Collection<String>> spansBuilder) {
+        List<Block> blocks = this.blocks;
+        spansBuilder.add(Collections.emptyList(), 0); // in case of empty paragraph
+        int pos = 0;
+        int searchFrom = 0; // the end of a block is searched after its start.
+        while (true) {
+            if (state > STATE_NONE && state <= blocks.size()) {
+                Block block = blocks.get(state - 1);
+                int end = text.indexOf(block.end(), searchFrom);
+                if (end < 0) {
+                    spansBuilder.add(Collections.singleton(block.styleClass()), text.length() - pos);
+                    return state;
+                }
+                end += block.end().length();
+                spansBuilder.add(Collections.singleton(block.styleClass()), end - pos);
+                pos = end;
+                state = STATE_NONE;
+            }
+            else {
+                // the tokens are highlighted first, a block doesn't start inside a token (like in a comment).
+                String rest = text.substring(pos);
+                StyleSpans<Collection<String>> spans = this.highlightText(rest);
+                int start = -1;
+                int found = STATE_NONE;
+                for (int i = 0; i < blocks.size(); i++) {
+                    String delimiter = blocks.get(i).start();
+                    int s = rest.indexOf(delimiter);
+                    while (s >= 0 && isInToken(rest, spans, s)) {
+                        s = rest.indexOf(delimiter, s + 1);
+                    }
+                    if (s >= 0 && (start < 0 || s < start)) {
+                        start = s;
+                        found = i + 1;
+                    }
+                }
+                if (start < 0) {
+                    addSpans(spans, rest.length(), spansBuilder);
+                    return STATE_NONE;
+                }
+                addSpans(spans, start, spansBuilder);
+                pos += start;
+                searchFrom = pos + blocks.get(found - 1).start().length();
+                state = found;
+            }
+        }
+    }
+
+    private StyleSpans<Collection<String>> highlightText(String text) {
+        if (text.isEmpty()) {
+            return null;
+        }
+        // the line separator is needed by the patterns that match to the end of line.
+        return highlighting.apply(text + LINE_SEPARATOR).subView(0, text.length());
+    }
+
+    private static void addSpans(StyleSpans<Collection<String>> spans, int length, StyleSpansBuilder<Collection<String>> spansBuilder) {
+        if (length == 0) {
+            return;
+        }
+        for (StyleSpan<Collection<String>> span : spans.subView(0, length)) {
+            spansBuilder.add(span);
+        }
+    }
+
+    /**
+     * Whether the position is inside a token that starts before it, the leading blanks of the token are not counted
+     * (e.g. the pattern of inline code might match the indent before a code block).
+     */
+    private static boolean isInToken(String text, StyleSpans<Collection<String>> spans, int position) {
+        int offset = 0;
+        for (StyleSpan<Collection<String>> span : spans) {
+            if (position < offset + span.getLength()) {
+                return !span.getStyle().isEmpty() && offset < position && !text.substring(offset, position).isBlank();
+            }
+            offset += span.getLength();
+        }
+        return false;
+    }
+
+    /**
+     * A multi-line block.
+     *
+     * @param start      text that starts the block.
+     * @param end        text that ends the block.
+     * @param styleClass style class of the whole block.
+     */
+    public record Block(String start, String end, String styleClass) {
+    }
+}
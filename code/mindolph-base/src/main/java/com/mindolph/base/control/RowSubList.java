@@ -0,0 +1,40 @@
+package com.mindolph.base.control;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.List;
+
+/**
+ * Read-only view of some rows of source rows by their indexes in source, like the filtered rows,
+ * the rows are got from source only when they are accessed, and the indexes of rows are kept as in source.
+ *
+ * @author mindolph.com@gmail.com
+ * @see ExtTableView#filterRows(int[])
+ * @since 1.11
+ */
+public class RowSubList extends ObservableListBase<Row> {
+
+    private final List<Row> source;
+    private final int[] indexes;
+
+    /**
+     * @param source
+     * @param indexes ascending indexes of rows in source.
+     */
+    public RowSubList(List<Row> source, int[] indexes) {
+        this.source = source;
+        this.indexes = indexes;
+    }
+
+    @Override
+    public Row get(int index) {
+        Row row = source.get(indexes[index]);
+        row.setIndex(indexes[index]);
+        return row;
+    }
+
+    @Override
+    public int size() {
+        return indexes.length;
+    }
+}
@@ -46,8 +46,9 @@ public class SearchableCodeArea extends SmartCodeArea {
 
     public SearchableCodeArea() {
         super();
-        this.textProperty().addListener((observable, oldValue, newValue) -> {
-            textNavigator.setText(newValue, false);
+        // keep the line index of navigator updated incrementally, the text is provided when searching.
+        this.plainTextChanges().subscribe(change -> {
+            textNavigator.replaceText(change.getPosition(), change.getRemovalEnd() - change.getPosition(), change.getInserted());
         });
     }
 
@@ -3,10 +3,10 @@ package com.mindolph.base.editor;
 import com.mindolph.base.EditorContext;
 import com.mindolph.base.control.SearchableCodeArea;
 import com.mindolph.base.event.EventBus;
+import com.mindolph.base.event.OutlineChange;
 import com.mindolph.core.model.OutlineItemData;
 import com.mindolph.core.model.Snippet;
 import com.mindolph.core.search.*;
-import com.mindolph.mfx.util.TextUtils;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.input.TransferMode;
@@ -16,6 +16,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.fxmisc.richtext.CharacterHit;
 import org.fxmisc.richtext.LineNumberFactory;
 import org.fxmisc.richtext.model.Paragraph;
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.fxmisc.richtext.model.TwoDimensional.Bias;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.swiftboot.collections.tree.Node;
@@ -24,13 +26,12 @@ import org.swiftboot.collections.tree.Tree;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static com.mindolph.base.control.ExtCodeArea.FEATURE.*;
+import static com.mindolph.core.constant.TextConstants.LINE_SEPARATOR;
 
 /**
  * RichTextFX References:
@@ -48,6 +49,8 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
     protected boolean acceptDraggingFiles = false;
 
     private Pattern outlinePattern; // used to extract outline
+    private OutlineModel outlineModel; // maintained from paragraph changes in FX thread
+    private Tree outlineTree; // last notified outline tree that changes apply to
 
 //    protected String fontPrefKey;
 
@@ -128,6 +131,11 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
 
             // refresh before listening the text change event.
             this.refresh(text);
+            if (outlinePattern != null && outlineModel == null) {
+                outlineModel = new OutlineModel(outlinePattern, this.getHeadingLevelTag(), this::extractOutlineTitle);
+                outlineModel.reset(this::getParagraphText, codeArea.getParagraphs().size());
+                this.codeArea.plainTextChanges().subscribe(this::onPlainTextChange);
+            }
 
             // add text change listener should after CodeArea init content.
             this.codeArea.textProperty().addListener((observable, oldValue, newText) -> {
@@ -137,7 +145,6 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
                     refresh(newText);
                     isChanged = true;
                     fileChangedEventHandler.onFileChanged(editorContext.getFileData());
-                    this.outline();
                     EventBus.getIns().notifyMenuStateChange(EventBus.MenuTag.UNDO, this.codeArea.getUndoManager().isUndoAvailable());
                 }
             });
@@ -175,6 +182,24 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
 
     protected abstract String extractOutlineTitle(String heading, TextLocation location, TextLocation nextBlockLocation);
 
+    private String getParagraphText(int row) {
+        return codeArea.getParagraph(row).getText();
+    }
+
+    /**
+     * Update the outline with the changed paragraphs only.
+     */
+    private void onPlainTextChange(PlainTextChange change) {
+        int fromRow = codeArea.offsetToPosition(change.getPosition(), Bias.Forward).getMajor();
+        int removedLines = StringUtils.countMatches(change.getRemoved(), LINE_SEPARATOR);
+        int insertedLines = StringUtils.countMatches(change.getInserted(), LINE_SEPARATOR);
+        List<OutlineChange.Op> ops = outlineModel.update(this::getParagraphText, fromRow, removedLines, insertedLines);
+        if (!ops.isEmpty() && outlineTree != null) {
+            if (log.isTraceEnabled()) log.trace("Outline changed: %s".formatted(ops));
+            EventBus.getIns().notifyOutlineChange(new OutlineChange(outlineTree, ops));
+        }
+    }
+
     @Override
     public void outline() {
         if (StringUtils.isBlank(this.getOutlinePattern()) || outlinePattern == null) {
@@ -184,58 +209,37 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
             EventBus.getIns().notifyOutline(tree);
             return;
         }
-        threadPoolService.execute(() -> {
-            Matcher matcher = outlinePattern.matcher(codeArea.getText());
-            if (!matcher.hasMatch()) {
-                log.warn("No outline found by: %s".formatted(getOutlinePattern()));
-            }
-            Tree tree = new Tree();
-            Node root = new Node("Stub");
-            root.setLevel(0);
-            tree.init(root);
-
-            Node curNode = root;
-            TextNavigator tn = new TextNavigator(); // locating the found heading
-            tn.setText(codeArea.getText(), true);
-            List<HeadingLocation> l = new ArrayList<>();
-
-            while (matcher.find()) {
-                String heading = matcher.group(2);// TODO this 2 should be...
-                int n = TextUtils.countInStarting(heading, this.getHeadingLevelTag());
-                TextLocation textLocation = tn.locateNext(heading, true);
-                textLocation.setStartCol(0);
-                textLocation.setEndRow(textLocation.getStartRow());
-                textLocation.setEndCol(textLocation.getEndCol() + 1);
-                l.add(new HeadingLocation(heading, n, textLocation));
+        Tree tree = new Tree();
+        Node root = new Node("Stub");
+        root.setLevel(0);
+        tree.init(root);
+        if (outlineModel == null) {
+            EventBus.getIns().notifyOutline(tree); // not loaded yet
+            return;
+        }
+        Node curNode = root;
+        for (OutlineModel.Heading heading : outlineModel.getHeadings()) {
+            if (log.isTraceEnabled()) log.trace("  %d - %s".formatted(heading.level(), heading.data().getName()));
+            Node newNode = new Node(heading.data());
+            newNode.setLevel(heading.level());
+
+            if (heading.level() > curNode.getLevel()) {
+                // as child
+                log.trace("    as child");
+                curNode.addChild(newNode);
+                newNode.setParent(curNode);
             }
-            for (int i = 0; i < l.size(); i++) {
-                HeadingLocation hl = l.get(i);
-                String title = this.extractOutlineTitle(hl.heading, hl.textLocation(), (i + 1) < l.size() ? l.get(i + 1).textLocation : null);
-                if (log.isTraceEnabled()) log.trace("  %d - %s".formatted(hl.level(), title));
-
-                TextAnchor ta = new TextAnchor(hl.textLocation);
-                OutlineItemData outlineItemData = new OutlineItemData(title, ta);
-
-                Node newNode = new Node(outlineItemData);
-                newNode.setLevel(hl.level);
-
-                if (hl.level > curNode.getLevel()) {
-                    // as child
-                    log.trace("    as child");
-                    curNode.addChild(newNode);
-                    newNode.setParent(curNode);
-                }
-                else {
-                    // as sibling
-                    log.trace("    as sibling");
-                    Node ancestor = curNode.findAncestor(node -> node.getLevel() <= newNode.getLevel() - 1);
-                    ancestor.addChild(newNode);
-                    newNode.setParent(ancestor);
-                }
-                curNode = newNode;
+            else {
+                // as sibling
+                log.trace("    as sibling");
+                Node ancestor = curNode.findAncestor(node -> node.getLevel() <= newNode.getLevel() - 1);
+                ancestor.addChild(newNode);
+                newNode.setParent(ancestor);
             }
-            EventBus.getIns().notifyOutline(tree);
-        });
+            curNode = newNode;
+        }
+        this.outlineTree = tree;
+        EventBus.getIns().notifyOutline(tree);
     }
 
     @Override
@@ -370,7 +374,4 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
         return codeArea.getSelectedText();
     }
 
-
-    private record HeadingLocation(String heading, int level, TextLocation textLocation) {
-    }
 }
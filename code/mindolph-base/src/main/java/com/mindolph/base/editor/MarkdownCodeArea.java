@@ -3,6 +3,7 @@ package com.mindolph.base.editor;
 import com.mindolph.base.ShortcutManager;
 import com.mindolph.base.constant.ShortcutConstants;
 import com.mindolph.base.control.HighlightCodeArea;
+import com.mindolph.base.control.ParagraphHighlighter.Block;
 import com.mindolph.core.constant.SupportFileTypes;
 import javafx.scene.input.KeyEvent;
 import org.fxmisc.richtext.model.StyleSpans;
@@ -40,6 +41,8 @@ public class MarkdownCodeArea extends HighlightCodeArea {
                         + "|(?<URL>" + URL_PATTERN + ")"
         );
 
+        super.setMultiLineBlocks(new Block("```", "```", "code-block"));
+
         super.addFeatures(TAB_INDENT, QUOTE, DOUBLE_QUOTE, BACK_QUOTE, AUTO_INDENT);
         InputMap<KeyEvent> comment = InputMap.consume(EventPattern.keyPressed(ShortcutManager.getIns().getKeyCombination(ShortcutConstants.KEY_MD_COMMENT)), keyEvent -> {
             super.addOrTrimHeadToParagraphsIfAdded(new Replacement("> ")); // TODO add tail
@@ -47,11 +50,6 @@ public class MarkdownCodeArea extends HighlightCodeArea {
         Nodes.addInputMap(this, comment);
     }
 
-    @Override
-    public void refresh() {
-        this.setStyleSpans(0, computeHighlighting(this.getText()));
-    }
-
     @Override
     protected StyleSpans<Collection<String>> computeHighlighting(String text) {
         Matcher matcher = pattern.matcher(text);
@@ -0,0 +1,211 @@
+package com.mindolph.base.editor;
+
+import com.mindolph.base.event.OutlineChange;
+import com.mindolph.core.model.OutlineItemData;
+import com.mindolph.core.search.TextAnchor;
+import com.mindolph.core.search.TextLocation;
+import com.mindolph.mfx.util.TextUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.mindolph.core.constant.TextConstants.LINE_SEPARATOR;
+
+/**
+ * Headings of a text document in document order, maintained from changes of paragraphs,
+ * only the changed lines are scanned again, the headings after them are moved by the number of changed lines.
+ * Headings are matched line by line by the outline pattern, so a heading can't be across lines.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class OutlineModel {
+
+    private final Pattern pattern;
+    private final String headingLevelTag;
+    private final TitleExtractor titleExtractor;
+
+    private final List<Heading> headings = new ArrayList<>();
+
+    /**
+     * @param pattern         pattern to match a heading in one line, the heading is the group 2.
+     * @param headingLevelTag tag to count the level of heading, null for no level.
+     * @param titleExtractor
+     */
+    public OutlineModel(Pattern pattern, String headingLevelTag, TitleExtractor titleExtractor) {
+        this.pattern = pattern;
+        this.headingLevelTag = headingLevelTag;
+        this.titleExtractor = titleExtractor;
+    }
+
+    /**
+     * Scan all the lines.
+     *
+     * @param lines     provides text of line by row.
+     * @param lineCount
+     */
+    public void reset(IntFunction<String> lines, int lineCount) {
+        headings.clear();
+        headings.addAll(this.scan(lines, 0, lineCount - 1));
+        for (int i = 0; i < headings.size(); i++) {
+            this.extractTitle(i);
+        }
+    }
+
+    /**
+     * Scan the changed lines again, the text provided by lines must be already changed.
+     *
+     * @param lines         provides text of line by row.
+     * @param fromRow       the row that the change starts at.
+     * @param removedLines  number of line separators removed by the change.
+     * @param insertedLines number of line separators inserted by the change.
+     * @return operations to apply on the outline items, empty if nothing changed for the outline.
+     */
+    public List<OutlineChange.Op> update(IntFunction<String> lines, int fromRow, int removedLines, int insertedLines) {
+        int lo = 0;
+        while (lo < headings.size() && headings.get(lo).row() < fromRow) {
+            lo++;
+        }
+        int hi = lo;
+        while (hi < headings.size() && headings.get(hi).row() <= fromRow + removedLines) {
+            hi++;
+        }
+        // the anchors of the headings after the change are moved in place, nothing to notify.
+        int delta = insertedLines - removedLines;
+        if (delta != 0) {
+            for (int i = hi; i < headings.size(); i++) {
+                TextLocation location = headings.get(i).location();
+                location.setStartRow(location.getStartRow() + delta);
+                location.setEndRow(location.getEndRow() + delta);
+            }
+        }
+        List<Heading> removed = new ArrayList<>(headings.subList(lo, hi));
+        List<Heading> scanned = this.scan(lines, fromRow, fromRow + insertedLines);
+        List<OutlineChange.Op> ops = new ArrayList<>();
+        if (this.isSameLevels(removed, scanned)) {
+            for (int i = 0; i < scanned.size(); i++) {
+                Heading old = removed.get(i);
+                Heading scan = scanned.get(i);
+                old.heading = scan.heading;
+                old.location().setStartRow(scan.row());
+                old.location().setEndRow(scan.row());
+                old.location().setEndCol(scan.location().getEndCol());
+                if (this.extractTitle(lo + i)) {
+                    ops.add(new OutlineChange.Update(lo + i, old.data));
+                }
+            }
+        }
+        else {
+            headings.subList(lo, hi).clear();
+            headings.addAll(lo, scanned);
+            List<OutlineChange.Item> items = new ArrayList<>(scanned.size());
+            for (int i = 0; i < scanned.size(); i++) {
+                this.extractTitle(lo + i);
+                items.add(new OutlineChange.Item(scanned.get(i).data, scanned.get(i).level));
+            }
+            ops.add(new OutlineChange.Replace(lo, removed.size(), items));
+        }
+        // the title of the heading before the change might be extracted from its content.
+        if (lo > 0 && this.extractTitle(lo - 1)) {
+            ops.add(new OutlineChange.Update(lo - 1, headings.get(lo - 1).data));
+        }
+        return ops;
+    }
+
+    /**
+     * @return headings in document order, not modifiable.
+     */
+    public List<Heading> getHeadings() {
+        return Collections.unmodifiableList(headings);
+    }
+
+    private boolean isSameLevels(List<Heading> removed, List<Heading> scanned) {
+        if (removed.size() != scanned.size()) {
+            return false;
+        }
+        for (int i = 0; i < removed.size(); i++) {
+            if (removed.get(i).level != scanned.get(i).level) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Heading> scan(IntFunction<String> lines, int fromRow, int toRow) {
+        List<Heading> result = new ArrayList<>();
+        for (int row = fromRow; row <= toRow; row++) {
+            String line = lines.apply(row);
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            // wrapped with line separators for the patterns that match between them.
+            Matcher matcher = pattern.matcher(LINE_SEPARATOR + line + LINE_SEPARATOR);
+            while (matcher.find()) {
+                String heading = matcher.group(2);
+                int endCol = Math.min(line.length(), matcher.start(2) - LINE_SEPARATOR.length() + heading.length());
+                int level = TextUtils.countInStarting(heading, headingLevelTag);
+                result.add(new Heading(heading, level, new TextLocation(row, 0, row, endCol)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the title is changed, the data of the heading is replaced.
+     */
+    private boolean extractTitle(int index) {
+        Heading heading = headings.get(index);
+        TextLocation next = index + 1 < headings.size() ? headings.get(index + 1).location() : null;
+        String title = titleExtractor.extract(heading.heading, heading.location(), next);
+        if (heading.data != null && StringUtils.equals(title, heading.data.getName())) {
+            return false;
+        }
+        heading.data = new OutlineItemData(title, new TextAnchor(heading.location()));
+        return true;
+    }
+
+    public interface TitleExtractor {
+        String extract(String heading, TextLocation location, TextLocation nextBlockLocation);
+    }
+
+    /**
+     * Heading with its location, the location is shared with the anchor of its outline item.
+     */
+    public static class Heading {
+        private String heading;
+        private final int level;
+        private final TextLocation location;
+        private OutlineItemData data;
+
+        Heading(String heading, int level, TextLocation location) {
+            this.heading = heading;
+            this.level = level;
+            this.location = location;
+        }
+
+        public String heading() {
+            return heading;
+        }
+
+        public int level() {
+            return level;
+        }
+
+        public int row() {
+            return location.getStartRow();
+        }
+
+        public TextLocation location() {
+            return location;
+        }
+
+        public OutlineItemData data() {
+            return data;
+        }
+    }
+}
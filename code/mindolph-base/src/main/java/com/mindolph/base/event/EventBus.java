@@ -36,6 +36,7 @@ public class EventBus {
     private final Map<NodeData, EventSource<NodeData>> fileLoadedEvents = new HashMap<>();
     private EventSource<Anchor> locateInFileEvents;
     private EventSource<Tree> outlineEvents;
+    private EventSource<OutlineChange> outlineChangeEvents;
     private EventSource<WorkspaceRenameEvent> workspaceRenamed;
     private EventSource<WorkspaceMeta> workspaceClosed;
     private final EventSource<TreeExpandCollapseEvent> treeExpandCollapseEventEventSource = new EventSource<>();
@@ -209,6 +210,23 @@ public class EventBus {
         return this;
     }
 
+    /**
+     * Notify changes of the outline tree that was notified last time.
+     *
+     * @param outlineChange
+     * @since 1.11
+     */
+    public EventBus notifyOutlineChange(OutlineChange outlineChange) {
+        if (outlineChangeEvents != null) this.outlineChangeEvents.push(outlineChange);
+        return this;
+    }
+
+    public EventBus subscribeOutlineChange(Consumer<OutlineChange> outlineChange) {
+        if (outlineChangeEvents == null) outlineChangeEvents = new EventSource<>();
+        this.outlineChangeEvents.subscribe(outlineChange);
+        return this;
+    }
+
     public EventBus notifyWorkspacesRestored() {
         workspacesRestored.push("");
         return this;
@@ -0,0 +1,36 @@
+package com.mindolph.base.event;
+
+import com.mindolph.core.model.OutlineItemData;
+import org.swiftboot.collections.tree.Tree;
+
+import java.util.List;
+
+/**
+ * Changes of an outline that has been emitted as whole tree, the items are indexed in document order
+ * (depth-first order of the tree), the tree structure is determined by the levels of items.
+ *
+ * @param tree the outline tree that these changes apply to.
+ * @param ops  operations to apply in order.
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public record OutlineChange(Tree tree, List<Op> ops) {
+
+    public sealed interface Op permits Update, Replace {
+    }
+
+    /**
+     * Replace the data of the item at index, the level is not changed.
+     */
+    public record Update(int index, OutlineItemData data) implements Op {
+    }
+
+    /**
+     * Remove items from index and insert new items at index.
+     */
+    public record Replace(int index, int removeCount, List<Item> items) implements Op {
+    }
+
+    public record Item(OutlineItemData data, int level) {
+    }
+}
@@ -9,7 +9,6 @@ import javafx.geometry.VPos;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
-import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.*;
 import javafx.scene.text.Font;
@@ -21,6 +20,11 @@ import javafx.scene.text.TextAlignment;
  */
 public class CanvasGraphicsWrapper implements Graphics {
 
+    // string bounds are shared by all canvases (mind map view, calculating and printing).
+    private static final StringBoundsCache STRING_BOUNDS_CACHE = new StringBoundsCache(16384);
+    // reused for measuring string, guarded by the lock of cache.
+    private static final Text MEASURING_TEXT = new Text();
+
     private final Canvas canvas;
     private final GraphicsContext gc;
     private Rectangle2D clipBounds;
@@ -221,12 +225,14 @@ public class CanvasGraphicsWrapper implements Graphics {
 
     @Override
     public Rectangle2D getStringBounds(String s) {
-        Text text = new Text(s);
-        text.setFont(this.gc.getFont());
-        StackPane stackPane = new StackPane(text);
-        stackPane.layout();
-        Bounds layoutBounds = text.getLayoutBounds();
-        return new Rectangle2D(layoutBounds.getMinX(), layoutBounds.getMinY(), layoutBounds.getWidth(), layoutBounds.getHeight());
+        Font font = this.gc.getFont();
+        return STRING_BOUNDS_CACHE.getBounds(font.getFamily(), font.getSize(), font.getStyle(), s, () -> {
+            // layout bounds of a text node is calculated from its font and text, no layout pass needed.
+            MEASURING_TEXT.setFont(font);
+            MEASURING_TEXT.setText(s);
+            Bounds layoutBounds = MEASURING_TEXT.getLayoutBounds();
+            return new Rectangle2D(layoutBounds.getMinX(), layoutBounds.getMinY(), layoutBounds.getWidth(), layoutBounds.getHeight());
+        });
     }
 
     @Override
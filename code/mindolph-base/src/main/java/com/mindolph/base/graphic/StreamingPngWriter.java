@@ -0,0 +1,282 @@
+package com.mindolph.base.graphic;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Write an opaque (RGB, 8 bits per channel) PNG image to output stream strip by strip (a strip is some rows of pixels),
+ * without holding the whole image in memory.
+ * <p>
+ * Each row is filtered by the filter type that produces the minimum sum of absolute differences, and each strip is
+ * compressed to a raw deflate block ended with a sync flush (the last strip is finished), so the strips can be
+ * filtered and compressed in parallel and then be written to one zlib stream (with one IDAT chunk for each strip) in order.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class StreamingPngWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    // zlib header for deflate with default compression level and 32K window.
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9C};
+
+    private static final int BYTES_PER_PIXEL = 3;
+
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final int rowBytes;
+    private final ExecutorService executor;
+    private final int maxPendingStrips;
+    private final Deque<Future<EncodedStrip>> pendingStrips = new ArrayDeque<>();
+    private final Adler32 adler32 = new Adler32();
+    private final CRC32 crc32 = new CRC32();
+    // raw bytes of the last row written, to filter the first row of next strip.
+    private byte[] lastRow;
+    private int rowsWritten = 0;
+    private boolean headerWritten = false;
+
+    /**
+     * @param out
+     * @param width    in pixels
+     * @param height   in pixels
+     * @param executor to filter and compress strips in parallel, null to do it in the writing thread.
+     */
+    public StreamingPngWriter(OutputStream out, int width, int height, ExecutorService executor) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size: %dx%d".formatted(width, height));
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.rowBytes = width * BYTES_PER_PIXEL;
+        this.executor = executor;
+        this.maxPendingStrips = executor == null ? 1 : Runtime.getRuntime().availableProcessors() + 1;
+    }
+
+    /**
+     * Write rows of pixels, the buffer can be reused after return.
+     *
+     * @param argb   pixels in ARGB format (alpha is ignored), row by row with the width of image as scanline stride.
+     * @param offset of the first pixel in buffer.
+     * @param rows   count of rows to write.
+     * @throws IOException
+     */
+    public void writeRows(int[] argb, int offset, int rows) throws IOException {
+        if (rows <= 0) {
+            return;
+        }
+        if (rowsWritten + rows > height) {
+            throw new IllegalStateException("More rows than the height of image %d".formatted(height));
+        }
+        if (!headerWritten) {
+            this.writeHeader();
+        }
+        byte[] raw = new byte[rows * rowBytes];
+        for (int i = 0, p = offset; i < raw.length; p++) {
+            int c = argb[p];
+            raw[i++] = (byte) (c >> 16);
+            raw[i++] = (byte) (c >> 8);
+            raw[i++] = (byte) c;
+        }
+        byte[] prior = lastRow;
+        lastRow = new byte[rowBytes];
+        System.arraycopy(raw, raw.length - rowBytes, lastRow, 0, rowBytes);
+        rowsWritten += rows;
+        boolean last = rowsWritten == height;
+        Callable<EncodedStrip> task = () -> encodeStrip(raw, prior, rows, last);
+        if (executor == null) {
+            this.writeStrip(this.call(task));
+        }
+        else {
+            pendingStrips.add(executor.submit(task));
+            while (pendingStrips.size() >= maxPendingStrips) {
+                this.writeStrip(this.await(pendingStrips.poll()));
+            }
+        }
+    }
+
+    /**
+     * Write the remaining strips and the end of image, the output stream is not closed.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            while (!pendingStrips.isEmpty()) {
+                this.writeStrip(this.await(pendingStrips.poll()));
+            }
+            if (rowsWritten != height) {
+                throw new IOException("Image is incomplete, %d of %d rows written".formatted(rowsWritten, height));
+            }
+            int adler = (int) adler32.getValue();
+            this.writeChunk("IDAT", new byte[]{(byte) (adler >> 24), (byte) (adler >> 16), (byte) (adler >> 8), (byte) adler});
+            this.writeChunk("IEND", new byte[0]);
+            out.flush();
+        } finally {
+            pendingStrips.forEach(f -> f.cancel(true));
+            pendingStrips.clear();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        out.write(SIGNATURE);
+        ByteBuffer ihdr = ByteBuffer.allocate(13);
+        ihdr.putInt(width);
+        ihdr.putInt(height);
+        ihdr.put((byte) 8); // bit depth
+        ihdr.put((byte) 2); // color type: RGB
+        ihdr.put((byte) 0); // compression method: deflate
+        ihdr.put((byte) 0); // filter method: adaptive
+        ihdr.put((byte) 0); // no interlace
+        this.writeChunk("IHDR", ihdr.array());
+        headerWritten = true;
+    }
+
+    private void writeStrip(EncodedStrip strip) throws IOException {
+        // the checksum of zlib stream is calculated over all uncompressed bytes in order.
+        adler32.update(strip.filtered);
+        if (strip.first) {
+            byte[] data = new byte[ZLIB_HEADER.length + strip.compressed.length];
+            System.arraycopy(ZLIB_HEADER, 0, data, 0, ZLIB_HEADER.length);
+            System.arraycopy(strip.compressed, 0, data, ZLIB_HEADER.length, strip.compressed.length);
+            this.writeChunk("IDAT", data);
+        }
+        else {
+            this.writeChunk("IDAT", strip.compressed);
+        }
+    }
+
+    private void writeChunk(String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        crc32.reset();
+        crc32.update(typeBytes);
+        crc32.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc32.getValue());
+    }
+
+    private EncodedStrip encodeStrip(byte[] raw, byte[] prior, int rows, boolean last) {
+        byte[] filtered = new byte[rows * (rowBytes + 1)];
+        for (int r = 0; r < rows; r++) {
+            int rowOffset = r * rowBytes;
+            byte[] up = r == 0 ? prior : raw;
+            int upOffset = r == 0 ? 0 : rowOffset - rowBytes;
+            filterRow(raw, rowOffset, rowBytes, up, upOffset, filtered, r * (rowBytes + 1));
+        }
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(filtered);
+            if (last) {
+                deflater.finish();
+            }
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(1024, filtered.length / 4));
+            byte[] buf = new byte[64 * 1024];
+            while (true) {
+                int n = last ? deflater.deflate(buf) : deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+                compressed.write(buf, 0, n);
+                if (last ? deflater.finished() : n < buf.length) {
+                    break;
+                }
+            }
+            return new EncodedStrip(prior == null, filtered, compressed.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Filter one row with all filter types and keep the one with minimum sum of absolute values.
+     *
+     * @param raw
+     * @param offset     of the row in raw bytes.
+     * @param length     of the row in bytes.
+     * @param up         bytes of previous row, null for the first row of image.
+     * @param upOffset   of the previous row.
+     * @param dest       the filter type and the filtered bytes are written to.
+     * @param destOffset
+     */
+    static void filterRow(byte[] raw, int offset, int length, byte[] up, int upOffset, byte[] dest, int destOffset) {
+        int bestType = FILTER_NONE;
+        long bestSum = Long.MAX_VALUE;
+        for (int type = FILTER_NONE; type <= FILTER_PAETH; type++) {
+            long sum = 0;
+            for (int i = 0; i < length && sum < bestSum; i++) {
+                sum += Math.abs((byte) filterByte(type, raw, offset, up, upOffset, i));
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                bestType = type;
+            }
+        }
+        dest[destOffset] = (byte) bestType;
+        for (int i = 0; i < length; i++) {
+            dest[destOffset + 1 + i] = (byte) filterByte(bestType, raw, offset, up, upOffset, i);
+        }
+    }
+
+    private static int filterByte(int type, byte[] raw, int offset, byte[] up, int upOffset, int i) {
+        int x = raw[offset + i] & 0xFF;
+        int a = i >= BYTES_PER_PIXEL ? raw[offset + i - BYTES_PER_PIXEL] & 0xFF : 0;
+        int b = up == null ? 0 : up[upOffset + i] & 0xFF;
+        return switch (type) {
+            case FILTER_SUB -> x - a;
+            case FILTER_UP -> x - b;
+            case FILTER_AVERAGE -> x - ((a + b) >> 1);
+            case FILTER_PAETH -> {
+                int c = up == null || i < BYTES_PER_PIXEL ? 0 : up[upOffset + i - BYTES_PER_PIXEL] & 0xFF;
+                yield x - paeth(a, b, c);
+            }
+            default -> x;
+        } & 0xFF;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private EncodedStrip call(Callable<EncodedStrip> task) throws IOException {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            throw new IOException("Failed to encode image", e);
+        }
+    }
+
+    private EncodedStrip await(Future<EncodedStrip> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding image", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to encode image", e.getCause());
+        }
+    }
+
+    private record EncodedStrip(boolean first, byte[] filtered, byte[] compressed) {
+    }
+}
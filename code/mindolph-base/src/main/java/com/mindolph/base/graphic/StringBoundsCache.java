@@ -0,0 +1,63 @@
+package com.mindolph.base.graphic;
+
+import javafx.geometry.Rectangle2D;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of measured string bounds, keyed by the font (family, size and style) and the string,
+ * to avoid measuring the same text again and again in every re-layout.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class StringBoundsCache {
+
+    private final Map<Key, Rectangle2D> cache;
+
+    /**
+     * @param capacity max count of cached strings, the least recently used ones are evicted.
+     */
+    public StringBoundsCache(int capacity) {
+        this.cache = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Rectangle2D> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get bounds of string in the font from cache, measure it if not cached yet.
+     * The measuring is done in lock, so the measurer can share one node (or context) for all measurements.
+     *
+     * @param family
+     * @param size
+     * @param style
+     * @param str
+     * @param measurer measure the string if it's not cached.
+     * @return
+     */
+    public synchronized Rectangle2D getBounds(String family, double size, String style, String str, Supplier<Rectangle2D> measurer) {
+        Key key = new Key(family, size, style, str);
+        Rectangle2D bounds = cache.get(key);
+        if (bounds == null) {
+            bounds = measurer.get();
+            cache.put(key, bounds);
+        }
+        return bounds;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    private record Key(String family, double size, String style, String str) {
+    }
+}
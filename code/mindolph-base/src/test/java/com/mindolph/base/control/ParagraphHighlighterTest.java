@@ -0,0 +1,96 @@
+package com.mindolph.base.control;
+
+import com.mindolph.base.control.ParagraphHighlighter.Block;
+import org.fxmisc.richtext.model.StyleSpan;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class ParagraphHighlighterTest {
+
+    private static final Pattern KEYWORD = Pattern.compile("\\bkw\\b");
+    private static final Pattern TOKEN = Pattern.compile("\\bkw\\b|'.*|\\s*`[^`]*`");
+
+    private ParagraphHighlighter highlighter = new ParagraphHighlighter(text -> highlight(KEYWORD, text));
+
+    @Test
+    public void multiLineBlock() {
+        highlighter.setBlocks(new Block("/'", "'/", "comment"));
+        int state = assertHighlight("kw a", ParagraphHighlighter.STATE_NONE, "[keyword]kw|[] a");
+        Assertions.assertEquals(ParagraphHighlighter.STATE_NONE, state);
+        state = assertHighlight("a /' kw", state, "[]a |[comment]/' kw");
+        Assertions.assertEquals(1, state);
+        state = assertHighlight("", state, "");
+        Assertions.assertEquals(1, state);
+        state = assertHighlight("kw '/ kw", state, "[comment]kw '/|[] |[keyword]kw");
+        Assertions.assertEquals(ParagraphHighlighter.STATE_NONE, state);
+        // block starts and ends in one paragraph, and the end is not the start.
+        state = assertHighlight("/'/ kw '/kw", state, "[comment]/'/ kw '/|[keyword]kw");
+        Assertions.assertEquals(ParagraphHighlighter.STATE_NONE, state);
+    }
+
+    @Test
+    public void sameStartAndEnd() {
+        highlighter.setBlocks(new Block("```", "```", "code-block"));
+        int state = assertHighlight("```java", ParagraphHighlighter.STATE_NONE, "[code-block]```java");
+        state = assertHighlight("kw", state, "[code-block]kw");
+        state = assertHighlight("``` kw", state, "[code-block]```|[] |[keyword]kw");
+        Assertions.assertEquals(ParagraphHighlighter.STATE_NONE, state);
+    }
+
+    @Test
+    public void startInToken() {
+        highlighter = new ParagraphHighlighter(text -> highlight(TOKEN, text));
+        highlighter.setBlocks(new Block("/'", "'/", "comment"), new Block("```", "```", "code-block"));
+        int state = assertHighlight("kw ' /' kw", ParagraphHighlighter.STATE_NONE, "[keyword]kw|[] |[keyword]' /' kw");
+        Assertions.assertEquals(ParagraphHighlighter.STATE_NONE, state);
+        state = assertHighlight("a `x ``` y` b", state, "[]a|[keyword] `x ```|[] y` b");
+        Assertions.assertEquals(ParagraphHighlighter.STATE_NONE, state);
+        // the token starts at the block start, or only the blanks before it.
+        state = assertHighlight("  ```java", state, "[keyword]  |[code-block]```java");
+        Assertions.assertEquals(2, state);
+    }
+
+    private int assertHighlight(String text, int state, String expected) {
+        StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
+        int result = highlighter.highlight(text, state, spansBuilder);
+        StyleSpans<Collection<String>> spans = spansBuilder.create();
+        Assertions.assertEquals(text.length(), spans.length());
+        StringBuilder buf = new StringBuilder();
+        int pos = 0;
+        for (StyleSpan<Collection<String>> span : spans) {
+            if (span.getLength() == 0) {
+                continue;
+            }
+            if (!buf.isEmpty()) {
+                buf.append('|');
+            }
+            buf.append(span.getStyle()).append(text, pos, pos + span.getLength());
+            pos += span.getLength();
+        }
+        Assertions.assertEquals(expected, buf.toString());
+        return result;
+    }
+
+    private static StyleSpans<Collection<String>> highlight(Pattern pattern, String text) {
+        Matcher matcher = pattern.matcher(text);
+        int lastKwEnd = 0;
+        StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
+        while (matcher.find()) {
+            spansBuilder.add(Collections.emptyList(), matcher.start() - lastKwEnd);
+            spansBuilder.add(Collections.singleton("keyword"), matcher.end() - matcher.start());
+            lastKwEnd = matcher.end();
+        }
+        spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
+        return spansBuilder.create();
+    }
+}
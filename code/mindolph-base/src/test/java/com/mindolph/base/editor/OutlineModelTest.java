@@ -0,0 +1,83 @@
+package com.mindolph.base.editor;
+
+import com.mindolph.base.constant.MarkdownConstants;
+import com.mindolph.base.event.OutlineChange;
+import com.mindolph.base.event.OutlineChange.Op;
+import com.mindolph.base.event.OutlineChange.Replace;
+import com.mindolph.base.event.OutlineChange.Update;
+import com.mindolph.core.search.TextAnchor;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class OutlineModelTest {
+
+    private final List<String> lines = new ArrayList<>();
+
+    private final OutlineModel model = new OutlineModel(Pattern.compile(MarkdownConstants.HEADING_PATTERN), "#",
+            (heading, location, nextBlockLocation) -> StringUtils.stripStart(heading, "# "));
+
+    @Test
+    public void update() {
+        lines.addAll(Arrays.asList("# Title", "text", "## Sub 1", "text", "## Sub 2", ""));
+        model.reset(lines::get, lines.size());
+        assertHeadings("Title", "Sub 1", "Sub 2");
+
+        // editing text between headings changes nothing.
+        lines.set(1, "more text");
+        Assertions.assertTrue(model.update(lines::get, 1, 0, 0).isEmpty());
+
+        // editing a heading updates its title only.
+        lines.set(2, "## Sub one");
+        List<Op> ops = model.update(lines::get, 2, 0, 0);
+        Assertions.assertEquals(1, ops.size());
+        Update update = (Update) ops.getFirst();
+        Assertions.assertEquals(1, update.index());
+        Assertions.assertEquals("Sub one", update.data().getName());
+
+        // inserting lines moves the following headings.
+        lines.add(1, "line 1");
+        lines.add(2, "line 2");
+        Assertions.assertTrue(model.update(lines::get, 1, 0, 2).isEmpty());
+        Assertions.assertEquals(6, model.getHeadings().get(2).row());
+        TextAnchor anchor = (TextAnchor) model.getHeadings().get(2).data().getAnchor();
+        Assertions.assertEquals(6, anchor.getTextLocation().getStartRow());
+
+        // inserting a heading.
+        lines.add(4, "### Sub sub");
+        ops = model.update(lines::get, 3, 0, 1);
+        Replace replace = (Replace) ops.getFirst();
+        Assertions.assertEquals(1, replace.index());
+        Assertions.assertEquals(0, replace.removeCount());
+        Assertions.assertEquals(1, replace.items().size());
+        OutlineChange.Item item = replace.items().getFirst();
+        Assertions.assertEquals("Sub sub", item.data().getName());
+        Assertions.assertEquals(3, item.level());
+        assertHeadings("Title", "Sub sub", "Sub one", "Sub 2");
+        Assertions.assertEquals(7, model.getHeadings().get(3).row());
+
+        // removing lines with a heading, the last removed line is joined to the first one.
+        lines.subList(3, 5).clear();
+        ops = model.update(lines::get, 3, 2, 0);
+        replace = (Replace) ops.getFirst();
+        Assertions.assertEquals(1, replace.index());
+        Assertions.assertEquals(2, replace.removeCount());
+        Assertions.assertEquals(1, replace.items().size());
+        assertHeadings("Title", "Sub one", "Sub 2");
+        Assertions.assertEquals(3, model.getHeadings().get(1).row());
+        Assertions.assertEquals(5, model.getHeadings().get(2).row());
+    }
+
+    private void assertHeadings(String... titles) {
+        List<String> actual = model.getHeadings().stream().map(heading -> heading.data().getName()).toList();
+        Assertions.assertEquals(Arrays.asList(titles), actual);
+    }
+}
@@ -0,0 +1,88 @@
+package com.mindolph.base.graphic;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class StreamingPngWriterTest {
+
+    private static final int WIDTH = 301;
+    private static final int HEIGHT = 250;
+    private static final int STRIP_HEIGHT = 32;
+
+    @Test
+    void writeInOneThread() throws IOException {
+        int[] pixels = makePixels();
+        assertImage(pixels, write(pixels, null));
+    }
+
+    @Test
+    void writeInParallel() throws IOException {
+        int[] pixels = makePixels();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertImage(pixels, write(pixels, executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void incomplete() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingPngWriter writer = new StreamingPngWriter(out, WIDTH, HEIGHT, null);
+        Assertions.assertThrows(IOException.class, () -> {
+            writer.writeRows(new int[WIDTH * STRIP_HEIGHT], 0, STRIP_HEIGHT);
+            writer.close();
+        });
+    }
+
+    private static byte[] write(int[] pixels, ExecutorService executor) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int[] strip = new int[WIDTH * STRIP_HEIGHT];
+        try (StreamingPngWriter writer = new StreamingPngWriter(out, WIDTH, HEIGHT, executor)) {
+            for (int y = 0; y < HEIGHT; y += STRIP_HEIGHT) {
+                int rows = Math.min(STRIP_HEIGHT, HEIGHT - y);
+                // the buffer is reused like rendering tiles.
+                System.arraycopy(pixels, y * WIDTH, strip, 0, rows * WIDTH);
+                writer.writeRows(strip, 0, rows);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertImage(int[] expected, byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        Assertions.assertEquals(WIDTH, image.getWidth());
+        Assertions.assertEquals(HEIGHT, image.getHeight());
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                Assertions.assertEquals(expected[y * WIDTH + x] | 0xFF000000, image.getRGB(x, y), "pixel at %d,%d".formatted(x, y));
+            }
+        }
+    }
+
+    // gradients (for the filters) with some noise.
+    private static int[] makePixels() {
+        Random random = new Random(42);
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int noise = random.nextInt(8) == 0 ? random.nextInt(256) : 0;
+                pixels[y * WIDTH + x] = ((x & 0xFF) << 16) | ((y & 0xFF) << 8) | ((x + y + noise) & 0xFF);
+            }
+        }
+        return pixels;
+    }
+}
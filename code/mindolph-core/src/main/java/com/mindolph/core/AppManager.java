@@ -38,6 +38,18 @@ public class AppManager {
         return instance;
     }
 
+    /**
+     * Get the folder to store the caches (like search index) of a workspace, it's in the app's folder (by the hash of
+     * the workspace path) so that no files are added to the workspace.
+     *
+     * @param workspaceDir
+     * @return
+     * @since 1.11
+     */
+    public File getWorkspaceCacheDir(File workspaceDir) {
+        return new File(new File(baseDir, "workspaces"), CryptoUtils.md5(workspaceDir.getAbsolutePath()));
+    }
+
     public List<Snippet<?>> loadSnippets(String fileType) {
         SnippetsRecord snippetsRecord = this.loadSnippetsRecord(fileType);
         if (snippetsRecord == null) {
@@ -0,0 +1,179 @@
+package com.mindolph.core;
+
+import com.mindolph.core.WorkspaceSnapshot.Entry;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Load the folders and files of a workspace recursively, each sub-folder is loaded in parallel by a fork-join task,
+ * and the attributes of each folder or file are read only once by walking the folder (with {@link Files#walkFileTree}).
+ * With a snapshot of last loading, the folders whose last modified time doesn't change are not listed again,
+ * only their sub-folders are checked.
+ *
+ * @author mindolph.com@gmail.com
+ * @see WorkspaceSnapshot
+ * @since 1.11
+ */
+public class WorkspaceLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkspaceLoader.class);
+
+    // listing folders is I/O bound, so more threads than processors.
+    private static final ForkJoinPool pool = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    private static final Set<FileVisitOption> WALK_OPTIONS = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
+
+    private final IOFileFilter fileFilter;
+
+    /**
+     * @param fileFilter applied to both folders and files, {@link IOFileFilter#accept(Path, BasicFileAttributes)} is used.
+     */
+    public WorkspaceLoader(IOFileFilter fileFilter) {
+        this.fileFilter = fileFilter;
+    }
+
+    /**
+     * Load all folders and files in the folder.
+     *
+     * @param folder
+     * @return root entry of the folder, null if it's not a folder.
+     */
+    public Entry load(File folder) {
+        return this.reconcile(folder, null);
+    }
+
+    /**
+     * Load all folders and files in the folder, the listings of folders in snapshot are reused if they are not changed.
+     *
+     * @param folder
+     * @param snapshot root entry of the folder from last loading, null to load all from disk.
+     * @return root entry of the folder, null if it's not a folder.
+     */
+    public Entry reconcile(File folder, Entry snapshot) {
+        long start = System.currentTimeMillis();
+        BasicFileAttributes attrs = readAttributes(folder.toPath());
+        if (attrs == null || !attrs.isDirectory()) {
+            log.warn("Failed to read files from: %s".formatted(folder));
+            return null;
+        }
+        Entry root = pool.invoke(new LoadTask(folder.toPath(), attrs, snapshot, null));
+        log.debug("Folder %s loaded in %dms".formatted(folder, System.currentTimeMillis() - start));
+        return root;
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private class LoadTask extends RecursiveTask<Entry> {
+        private final Path dir;
+        private final BasicFileAttributes attrs;
+        private final Entry snapshot;
+        private final LoadTask parent;
+
+        LoadTask(Path dir, BasicFileAttributes attrs, Entry snapshot, LoadTask parent) {
+            this.dir = dir;
+            this.attrs = attrs;
+            this.snapshot = snapshot;
+            this.parent = parent;
+        }
+
+        @Override
+        protected Entry compute() {
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            List<Entry> children = new ArrayList<>();
+            List<LoadTask> subTasks = new ArrayList<>();
+            if (snapshot != null && snapshot.isFolder() && snapshot.getLastModified() == lastModified) {
+                // nothing added or removed in this folder, but the sub-folders still need to be checked.
+                for (Entry child : snapshot.getChildren()) {
+                    if (child.isFolder()) {
+                        BasicFileAttributes childAttrs = readAttributes(child.getPath());
+                        if (childAttrs != null && childAttrs.isDirectory()) {
+                            subTasks.add(new LoadTask(child.getPath(), childAttrs, child, this));
+                        }
+                    }
+                    else {
+                        children.add(child);
+                    }
+                }
+            }
+            else {
+                Map<Path, Entry> snapshotChildren = new HashMap<>();
+                if (snapshot != null && snapshot.isFolder()) {
+                    snapshot.getChildren().forEach(child -> snapshotChildren.put(child.getPath(), child));
+                }
+                this.list((path, childAttrs) -> {
+                    if (childAttrs.isDirectory()) {
+                        if (!this.isAncestor(childAttrs.fileKey())) {
+                            subTasks.add(new LoadTask(path, childAttrs, snapshotChildren.get(path), this));
+                        }
+                    }
+                    else if (childAttrs.isRegularFile()) {
+                        children.add(new Entry(path, false, childAttrs.lastModifiedTime().toMillis(), null));
+                    }
+                });
+            }
+            invokeAll(subTasks);
+            for (LoadTask subTask : subTasks) {
+                children.add(subTask.join());
+            }
+            children.sort(WorkspaceSnapshot.SORTING_ENTRIES);
+            return new Entry(dir, true, lastModified, children);
+        }
+
+        private void list(EntryVisitor visitor) {
+            try {
+                Files.walkFileTree(dir, WALK_OPTIONS, 1, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        // sub-folders are visited as files since the max depth is reached.
+                        if (fileFilter.accept(file, attrs) == FileVisitResult.CONTINUE) {
+                            visitor.visit(file, attrs);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        log.debug("Skip unreadable file: %s".formatted(file));
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                log.warn("Failed to list folder %s".formatted(dir), e);
+            }
+        }
+
+        /**
+         * Avoid endless loading with symbolic links to ancestor folders.
+         */
+        private boolean isAncestor(Object fileKey) {
+            if (fileKey == null) {
+                return false;
+            }
+            for (LoadTask t = this; t != null; t = t.parent) {
+                if (fileKey.equals(t.attrs.fileKey())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private interface EntryVisitor {
+        void visit(Path path, BasicFileAttributes attrs);
+    }
+}
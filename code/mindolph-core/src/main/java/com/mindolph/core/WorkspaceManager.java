@@ -22,10 +22,9 @@ import org.swiftboot.collections.tree.Node;
 import org.swiftboot.collections.tree.Tree;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.List;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * @author mindolph.com@gmail.com
@@ -37,20 +36,11 @@ public class WorkspaceManager {
     private static final Logger log = LoggerFactory.getLogger(WorkspaceManager.class);
     private static final WorkspaceManager ins = new WorkspaceManager();
 
-    private final Comparator<File> SORTING_NODES = (o1, o2) -> {
-        if (o1.isDirectory() && o2.isDirectory() || o1.isFile() && o2.isFile()) {
-            return o1.getName().compareTo(o2.getName());
-        }
-        else if (o1.isDirectory()) {
-            return -1;
-        }
-        else {
-            return 1;
-        }
-    };
-
     private WorkspaceList workspaceList;
 
+    // watchers of loaded workspaces by base dir.
+    private final Map<File, WorkspaceWatcher> watchers = new HashMap<>();
+
     public synchronized static WorkspaceManager getIns() {
         return ins;
     }
@@ -100,8 +90,15 @@ public class WorkspaceManager {
      * @return
      */
     public List<NodeData> loadFolder(NodeData parentData, WorkspaceConfig workspaceConfig) {
-        Collection<File> files = FileUtils.listFilesAndDirs(parentData.getFile(), workspaceConfig.makeFileFilter(), null);
-        files.remove(parentData.getFile()); // root folder should be excluded.
+        Collection<File> files;
+        WorkspaceWatcher watcher = this.findWatcher(parentData.getFile());
+        if (watcher != null) {
+            files = watcher.listFolder(parentData.getFile()); // from snapshot if nothing changed.
+        }
+        else {
+            files = FileUtils.listFilesAndDirs(parentData.getFile(), workspaceConfig.makeFileFilter(), null);
+            files.remove(parentData.getFile()); // root folder should be excluded.
+        }
         return files.stream().map(file -> {
             NodeData nodeData = new NodeData(file.isFile() ? NodeType.FILE : NodeType.FOLDER, file);
             nodeData.setWorkspaceData(parentData.getWorkspaceData());
@@ -109,9 +106,74 @@ public class WorkspaceManager {
         }).toList();
     }
 
+    /**
+     * Start watching a workspace, the folders loaded by {@link #loadFolder(NodeData, WorkspaceConfig)} later are watched
+     * and listed from snapshots. The watcher is reused if the workspace is being watched, only the listener is replaced.
+     *
+     * @param workspaceDir
+     * @param workspaceConfig
+     * @param listener        called from the watching thread with the changes of folders.
+     * @since 1.11
+     */
+    public synchronized void watchWorkspace(File workspaceDir, WorkspaceConfig workspaceConfig,
+                                            Consumer<List<WorkspaceWatcher.FolderChange>> listener) {
+        WorkspaceWatcher watcher = watchers.get(workspaceDir);
+        if (watcher == null) {
+            try {
+                watcher = new WorkspaceWatcher(workspaceDir, workspaceConfig.makeFileFilter());
+            } catch (IOException e) {
+                log.warn("Failed to watch workspace: %s".formatted(workspaceDir), e);
+                return;
+            }
+            watchers.put(workspaceDir, watcher);
+        }
+        watcher.setListener(listener);
+    }
+
+    /**
+     * Stop watching a workspace and drop all its snapshots.
+     *
+     * @param workspaceDir
+     * @since 1.11
+     */
+    public synchronized void unwatchWorkspace(File workspaceDir) {
+        WorkspaceWatcher watcher = watchers.remove(workspaceDir);
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                log.warn("Failed to stop watching workspace: %s".formatted(workspaceDir), e);
+            }
+        }
+    }
+
+    /**
+     * Drop the snapshot of a folder so that it's listed from disk when it's loaded next time.
+     *
+     * @param folder
+     * @since 1.11
+     */
+    public void invalidateFolder(File folder) {
+        WorkspaceWatcher watcher = this.findWatcher(folder);
+        if (watcher != null) {
+            watcher.invalidate(folder);
+        }
+    }
+
+    private synchronized WorkspaceWatcher findWatcher(File folder) {
+        for (WorkspaceWatcher watcher : watchers.values()) {
+            if (watcher.contains(folder)) {
+                return watcher;
+            }
+        }
+        return null;
+    }
+
 
     /**
      * Load a workspace dir result as {@link Tree} structure.
+     * The folders not changed since last loading are not listed again, and the result is saved as snapshot
+     * for {@link #loadWorkspaceSnapshot(WorkspaceConfig, WorkspaceMeta)}.
      *
      * @param workspaceConfig
      * @param workspaceMeta   meta info of workspace
@@ -119,21 +181,43 @@ public class WorkspaceManager {
      */
     public Tree loadWorkspaceRecursively(WorkspaceConfig workspaceConfig, WorkspaceMeta workspaceMeta) {
         log.debug(String.format("Load workspace structure from base dir: %s", workspaceMeta.getBaseDirPath()));
-        Tree tree = new Tree();
         File baseDir = new File(workspaceMeta.getBaseDirPath());
-        NodeData rootData = new NodeData(NodeType.WORKSPACE, baseDir);
-        rootData.setWorkspaceData(rootData); // set self for workaround.
-        Node root = new Node(rootData);
-        tree.init(root);
-        File dir = new File(workspaceMeta.getBaseDirPath());
-        if (dir.exists() && dir.isDirectory()) {
-            this.loadFolderRecursively(root, dir, workspaceConfig.makeFileFilter());
-        }
-        else {
-            String msg = "Failed to read files from: " + dir;
-            log.warn(msg);
+        WorkspaceSnapshot.Entry root = this.reconcileWorkspace(baseDir, workspaceConfig);
+        return this.toTree(root, this.makeWorkspaceData(baseDir));
+    }
+
+    /**
+     * Load all folders and files of a workspace, the folders not changed since last loading are not listed again,
+     * and the result is saved as snapshot.
+     *
+     * @param workspaceDir
+     * @param workspaceConfig
+     * @return root entry of workspace, null if the workspace dir is not readable.
+     * @since 1.11
+     */
+    public WorkspaceSnapshot.Entry reconcileWorkspace(File workspaceDir, WorkspaceConfig workspaceConfig) {
+        WorkspaceSnapshot snapshot = new WorkspaceSnapshot(workspaceDir, AppManager.getInstance().getWorkspaceCacheDir(workspaceDir), workspaceConfig.makeFilterKey());
+        WorkspaceSnapshot.Entry lastRoot = snapshot.read();
+        WorkspaceSnapshot.Entry root = new WorkspaceLoader(workspaceConfig.makeFileFilter()).reconcile(workspaceDir, lastRoot);
+        if (root != null && (lastRoot == null || !root.isSame(lastRoot, true))) {
+            snapshot.write(root);
         }
-        return tree;
+        return root;
+    }
+
+    /**
+     * Load a workspace as {@link Tree} structure from the snapshot saved by last loading,
+     * it might be out of date, so the workspace should be loaded by {@link #loadWorkspaceRecursively(WorkspaceConfig, WorkspaceMeta)} later.
+     *
+     * @param workspaceConfig
+     * @param workspaceMeta
+     * @return null if there is no snapshot or it's saved with different filter settings.
+     * @since 1.11
+     */
+    public Tree loadWorkspaceSnapshot(WorkspaceConfig workspaceConfig, WorkspaceMeta workspaceMeta) {
+        File baseDir = new File(workspaceMeta.getBaseDirPath());
+        WorkspaceSnapshot.Entry root = new WorkspaceSnapshot(baseDir, AppManager.getInstance().getWorkspaceCacheDir(baseDir), workspaceConfig.makeFilterKey()).read();
+        return root == null ? null : this.toTree(root, this.makeWorkspaceData(baseDir));
     }
 
     /**
@@ -144,50 +228,37 @@ public class WorkspaceManager {
      * @return
      */
     public Tree loadFolderRecursively(File folder, IOFileFilter fileFilter) {
-        Tree tree = new Tree();
         if (!folder.exists()) {
-            return tree;
+            return new Tree();
         }
-        Node root = new Node(new NodeData(NodeType.WORKSPACE, folder));
+        WorkspaceSnapshot.Entry root = new WorkspaceLoader(fileFilter).load(folder);
+        return this.toTree(root, new NodeData(NodeType.WORKSPACE, folder));
+    }
+
+    private NodeData makeWorkspaceData(File baseDir) {
+        NodeData rootData = new NodeData(NodeType.WORKSPACE, baseDir);
+        rootData.setWorkspaceData(rootData); // set self for workaround.
+        return rootData;
+    }
+
+    private Tree toTree(WorkspaceSnapshot.Entry rootEntry, NodeData rootData) {
+        Tree tree = new Tree();
+        Node root = new Node(rootData);
         tree.init(root);
-        this.loadFolderRecursively(root, folder, fileFilter);
+        if (rootEntry != null) {
+            this.addNodes(root, rootEntry, rootData.getWorkspaceData());
+        }
         return tree;
     }
 
-    /**
-     * Load files in {@code folder} recursively and filtered by {@code fileFilter}.
-     *
-     * @param parent
-     * @param folder
-     * @param fileFilter
-     */
-    private void loadFolderRecursively(Node parent, File folder, IOFileFilter fileFilter) {
-        log.trace(String.format("Load sub-folders and files from %s", folder));
-        // load files
-        Collection<File> files = FileUtils.listFilesAndDirs(folder, fileFilter, null);
-        if (files.isEmpty()) {
-            log.info(String.format("Folder %s has no qualified files", folder));
-            return;
-        }
-        // sort folders or files separately.
-        List<File> sorted = files.stream().sorted(SORTING_NODES).toList();
-        for (File file : sorted) {
-            if (file.equals(folder)) {
-                continue; // ignore because this list result contains the directory itself.
-            }
-            NodeData parentData = (NodeData) parent.getData();
-            if (file.isFile()) {
-                NodeData fileData = new NodeData(file);
-                fileData.setWorkspaceData(parentData.getWorkspaceData());
-                Node fileNode = new Node(fileData);
-                parent.getChildren().add(fileNode);
-            }
-            else if (file.isDirectory()) {
-                NodeData folderData = new NodeData(NodeType.FOLDER, file);
-                folderData.setWorkspaceData(parentData.getWorkspaceData());
-                Node subFolder = new Node(folderData);
-                parent.getChildren().add(subFolder);
-                this.loadFolderRecursively(subFolder, file, fileFilter);
+    private void addNodes(Node parent, WorkspaceSnapshot.Entry entry, NodeData workspaceData) {
+        for (WorkspaceSnapshot.Entry child : entry.getChildren()) {
+            NodeData childData = new NodeData(child.isFolder() ? NodeType.FOLDER : NodeType.FILE, child.getPath().toFile());
+            childData.setWorkspaceData(workspaceData);
+            Node childNode = new Node(childData);
+            parent.getChildren().add(childNode);
+            if (child.isFolder()) {
+                this.addNodes(childNode, child, workspaceData);
             }
         }
     }
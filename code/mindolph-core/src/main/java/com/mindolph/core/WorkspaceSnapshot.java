@@ -0,0 +1,191 @@
+package com.mindolph.core;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Persisted snapshot of the folders and files (paths, types and last modified times) of a workspace,
+ * it's stored in the cache folder of the workspace so that the workspace tree can be rendered without walking the disk
+ * on next start, and then be reconciled by {@link WorkspaceLoader}.
+ *
+ * @author mindolph.com@gmail.com
+ * @see WorkspaceLoader
+ * @since 1.11
+ */
+public class WorkspaceSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkspaceSnapshot.class);
+
+    public static final String SNAPSHOT_FILE_NAME = "workspace.snapshot";
+
+    private static final int MAGIC = 0x4D535753; // MSWS
+    private static final int VERSION = 2;
+
+    /**
+     * Folders first, then files, both ordered by name.
+     */
+    static final Comparator<Entry> SORTING_ENTRIES = Comparator.comparing((Entry e) -> !e.isFolder()).thenComparing(e -> e.getPath().getFileName().toString());
+
+    private final File workspaceDir;
+    private final File snapshotFile;
+    private final String filterKey;
+
+    /**
+     * @param workspaceDir
+     * @param cacheDir     folder to store the snapshot file.
+     * @param filterKey    key of the filter settings that the snapshot is loaded with, the snapshot is ignored if it's saved with different key.
+     * @see AppManager#getWorkspaceCacheDir(File)
+     * @see com.mindolph.core.config.WorkspaceConfig#makeFilterKey()
+     */
+    public WorkspaceSnapshot(File workspaceDir, File cacheDir, String filterKey) {
+        this.workspaceDir = workspaceDir;
+        this.filterKey = filterKey;
+        this.snapshotFile = new File(cacheDir, SNAPSHOT_FILE_NAME);
+    }
+
+    /**
+     * @return the root entry of workspace, null if there is no snapshot or it's not readable.
+     */
+    public Entry read() {
+        if (!snapshotFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.info("Incompatible workspace snapshot %s, ignored".formatted(snapshotFile));
+                return null;
+            }
+            if (!workspaceDir.getPath().equals(in.readUTF())) {
+                log.info("Workspace snapshot %s is not for this workspace, ignored".formatted(snapshotFile));
+                return null;
+            }
+            if (!filterKey.equals(in.readUTF())) {
+                log.info("Workspace snapshot %s is loaded with different filters, ignored".formatted(snapshotFile));
+                return null;
+            }
+            in.readUTF(); // name of the root, the path of workspace is used instead.
+            Entry root = this.readEntry(in, workspaceDir.toPath(), in.readBoolean());
+            log.debug("Workspace snapshot loaded from %s".formatted(snapshotFile));
+            return root;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load workspace snapshot from %s".formatted(snapshotFile), e);
+            return null;
+        }
+    }
+
+    private Entry readEntry(DataInputStream in, Path path, boolean folder) throws IOException {
+        long lastModified = in.readLong();
+        if (!folder) {
+            return new Entry(path, false, lastModified, null);
+        }
+        int count = in.readInt();
+        List<Entry> children = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Path childPath = path.resolve(in.readUTF());
+            children.add(this.readEntry(in, childPath, in.readBoolean()));
+        }
+        return new Entry(path, true, lastModified, children);
+    }
+
+    /**
+     * Save the snapshot to the cache folder of workspace.
+     *
+     * @param root
+     */
+    public void write(Entry root) {
+        File tmpFile = new File(snapshotFile.getParentFile(), SNAPSHOT_FILE_NAME + ".tmp");
+        try {
+            FileUtils.forceMkdir(snapshotFile.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(workspaceDir.getPath());
+                out.writeUTF(filterKey);
+                this.writeEntry(out, root);
+            }
+            Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            log.debug("Workspace snapshot saved to %s".formatted(snapshotFile));
+        } catch (IOException e) {
+            log.warn("Failed to save workspace snapshot to %s".formatted(snapshotFile), e);
+            FileUtils.deleteQuietly(tmpFile);
+        }
+    }
+
+    private void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+        Path name = entry.getPath().getFileName();
+        out.writeUTF(name == null ? "" : name.toString());
+        out.writeBoolean(entry.isFolder());
+        out.writeLong(entry.getLastModified());
+        if (entry.isFolder()) {
+            out.writeInt(entry.getChildren().size());
+            for (Entry child : entry.getChildren()) {
+                this.writeEntry(out, child);
+            }
+        }
+    }
+
+    /**
+     * A folder or file in snapshot, the children of folder are sorted by {@link #SORTING_ENTRIES}.
+     */
+    public static class Entry {
+        private final Path path;
+        private final boolean folder;
+        private final long lastModified;
+        private final List<Entry> children; // null for file
+
+        public Entry(Path path, boolean folder, long lastModified, List<Entry> children) {
+            this.path = path;
+            this.folder = folder;
+            this.lastModified = lastModified;
+            this.children = children;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public boolean isFolder() {
+            return folder;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public List<Entry> getChildren() {
+            return children;
+        }
+
+        /**
+         * @param other
+         * @param withTime whether the last modified times are compared.
+         * @return true if the two entries have the same sub-tree.
+         */
+        public boolean isSame(Entry other, boolean withTime) {
+            if (!path.equals(other.path) || folder != other.folder || (withTime && lastModified != other.lastModified)) {
+                return false;
+            }
+            if (!folder) {
+                return true;
+            }
+            if (children.size() != other.children.size()) {
+                return false;
+            }
+            for (int i = 0; i < children.size(); i++) {
+                if (!children.get(i).isSame(other.children.get(i), withTime)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.mindolph.core;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watch the folders of a workspace for files created or deleted externally (like a git checkout),
+ * and keep snapshots of the children of the folders, so that listing a watched folder doesn't touch the disk.
+ * A folder is registered only when it's listed for the first time, so the folders never loaded are not watched.
+ * The events in a short period are coalesced, and the changed folders are listed again to compare with their snapshots,
+ * the differences are sent to the listener in one batch from the watching thread.
+ *
+ * @author mindolph.com@gmail.com
+ * @see WorkspaceManager
+ * @since 1.11
+ */
+public class WorkspaceWatcher implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkspaceWatcher.class);
+
+    // events are coalesced until no more events in this period.
+    private static final long QUIET_PERIOD = 200;
+    // but not longer than this.
+    private static final long MAX_DELAY = 1000;
+
+    private final File workspaceDir;
+    private final IOFileFilter fileFilter;
+    private final WatchService watchService;
+    // sorted by path, so that the snapshots of descendants of a folder are found by range.
+    private final NavigableMap<File, Snapshot> snapshots = new TreeMap<>();
+    private final Thread thread;
+    private volatile Consumer<List<FolderChange>> listener;
+    private volatile boolean closed;
+
+    public WorkspaceWatcher(File workspaceDir, IOFileFilter fileFilter) throws IOException {
+        this.workspaceDir = workspaceDir;
+        this.fileFilter = fileFilter;
+        this.watchService = workspaceDir.toPath().getFileSystem().newWatchService();
+        this.thread = new Thread(this::watch, "Workspace Watch Thread");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * @param listener called from the watching thread with the changes of folders.
+     */
+    public void setListener(Consumer<List<FolderChange>> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param file
+     * @return true if the file is in the workspace.
+     */
+    public boolean contains(File file) {
+        return file.toPath().startsWith(workspaceDir.toPath());
+    }
+
+    /**
+     * List the files and sub-folders of a folder (not recursively) from its snapshot,
+     * the folder is listed from disk and registered to watch if it's not been listed before.
+     *
+     * @param folder
+     * @return
+     */
+    public synchronized List<File> listFolder(File folder) {
+        Snapshot snapshot = snapshots.get(folder);
+        if (snapshot == null) {
+            WatchKey key = null;
+            try {
+                // register before listing, so that any change after listing is not missed.
+                key = folder.toPath().register(watchService, ENTRY_CREATE, ENTRY_DELETE);
+            } catch (IOException | ClosedWatchServiceException e) {
+                log.warn("Failed to watch folder: %s".formatted(folder), e);
+            }
+            List<File> children = this.listFromDisk(folder);
+            if (key == null) {
+                return children;
+            }
+            snapshot = new Snapshot(key, children);
+            snapshots.put(folder, snapshot);
+        }
+        return new ArrayList<>(snapshot.children);
+    }
+
+    /**
+     * Drop the snapshot of a folder, it will be listed from disk next time.
+     *
+     * @param folder
+     */
+    public synchronized void invalidate(File folder) {
+        Snapshot snapshot = snapshots.remove(folder);
+        if (snapshot != null) {
+            snapshot.key.cancel();
+        }
+    }
+
+    private List<File> listFromDisk(File folder) {
+        if (!folder.isDirectory()) {
+            return Collections.emptyList();
+        }
+        Collection<File> files = FileUtils.listFilesAndDirs(folder, fileFilter, null);
+        files.remove(folder); // the folder itself is included.
+        return new ArrayList<>(files);
+    }
+
+    private void watch() {
+        try {
+            while (!closed) {
+                Set<File> changed = new LinkedHashSet<>();
+                this.collect(watchService.take(), changed);
+                long deadline = System.currentTimeMillis() + MAX_DELAY;
+                WatchKey key;
+                while (System.currentTimeMillis() < deadline
+                        && (key = watchService.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)) != null) {
+                    this.collect(key, changed);
+                }
+                List<FolderChange> changes = this.refresh(changed);
+                Consumer<List<FolderChange>> l = listener;
+                if (!changes.isEmpty() && l != null) {
+                    log.debug("%d folders changed in workspace %s".formatted(changes.size(), workspaceDir));
+                    l.accept(changes);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("Stop watching workspace: %s".formatted(workspaceDir));
+        }
+    }
+
+    private void collect(WatchKey key, Set<File> changed) {
+        File folder = ((Path) key.watchable()).toFile();
+        // whatever the events are (even overflowed), the folder is listed again to find the differences.
+        if (!key.pollEvents().isEmpty()) {
+            changed.add(folder);
+        }
+        key.reset();
+    }
+
+    private synchronized List<FolderChange> refresh(Set<File> folders) {
+        List<FolderChange> changes = new ArrayList<>();
+        for (File folder : folders) {
+            Snapshot snapshot = snapshots.get(folder);
+            if (snapshot == null) {
+                continue; // not watched anymore
+            }
+            if (!snapshot.key.isValid() || !folder.isDirectory()) {
+                // deleted, the parent folder reports the change.
+                this.dropRecursively(folder);
+                continue;
+            }
+            List<File> children = this.listFromDisk(folder);
+            Set<File> oldSet = new HashSet<>(snapshot.children);
+            Set<File> newSet = new HashSet<>(children);
+            List<File> added = children.stream().filter(f -> !oldSet.contains(f)).toList();
+            List<File> removed = snapshot.children.stream().filter(f -> !newSet.contains(f)).toList();
+            snapshot.children = children;
+            for (File f : removed) {
+                this.dropRecursively(f);
+            }
+            if (!added.isEmpty() || !removed.isEmpty()) {
+                changes.add(new FolderChange(folder, added, removed));
+            }
+        }
+        return changes;
+    }
+
+    private void dropRecursively(File folder) {
+        Snapshot snapshot = snapshots.remove(folder);
+        if (snapshot != null) {
+            snapshot.key.cancel();
+        }
+        // the paths of descendants are all in this range, no matter what the names are.
+        Map<File, Snapshot> descendants = snapshots.subMap(new File(folder, "\u0000"), true, new File(folder, "\uffff"), true);
+        descendants.values().forEach(s -> s.key.cancel());
+        descendants.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+        synchronized (this) {
+            snapshots.clear();
+        }
+    }
+
+    /**
+     * Files added to or removed from a folder.
+     *
+     * @param folder
+     * @param added
+     * @param removed
+     */
+    public record FolderChange(File folder, List<File> added, List<File> removed) {
+    }
+
+    private static class Snapshot {
+        final WatchKey key;
+        List<File> children;
+
+        Snapshot(WatchKey key, List<File> children) {
+            this.key = key;
+            this.children = children;
+        }
+    }
+}
@@ -9,6 +9,10 @@ import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -41,6 +45,14 @@ public class WorkspaceConfig {
                 public boolean accept(File file) {
                     return !file.isHidden();
                 }
+
+                @Override
+                public FileVisitResult accept(Path path, BasicFileAttributes attributes) {
+                    // use the attributes that already read instead of reading again by File.isHidden().
+                    boolean hidden = attributes instanceof DosFileAttributes dosAttributes
+                            ? dosAttributes.isHidden() : path.getFileName().toString().startsWith(".");
+                    return hidden ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                }
             });
         }
         // accept files with file extensions
@@ -65,6 +77,14 @@ public class WorkspaceConfig {
         return FileFilterUtils.and(filters.toArray(new IOFileFilter[]{}));
     }
 
+    /**
+     * @return a key of the settings that affect the filters, the loaded results are not comparable if their keys are different.
+     * @since 1.11
+     */
+    public String makeFilterKey() {
+        return "hidden:%s,%s;includes:%s;excludes:%s".formatted(showHiddenFile, showHiddenDir, fileSuffixIncludes, fileSuffixExcludes);
+    }
+
     public IOFileFilter makeSubDirFilter() {
         List<IOFileFilter> filters = new ArrayList<>();
         filters.add(TrueFileFilter.INSTANCE);
@@ -4,9 +4,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.function.BiFunction;
 
 
@@ -18,21 +15,12 @@ public abstract class BaseSearchMatcher implements SearchMatcher {
 
     private static final Logger log = LoggerFactory.getLogger(BaseSearchMatcher.class);
 
-    protected boolean returnContextEnabled;
-
-    protected List<MatchedItem> matched;
+    protected final boolean returnContextEnabled;
 
     public BaseSearchMatcher(boolean returnContextEnabled) {
         this.returnContextEnabled = returnContextEnabled;
     }
 
-    @Override
-    public boolean matches(File file, SearchParams searchParams) {
-        this.matched = new ArrayList<>();
-        return false;
-    }
-
-
     protected String extractInText(String text, int start, int end, int extraSize) {
         String extracted = StringUtils.strip(StringUtils.substring(text, Math.max(0, start - extraSize), end + extraSize));
         log.debug("extract from %d to %d: '%s'".formatted(start, end, extracted));
@@ -65,17 +53,6 @@ public abstract class BaseSearchMatcher implements SearchMatcher {
         return extractInText(normalText, start, end, extraSize);
     }
 
-    protected void addMatched(MatchedItem matched) {
-        if (this.matched == null) {
-            this.matched = new ArrayList<>();
-        }
-        this.matched.add(matched);
-    }
-
-    public List<MatchedItem> getMatched() {
-        return matched;
-    }
-
 
     /**
      * @param searchParams
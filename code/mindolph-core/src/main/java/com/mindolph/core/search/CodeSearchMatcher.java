@@ -7,7 +7,8 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Matcher;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author mindolph.com@gmail.com
@@ -15,43 +16,43 @@ import java.util.regex.Matcher;
 public class CodeSearchMatcher extends BaseSearchMatcher {
     private static final Logger log = LoggerFactory.getLogger(CodeSearchMatcher.class);
 
+    private static final int CONTEXT_SIZE = 64;
+
     public CodeSearchMatcher(boolean returnContextEnabled) {
         super(returnContextEnabled);
     }
 
     @Override
-    public boolean matches(File file, SearchParams searchParams) {
-        super.matches(file, searchParams);
+    public List<MatchedItem> matches(File file, SearchParams searchParams) {
         log.debug("try match in file: " + file);
-        try {
-            String text = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
-//            String normalText = SearchUtils.normalizeSpace(text);
-//            String normalKeyword = searchParams.getNormalizedKeyword();
-            Matcher matcher = searchParams.getPattern().matcher(text);
-            boolean contains = false;
-            int last = 0;// to skip matched positions that already be extracted in previous.
-            TextNavigator navigator = new TextNavigator();
-            navigator.setText(text, false);
-            while (matcher.find()) {
-                contains = true;
+        int keywordLength = searchParams.getNormalizedKeyword().length();
+        try (TextScanner scanner = new TextScanner(file, searchParams.getPattern(), keywordLength, CONTEXT_SIZE)) {
+            List<MatchedItem> result = null;
+            long last = 0;// to skip matched positions that already be extracted in previous.
+            while (scanner.find()) {
+                if (result == null) {
+                    result = new ArrayList<>();
+                }
                 if (!returnContextEnabled) {
-                    return true;
+                    return result;
                 }
-                int start = matcher.start();
-                int end = matcher.end();
+                long start = scanner.start();
                 if (start < last) {
                     continue; // skip because it's already been extracted.
                 }
-                log.debug(String.format("matched: %d - %d", start, end));
-                String matched = super.extractInText(text, start, end, 64);
-                super.addMatched(new MatchedItem(SearchUtils.normalizeSpace(matched), new TextAnchor(navigator.convert(start, end))));
-                last = end + 64 - searchParams.getKeywords().length(); // 3 is for `...`
+                log.debug(String.format("matched: %d - %d", start, scanner.end()));
+                result.add(new MatchedItem(SearchUtils.normalizeSpace(scanner.context()), new TextAnchor(scanner.location())));
+                last = scanner.end() + CONTEXT_SIZE - searchParams.getKeywords().length(); // 3 is for `...`
             }
-            return contains;
+            return result;
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return false;
+        return null;
     }
 
+    @Override
+    public String getIndexText(File file) throws IOException {
+        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+    }
 }
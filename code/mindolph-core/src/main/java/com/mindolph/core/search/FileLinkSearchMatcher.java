@@ -1,16 +1,14 @@
 package com.mindolph.core.search;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.swiftboot.util.PathUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * @author mindolph.com@gmail.com
@@ -20,27 +18,23 @@ public class FileLinkSearchMatcher implements SearchMatcher {
     private static final Logger log = LoggerFactory.getLogger(FileLinkSearchMatcher.class);
 
     @Override
-    public boolean matches(File file, SearchParams searchParams) {
+    public List<MatchedItem> matches(File file, SearchParams searchParams) {
         try {
-            // TODO to be optimized via some algorithm which doesn't need to read all of a file.
-            String s = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
             String filePathInWorkspace = PathUtils.getRelativePath(file, searchParams.getWorkspaceDir());
             String fileParentPathInWorkspace = FilenameUtils.getPath(filePathInWorkspace);
             log.debug("file: " + filePathInWorkspace);
             String relativePath = PathUtils.getRelativePath(searchParams.getKeywords(), fileParentPathInWorkspace);
             log.debug("search for: " + relativePath);
-            if (StringUtils.contains(s, relativePath)) {
-                log.debug("Found");
-                return true;
+            Pattern pattern = Pattern.compile(relativePath, Pattern.LITERAL);
+            try (TextScanner scanner = new TextScanner(file, pattern, relativePath.length(), 0)) {
+                if (scanner.find()) {
+                    log.debug("Found");
+                    return List.of();
+                }
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return false;
-    }
-
-    @Override
-    public List<MatchedItem> getMatched() {
         return null;
     }
 }
@@ -0,0 +1,402 @@
+package com.mindolph.core.search;
+
+import com.mindolph.core.WorkspaceLoader;
+import com.mindolph.core.WorkspaceSnapshot;
+import com.mindolph.core.constant.SupportFileTypes;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * In-memory index of the names of folders and files in a workspace, to find them by keyword as fast as typing.
+ * A keyword matches a folder or file if its chars appear in order in the name (or in the relative path if the keyword
+ * contains '/'), the matches are ranked by how well they match: the whole name, prefix, contiguous, camel humps
+ * (like "gfd" for "GotoFileDialog") and the others; a keyword with typo (like transposed chars) still matches if most of
+ * its trigrams are in the name.
+ * <p>
+ * Each item has a bit mask of the chars in its path, items without all chars of the keyword are skipped without matching,
+ * and a keyword extended from the keyword of last result only examines the candidates of that result.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class FileNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FileNameIndex.class);
+
+    private final File workspaceDir;
+    private final IOFileFilter fileFilter;
+    private final Map<File, Item> items = new HashMap<>();
+    // increased when items are added or removed, the results of older generation can't be refined.
+    private int generation = 0;
+    private long lastBuilt = 0;
+
+    public FileNameIndex(File workspaceDir, IOFileFilter fileFilter) {
+        this.workspaceDir = workspaceDir;
+        this.fileFilter = fileFilter;
+    }
+
+    /**
+     * Replace all items with the folders and files loaded from workspace.
+     *
+     * @param root root entry of the workspace, nullable.
+     */
+    public void rebuild(WorkspaceSnapshot.Entry root) {
+        Map<File, Item> loaded = new HashMap<>();
+        if (root != null) {
+            this.collect(root, loaded);
+        }
+        synchronized (this) {
+            items.clear();
+            items.putAll(loaded);
+            generation++;
+            lastBuilt = System.currentTimeMillis();
+        }
+        log.debug("File name index of %s built with %d items".formatted(workspaceDir, loaded.size()));
+    }
+
+    private void collect(WorkspaceSnapshot.Entry folder, Map<File, Item> collected) {
+        for (WorkspaceSnapshot.Entry child : folder.getChildren()) {
+            File file = child.getPath().toFile();
+            collected.put(file, new Item(file, this.toRelativePath(file), child.isFolder(), child.getLastModified()));
+            if (child.isFolder()) {
+                this.collect(child, collected);
+            }
+        }
+    }
+
+    public synchronized boolean isBuilt() {
+        return lastBuilt > 0;
+    }
+
+    /**
+     * @param maxAge in millis
+     * @return true if the index is older than the max age, and it's treated as rebuilt from now on.
+     */
+    public synchronized boolean checkExpired(long maxAge) {
+        long now = System.currentTimeMillis();
+        if (lastBuilt > 0 && now - lastBuilt > maxAge) {
+            lastBuilt = now;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Add a file, or a folder with all its sub-folders and files, nothing happens if it's been indexed.
+     *
+     * @param file
+     */
+    public void add(File file) {
+        synchronized (this) {
+            if (lastBuilt == 0 || items.containsKey(file)) {
+                return;
+            }
+        }
+        Map<File, Item> added = new HashMap<>();
+        if (file.isDirectory()) {
+            WorkspaceSnapshot.Entry folder = new WorkspaceLoader(fileFilter).load(file);
+            if (folder == null) {
+                return;
+            }
+            added.put(file, new Item(file, this.toRelativePath(file), true, folder.getLastModified()));
+            this.collect(folder, added);
+        }
+        else if (file.isFile() && fileFilter.accept(file)) {
+            added.put(file, new Item(file, this.toRelativePath(file), false, file.lastModified()));
+        }
+        if (!added.isEmpty()) {
+            synchronized (this) {
+                items.putAll(added);
+                generation++;
+            }
+        }
+    }
+
+    /**
+     * Remove a file, or a folder with all its sub-folders and files.
+     *
+     * @param file
+     */
+    public synchronized void remove(File file) {
+        String folderPrefix = this.toRelativePath(file) + "/";
+        if (items.entrySet().removeIf(e -> e.getKey().equals(file) || e.getValue().path.startsWith(folderPrefix))) {
+            generation++;
+        }
+    }
+
+    /**
+     * Find folders and files by keyword.
+     *
+     * @param keyword
+     * @param fileExt only folders with {@link SupportFileTypes#TYPE_FOLDER} or files with the extension are matched, null for all.
+     * @param last    result of last searching, if the keyword is extended from last keyword, only its candidates are examined.
+     * @return
+     */
+    public synchronized Result search(String keyword, String fileExt, Result last) {
+        String normalized = normalize(keyword);
+        Collection<Item> source = items.values();
+        if (last != null && last.generation == generation && normalized.startsWith(last.keyword)) {
+            source = last.candidates;
+        }
+        long keywordMask = mask(normalized);
+        List<Item> candidates = new ArrayList<>();
+        List<Match> matches = new ArrayList<>();
+        for (Item item : source) {
+            if ((item.mask & keywordMask) != keywordMask) {
+                continue;
+            }
+            candidates.add(item);
+            if (!this.acceptType(item, fileExt)) {
+                continue;
+            }
+            int score = score(item, normalized);
+            if (score > 0) {
+                matches.add(new Match(item.file, item.folder, item.lastModified, score));
+            }
+        }
+        matches.sort(Match.RANKING);
+        log.debug("%d matched in %d candidates of %d examined for '%s'".formatted(matches.size(), candidates.size(), source.size(), keyword));
+        return new Result(normalized, generation, candidates, matches);
+    }
+
+    private boolean acceptType(Item item, String fileExt) {
+        if (StringUtils.isBlank(fileExt)) {
+            return true;
+        }
+        else if (SupportFileTypes.TYPE_FOLDER.equals(fileExt)) {
+            return item.folder;
+        }
+        return !item.folder && FilenameUtils.isExtension(item.file.getName(), fileExt);
+    }
+
+    private String toRelativePath(File file) {
+        String path = workspaceDir.toPath().relativize(file.toPath()).toString();
+        return File.separatorChar == '/' ? path : path.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Lower-cased without blanks, and '/' as path separator.
+     */
+    static String normalize(String keyword) {
+        return StringUtils.deleteWhitespace(keyword).replace('\\', '/').toLowerCase();
+    }
+
+    /**
+     * @param item
+     * @param keyword normalized keyword
+     * @return score of how well the item matches the keyword, 0 for not matched.
+     */
+    static int score(Item item, String keyword) {
+        if (keyword.isEmpty()) {
+            return 0;
+        }
+        if (keyword.indexOf('/') >= 0) {
+            // path segments like "doc/rea" for "docs/README.md"
+            return score(item.path, item.lowerPath, keyword, item.lowerPath.length());
+        }
+        String name = item.file.getName();
+        int baseLength = item.folder ? name.length() : FilenameUtils.getBaseName(name).length();
+        int score = score(name, item.lowerName, keyword, baseLength);
+        if (score > 0) {
+            return score;
+        }
+        // matched by the folders in path is much less relevant.
+        return score(item.path, item.lowerPath, keyword, item.lowerPath.length()) / 4;
+    }
+
+    private static int score(String text, String lowerText, String keyword, int baseLength) {
+        int score;
+        int index = lowerText.indexOf(keyword);
+        if (index >= 0) {
+            score = 800 - Math.min(100, index);
+            if (index == 0) {
+                score += keyword.length() == baseLength ? 600 : 200;
+            }
+            else if (isBoundary(text, index)) {
+                score += 100;
+            }
+        }
+        else {
+            int humps = matchHumps(text, lowerText, keyword);
+            if (humps > 0) {
+                score = 400 + humps * 10;
+            }
+            else {
+                int gaps = matchSubsequence(lowerText, keyword);
+                if (gaps >= 0) {
+                    score = 200 - Math.min(150, gaps * 5);
+                }
+                else if (keyword.length() >= 4 && trigramRatio(lowerText, keyword) >= 0.5f) {
+                    score = 20; // might be a typo
+                }
+                else {
+                    return 0;
+                }
+            }
+        }
+        score += Math.round(trigramRatio(lowerText, keyword) * 100);
+        score -= Math.min(50, lowerText.length() - keyword.length());
+        return Math.max(1, score);
+    }
+
+    /**
+     * Match each char of keyword either right after last matched char (within a hump) or at the start of a hump.
+     *
+     * @return count of matched humps, -1 if not matched.
+     */
+    static int matchHumps(String text, String lowerText, String keyword) {
+        int pos = 0;
+        int humps = 0;
+        for (int k = 0; k < keyword.length(); k++) {
+            char c = keyword.charAt(k);
+            if (k > 0 && pos < lowerText.length() && lowerText.charAt(pos) == c) {
+                pos++;
+                continue;
+            }
+            int found = -1;
+            for (int i = pos; i < lowerText.length(); i++) {
+                if (lowerText.charAt(i) == c && isBoundary(text, i)) {
+                    found = i;
+                    break;
+                }
+            }
+            if (found < 0) {
+                return -1;
+            }
+            humps++;
+            pos = found + 1;
+        }
+        return humps;
+    }
+
+    /**
+     * @return total count of chars skipped between matched chars, -1 if not matched.
+     */
+    static int matchSubsequence(String lowerText, String keyword) {
+        int gaps = 0;
+        int last = -1;
+        for (int k = 0; k < keyword.length(); k++) {
+            int found = lowerText.indexOf(keyword.charAt(k), last + 1);
+            if (found < 0) {
+                return -1;
+            }
+            if (last >= 0) {
+                gaps += found - last - 1;
+            }
+            last = found;
+        }
+        return gaps;
+    }
+
+    static float trigramRatio(String lowerText, String keyword) {
+        if (keyword.length() < 3) {
+            return 0;
+        }
+        int count = keyword.length() - 2;
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            if (lowerText.contains(keyword.substring(i, i + 3))) {
+                found++;
+            }
+        }
+        return (float) found / count;
+    }
+
+    private static boolean isBoundary(String text, int i) {
+        if (i == 0) {
+            return true;
+        }
+        else if (i >= text.length()) {
+            return false; // lower-cased text might be longer
+        }
+        char prev = text.charAt(i - 1);
+        char c = text.charAt(i);
+        return !Character.isLetterOrDigit(prev)
+                || (Character.isUpperCase(c) && Character.isLowerCase(prev))
+                || (Character.isDigit(c) != Character.isDigit(prev));
+    }
+
+    static long mask(String lowerText) {
+        long mask = 0;
+        for (int i = 0; i < lowerText.length(); i++) {
+            char c = lowerText.charAt(i);
+            int bit;
+            if (c >= 'a' && c <= 'z') {
+                bit = c - 'a';
+            }
+            else if (c >= '0' && c <= '9') {
+                bit = 26 + c - '0';
+            }
+            else {
+                bit = 36 + c % 28;
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    static class Item {
+        private final File file;
+        private final String path;
+        private final String lowerPath;
+        private final String lowerName;
+        private final boolean folder;
+        private final long lastModified;
+        private final long mask;
+
+        Item(File file, String path, boolean folder, long lastModified) {
+            this.file = file;
+            this.path = path;
+            this.lowerPath = path.toLowerCase();
+            this.lowerName = file.getName().toLowerCase();
+            this.folder = folder;
+            this.lastModified = lastModified;
+            this.mask = mask(lowerPath);
+        }
+    }
+
+    /**
+     * @param file
+     * @param folder
+     * @param lastModified
+     * @param score        the higher the better.
+     */
+    public record Match(File file, boolean folder, long lastModified, int score) {
+        /**
+         * Order: score, last modified, file path.
+         */
+        public static final Comparator<Match> RANKING = Comparator.comparingInt((Match m) -> -m.score)
+                .thenComparingLong(m -> -m.lastModified)
+                .thenComparing(Match::file);
+    }
+
+    /**
+     * Result of searching, it's also used for refining by the next searching.
+     */
+    public static class Result {
+        private final String keyword;
+        private final int generation;
+        private final List<Item> candidates;
+        private final List<Match> matches;
+
+        private Result(String keyword, int generation, List<Item> candidates, List<Match> matches) {
+            this.keyword = keyword;
+            this.generation = generation;
+            this.candidates = candidates;
+            this.matches = matches;
+        }
+
+        /**
+         * @return matched folders and files in ranking order.
+         */
+        public List<Match> getMatches() {
+            return matches;
+        }
+    }
+}
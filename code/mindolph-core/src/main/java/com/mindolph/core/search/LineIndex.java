@@ -0,0 +1,119 @@
+package com.mindolph.core.search;
+
+import java.util.Arrays;
+
+/**
+ * Start positions of all lines in a text, for mapping between position and row/column in O(log n).
+ * A line ends with its line break (inclusive), the last line ends with the end of text.
+ * The index can be updated incrementally with the text changes instead of being rebuilt.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class LineIndex {
+
+    private int[] starts = new int[]{0};
+    private int lineCount = 1;
+    private int textLength = 0;
+
+    public LineIndex() {
+    }
+
+    public LineIndex(CharSequence text) {
+        this.reset(text);
+    }
+
+    /**
+     * Rebuild the index for new text.
+     *
+     * @param text
+     */
+    public void reset(CharSequence text) {
+        int len = text.length();
+        int[] newStarts = new int[Math.max(16, starts.length)];
+        int count = 1;
+        for (int i = 0; i < len; i++) {
+            if (text.charAt(i) == '\n') {
+                if (count == newStarts.length) {
+                    newStarts = Arrays.copyOf(newStarts, count * 2);
+                }
+                newStarts[count++] = i + 1;
+            }
+        }
+        this.starts = newStarts;
+        this.lineCount = count;
+        this.textLength = len;
+    }
+
+    /**
+     * Update the index for text replacement, only the start positions after the replacement are shifted.
+     *
+     * @param position      where the replacement happens.
+     * @param removedLength length of the removed text.
+     * @param inserted      inserted text.
+     */
+    public void replace(int position, int removedLength, CharSequence inserted) {
+        int removedEnd = position + removedLength;
+        // lines whose line break before them has been removed.
+        int first = this.rowOf(position) + 1;
+        int last = first;
+        while (last < lineCount && starts[last] <= removedEnd) {
+            last++;
+        }
+        int insertedBreaks = 0;
+        for (int i = 0; i < inserted.length(); i++) {
+            if (inserted.charAt(i) == '\n') insertedBreaks++;
+        }
+        int tail = lineCount - last;
+        int newCount = first + insertedBreaks + tail;
+        int[] target = newCount > starts.length ? Arrays.copyOf(starts, Math.max(newCount, starts.length * 2)) : starts;
+        int delta = inserted.length() - removedLength;
+        System.arraycopy(starts, last, target, first + insertedBreaks, tail);
+        for (int i = first + insertedBreaks; i < newCount; i++) {
+            target[i] += delta;
+        }
+        int row = first;
+        for (int i = 0; i < inserted.length(); i++) {
+            if (inserted.charAt(i) == '\n') target[row++] = position + i + 1;
+        }
+        this.starts = target;
+        this.lineCount = newCount;
+        this.textLength += delta;
+    }
+
+    /**
+     * @param position
+     * @return row of the position, -1 if out of the text.
+     */
+    public int rowOf(int position) {
+        if (position < 0 || position > textLength) {
+            return -1;
+        }
+        int idx = Arrays.binarySearch(starts, 0, lineCount, position);
+        return idx >= 0 ? idx : -idx - 2;
+    }
+
+    /**
+     * @param row
+     * @return start position of the row.
+     */
+    public int lineStart(int row) {
+        return starts[row];
+    }
+
+    /**
+     * @param row
+     * @return end position (inclusive) of the row, which is the position of line break or end of the text.
+     */
+    public int lineEnd(int row) {
+        return row + 1 < lineCount ? starts[row + 1] - 1 : textLength;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getTextLength() {
+        return textLength;
+    }
+}
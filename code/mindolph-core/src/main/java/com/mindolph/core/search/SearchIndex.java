@@ -0,0 +1,651 @@
+package com.mindolph.core.search;
+
+import com.mindolph.core.constant.FolderConstants;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Persistent trigram index of the files in one workspace.
+ * It narrows down the files that a search has to verify with the {@link SearchMatcher}s: a file whose indexed text
+ * doesn't contain every trigram of the keyword can't match it, so it is never read during searching.
+ * Files whose matcher doesn't provide index text ({@link SearchMatcher#getIndexText(File)} returns null) are only
+ * tracked and are always returned as candidates.
+ * <p>
+ * The index is stored in the cache folder of the workspace and is kept up to date incrementally by {@link #update(long)}:
+ * files are re-indexed only if their last modified time or size changes, and changes from the app itself are
+ * applied from {@link #markDirty(File)} and {@link #remove(File)}.
+ * <p>
+ * The index is updated off the query path: queries are answered from the last published (immutable) snapshot
+ * without locking, files changed since the snapshot are always returned as candidates, and the caller has to scan all
+ * files if no snapshot is published yet.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class SearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    public static final String INDEX_FILE_NAME = "search.idx";
+
+    private static final int MAGIC = 0x4D534958; // MSIX
+    private static final int VERSION = 1;
+
+    // compact the postings if the dead documents exceed this count and half of all documents.
+    private static final int COMPACT_THRESHOLD = 1024;
+    // larger files are tracked but not indexed (always as candidates).
+    static final long MAX_INDEXED_FILE_SIZE = 4 * 1024 * 1024;
+
+    private final File workspaceDir;
+    private final File indexFile;
+    // find matcher for file, null means the file is not searchable.
+    private final Function<File, SearchMatcher> matcherResolver;
+
+    // the state below is only accessed by the updating (synchronized on this index).
+    // relative path (with '/' as separator) -> entry of all tracked files.
+    private final Map<String, Entry> entries = new HashMap<>();
+    // document id -> relative path, null for dead documents.
+    private final List<String> documents = new ArrayList<>();
+    // trigram -> ids of documents that contain it.
+    private final Map<Long, Posting> postings = new HashMap<>();
+    // files (or folders) changed by the app since last update -> sequence of the marking, guarded by itself.
+    private final Map<File, Long> dirtyFiles = new LinkedHashMap<>();
+    private long dirtySequence = 0;
+
+    private int deadCount = 0;
+    private boolean loaded = false;
+    private boolean modified = false;
+    private volatile long lastReconciled = 0;
+    // published for queries after each update, null if the index is not built yet.
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param workspaceDir
+     * @param cacheDir        folder to store the index file.
+     * @param matcherResolver
+     * @see com.mindolph.core.AppManager#getWorkspaceCacheDir(File)
+     */
+    public SearchIndex(File workspaceDir, File cacheDir, Function<File, SearchMatcher> matcherResolver) {
+        this.workspaceDir = workspaceDir;
+        this.indexFile = new File(cacheDir, INDEX_FILE_NAME);
+        this.matcherResolver = matcherResolver;
+    }
+
+    /**
+     * Find candidate files in {@code dir} that might contain the keyword from the last published snapshot, the files
+     * changed since then are included. It never waits for the updating.
+     *
+     * @param dir     the folder to search in, must be the workspace folder or one of its sub-folders.
+     * @param keyword normalized keyword.
+     * @return null if the index is not built yet, the caller should scan all files in that case.
+     */
+    public List<File> findCandidates(File dir, String keyword) {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            return null;
+        }
+        List<File> dirty;
+        synchronized (dirtyFiles) {
+            dirty = new ArrayList<>(dirtyFiles.keySet());
+        }
+        BitSet matchedDocs = current.findDocuments(keyword);
+        String prefix = this.toRelativePath(dir);
+        List<String> dirtyPaths = dirty.stream().map(this::toRelativePath).toList();
+        Set<File> candidates = new LinkedHashSet<>();
+        for (int i = 0; i < current.paths.length; i++) {
+            String path = current.paths[i];
+            if (!isInFolder(path, prefix) || dirtyPaths.stream().anyMatch(d -> path.equals(d) || isInFolder(path, d))) {
+                continue; // the dirty ones are added later.
+            }
+            int docId = current.docIds[i];
+            if (docId < 0 || matchedDocs == null || matchedDocs.get(docId)) {
+                candidates.add(new File(workspaceDir, path));
+            }
+        }
+        // the changed files might match now, they are verified by the searching.
+        for (File file : dirty) {
+            String path = this.toRelativePath(file);
+            if (file.isDirectory()) {
+                if (path.equals(prefix) || isInFolder(path, prefix)) {
+                    this.walk(file, candidates::add); // the changed folder is in the folder to search
+                }
+                else if (isInFolder(prefix, path)) {
+                    this.walk(dir, candidates::add); // the folder to search is in the changed folder
+                }
+            }
+            else if (file.isFile() && isInFolder(path, prefix) && matcherResolver.apply(file) != null) {
+                candidates.add(file);
+            }
+        }
+        log.debug("%d candidates of %d files for keyword '%s'".formatted(candidates.size(), current.paths.length, keyword));
+        return new ArrayList<>(candidates);
+    }
+
+    private static boolean isInFolder(String path, String folder) {
+        return folder.isEmpty() || (path.startsWith(folder) && path.length() > folder.length() && path.charAt(folder.length()) == '/');
+    }
+
+    /**
+     * Mark a file or folder as changed, it will be re-indexed by next updating.
+     *
+     * @param file
+     */
+    public void markDirty(File file) {
+        synchronized (dirtyFiles) {
+            dirtyFiles.put(file, ++dirtySequence);
+        }
+    }
+
+    /**
+     * Remove a file or all files in a folder from the index by next updating.
+     *
+     * @param file
+     */
+    public void remove(File file) {
+        this.markDirty(file);
+    }
+
+    /**
+     * Force to compare all files with the index by next updating, e.g. new file type is registered.
+     */
+    public void invalidate() {
+        lastReconciled = 0;
+    }
+
+    public boolean isOutdated(long maxAge) {
+        return System.currentTimeMillis() - lastReconciled > maxAge;
+    }
+
+    /**
+     * Bring the index up to date and publish a new snapshot for queries: the whole workspace is compared with the index
+     * if it's never done or older than {@code maxAge}, otherwise only the dirty files are updated.
+     *
+     * @param maxAge in millis.
+     */
+    public synchronized void update(long maxAge) {
+        this.ensureLoaded();
+        if (this.isOutdated(maxAge)) {
+            this.reconcile();
+        }
+        else {
+            this.applyDirtyFiles();
+        }
+    }
+
+    /**
+     * Walk through the whole workspace and update the entries whose last modified time or size changed.
+     */
+    public synchronized void reconcile() {
+        this.ensureLoaded();
+        long start = System.currentTimeMillis();
+        Map<File, Long> dirty = this.takeDirtyFiles();
+        Set<String> visited = new HashSet<>();
+        this.walk(workspaceDir, file -> visited.add(this.update(file)));
+        int before = entries.size();
+        entries.entrySet().removeIf(e -> {
+            if (!visited.contains(e.getKey())) {
+                this.killDocument(e.getValue().docId);
+                return true;
+            }
+            return false;
+        });
+        if (before != entries.size()) {
+            modified = true;
+        }
+        this.compactIfNeeded();
+        this.publish(dirty);
+        lastReconciled = System.currentTimeMillis();
+        log.info("Search index of %s reconciled in %dms, %d files tracked".formatted(workspaceDir, lastReconciled - start, entries.size()));
+    }
+
+    /**
+     * Save the index to the cache folder of workspace if it has been modified.
+     */
+    public synchronized void save() {
+        if (!modified) {
+            return;
+        }
+        File tmpFile = new File(indexFile.getParentFile(), INDEX_FILE_NAME + ".tmp");
+        try {
+            FileUtils.forceMkdir(indexFile.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(documents.size());
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeLong(e.getValue().lastModified);
+                    out.writeLong(e.getValue().size);
+                    out.writeInt(e.getValue().docId);
+                }
+                out.writeInt(postings.size());
+                for (Map.Entry<Long, Posting> e : postings.entrySet()) {
+                    Posting posting = e.getValue();
+                    out.writeLong(e.getKey());
+                    out.writeInt(posting.last);
+                    out.writeInt(posting.length);
+                    out.write(posting.bytes, 0, posting.length);
+                }
+            }
+            Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            modified = false;
+            log.debug("Search index saved to %s".formatted(indexFile));
+        } catch (IOException e) {
+            log.warn("Failed to save search index to %s".formatted(indexFile), e);
+            FileUtils.deleteQuietly(tmpFile);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!indexFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.info("Incompatible search index %s, will be rebuilt".formatted(indexFile));
+                return;
+            }
+            int docCount = in.readInt();
+            String[] docs = new String[docCount];
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                String path = in.readUTF();
+                Entry entry = new Entry(in.readLong(), in.readLong(), in.readInt());
+                entries.put(path, entry);
+                if (entry.docId >= 0) {
+                    docs[entry.docId] = path;
+                }
+            }
+            int postingCount = in.readInt();
+            for (int i = 0; i < postingCount; i++) {
+                long gram = in.readLong();
+                Posting posting = new Posting();
+                posting.last = in.readInt();
+                posting.length = in.readInt();
+                posting.bytes = new byte[posting.length];
+                in.readFully(posting.bytes);
+                postings.put(gram, posting);
+            }
+            documents.addAll(Arrays.asList(docs));
+            deadCount = (int) documents.stream().filter(Objects::isNull).count();
+            log.info("Search index loaded from %s with %d files".formatted(indexFile, entries.size()));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load search index from %s, will be rebuilt".formatted(indexFile), e);
+            entries.clear();
+            documents.clear();
+            postings.clear();
+            deadCount = 0;
+        }
+    }
+
+    private void applyDirtyFiles() {
+        Map<File, Long> dirty = this.takeDirtyFiles();
+        if (dirty.isEmpty() && snapshot != null) {
+            return;
+        }
+        for (File file : dirty.keySet()) {
+            if (file.isDirectory()) {
+                this.walk(file, this::update);
+            }
+            else if (file.isFile()) {
+                this.update(file);
+            }
+            else {
+                this.removeEntries(file);
+            }
+        }
+        this.compactIfNeeded();
+        this.publish(dirty);
+    }
+
+    /**
+     * Get the dirty files to be updated, they are kept dirty (as candidates for queries) until the snapshot is published.
+     */
+    private Map<File, Long> takeDirtyFiles() {
+        synchronized (dirtyFiles) {
+            return new LinkedHashMap<>(dirtyFiles);
+        }
+    }
+
+    /**
+     * Publish the current state as a snapshot for queries, the postings are shared with the snapshot and copied before
+     * being changed by later updating.
+     *
+     * @param applied dirty files that have been applied to the index.
+     */
+    private void publish(Map<File, Long> applied) {
+        String[] paths = new String[entries.size()];
+        int[] docIds = new int[entries.size()];
+        int i = 0;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            paths[i] = e.getKey();
+            docIds[i++] = e.getValue().docId;
+        }
+        postings.values().forEach(posting -> posting.shared = true);
+        this.snapshot = new Snapshot(paths, docIds, new HashMap<>(postings), documents.size());
+        synchronized (dirtyFiles) {
+            // files marked dirty again during updating are kept.
+            applied.forEach(dirtyFiles::remove);
+        }
+    }
+
+    private void removeEntries(File file) {
+        String path = this.toRelativePath(file);
+        entries.entrySet().removeIf(e -> {
+            if (e.getKey().equals(path) || isInFolder(e.getKey(), path)) {
+                this.killDocument(e.getValue().docId);
+                modified = true;
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Walk the folder for all searchable files in it.
+     *
+     * @param dir
+     * @param fileConsumer
+     */
+    private void walk(File dir, Consumer<File> fileConsumer) {
+        try {
+            Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+                    Path name = d.getFileName();
+                    if (name != null && FolderConstants.EXCLUDE_DIRS.contains(name.toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path f, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        File file = f.toFile();
+                        if (matcherResolver.apply(file) != null) {
+                            fileConsumer.accept(file);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path f, IOException e) {
+                    log.debug("Skip unreadable file: %s".formatted(f));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to walk folder %s".formatted(dir), e);
+        }
+    }
+
+    /**
+     * Re-index the file if it's new or changed.
+     *
+     * @param file
+     * @return relative path of the file.
+     */
+    private String update(File file) {
+        String path = this.toRelativePath(file);
+        long lastModified = file.lastModified();
+        long size = file.length();
+        Entry existing = entries.get(path);
+        if (existing != null && existing.lastModified == lastModified && existing.size == size) {
+            return path;
+        }
+        if (existing != null) {
+            this.killDocument(existing.docId);
+        }
+        SearchMatcher matcher = matcherResolver.apply(file);
+        int docId = -1;
+        if (matcher != null && size <= MAX_INDEXED_FILE_SIZE) {
+            try {
+                String text = matcher.getIndexText(file);
+                if (text != null) {
+                    docId = this.addDocument(path, text);
+                }
+            } catch (IOException e) {
+                log.debug("Failed to read file for indexing: %s".formatted(file));
+            }
+        }
+        entries.put(path, new Entry(lastModified, size, docId));
+        modified = true;
+        return path;
+    }
+
+    private int addDocument(String path, String text) {
+        int docId = documents.size();
+        documents.add(path);
+        for (long gram : extractTrigrams(text)) {
+            postings.compute(gram, (g, p) -> p == null ? new Posting() : p.shared ? p.copy() : p).add(docId);
+        }
+        return docId;
+    }
+
+    private void killDocument(int docId) {
+        if (docId >= 0 && documents.get(docId) != null) {
+            documents.set(docId, null);
+            deadCount++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deadCount < COMPACT_THRESHOLD || deadCount * 2 < documents.size()) {
+            return;
+        }
+        log.debug("Compact search index with %d dead documents in %d".formatted(deadCount, documents.size()));
+        int[] newIds = new int[documents.size()];
+        List<String> liveDocuments = new ArrayList<>(documents.size() - deadCount);
+        for (int i = 0; i < documents.size(); i++) {
+            if (documents.get(i) == null) {
+                newIds[i] = -1;
+            }
+            else {
+                newIds[i] = liveDocuments.size();
+                liveDocuments.add(documents.get(i));
+            }
+        }
+        postings.entrySet().removeIf(e -> {
+            Posting posting = new Posting();
+            for (int docId : e.getValue().decode()) {
+                if (newIds[docId] >= 0) posting.add(newIds[docId]);
+            }
+            e.setValue(posting);
+            return posting.length == 0;
+        });
+        for (Entry entry : entries.values()) {
+            if (entry.docId >= 0) entry.docId = newIds[entry.docId];
+        }
+        documents.clear();
+        documents.addAll(liveDocuments);
+        deadCount = 0;
+        modified = true;
+    }
+
+    private String toRelativePath(File file) {
+        Path relative = workspaceDir.toPath().relativize(file.toPath());
+        return StringUtils.replaceChars(relative.toString(), File.separatorChar, '/');
+    }
+
+    /**
+     * Extract distinct case-insensitive trigrams from text, each trigram is packed into a long.
+     *
+     * @param text
+     * @return
+     */
+    static long[] extractTrigrams(String text) {
+        if (text == null || text.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - 2];
+        long c0 = Character.toLowerCase(text.charAt(0));
+        long c1 = Character.toLowerCase(text.charAt(1));
+        for (int i = 2; i < text.length(); i++) {
+            long c2 = Character.toLowerCase(text.charAt(i));
+            grams[i - 2] = c0 << 32 | c1 << 16 | c2;
+            c0 = c1;
+            c1 = c2;
+        }
+        Arrays.sort(grams);
+        int n = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[n - 1]) {
+                grams[n++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, n);
+    }
+
+    /**
+     * Immutable state of the index for queries.
+     */
+    private record Snapshot(String[] paths, int[] docIds, Map<Long, Posting> postings, int documentCount) {
+
+        /**
+         * Find ids of documents that contain all trigrams of the keyword.
+         *
+         * @param keyword
+         * @return null if the keyword is too short to be looked up in the index.
+         */
+        private BitSet findDocuments(String keyword) {
+            long[] grams = extractTrigrams(keyword);
+            if (grams.length == 0) {
+                return null;
+            }
+            List<Posting> lists = new ArrayList<>(grams.length);
+            for (long gram : grams) {
+                Posting posting = postings.get(gram);
+                if (posting == null) {
+                    return new BitSet(); // no document contains this trigram.
+                }
+                lists.add(posting);
+            }
+            // intersect from the shortest list.
+            lists.sort(Comparator.comparingInt(p -> p.length));
+            int[] result = lists.get(0).decode();
+            int count = result.length;
+            for (int i = 1; i < lists.size() && count > 0; i++) {
+                count = lists.get(i).retainIn(result, count);
+            }
+            BitSet bitSet = new BitSet(documentCount);
+            for (int i = 0; i < count; i++) {
+                bitSet.set(result[i]);
+            }
+            return bitSet;
+        }
+    }
+
+    private static class Entry {
+        final long lastModified;
+        final long size;
+        int docId; // -1 if the file is not indexed.
+
+        Entry(long lastModified, long size, int docId) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.docId = docId;
+        }
+    }
+
+    /**
+     * Ascending document ids encoded as variable-length deltas.
+     */
+    private static class Posting {
+        byte[] bytes = new byte[4];
+        int length = 0;
+        int last = -1;
+        int count = -1; // lazily counted
+        boolean shared; // shared with a snapshot, can't be changed any more.
+
+        Posting copy() {
+            Posting posting = new Posting();
+            posting.bytes = Arrays.copyOf(bytes, Math.max(bytes.length, length + 5));
+            posting.length = length;
+            posting.last = last;
+            return posting;
+        }
+
+        void add(int docId) {
+            int delta = docId - last;
+            last = docId;
+            count = -1;
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+            }
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+        }
+
+        int[] decode() {
+            int[] ids = new int[this.count()];
+            int pos = 0, id = -1, i = 0;
+            while (pos < length) {
+                int delta = 0, shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                id += delta;
+                ids[i++] = id;
+            }
+            return ids;
+        }
+
+        /**
+         * Keep only the ids in {@code ids} (the first {@code count} ones) that also exist in this posting.
+         *
+         * @return count of retained ids.
+         */
+        int retainIn(int[] ids, int count) {
+            int pos = 0, id = -1, n = 0, i = 0;
+            while (pos < length && i < count) {
+                int delta = 0, shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                id += delta;
+                while (i < count && ids[i] < id) i++;
+                if (i < count && ids[i] == id) {
+                    ids[n++] = id;
+                    i++;
+                }
+            }
+            return n;
+        }
+
+        private int count() {
+            if (count < 0) {
+                int c = 0;
+                for (int i = 0; i < length; i++) {
+                    if ((bytes[i] & 0x80) == 0) c++;
+                }
+                count = c;
+            }
+            return count;
+        }
+    }
+}
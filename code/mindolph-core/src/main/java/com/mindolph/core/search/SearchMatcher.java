@@ -1,16 +1,38 @@
 package com.mindolph.core.search;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 /**
  * Matcher for searching in file, different file type might implement different instance.
+ * The implementations must be stateless because one instance is shared by all the search workers.
  *
  * @author mindolph.com@gmail.com
  */
 public interface SearchMatcher {
 
-    boolean matches(File file, SearchParams searchParams);
+    /**
+     * Match the file with search params.
+     *
+     * @param file
+     * @param searchParams
+     * @return matched items in the file, or null if the file doesn't match; an empty list means the file matches
+     * without any context provided.
+     */
+    List<MatchedItem> matches(File file, SearchParams searchParams);
 
-    List<MatchedItem> getMatched();
+    /**
+     * Text of file for building the search index, the keyword must be literally contained in this text if
+     * the file matches, otherwise the search index can't be used to narrow down the files to be matched.
+     *
+     * @param file
+     * @return null if the files for this matcher can't be indexed.
+     * @throws IOException
+     * @see SearchIndex
+     * @since 1.11
+     */
+    default String getIndexText(File file) throws IOException {
+        return null;
+    }
 }
@@ -0,0 +1,247 @@
+package com.mindolph.core.search;
+
+import com.mindolph.core.constant.FolderConstants;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Staged pipeline for searching in files: a producer (a parallel folder walker or a given list of files) feeds a
+ * bounded queue, and a pool of workers takes files from the queue and runs the match function on them.
+ * Every result is handed to the result consumer as soon as its file is done, the whole pipeline stops
+ * as soon as it is cancelled.
+ *
+ * @param <R> type of match result.
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+class SearchPipeline<R> {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchPipeline.class);
+
+    private static final File END = new File("");
+    private static final int QUEUE_CAPACITY = 1024;
+    // interval (in millis) to check the cancellation while waiting for the queue.
+    private static final long WAIT_INTERVAL = 100;
+
+    private final ExecutorService workerExecutor;
+    private final ForkJoinPool walkerPool;
+    private final int workerCount;
+    private final BooleanSupplier cancelled;
+    private final Function<File, R> matchFunction;
+    private final Consumer<R> resultConsumer;
+
+    private final BlockingQueue<File> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Queue<R> results = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param workerExecutor executor to run the workers.
+     * @param walkerPool     pool to walk folders in parallel.
+     * @param workerCount    how many workers to run the match function.
+     * @param cancelled      whether the searching is cancelled.
+     * @param matchFunction  match a file and return the result, null if not matched.
+     * @param resultConsumer consume each result in worker thread, nullable.
+     */
+    SearchPipeline(ExecutorService workerExecutor, ForkJoinPool walkerPool, int workerCount, BooleanSupplier cancelled,
+                   Function<File, R> matchFunction, Consumer<R> resultConsumer) {
+        this.workerExecutor = workerExecutor;
+        this.walkerPool = walkerPool;
+        this.workerCount = workerCount;
+        this.cancelled = cancelled;
+        this.matchFunction = matchFunction;
+        this.resultConsumer = resultConsumer;
+    }
+
+    /**
+     * Match the given files that are accepted by the filter.
+     *
+     * @param files
+     * @param fileFilter
+     * @return
+     * @throws InterruptedException
+     */
+    List<R> run(Collection<File> files, IOFileFilter fileFilter) throws InterruptedException {
+        List<Future<?>> workers = this.startWorkers();
+        try {
+            for (File file : files) {
+                if (fileFilter.accept(file) && !this.put(file)) {
+                    break;
+                }
+            }
+        } finally {
+            this.finish(workers);
+        }
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * Walk the folder recursively and match all files that are accepted by the filter.
+     *
+     * @param dir
+     * @param fileFilter
+     * @return
+     * @throws InterruptedException
+     */
+    List<R> run(File dir, IOFileFilter fileFilter) throws InterruptedException {
+        List<Future<?>> workers = this.startWorkers();
+        try {
+            walkerPool.invoke(new WalkTask(dir, fileFilter));
+        } finally {
+            this.finish(workers);
+        }
+        return new ArrayList<>(results);
+    }
+
+    private List<Future<?>> startWorkers() {
+        List<Future<?>> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(workerExecutor.submit(this::work));
+        }
+        return workers;
+    }
+
+    private void work() {
+        try {
+            while (!cancelled.getAsBoolean()) {
+                File file = queue.poll(WAIT_INTERVAL, TimeUnit.MILLISECONDS);
+                if (file == null) {
+                    continue;
+                }
+                if (file == END) {
+                    break;
+                }
+                try {
+                    R result = matchFunction.apply(file);
+                    if (result != null && !cancelled.getAsBoolean()) {
+                        results.add(result);
+                        if (resultConsumer != null) {
+                            resultConsumer.accept(result);
+                        }
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to match file: %s".formatted(file), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Put file to the queue, wait if the queue is full.
+     *
+     * @param file
+     * @return false if the searching is cancelled.
+     * @throws InterruptedException
+     */
+    private boolean put(File file) throws InterruptedException {
+        while (!queue.offer(file, WAIT_INTERVAL, TimeUnit.MILLISECONDS)) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+        }
+        return !cancelled.getAsBoolean();
+    }
+
+    /**
+     * Put file to the queue from a walker task, the walker pool is compensated while waiting for the queue,
+     * so the blocking doesn't starve other tasks in the pool.
+     *
+     * @param file
+     * @return false if the searching is cancelled.
+     * @throws InterruptedException
+     */
+    private boolean putInWalker(File file) throws InterruptedException {
+        QueuePutter putter = new QueuePutter(file);
+        ForkJoinPool.managedBlock(putter);
+        return putter.accepted;
+    }
+
+    private void finish(List<Future<?>> workers) throws InterruptedException {
+        for (int i = 0; i < workers.size(); i++) {
+            if (!this.put(END)) {
+                break; // the workers stop by themselves if cancelled.
+            }
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                log.warn("Search worker failed", e.getCause());
+            }
+        }
+    }
+
+    private class QueuePutter implements ForkJoinPool.ManagedBlocker {
+        private final File file;
+        private boolean done;
+        private boolean accepted;
+
+        QueuePutter(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (!done) {
+                accepted = put(file);
+                done = true;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            if (!done && queue.offer(file)) {
+                accepted = !cancelled.getAsBoolean();
+                done = true;
+            }
+            return done;
+        }
+    }
+
+    private class WalkTask extends RecursiveAction {
+        private final File dir;
+        private final IOFileFilter fileFilter;
+
+        WalkTask(File dir, IOFileFilter fileFilter) {
+            this.dir = dir;
+            this.fileFilter = fileFilter;
+        }
+
+        @Override
+        protected void compute() {
+            File[] children = dir.listFiles();
+            if (children == null || cancelled.getAsBoolean()) {
+                return;
+            }
+            List<WalkTask> subTasks = new ArrayList<>();
+            try {
+                for (File child : children) {
+                    if (child.isDirectory()) {
+                        if (!FolderConstants.EXCLUDE_DIRS.contains(child.getName())) {
+                            subTasks.add(new WalkTask(child, fileFilter));
+                        }
+                    }
+                    else if (fileFilter.accept(child) && !putInWalker(child)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            invokeAll(subTasks);
+        }
+    }
+}
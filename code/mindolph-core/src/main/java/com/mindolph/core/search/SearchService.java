@@ -1,6 +1,8 @@
 package com.mindolph.core.search;
 
-import org.apache.commons.io.FileUtils;
+import com.mindolph.core.AppManager;
+import com.mindolph.core.WorkspaceManager;
+import com.mindolph.core.config.WorkspaceConfig;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.filefilter.FileFilterUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
@@ -8,9 +10,13 @@ import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.swiftboot.util.PathUtils;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static com.mindolph.core.constant.SupportFileTypes.*;
 
@@ -19,14 +25,30 @@ import static com.mindolph.core.constant.SupportFileTypes.*;
  */
 public class SearchService {
 
+    // must be initialized before the singleton instance.
+    private static final int WORKER_COUNT = Runtime.getRuntime().availableProcessors();
+
     private static final SearchService ins = new SearchService();
 
     private static final Logger log = LoggerFactory.getLogger(SearchService.class);
 
     // for searching content in files
-    private final Map<String, SearchMatcher> textMatchers = new TreeMap<>();
+    private final Map<String, SearchMatcher> textMatchers = new ConcurrentHashMap<>();
     // for searching file links in files
-    private final Map<String, SearchMatcher> fileLinkMatchers = new TreeMap<>();
+    private final Map<String, SearchMatcher> fileLinkMatchers = new ConcurrentHashMap<>();
+
+    // walks folders in parallel.
+    private final ForkJoinPool walkerPool = new ForkJoinPool(Math.max(2, WORKER_COUNT / 2));
+    // drives each search pipeline and waits for its completion.
+    private final ExecutorService coordinatorExecutor = Executors.newCachedThreadPool(daemonThreadFactory("search"));
+
+    // re-compare the whole workspace with the search index in background if it is older than this (in millis).
+    private static final long INDEX_MAX_AGE = 30 * 1000;
+    // search index for each workspace dir
+    private final Map<File, SearchIndex> indexes = new ConcurrentHashMap<>();
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor(daemonThreadFactory("search-index"));
+    // file name index for each workspace dir
+    private final Map<File, FileNameIndex> nameIndexes = new ConcurrentHashMap<>();
 
     public static SearchService getIns() {
         return ins;
@@ -45,13 +67,35 @@ public class SearchService {
     }
 
     /**
+     * Search in files and wait for the result.
+     *
      * @param dir
      * @param fileFilter
      * @param searchParams
      * @return
+     * @see #searchInFilesAsync(File, IOFileFilter, SearchParams, Consumer)
      */
     public List<FoundFile> searchInFilesIn(File dir, IOFileFilter fileFilter, SearchParams searchParams) {
+        return this.searchInFilesAsync(dir, fileFilter, searchParams, null).join();
+    }
+
+    /**
+     * Search in files in parallel, each found file is passed to {@code foundConsumer} (in a worker thread) as soon as
+     * it's matched, cancel the returned future to stop the searching.
+     *
+     * @param dir
+     * @param fileFilter
+     * @param searchParams
+     * @param foundConsumer nullable
+     * @return future of all found files sorted by path.
+     * @since 1.11
+     */
+    public CompletableFuture<List<FoundFile>> searchInFilesAsync(File dir, IOFileFilter fileFilter, SearchParams searchParams,
+                                                                 Consumer<FoundFile> foundConsumer) {
         log.debug("Find in files by '%s' with file filters %s".formatted(searchParams, fileFilter));
+        if (searchParams == null || StringUtils.isBlank(searchParams.getKeywords())) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
         IOFileFilter newFileFilter = fileFilter;
         if (!"all".equals(searchParams.getFileTypeName())) {
             newFileFilter = FileFilterUtils.and(fileFilter, new IOFileFilter() {
@@ -66,27 +110,60 @@ public class SearchService {
                 }
             });
         }
-
-        Collection<File> files = FileUtils.listFilesAndDirs(dir, newFileFilter, TrueFileFilter.INSTANCE);
-        log.debug("Search in %d files".formatted(files.size()));
-        if (searchParams != null && StringUtils.isNotBlank(searchParams.getKeywords())) {
-            List<FoundFile> foundList = new ArrayList<>();
-            for (File file : files) {
-                SearchMatcher searchMatch = this.textMatchers.get(FilenameUtils.getExtension(file.getPath()));
-                if (searchMatch != null && searchMatch.matches(file, searchParams)) {
-                    foundList.add(new FoundFile(file, searchMatch.getMatched()));
+        IOFileFilter finalFileFilter = newFileFilter;
+        SearchIndex index = this.getIndex(searchParams.getWorkspaceDir(), dir);
+        return this.runPipeline(foundConsumer, file -> {
+            SearchMatcher searchMatch = this.textMatchers.get(FilenameUtils.getExtension(file.getPath()));
+            if (searchMatch != null) {
+                List<MatchedItem> matched = searchMatch.matches(file, searchParams);
+                if (matched != null) {
+                    return new FoundFile(file, matched);
                 }
             }
-            for (FoundFile foundFile : foundList) {
-                log.debug(foundFile.getFile().getPath());
+            return null;
+        }, pipeline -> {
+            if (index == null) {
+                return pipeline.run(dir, finalFileFilter);
             }
-            log.debug("%d files matches".formatted(foundList.size()));
-            return foundList;
-        }
-        return null;
+            // verify only the candidates from search index, the index is updated in background for next searching.
+            List<File> candidates = index.findCandidates(dir, searchParams.getNormalizedKeyword());
+            indexExecutor.submit(() -> {
+                index.update(INDEX_MAX_AGE);
+                index.save();
+            });
+            if (candidates == null) {
+                log.debug("Search index is not ready, scan all files");
+                return pipeline.run(dir, finalFileFilter);
+            }
+            return pipeline.run(candidates, finalFileFilter);
+        }, Comparator.comparing(FoundFile::getFile));
     }
 
 
+    /**
+     * Find folders and files in a workspace by fuzzy matching their names with keyword.
+     * The file name index of the workspace is built at the first time, and rebuilt in background if it's out of date.
+     *
+     * @param workspaceDir
+     * @param keyword
+     * @param fileExt      only folders with {@link com.mindolph.core.constant.SupportFileTypes#TYPE_FOLDER} or files with the extension are matched, null for all.
+     * @param last         result of last searching in the workspace, a keyword extended from last keyword is refined from it, nullable.
+     * @return
+     * @since 1.11
+     */
+    public FileNameIndex.Result searchFileNames(File workspaceDir, String keyword, String fileExt, FileNameIndex.Result last) {
+        FileNameIndex index = nameIndexes.computeIfAbsent(workspaceDir, wsDir -> new FileNameIndex(wsDir, new WorkspaceConfig().makeFileFilter()));
+        synchronized (index) {
+            if (!index.isBuilt()) {
+                index.rebuild(WorkspaceManager.getIns().reconcileWorkspace(workspaceDir, new WorkspaceConfig()));
+            }
+        }
+        if (index.checkExpired(INDEX_MAX_AGE)) {
+            indexExecutor.submit(() -> index.rebuild(WorkspaceManager.getIns().reconcileWorkspace(workspaceDir, new WorkspaceConfig())));
+        }
+        return index.search(keyword, fileExt, last);
+    }
+
     /**
      * Search files with link(s) to the target file whose path is as the keyword.
      *
@@ -97,30 +174,142 @@ public class SearchService {
      */
     public List<File> searchLinksInFilesIn(File dir, IOFileFilter fileFilter, SearchParams searchParams) {
         log.debug("Find in files by '%s' with file filters %s".formatted(searchParams, fileFilter));
-        Collection<File> files = FileUtils.listFilesAndDirs(dir, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
-        log.debug("Search in %d files".formatted(files.size()));
         if (searchParams != null && StringUtils.isNotBlank(searchParams.getKeywords())) {
-            List<File> foundList = new ArrayList<>();
-            for (File file : files) {
+            return this.<File>runPipeline(null, file -> {
                 SearchMatcher searchMatch = this.fileLinkMatchers.get(FilenameUtils.getExtension(file.getPath()));
-                if (searchMatch != null && searchMatch.matches(file, searchParams)) {
-                    foundList.add(file);
-                }
+                return searchMatch != null && searchMatch.matches(file, searchParams) != null ? file : null;
+            }, pipeline -> pipeline.run(dir, TrueFileFilter.INSTANCE), Comparator.naturalOrder()).join();
+        }
+        return null;
+    }
+
+    /**
+     * Run a search pipeline in background.
+     *
+     * @param resultConsumer consume each result as soon as it's matched, nullable.
+     * @param matchFunction  match file, return null if not matched.
+     * @param producer       feed the pipeline with files and return all results.
+     * @param sorting        to sort all results.
+     * @param <R>
+     * @return
+     */
+    private <R> CompletableFuture<List<R>> runPipeline(Consumer<R> resultConsumer, Function<File, R> matchFunction,
+                                                       PipelineProducer<R> producer, Comparator<R> sorting) {
+        CompletableFuture<List<R>> future = new CompletableFuture<>();
+        coordinatorExecutor.submit(() -> {
+            long start = System.currentTimeMillis();
+            // each search has its own workers (in virtual threads), so that concurrent searches don't queue up.
+            try (ExecutorService workerExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+                SearchPipeline<R> pipeline = new SearchPipeline<>(workerExecutor, walkerPool, WORKER_COUNT, future::isCancelled,
+                        matchFunction, resultConsumer);
+                List<R> results = producer.produce(pipeline);
+                results.sort(sorting);
+                log.debug("%d files matches in %dms".formatted(results.size(), System.currentTimeMillis() - start));
+                future.complete(results);
+            } catch (Throwable e) {
+                log.error("Search failed", e);
+                future.completeExceptionally(e);
             }
-            for (File file : foundList) {
-                log.debug(file.getPath());
+        });
+        return future;
+    }
+
+    /**
+     * @param workspaceDir
+     * @param dir          dir to search in.
+     * @return search index of the workspace, null if the index can't be used for the dir.
+     */
+    private SearchIndex getIndex(File workspaceDir, File dir) {
+        if (workspaceDir == null || (!dir.equals(workspaceDir) && !PathUtils.isParentFolder(workspaceDir, dir))) {
+            return null;
+        }
+        return this.getIndex(workspaceDir);
+    }
+
+    private SearchIndex getIndex(File workspaceDir) {
+        if (workspaceDir == null || !workspaceDir.isDirectory()) {
+            return null;
+        }
+        return indexes.computeIfAbsent(workspaceDir, wsDir -> new SearchIndex(wsDir, AppManager.getInstance().getWorkspaceCacheDir(wsDir),
+                file -> this.textMatchers.get(FilenameUtils.getExtension(file.getName()))));
+    }
+
+    /**
+     * @param file
+     * @return file name indexes of all workspaces that contain the file (a workspace might be in another workspace).
+     */
+    private List<FileNameIndex> findNameIndexesFor(File file) {
+        return nameIndexes.entrySet().stream()
+                .filter(entry -> PathUtils.isParentFolder(entry.getKey(), file))
+                .map(Map.Entry::getValue).toList();
+    }
+
+    private SearchIndex findIndexFor(File file) {
+        for (Map.Entry<File, SearchIndex> entry : indexes.entrySet()) {
+            if (PathUtils.isParentFolder(entry.getKey(), file)) {
+                return entry.getValue();
             }
-            log.debug("%d files matches".formatted(foundList.size()));
-            return foundList;
         }
         return null;
     }
 
+    /**
+     * Notify that a file is created or saved, or a folder is created, to update the search index.
+     *
+     * @param file
+     */
+    public void notifyFileChanged(File file) {
+        SearchIndex index = this.findIndexFor(file);
+        if (index != null) {
+            index.markDirty(file);
+        }
+        this.findNameIndexesFor(file).forEach(nameIndex -> nameIndex.add(file));
+    }
+
+    /**
+     * Notify that a file or folder is deleted, to update the search index.
+     *
+     * @param file
+     */
+    public void notifyFileDeleted(File file) {
+        SearchIndex index = this.findIndexFor(file);
+        if (index != null) {
+            index.remove(file);
+        }
+        this.findNameIndexesFor(file).forEach(nameIndex -> nameIndex.remove(file));
+    }
+
+    /**
+     * Notify that a file or folder is renamed or moved, to update the search index.
+     *
+     * @param origFile
+     * @param newFile
+     */
+    public void notifyFileMoved(File origFile, File newFile) {
+        this.notifyFileDeleted(origFile);
+        this.notifyFileChanged(newFile);
+    }
+
     public void registerMatcher(String fileType, SearchMatcher matcher) {
         this.textMatchers.put(fileType, matcher);
+        // files of this type might not be tracked yet.
+        indexes.values().forEach(SearchIndex::invalidate);
     }
 
     public void registerFileLinkMatcher(String fileType, SearchMatcher matcher) {
         this.fileLinkMatchers.put(fileType, matcher);
     }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @FunctionalInterface
+    private interface PipelineProducer<R> {
+        List<R> produce(SearchPipeline<R> pipeline) throws InterruptedException;
+    }
 }
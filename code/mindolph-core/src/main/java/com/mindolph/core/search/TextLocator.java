@@ -1,15 +1,10 @@
 package com.mindolph.core.search;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.swiftboot.util.TextUtils;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
 
 /**
  * @author mindolph.com@gmail.com
@@ -19,7 +14,8 @@ public class TextLocator {
     private static final Logger log = LoggerFactory.getLogger(TextLocator.class);
 
     private String text;
-    private List<String> lines; // text as lines.
+    private final LineIndex lineIndex = new LineIndex(); // lines of text.
+    private int lineCount = 0; // the last line break will not be recognized as a line.
     private String keyword = StringUtils.EMPTY; // preserve keyword to reset locating state if it was changed.
 
     private int startRow = 0;
@@ -37,14 +33,23 @@ public class TextLocator {
     public void setText(String text, boolean needReset) {
         if (!StringUtils.equals(this.text, text)) {
             this.text = text;
-            try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(text.getBytes())){
-                lines = IOUtils.readLines(byteArrayInputStream, StandardCharsets.UTF_8);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            lineIndex.reset(text);
+            lineCount = text.isEmpty() || text.endsWith("\n") ? lineIndex.getLineCount() - 1 : lineIndex.getLineCount();
             if (needReset) this.reset(0, 0);
-            // log.debug("loaded %d lines.".formatted(lines.size()));
+            // log.debug("loaded %d lines.".formatted(lineCount));
+        }
+    }
+
+    /**
+     * @param row
+     * @return text of the line without line break.
+     */
+    private String line(int row) {
+        int end = lineIndex.lineEnd(row);
+        if (end > lineIndex.lineStart(row) && text.charAt(end - 1) == '\r') {
+            end--;
         }
+        return text.substring(lineIndex.lineStart(row), end);
     }
 
     /**
@@ -61,7 +66,7 @@ public class TextLocator {
         if ((offset) <= 0) {
             startRow--;
             if (startRow >= 0) {
-                String l = lines.get(startRow);
+                String l = this.line(startRow);
                 startCol = (l.length() - 1) + offset;
             }
         }
@@ -73,9 +78,9 @@ public class TextLocator {
      * @param curCol
      */
     private void reset(int curRow, int curCol) {
-        int lastRow = Math.min(curRow, lines.size() - 1); // here is for CodeArea.
-        this.startRow = curRow == -1 ? lines.size() - 1 : lastRow; // -1 to set start/end row to last line, or given row.
-        this.startCol = curCol == -1 ? lines.get(lines.size() - 1).length() - 1 : curCol; // -1 to set start/end column to last of last line, or given column
+        int lastRow = Math.min(curRow, lineCount - 1); // here is for CodeArea.
+        this.startRow = curRow == -1 ? lineCount - 1 : lastRow; // -1 to set start/end row to last line, or given row.
+        this.startCol = curCol == -1 ? this.line(lineCount - 1).length() - 1 : curCol; // -1 to set start/end column to last of last line, or given column
         this.endRow = this.startRow;
         this.endCol = this.startCol;
     }
@@ -93,7 +98,7 @@ public class TextLocator {
      * @return
      */
     public TextLocation locateNext(String keyword, boolean caseSensitive, int curRow, int curCol) {
-        if (lines == null || lines.isEmpty()) {
+        if (lineCount == 0) {
             return null;
         }
         // the first time for a keyword
@@ -102,8 +107,8 @@ public class TextLocator {
             this.reset(curRow, curCol);
         }
         log.debug("locating next from: (%d, %d)".formatted(endRow, endCol));
-        for (int i = endRow; i < lines.size(); i++) { // keep locating from last end row
-            String line = lines.get(i);
+        for (int i = endRow; i < lineCount; i++) { // keep locating from last end row
+            String line = this.line(i);
             // keep locating from last end col.
             int lastEndCol = i == endRow ? endCol : 0;
             if (caseSensitive) {
@@ -134,7 +139,7 @@ public class TextLocator {
      * @return
      */
     public TextLocation locatePrev(String keyword, boolean caseSensitive, int curRow, int curCol) {
-        if (lines == null || lines.isEmpty()) {
+        if (lineCount == 0) {
             return null;
         }
         // the first time for a keyword
@@ -144,7 +149,7 @@ public class TextLocator {
         }
         log.debug("locating previous from: (%d, %d)".formatted(startRow, startCol));
         for (int i = startRow; i >= 0; i--) { // reverse
-            String line = lines.get(i);
+            String line = this.line(i);
             if (startCol == -1) {
                 // different from method locateNext, the startCol will be -1 if no matching,
                 // which make locating unable to proceed, so let it points to the end of whole text.
@@ -171,7 +176,7 @@ public class TextLocator {
             else {
 //                startRow--;
 //                if (startRow >= 0)
-//                    startCol = lines.get(startRow).length() - 1;
+//                    startCol = this.line(startRow).length() - 1;
             }
         }
         if (!isValid()) {
@@ -1,15 +1,10 @@
 package com.mindolph.core.search;
 
-import org.apache.commons.lang3.Range;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.function.TriFunction;
 import org.apache.commons.lang3.tuple.Pair;
 import org.swiftboot.util.TextUtils;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Navigation in text forward and backward.
@@ -18,9 +13,9 @@ import java.util.regex.Pattern;
  */
 public class TextNavigator {
 
-    private String text;
-    protected List<String> lines;
-    protected final List<Range<Integer>> ranges = new ArrayList<>();
+    private String text = StringUtils.EMPTY; // null if the text is changed by replaceText() but not provided yet.
+    private boolean lineIndexUpdated = false; // whether the line index is updated incrementally for the changed text.
+    protected final LineIndex lineIndex = new LineIndex();
     private Integer cursor;
 
     /**
@@ -31,20 +26,33 @@ public class TextNavigator {
      */
     public void setText(String text, boolean resetCursor) {
         if (!StringUtils.equals(this.text, text)) {
-            this.text = text;
-            Pattern linePattern = Pattern.compile("\n");
-            Matcher matcher = linePattern.matcher(text);
-            int last = 0;
-            ranges.clear();
-            while (matcher.find()) {
-                ranges.add(Range.between(last, matcher.start()));
-                last = matcher.end();
+            if (!lineIndexUpdated || lineIndex.getTextLength() != text.length()) {
+                lineIndex.reset(text);
             }
-            ranges.add(Range.between(last, text.length()));
+            this.text = text;
+            this.lineIndexUpdated = false;
         }
         if (resetCursor) cursor = null; // reset the cursor
     }
 
+    /**
+     * Apply a change of the text to the line index incrementally, the text itself is provided by
+     * {@link #setText(String, boolean)} later before locating.
+     *
+     * @param position      where the change happens.
+     * @param removedLength length of removed text.
+     * @param inserted      inserted text.
+     * @since 1.11
+     */
+    public void replaceText(int position, int removedLength, String inserted) {
+        boolean applicable = (text != null || lineIndexUpdated) && position + removedLength <= lineIndex.getTextLength();
+        if (applicable) {
+            lineIndex.replace(position, removedLength, inserted);
+        }
+        this.lineIndexUpdated = applicable;
+        this.text = null;
+    }
+
     /**
      * move cursor forward (offset > 0) or backward (offset < 0).
      *
@@ -71,13 +79,14 @@ public class TextNavigator {
      */
     public void moveCursor(int row, int col) {
         // the requested row and col must be in the range, otherwise exception
-        if (row < ranges.size()) {
-            Range<Integer> range = ranges.get(row);
-            if (col < range.getMaximum()) {
-                cursor = range.getMinimum() + col;
+        if (row < lineIndex.getLineCount()) {
+            int lineStart = lineIndex.lineStart(row);
+            int lineEnd = lineIndex.lineEnd(row);
+            if (col < lineEnd) {
+                cursor = lineStart + col;
             }
             else {
-                cursor = range.getMaximum();
+                cursor = lineEnd;
             }
         }
     }
@@ -144,12 +153,11 @@ public class TextNavigator {
      * @return
      */
     private Pair<Integer, Integer> convert(int position) {
-        for (Range<Integer> range : ranges) {
-            if (range.contains(position)) {
-                return Pair.of(ranges.indexOf(range), position - range.getMinimum());
-            }
+        int row = lineIndex.rowOf(position);
+        if (row < 0) {
+            return null;
         }
-        return null;
+        return Pair.of(row, position - lineIndex.lineStart(row));
     }
 
 
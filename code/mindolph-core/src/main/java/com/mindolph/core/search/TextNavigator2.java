@@ -1,10 +1,5 @@
 package com.mindolph.core.search;
 
-import org.apache.commons.lang3.Range;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * TODO to be refactored
  * @author mindolph.com@gmail.com
@@ -21,14 +16,7 @@ public class TextNavigator2 extends TextNavigator {
      */
     @Override
     public void setText(String text, boolean resetCursor) {
-        Pattern linePattern = Pattern.compile("\n");
-        Matcher matcher = linePattern.matcher(text);
-        int last = 0;
-        while (matcher.find()) {
-            ranges.add(Range.between(last, matcher.start()));
-            last = matcher.end();
-        }
-        ranges.add(Range.between(last, text.length()));
+        lineIndex.reset(text);
     }
 
 }
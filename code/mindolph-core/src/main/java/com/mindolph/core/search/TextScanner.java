@@ -0,0 +1,257 @@
+package com.mindolph.core.search;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scan a text file for a pattern without loading the whole file into memory.
+ * The file is decoded chunk by chunk into a fixed size window, the tail of the window is carried over to the next chunk
+ * so that matches across the chunk boundary are not missed, and some text before and after each match is kept
+ * for extracting the context.
+ * <p>
+ * Usage is like {@link Matcher}: call {@link #find()} until it returns false, the positions, location and context of
+ * the current match are available after each successful find.
+ * <p>
+ * For literal keyword the max match length is just the length of keyword; for regular expression, matches longer
+ * than the max match length might be missed if they cross the chunk boundary.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class TextScanner implements Closeable {
+
+    // window size in chars
+    static final int CHUNK_SIZE = 64 * 1024;
+    private static final int BYTE_BUFFER_SIZE = 16 * 1024;
+
+    private final Pattern pattern;
+    private final int overlap;
+    private final int contextSize;
+
+    private final FileChannel channel;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes;
+    private final CharBuffer window;
+    private Matcher matcher;
+
+    private boolean inputEnd; // all bytes are read from file.
+    private boolean flushing; // all bytes are decoded.
+    private boolean eof; // all text are decoded into the window.
+
+    private long base; // position of the window in the whole text.
+    private int searchFrom; // in window
+    private int matchStart = -1; // in window
+    private int matchEnd = -1; // in window
+
+    // line counting for locating matches
+    private int lineScanPos; // in window, line breaks before it have been counted.
+    private int lineCount;
+    private long lineStart; // position of current line in the whole text.
+
+    /**
+     * @param file           file to scan, in UTF-8.
+     * @param pattern        pattern to find.
+     * @param maxMatchLength max length of a match, used to carry over the tail of each chunk.
+     * @param contextSize    how many chars before and after a match to be extracted as context.
+     * @throws IOException
+     */
+    public TextScanner(File file, Pattern pattern, int maxMatchLength, int contextSize) throws IOException {
+        this(file, pattern, maxMatchLength, contextSize, CHUNK_SIZE);
+    }
+
+    TextScanner(File file, Pattern pattern, int maxMatchLength, int contextSize, int chunkSize) throws IOException {
+        this.pattern = pattern;
+        // the carried over text must be much smaller than the window, otherwise the scanning doesn't move on.
+        this.contextSize = Math.min(contextSize, chunkSize / 8);
+        this.overlap = Math.max(1, Math.min(maxMatchLength, chunkSize / 4));
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        long size = channel.size();
+        // decoded chars never exceed the bytes in UTF-8, so a small file is loaded into the window at once.
+        this.window = CharBuffer.allocate((int) Math.min(chunkSize, size + 1));
+        this.bytes = ByteBuffer.allocate((int) Math.min(BYTE_BUFFER_SIZE, size + 1));
+        this.fill();
+    }
+
+    /**
+     * Find next match.
+     *
+     * @return true if found.
+     * @throws IOException
+     */
+    public boolean find() throws IOException {
+        while (true) {
+            int keepFrom;
+            if (searchFrom <= window.limit() && matcher.find(searchFrom)) {
+                int s = matcher.start();
+                int e = matcher.end();
+                boolean incomplete = !eof && (e + contextSize >= window.limit() || matcher.hitEnd());
+                keepFrom = s - contextSize;
+                if (!incomplete || keepFrom <= 0) {
+                    matchStart = s;
+                    matchEnd = e;
+                    searchFrom = (e == s) ? e + 1 : e;
+                    return true;
+                }
+                // the match or its context might go on in next chunk, find it again after loading more text.
+                searchFrom = s;
+            }
+            else {
+                if (eof) {
+                    matchStart = matchEnd = -1;
+                    return false;
+                }
+                // any match starts in the tail of this window will be found in next round.
+                searchFrom = Math.max(searchFrom, window.limit() - overlap);
+                keepFrom = searchFrom - contextSize;
+                if (keepFrom <= 0) {
+                    // the file grows after opened, ignore the appended text.
+                    matchStart = matchEnd = -1;
+                    return false;
+                }
+            }
+            this.shift(Math.max(0, keepFrom));
+        }
+    }
+
+    /**
+     * @return start position of current match in the whole text.
+     */
+    public long start() {
+        return base + matchStart;
+    }
+
+    /**
+     * @return end position (exclusive) of current match in the whole text.
+     */
+    public long end() {
+        return base + matchEnd;
+    }
+
+    /**
+     * Location of current match, the same as {@link TextNavigator#convert(int, int)} for the start and end position.
+     *
+     * @return
+     */
+    public TextLocation location() {
+        this.countLines(matchStart);
+        int startRow = lineCount;
+        int startCol = (int) (base + matchStart - lineStart);
+        this.countLines(matchEnd);
+        return new TextLocation(startRow, startCol, lineCount, (int) (base + matchEnd - lineStart));
+    }
+
+    /**
+     * Context text around current match, the same as {@link BaseSearchMatcher#extractInText(String, int, int, int)}.
+     *
+     * @return
+     */
+    public String context() {
+        int from = Math.max(0, matchStart - contextSize);
+        int to = Math.min(window.limit(), matchEnd + contextSize);
+        StringBuilder buf = new StringBuilder();
+        if (base + matchStart - contextSize > 0) {
+            buf.append("...");
+        }
+        buf.append(StringUtils.strip(window.subSequence(from, to).toString()));
+        if (matchEnd + contextSize < window.limit() || this.hasMoreText()) {
+            buf.append("...");
+        }
+        return buf.toString();
+    }
+
+    /**
+     * @return true if there is any text after the window, the window might be full with the last chars of the file
+     * before the end of file is detected.
+     */
+    private boolean hasMoreText() {
+        if (eof) {
+            return false;
+        }
+        try {
+            // undecoded bytes are kept in the byte buffer.
+            return bytes.position() > 0 || channel.position() < channel.size();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private void countLines(int pos) {
+        for (; lineScanPos < pos; lineScanPos++) {
+            if (window.get(lineScanPos) == '\n') {
+                lineCount++;
+                lineStart = base + lineScanPos + 1;
+            }
+        }
+    }
+
+    /**
+     * Drop text before the position from the window and load more text.
+     *
+     * @param keepFrom
+     * @throws IOException
+     */
+    private void shift(int keepFrom) throws IOException {
+        this.countLines(keepFrom);
+        window.position(keepFrom);
+        window.compact();
+        base += keepFrom;
+        searchFrom -= keepFrom;
+        lineScanPos -= keepFrom;
+        this.fill();
+    }
+
+    /**
+     * Decode text into the window until it's full or the file ends, the window is flipped for reading after that.
+     *
+     * @throws IOException
+     */
+    private void fill() throws IOException {
+        while (window.hasRemaining() && !eof) {
+            if (!flushing) {
+                if (!inputEnd && channel.read(bytes) < 0) {
+                    inputEnd = true;
+                }
+                bytes.flip();
+                CoderResult result = decoder.decode(bytes, window, inputEnd);
+                bytes.compact();
+                if (result.isOverflow()) {
+                    break;
+                }
+                flushing = inputEnd;
+            }
+            if (flushing) {
+                if (decoder.flush(window).isOverflow()) {
+                    break;
+                }
+                eof = true;
+            }
+        }
+        window.flip();
+        if (matcher == null) {
+            matcher = pattern.matcher(window);
+        }
+        else {
+            matcher.reset(window);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
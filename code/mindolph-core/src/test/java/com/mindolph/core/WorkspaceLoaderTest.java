@@ -0,0 +1,92 @@
+package com.mindolph.core;
+
+import com.mindolph.core.WorkspaceSnapshot.Entry;
+import com.mindolph.core.config.WorkspaceConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class WorkspaceLoaderTest {
+
+    @TempDir
+    File workspaceDir;
+
+    @TempDir
+    File cacheDir;
+
+    private final WorkspaceLoader loader = new WorkspaceLoader(new WorkspaceConfig().makeFileFilter());
+
+    @BeforeEach
+    void setup() throws IOException {
+        Path root = workspaceDir.toPath();
+        Files.createDirectories(root.resolve("b/sub"));
+        Files.createDirectories(root.resolve("a"));
+        Files.createDirectories(root.resolve(".hidden"));
+        Files.createFile(root.resolve("0.md"));
+        Files.createFile(root.resolve(".DS_store"));
+        Files.createFile(root.resolve("a/1.md"));
+        Files.createFile(root.resolve("b/sub/2.md"));
+    }
+
+    @Test
+    void load() {
+        Entry root = loader.load(workspaceDir);
+        Assertions.assertEquals(List.of("a", "b", "0.md"), names(root));
+        Assertions.assertEquals(List.of("1.md"), names(root.getChildren().get(0)));
+        Entry sub = root.getChildren().get(1).getChildren().get(0);
+        Assertions.assertTrue(sub.isFolder());
+        Assertions.assertEquals(List.of("2.md"), names(sub));
+        Assertions.assertNull(loader.load(new File(workspaceDir, "0.md")));
+    }
+
+    @Test
+    void snapshot() {
+        Entry root = loader.load(workspaceDir);
+        WorkspaceSnapshot snapshot = new WorkspaceSnapshot(workspaceDir, cacheDir, "");
+        Assertions.assertNull(snapshot.read());
+        snapshot.write(root);
+        Entry read = snapshot.read();
+        Assertions.assertNotNull(read);
+        Assertions.assertTrue(read.isSame(root, true));
+        // nothing is written to the workspace.
+        Assertions.assertTrue(loader.load(workspaceDir).isSame(root, false));
+        // snapshot saved with different filter settings is ignored.
+        Assertions.assertNull(new WorkspaceSnapshot(workspaceDir, cacheDir, "hidden:true").read());
+    }
+
+    @Test
+    void reconcile() throws IOException {
+        Path sub = workspaceDir.toPath().resolve("b/sub");
+        Path a = workspaceDir.toPath().resolve("a");
+        Files.setLastModifiedTime(sub, FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(a, FileTime.fromMillis(1000));
+        Entry snapshot = loader.load(workspaceDir);
+
+        // changed folder is listed again.
+        Files.createFile(sub.resolve("3.md"));
+        // unchanged folder (by last modified time) is not listed again.
+        Files.createFile(a.resolve("4.md"));
+        Files.setLastModifiedTime(a, FileTime.fromMillis(1000));
+
+        Entry root = loader.reconcile(workspaceDir, snapshot);
+        Assertions.assertEquals(List.of("2.md", "3.md"), names(root.getChildren().get(1).getChildren().get(0)));
+        Assertions.assertEquals(List.of("1.md"), names(root.getChildren().get(0)));
+        Assertions.assertFalse(root.isSame(snapshot, false));
+        Assertions.assertTrue(loader.reconcile(workspaceDir, root).isSame(root, true));
+    }
+
+    private static List<String> names(Entry folder) {
+        return folder.getChildren().stream().map(e -> e.getPath().getFileName().toString()).toList();
+    }
+}
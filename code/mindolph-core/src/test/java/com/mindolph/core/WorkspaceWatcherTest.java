@@ -0,0 +1,91 @@
+package com.mindolph.core;
+
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class WorkspaceWatcherTest {
+
+    @TempDir
+    File workspaceDir;
+
+    @Test
+    void listFromSnapshot() throws IOException {
+        Files.createFile(new File(workspaceDir, "a.md").toPath());
+        try (WorkspaceWatcher watcher = new WorkspaceWatcher(workspaceDir, TrueFileFilter.INSTANCE)) {
+            Assertions.assertEquals(List.of(new File(workspaceDir, "a.md")), watcher.listFolder(workspaceDir));
+            Assertions.assertTrue(watcher.contains(new File(workspaceDir, "sub/b.md")));
+            Assertions.assertFalse(watcher.contains(workspaceDir.getParentFile()));
+            // the snapshot is dropped, so the folder is listed from disk.
+            Files.createFile(new File(workspaceDir, "b.md").toPath());
+            watcher.invalidate(workspaceDir);
+            Assertions.assertEquals(2, watcher.listFolder(workspaceDir).size());
+        }
+    }
+
+    @Test
+    void watchChanges() throws Exception {
+        File sub = new File(workspaceDir, "sub");
+        Files.createDirectory(sub.toPath());
+        File removed = new File(sub, "removed.md");
+        Files.createFile(removed.toPath());
+        LinkedBlockingQueue<List<WorkspaceWatcher.FolderChange>> queue = new LinkedBlockingQueue<>();
+        try (WorkspaceWatcher watcher = new WorkspaceWatcher(workspaceDir, TrueFileFilter.INSTANCE)) {
+            watcher.setListener(queue::add);
+            watcher.listFolder(workspaceDir);
+            watcher.listFolder(sub);
+            File added = new File(sub, "added.md");
+            Files.createFile(added.toPath());
+            Files.delete(removed.toPath());
+            // the polling watch service might be slow on some platforms.
+            List<WorkspaceWatcher.FolderChange> changes = queue.poll(15, TimeUnit.SECONDS);
+            Assertions.assertNotNull(changes);
+            Assertions.assertEquals(1, changes.size());
+            Assertions.assertEquals(sub, changes.get(0).folder());
+            Assertions.assertEquals(List.of(added), changes.get(0).added());
+            Assertions.assertEquals(List.of(removed), changes.get(0).removed());
+            // the snapshot is updated.
+            Assertions.assertEquals(List.of(added), watcher.listFolder(sub));
+        }
+    }
+
+    @Test
+    void dropRemovedFolder() throws Exception {
+        File sub = new File(workspaceDir, "sub");
+        File deep = new File(sub, "deep");
+        Files.createDirectories(deep.toPath());
+        // sorted between "sub" and its descendants by path.
+        File sibling = new File(workspaceDir, "sub-x");
+        Files.createDirectory(sibling.toPath());
+        LinkedBlockingQueue<List<WorkspaceWatcher.FolderChange>> queue = new LinkedBlockingQueue<>();
+        try (WorkspaceWatcher watcher = new WorkspaceWatcher(workspaceDir, TrueFileFilter.INSTANCE)) {
+            watcher.setListener(queue::add);
+            watcher.listFolder(workspaceDir);
+            watcher.listFolder(sub);
+            watcher.listFolder(deep);
+            watcher.listFolder(sibling);
+            Files.delete(deep.toPath());
+            Files.delete(sub.toPath());
+            List<WorkspaceWatcher.FolderChange> changes = queue.poll(15, TimeUnit.SECONDS);
+            Assertions.assertNotNull(changes);
+            Assertions.assertTrue(changes.stream().anyMatch(c -> c.folder().equals(workspaceDir) && c.removed().equals(List.of(sub))));
+            // the sibling folder is still watched.
+            File added = new File(sibling, "added.md");
+            Files.createFile(added.toPath());
+            changes = queue.poll(15, TimeUnit.SECONDS);
+            Assertions.assertNotNull(changes);
+            Assertions.assertEquals(List.of(new WorkspaceWatcher.FolderChange(sibling, List.of(added), List.of())), changes);
+        }
+    }
+}
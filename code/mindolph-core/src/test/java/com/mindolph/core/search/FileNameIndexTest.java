@@ -0,0 +1,83 @@
+package com.mindolph.core.search;
+
+import com.mindolph.core.WorkspaceLoader;
+import com.mindolph.core.config.WorkspaceConfig;
+import com.mindolph.core.constant.SupportFileTypes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class FileNameIndexTest {
+
+    @TempDir
+    File workspaceDir;
+
+    private FileNameIndex index;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Path root = workspaceDir.toPath();
+        Files.createDirectories(root.resolve("docs/dialog"));
+        Files.createDirectories(root.resolve("src"));
+        Files.createFile(root.resolve("docs/README.md"));
+        Files.createFile(root.resolve("docs/dialog/notes.md"));
+        Files.createFile(root.resolve("src/GotoFileDialog.java"));
+        Files.createFile(root.resolve("src/GoldFinder.mmd"));
+        Files.createFile(root.resolve("src/FileDialogs.java"));
+        Files.createFile(root.resolve("src/gofd.txt"));
+        Files.createFile(root.resolve("src/.hidden.md"));
+        index = new FileNameIndex(workspaceDir, new WorkspaceConfig().makeFileFilter());
+        index.rebuild(new WorkspaceLoader(new WorkspaceConfig().makeFileFilter()).load(workspaceDir));
+    }
+
+    @Test
+    void ranking() {
+        // exact name, camel humps, then the sub-sequence.
+        Assertions.assertEquals(List.of("gofd.txt", "GotoFileDialog.java", "GoldFinder.mmd"), names(index.search("gofd", null, null)));
+        Assertions.assertEquals(List.of("FileDialogs.java", "GotoFileDialog.java"), names(index.search("filedialog", null, null)));
+        Assertions.assertEquals(List.of("GotoFileDialog.java"), names(index.search("Goto File", null, null)));
+        // typo
+        Assertions.assertEquals(List.of("GotoFileDialog.java"), names(index.search("gotofiledailog", null, null)));
+        Assertions.assertTrue(index.search("hidden", null, null).getMatches().isEmpty());
+    }
+
+    @Test
+    void pathAndType() {
+        // matched by folders in path are ranked after the matched names.
+        Assertions.assertEquals(List.of("dialog", "FileDialogs.java", "GotoFileDialog.java", "notes.md"), names(index.search("dialog", null, null)));
+        Assertions.assertEquals(List.of("notes.md"), names(index.search("dialog/no", null, null)));
+        Assertions.assertEquals(List.of("dialog"), names(index.search("dialog", SupportFileTypes.TYPE_FOLDER, null)));
+        Assertions.assertEquals(List.of("README.md", "notes.md"), names(index.search("d", "md", null)));
+    }
+
+    @Test
+    void refine() throws IOException {
+        FileNameIndex.Result result = index.search("fi", null, null);
+        Assertions.assertEquals(3, result.getMatches().size());
+        FileNameIndex.Result refined = index.search("file d", null, result);
+        Assertions.assertEquals(List.of("FileDialogs.java", "GotoFileDialog.java"), names(refined));
+
+        // the added file can't be found from last result.
+        File added = new File(workspaceDir, "src/FileDialog2.java");
+        Files.createFile(added.toPath());
+        index.add(added);
+        Assertions.assertEquals("FileDialog2.java", names(index.search("filedialog", null, refined)).get(0));
+
+        index.remove(new File(workspaceDir, "src"));
+        Assertions.assertEquals(List.of("dialog", "notes.md"), names(index.search("dialog", null, null)));
+    }
+
+    private static List<String> names(FileNameIndex.Result result) {
+        return result.getMatches().stream().map(m -> m.file().getName()).toList();
+    }
+}
@@ -0,0 +1,57 @@
+package com.mindolph.core.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class LineIndexTest {
+
+    @Test
+    void rowOf() {
+        LineIndex index = new LineIndex("0123\n\nabc\n");
+        Assertions.assertEquals(4, index.getLineCount());
+        Assertions.assertEquals(0, index.rowOf(0));
+        Assertions.assertEquals(0, index.rowOf(4)); // line break belongs to its line
+        Assertions.assertEquals(1, index.rowOf(5));
+        Assertions.assertEquals(2, index.rowOf(6));
+        Assertions.assertEquals(3, index.rowOf(10));
+        Assertions.assertEquals(-1, index.rowOf(11));
+        Assertions.assertEquals(9, index.lineEnd(2));
+        Assertions.assertEquals(10, index.lineEnd(3));
+    }
+
+    @Test
+    void replace() {
+        Random random = new Random(3);
+        StringBuilder text = new StringBuilder("first line\nsecond line\n\nlast");
+        LineIndex index = new LineIndex(text);
+        String[] pieces = {"", "x", "\n", "ab\ncd", "\n\n", "long text without break"};
+        for (int i = 0; i < 1000; i++) {
+            int pos = random.nextInt(text.length() + 1);
+            int removed = random.nextInt(Math.min(8, text.length() - pos) + 1);
+            String inserted = pieces[random.nextInt(pieces.length)];
+            text.replace(pos, pos + removed, inserted);
+            index.replace(pos, removed, inserted);
+            LineIndex expected = new LineIndex(text);
+            Assertions.assertEquals(expected.getLineCount(), index.getLineCount());
+            Assertions.assertEquals(text.length(), index.getTextLength());
+            for (int row = 0; row < expected.getLineCount(); row++) {
+                Assertions.assertEquals(expected.lineStart(row), index.lineStart(row));
+            }
+        }
+    }
+
+    @Test
+    void navigatorWithChanges() {
+        TextNavigator navigator = new TextNavigator();
+        navigator.replaceText(0, 0, "0123456789\n0123456789");
+        navigator.replaceText(10, 0, "\nabc");
+        navigator.setText("0123456789\nabc\n0123456789", true);
+        Assertions.assertEquals(new TextLocation(1, 0, 1, 2), navigator.locateNext("abc", true));
+        Assertions.assertEquals(new TextLocation(2, 0, 2, 1), navigator.locateNext("01", true));
+    }
+}
@@ -0,0 +1,108 @@
+package com.mindolph.core.search;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class SearchIndexTest {
+
+    private final SearchMatcher codeMatcher = new CodeSearchMatcher(false);
+    private final Function<File, SearchMatcher> resolver = file -> "txt".equals(FilenameUtils.getExtension(file.getName())) ? codeMatcher : null;
+
+    private static final long MAX_AGE = 30 * 1000;
+
+    @TempDir
+    File workspaceDir;
+
+    @TempDir
+    File cacheDir;
+
+    @Test
+    void findCandidates() throws IOException {
+        File a = write("a.txt", "The quick brown fox");
+        File b = write("sub/b.txt", "jumps over the lazy dog");
+        write("c.bin", "quick");
+
+        SearchIndex index = new SearchIndex(workspaceDir, cacheDir, resolver);
+        // not built yet
+        Assertions.assertNull(index.findCandidates(workspaceDir, "QUICK"));
+        index.update(MAX_AGE);
+        Assertions.assertEquals(List.of(a), index.findCandidates(workspaceDir, "QUICK"));
+        Assertions.assertEquals(List.of(b), index.findCandidates(workspaceDir, "lazy dog"));
+        Assertions.assertTrue(index.findCandidates(workspaceDir, "cat").isEmpty());
+        // too short to use the index
+        Assertions.assertEquals(2, index.findCandidates(workspaceDir, "th").size());
+        // limited in sub folder
+        Assertions.assertTrue(index.findCandidates(new File(workspaceDir, "sub"), "quick").isEmpty());
+    }
+
+    @Test
+    void incrementalUpdate() throws IOException {
+        File a = write("a.txt", "hello world");
+        SearchIndex index = new SearchIndex(workspaceDir, cacheDir, resolver);
+        index.update(MAX_AGE);
+        Assertions.assertEquals(List.of(a), index.findCandidates(workspaceDir, "hello"));
+
+        write("a.txt", "goodbye world");
+        index.markDirty(a);
+        // changed files are candidates until the index is updated.
+        Assertions.assertEquals(List.of(a), index.findCandidates(workspaceDir, "hello"));
+        index.update(MAX_AGE);
+        Assertions.assertTrue(index.findCandidates(workspaceDir, "hello").isEmpty());
+        Assertions.assertEquals(List.of(a), index.findCandidates(workspaceDir, "goodbye"));
+
+        File b = write("sub/b.txt", "hello again");
+        index.markDirty(b.getParentFile());
+        Assertions.assertEquals(List.of(b), index.findCandidates(workspaceDir, "hello"));
+
+        FileUtils.delete(a);
+        index.remove(a);
+        Assertions.assertEquals(List.of(b), index.findCandidates(workspaceDir, "world")); // b is not updated yet
+        index.update(MAX_AGE);
+        Assertions.assertTrue(index.findCandidates(workspaceDir, "world").isEmpty());
+        Assertions.assertEquals(List.of(b), index.findCandidates(workspaceDir, "hello"));
+    }
+
+    @Test
+    void persistence() throws IOException {
+        File a = write("a.txt", "persisted content");
+        SearchIndex index = new SearchIndex(workspaceDir, cacheDir, resolver);
+        index.update(MAX_AGE);
+        index.save();
+
+        File b = write("b.txt", "more content");
+        SearchIndex loaded = new SearchIndex(workspaceDir, cacheDir, resolver);
+        loaded.update(MAX_AGE);
+        List<File> candidates = loaded.findCandidates(workspaceDir, "content");
+        Assertions.assertEquals(2, candidates.size());
+        Assertions.assertTrue(candidates.contains(a));
+        Assertions.assertTrue(candidates.contains(b));
+    }
+
+    @Test
+    void largeFileNotIndexed() throws IOException {
+        File large = write("large.txt", StringUtils.repeat("x", (int) SearchIndex.MAX_INDEXED_FILE_SIZE + 1));
+        SearchIndex index = new SearchIndex(workspaceDir, cacheDir, resolver);
+        index.update(MAX_AGE);
+        // tracked and always as candidate.
+        Assertions.assertEquals(List.of(large), index.findCandidates(workspaceDir, "anything"));
+    }
+
+    private File write(String path, String content) throws IOException {
+        File file = new File(workspaceDir, path);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,66 @@
+package com.mindolph.core.search;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class SearchPipelineTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ForkJoinPool walkerPool = new ForkJoinPool(2);
+
+    @TempDir
+    File dir;
+
+    @Test
+    void walkAndMatch() throws IOException, InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            File file = new File(dir, "folder%d/file%d.txt".formatted(i % 7, i));
+            FileUtils.writeStringToFile(file, i % 3 == 0 ? "matched" : "other", StandardCharsets.UTF_8);
+        }
+        FileUtils.writeStringToFile(new File(dir, ".git/ignored.txt"), "matched", StandardCharsets.UTF_8);
+        List<File> streamed = new CopyOnWriteArrayList<>();
+        SearchPipeline<File> pipeline = new SearchPipeline<>(executor, walkerPool, 4, () -> false, file -> {
+            try {
+                return FileUtils.readFileToString(file, StandardCharsets.UTF_8).contains("matched") ? file : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }, streamed::add);
+        List<File> results = pipeline.run(dir, TrueFileFilter.INSTANCE);
+        Assertions.assertEquals(34, results.size());
+        Assertions.assertEquals(34, streamed.size());
+    }
+
+    @Test
+    void cancel() throws InterruptedException {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            files.add(new File("file" + i));
+        }
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicInteger matched = new AtomicInteger();
+        SearchPipeline<File> pipeline = new SearchPipeline<>(executor, walkerPool, 4, cancelled::get, file -> {
+            if (matched.incrementAndGet() == 100) {
+                cancelled.set(true);
+            }
+            return file;
+        }, null);
+        List<File> results = pipeline.run(files, TrueFileFilter.INSTANCE);
+        Assertions.assertTrue(results.size() < files.size());
+    }
+}
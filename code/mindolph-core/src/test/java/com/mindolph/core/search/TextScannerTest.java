@@ -0,0 +1,100 @@
+package com.mindolph.core.search;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class TextScannerTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    void literalAcrossChunks() throws IOException {
+        StringBuilder buf = new StringBuilder();
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            buf.append(random.nextInt(10) == 0 ? "\n" : "").append(random.nextInt(20) == 0 ? "Keyword中文" : "some text ");
+        }
+        String text = buf.toString();
+        File file = write(text);
+        Pattern pattern = SearchUtils.string2pattern("keyword中文", Pattern.CASE_INSENSITIVE);
+        List<String> expected = scanInMemory(text, pattern, 16);
+        Assertions.assertFalse(expected.isEmpty());
+        for (int chunkSize : new int[]{256, 300, 1024, TextScanner.CHUNK_SIZE}) {
+            Assertions.assertEquals(expected, scan(file, pattern, 9, 16, chunkSize), "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    void regex() throws IOException {
+        String text = StringUtils.repeat("abc 123 def\n", 500);
+        File file = write(text);
+        Pattern pattern = Pattern.compile("\\d+\\s+d");
+        Assertions.assertEquals(scanInMemory(text, pattern, 8), scan(file, pattern, 32, 8, 256));
+    }
+
+    @Test
+    void notFound() throws IOException {
+        File file = write(StringUtils.repeat("0123456789", 1000));
+        try (TextScanner scanner = new TextScanner(file, Pattern.compile("x", Pattern.LITERAL), 1, 0, 256)) {
+            Assertions.assertFalse(scanner.find());
+        }
+        try (TextScanner scanner = new TextScanner(write(""), Pattern.compile("x", Pattern.LITERAL), 1, 0)) {
+            Assertions.assertFalse(scanner.find());
+        }
+    }
+
+    @Test
+    void contextReachesEnd() throws IOException {
+        // the window is full with the whole text, but the end of file is not detected yet.
+        String text = "x" + StringUtils.repeat("a", 254) + "y";
+        File file = write(text);
+        Pattern pattern = Pattern.compile("x.*y");
+        Assertions.assertEquals(scanInMemory(text, pattern, 8), scan(file, pattern, 256, 8, 256));
+    }
+
+    private List<String> scan(File file, Pattern pattern, int maxMatchLength, int contextSize, int chunkSize) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (TextScanner scanner = new TextScanner(file, pattern, maxMatchLength, contextSize, chunkSize)) {
+            while (scanner.find()) {
+                result.add("%d-%d %s %s".formatted(scanner.start(), scanner.end(), scanner.location(), scanner.context()));
+            }
+        }
+        return result;
+    }
+
+    private List<String> scanInMemory(String text, Pattern pattern, int contextSize) {
+        List<String> result = new ArrayList<>();
+        TextNavigator navigator = new TextNavigator();
+        navigator.setText(text, false);
+        BaseSearchMatcher extractor = new CodeSearchMatcher(true);
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            int start = matcher.start();
+            int end = matcher.end();
+            result.add("%d-%d %s %s".formatted(start, end, navigator.convert(start, end), extractor.extractInText(text, start, end, contextSize)));
+        }
+        return result;
+    }
+
+    private File write(String text) throws IOException {
+        File file = File.createTempFile("scan", ".txt", dir);
+        FileUtils.writeStringToFile(file, text, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,592 @@
+package com.mindolph.csv;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.*;
+
+/**
+ * Cells of CSV stored by columns, each column is a dictionary of distinct values with the codes of values for rows,
+ * so that a keyword is matched against the distinct values only, and the rows are found from the postings (rows that
+ * have the value) of matched values.
+ * The dictionary of a column with many distinct values is indexed by trigrams lazily (when it's matched for times)
+ * to find the candidate values.
+ * Rows are identified by ids internally which are not changed by inserting, deleting or moving rows, so that the
+ * changes of data can be applied without building it again.
+ * Cells with null value (like the cells of the stub row) never match any keyword.
+ *
+ * @author mindolph.com@gmail.com
+ * @see CsvNavigator
+ * @since 1.11
+ */
+public class CsvColumns {
+
+    // dictionaries smaller than this are scanned directly without trigram index.
+    static final int NGRAM_INDEX_THRESHOLD = 256;
+    // the trigram index is built after the dictionary is scanned for times, since building costs much more than a scan.
+    static final int NGRAM_INDEX_AFTER_SCANS = 4;
+
+    private final List<Column> columns;
+    private int[] rowIds; // row -> id
+    private int[] rowOfIds; // id -> row, -1 for deleted rows.
+    private int rowCount;
+    private int idCount;
+
+    private CsvColumns(List<Column> columns, int rowCount) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.idCount = rowCount;
+        this.rowIds = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            rowIds[i] = i;
+        }
+        this.rowOfIds = rowIds.clone();
+    }
+
+    public static CsvColumns of(List<? extends List<String>> rows, int columnSize) {
+        Builder builder = new Builder(columnSize);
+        for (List<String> row : rows) {
+            builder.addRow(row);
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(int columnSize) {
+        return new Builder(columnSize);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public String get(int row, int col) {
+        Column column = columns.get(col);
+        int code = column.code(rowIds[row]);
+        return code < 0 ? null : column.dict.get(code);
+    }
+
+    /**
+     * Match all cells with keyword.
+     *
+     * @param keyword
+     * @param caseSensitive
+     * @return
+     */
+    public Matches match(String keyword, boolean caseSensitive) {
+        BitSet[] rowsByColumn = new BitSet[columns.size()];
+        BitSet anyRows = new BitSet(rowCount);
+        for (int i = 0; i < rowsByColumn.length; i++) {
+            rowsByColumn[i] = this.matchRows(columns.get(i), keyword, caseSensitive);
+            anyRows.or(rowsByColumn[i]);
+        }
+        return new Matches(rowsByColumn, anyRows);
+    }
+
+    /**
+     * @param col
+     * @param keyword
+     * @param caseSensitive
+     * @return rows whose cell in the column contains the keyword.
+     */
+    public BitSet filter(int col, String keyword, boolean caseSensitive) {
+        return this.matchRows(columns.get(col), keyword, caseSensitive);
+    }
+
+    private BitSet matchRows(Column column, String keyword, boolean caseSensitive) {
+        BitSet rows = new BitSet(rowCount);
+        BitSet matchedCodes = column.matchCodes(keyword, caseSensitive);
+        if (matchedCodes.isEmpty()) {
+            return rows;
+        }
+        int[][] postings = column.postings(idCount);
+        for (int code = matchedCodes.nextSetBit(0); code >= 0; code = matchedCodes.nextSetBit(code + 1)) {
+            int[] posting = postings[code];
+            for (int i = 1; i <= posting[0]; i++) {
+                rows.set(rowOfIds[posting[i]]);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Sort rows in range by values of a column, numbers are ordered by their values and before texts,
+     * texts are ordered case-insensitively, the null values are always the last. The sorting is stable.
+     *
+     * @param col
+     * @param ascending
+     * @param fromRow   inclusive
+     * @param toRow     exclusive
+     * @return indexes of rows in sorted order.
+     */
+    public int[] sort(int col, boolean ascending, int fromRow, int toRow) {
+        Column column = columns.get(col);
+        int[] ranks = column.ranks();
+        int maxRank = column.dict.size();
+        // counting sort by ranks of codes, the null values are ranked as the max.
+        int[] counts = new int[maxRank + 2];
+        for (int r = fromRow; r < toRow; r++) {
+            counts[this.rankOf(ranks, column.code(rowIds[r]), ascending, maxRank) + 1]++;
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        int[] sorted = new int[toRow - fromRow];
+        for (int r = fromRow; r < toRow; r++) {
+            sorted[counts[this.rankOf(ranks, column.code(rowIds[r]), ascending, maxRank)]++] = r;
+        }
+        return sorted;
+    }
+
+    private int rankOf(int[] ranks, int code, boolean ascending, int maxRank) {
+        if (code < 0) {
+            return maxRank;
+        }
+        return ascending ? ranks[code] : maxRank - 1 - ranks[code];
+    }
+
+    /**
+     * Replace values of a row, the cells beyond the data are null.
+     *
+     * @param row
+     * @param data
+     */
+    public void setRow(int row, List<String> data) {
+        this.setValues(rowIds[row], data);
+    }
+
+    /**
+     * Insert a row before the row at the index.
+     *
+     * @param row
+     * @param data null for an empty row.
+     */
+    public void insertRow(int row, List<String> data) {
+        if (idCount == rowOfIds.length) {
+            rowOfIds = Arrays.copyOf(rowOfIds, Math.max(16, idCount * 2));
+        }
+        if (rowCount == rowIds.length) {
+            rowIds = Arrays.copyOf(rowIds, Math.max(16, rowCount * 2));
+        }
+        int id = idCount++;
+        System.arraycopy(rowIds, row, rowIds, row + 1, rowCount - row);
+        rowIds[row] = id;
+        rowCount++;
+        this.updateRowsOfIds(row, rowCount);
+        this.setValues(id, data);
+    }
+
+    public void deleteRow(int row) {
+        int id = rowIds[row];
+        this.setValues(id, null);
+        System.arraycopy(rowIds, row + 1, rowIds, row, rowCount - row - 1);
+        rowCount--;
+        rowOfIds[id] = -1;
+        this.updateRowsOfIds(row, rowCount);
+    }
+
+    /**
+     * Move rows in range to new positions.
+     *
+     * @param from  index of the first row in range.
+     * @param order the old positions (relative to from) of rows at new positions.
+     */
+    public void reorderRows(int from, int[] order) {
+        int[] moved = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            moved[i] = rowIds[from + order[i]];
+        }
+        System.arraycopy(moved, 0, rowIds, from, moved.length);
+        this.updateRowsOfIds(from, from + moved.length);
+    }
+
+    /**
+     * Append a column with null values.
+     */
+    public void appendColumn() {
+        columns.add(new Column(new int[0], new ArrayList<>(), new HashMap<>()));
+    }
+
+    public void removeLastColumn() {
+        columns.removeLast();
+    }
+
+    /**
+     * @return id of the row that is not changed by inserting, deleting or moving rows, -1 if the row doesn't exist.
+     */
+    int rowId(int row) {
+        return row >= 0 && row < rowCount ? rowIds[row] : -1;
+    }
+
+    /**
+     * @return index of the row with the id, -1 if it has been deleted.
+     */
+    int rowOf(int id) {
+        return rowOfIds[id];
+    }
+
+    private void setValues(int id, List<String> data) {
+        int size = data == null ? 0 : data.size();
+        while (columns.size() < size) {
+            this.appendColumn();
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            columns.get(i).set(id, i < size ? data.get(i) : null);
+        }
+    }
+
+    private void updateRowsOfIds(int fromRow, int toRow) {
+        for (int r = fromRow; r < toRow; r++) {
+            rowOfIds[rowIds[r]] = r;
+        }
+    }
+
+    /**
+     * Matched cells of a keyword, positions are found by skipping rows without matching.
+     */
+    public static class Matches {
+        private final BitSet[] rowsByColumn;
+        private final BitSet anyRows;
+
+        private Matches(BitSet[] rowsByColumn, BitSet anyRows) {
+            this.rowsByColumn = rowsByColumn;
+            this.anyRows = anyRows;
+        }
+
+        /**
+         * @return the first matched cell at or after the position in row-major order, null if not found.
+         */
+        public CellPos next(int row, int col) {
+            for (int r = anyRows.nextSetBit(row); r >= 0; r = anyRows.nextSetBit(r + 1)) {
+                for (int c = (r == row ? col : 0); c < rowsByColumn.length; c++) {
+                    if (rowsByColumn[c].get(r)) {
+                        return new CellPos(r, c);
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the last matched cell at or before the position in row-major order, null if not found.
+         */
+        public CellPos prev(int row, int col) {
+            for (int r = anyRows.previousSetBit(row); r >= 0; r = anyRows.previousSetBit(r - 1)) {
+                for (int c = (r == row ? col : rowsByColumn.length - 1); c >= 0; c--) {
+                    if (rowsByColumn[c].get(r)) {
+                        return new CellPos(r, c);
+                    }
+                }
+            }
+            return null;
+        }
+
+        public boolean isEmpty() {
+            return anyRows.isEmpty();
+        }
+    }
+
+    public static class Builder {
+        private final List<ColumnBuilder> columns = new ArrayList<>();
+        private int rowCount;
+
+        private Builder(int columnSize) {
+            for (int i = 0; i < columnSize; i++) {
+                columns.add(new ColumnBuilder());
+            }
+        }
+
+        public Builder addRow(List<String> row) {
+            while (columns.size() < row.size()) {
+                columns.add(new ColumnBuilder());
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                columns.get(i).add(rowCount, i < row.size() ? row.get(i) : null);
+            }
+            rowCount++;
+            return this;
+        }
+
+        public CsvColumns build() {
+            List<Column> built = new ArrayList<>(columns.size());
+            for (ColumnBuilder column : columns) {
+                built.add(column.build(rowCount));
+            }
+            return new CsvColumns(built, rowCount);
+        }
+    }
+
+    private static class ColumnBuilder {
+        private int[] codes = new int[0];
+        private final Map<String, Integer> codeOf = new HashMap<>();
+        private final List<String> dict = new ArrayList<>();
+
+        void add(int row, String value) {
+            if (row >= codes.length) {
+                int length = codes.length;
+                codes = Arrays.copyOf(codes, Math.max(row + 1024, length * 2));
+                Arrays.fill(codes, length, codes.length, -1); // for the rows before the column is added.
+            }
+            if (value == null) {
+                codes[row] = -1;
+                return;
+            }
+            Integer code = codeOf.get(value);
+            if (code == null) {
+                code = dict.size();
+                codeOf.put(value, code);
+                dict.add(value);
+            }
+            codes[row] = code;
+        }
+
+        Column build(int rowCount) {
+            return new Column(Arrays.copyOf(codes, rowCount), dict, codeOf);
+        }
+    }
+
+    private static class Column {
+        private int[] codes; // by row id, -1 for null.
+        // the values are never removed from dictionary, the ones not used any more have empty postings.
+        private final List<String> dict;
+        private final Map<String, Integer> codeOf;
+        private int[][] postings; // code to ascending row ids, the first element is the count, built when matching.
+        private Map<Long, int[]> grams; // trigram to ascending codes, the first element is the count.
+        private int scans; // times of scanning the dictionary directly
+        private int[] ranks;
+
+        Column(int[] codes, List<String> dict, Map<String, Integer> codeOf) {
+            this.codes = codes;
+            this.dict = dict;
+            this.codeOf = codeOf;
+        }
+
+        int code(int id) {
+            return id < codes.length ? codes[id] : -1;
+        }
+
+        void set(int id, String value) {
+            int oldCode = this.code(id);
+            int newCode = value == null ? -1 : this.codeOf(value);
+            if (oldCode == newCode) {
+                return;
+            }
+            if (id >= codes.length) {
+                int length = codes.length;
+                codes = Arrays.copyOf(codes, Math.max(id + 1024, length * 2));
+                Arrays.fill(codes, length, codes.length, -1);
+            }
+            codes[id] = newCode;
+            if (postings != null) {
+                if (oldCode >= 0) {
+                    remove(postings[oldCode], id);
+                }
+                if (newCode >= 0) {
+                    postings[newCode] = insert(postings[newCode], id);
+                }
+            }
+        }
+
+        private int codeOf(String value) {
+            Integer code = codeOf.get(value);
+            if (code == null) {
+                code = dict.size();
+                codeOf.put(value, code);
+                dict.add(value);
+                ranks = null;
+                if (postings != null) {
+                    if (code == postings.length) {
+                        postings = Arrays.copyOf(postings, postings.length * 2 + 1);
+                    }
+                    postings[code] = new int[2];
+                }
+                if (grams != null) {
+                    this.indexGrams(code);
+                }
+            }
+            return code;
+        }
+
+        /**
+         * @param idCount count of row ids.
+         * @return rows ids of each code.
+         */
+        int[][] postings(int idCount) {
+            if (postings == null) {
+                int[] counts = new int[dict.size()];
+                for (int id = 0; id < Math.min(idCount, codes.length); id++) {
+                    if (codes[id] >= 0) {
+                        counts[codes[id]]++;
+                    }
+                }
+                postings = new int[dict.size()][];
+                for (int code = 0; code < postings.length; code++) {
+                    postings[code] = new int[counts[code] + 1];
+                }
+                for (int id = 0; id < Math.min(idCount, codes.length); id++) {
+                    if (codes[id] >= 0) {
+                        int[] posting = postings[codes[id]];
+                        posting[++posting[0]] = id;
+                    }
+                }
+            }
+            return postings;
+        }
+
+        BitSet matchCodes(String keyword, boolean caseSensitive) {
+            BitSet matched = new BitSet(dict.size());
+            if (keyword == null) {
+                return matched;
+            }
+            if (keyword.length() < 3 || dict.size() < NGRAM_INDEX_THRESHOLD || (grams == null && scans++ < NGRAM_INDEX_AFTER_SCANS)) {
+                for (int code = 0; code < dict.size(); code++) {
+                    if (contains(dict.get(code), keyword, caseSensitive)) {
+                        matched.set(code);
+                    }
+                }
+                return matched;
+            }
+            if (grams == null) {
+                grams = new HashMap<>();
+                for (int code = 0; code < dict.size(); code++) {
+                    this.indexGrams(code);
+                }
+            }
+            // candidates from the shortest posting, verified by the others and the text itself.
+            long[] keyGrams = extractTrigrams(keyword);
+            int[][] gramPostings = new int[keyGrams.length][];
+            for (int i = 0; i < keyGrams.length; i++) {
+                gramPostings[i] = grams.get(keyGrams[i]);
+                if (gramPostings[i] == null) {
+                    return matched;
+                }
+            }
+            Arrays.sort(gramPostings, Comparator.comparingInt(p -> p[0]));
+            int[] shortest = gramPostings[0];
+            outer:
+            for (int i = 1; i <= shortest[0]; i++) {
+                int code = shortest[i];
+                for (int j = 1; j < gramPostings.length; j++) {
+                    if (Arrays.binarySearch(gramPostings[j], 1, gramPostings[j][0] + 1, code) < 0) {
+                        continue outer;
+                    }
+                }
+                if (contains(dict.get(code), keyword, caseSensitive)) {
+                    matched.set(code);
+                }
+            }
+            return matched;
+        }
+
+        // codes are indexed in ascending order, so the postings are always sorted.
+        private void indexGrams(int code) {
+            for (long gram : extractTrigrams(dict.get(code))) {
+                grams.put(gram, insert(grams.get(gram), code));
+            }
+        }
+
+        /**
+         * @return rank of each code in the order of values.
+         */
+        private int[] ranks() {
+            if (ranks == null) {
+                Double[] numbers = new Double[dict.size()];
+                for (int i = 0; i < numbers.length; i++) {
+                    String s = StringUtils.trim(dict.get(i));
+                    numbers[i] = NumberUtils.isParsable(s) ? Double.parseDouble(s) : null;
+                }
+                Integer[] sorted = new Integer[numbers.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    sorted[i] = i;
+                }
+                Arrays.sort(sorted, (a, b) -> {
+                    if (numbers[a] != null && numbers[b] != null) {
+                        return Double.compare(numbers[a], numbers[b]);
+                    }
+                    else if (numbers[a] != null || numbers[b] != null) {
+                        return numbers[a] != null ? -1 : 1;
+                    }
+                    int c = String.CASE_INSENSITIVE_ORDER.compare(dict.get(a), dict.get(b));
+                    return c != 0 ? c : dict.get(a).compareTo(dict.get(b));
+                });
+                ranks = new int[sorted.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    ranks[sorted[i]] = i;
+                }
+            }
+            return ranks;
+        }
+    }
+
+    /**
+     * Insert value to the ascending posting whose first element is the count.
+     *
+     * @param posting null to create a new one.
+     * @return the posting, or a larger copy if it's full.
+     */
+    private static int[] insert(int[] posting, int value) {
+        if (posting == null) {
+            posting = new int[4];
+        }
+        int count = posting[0];
+        int pos = Arrays.binarySearch(posting, 1, count + 1, value);
+        if (pos >= 0) {
+            return posting;
+        }
+        pos = -pos - 1;
+        if (count + 1 == posting.length) {
+            posting = Arrays.copyOf(posting, posting.length * 2);
+        }
+        System.arraycopy(posting, pos, posting, pos + 1, count + 1 - pos);
+        posting[pos] = value;
+        posting[0] = count + 1;
+        return posting;
+    }
+
+    private static void remove(int[] posting, int value) {
+        int count = posting[0];
+        int pos = Arrays.binarySearch(posting, 1, count + 1, value);
+        if (pos >= 0) {
+            System.arraycopy(posting, pos + 1, posting, pos, count - pos);
+            posting[0] = count - 1;
+        }
+    }
+
+    private static boolean contains(String text, String keyword, boolean caseSensitive) {
+        return caseSensitive ? StringUtils.contains(text, keyword) : StringUtils.containsIgnoreCase(text, keyword);
+    }
+
+    /**
+     * Distinct trigrams of text packed into longs, the chars are folded as case-insensitive comparing does,
+     * so that the trigrams of keyword are always contained in the trigrams of matched text.
+     */
+    static long[] extractTrigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - 2];
+        long c0 = fold(text.charAt(0));
+        long c1 = fold(text.charAt(1));
+        for (int i = 2; i < text.length(); i++) {
+            long c2 = fold(text.charAt(i));
+            grams[i - 2] = c0 << 32 | c1 << 16 | c2;
+            c0 = c1;
+            c1 = c2;
+        }
+        Arrays.sort(grams);
+        int n = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[n - 1]) {
+                grams[n++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, n);
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
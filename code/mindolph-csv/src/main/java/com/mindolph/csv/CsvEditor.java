@@ -5,6 +5,7 @@ import com.mindolph.base.FontIconManager;
 import com.mindolph.base.constant.FontConstants;
 import com.mindolph.base.constant.IconKey;
 import com.mindolph.base.control.ExtTableView;
+import com.mindolph.base.control.LazyRowList;
 import com.mindolph.base.control.Row;
 import com.mindolph.base.control.SimpleTextCell;
 import com.mindolph.base.editor.BaseEditor;
@@ -15,8 +16,16 @@ import com.mindolph.base.util.RegionUtils;
 import com.mindolph.core.constant.SupportFileTypes;
 import com.mindolph.core.search.Anchor;
 import com.mindolph.core.search.TextSearchOptions;
+import com.mindolph.csv.undo.CsvChange;
+import com.mindolph.csv.undo.CsvChange.CellChange;
+import com.mindolph.csv.undo.CsvChange.ColumnAppend;
+import com.mindolph.csv.undo.CsvChange.RowDelete;
+import com.mindolph.csv.undo.CsvChange.RowInsert;
+import com.mindolph.csv.undo.CsvChange.RowsReorder;
+import com.mindolph.csv.undo.DeltaUndoServiceImpl;
 import com.mindolph.csv.undo.UndoService;
-import com.mindolph.csv.undo.UndoServiceImpl;
+import com.mindolph.mfx.dialog.DialogFactory;
+import com.mindolph.mfx.dialog.impl.TextDialogBuilder;
 import com.mindolph.mfx.util.ClipBoardUtils;
 import com.mindolph.mfx.util.FontUtils;
 import de.jensd.fx.glyphs.materialdesignicons.MaterialDesignIcon;
@@ -40,20 +49,18 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.function.TriFunction;
 import org.apache.commons.text.StringEscapeUtils;
-import org.reactfx.EventSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.swiftboot.util.IoUtils;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.StringReader;
+import java.io.*;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
@@ -81,23 +88,28 @@ public class CsvEditor extends BaseEditor implements Initializable {
 
     private EditTableCell<Row, String> focusedCell;
 
-    private final UndoService<String> undoService;
-    private final EventSource<Void> prepareSearchingEvent = new EventSource<>();
+    private final UndoService<List<CsvChange>> undoService;
+    private List<CsvChange> pendingChanges = new ArrayList<>(); // changes of current operation
     private CellPos selectedCellPos;
     private CsvNavigator csvNavigator;
+    private CsvColumns csvColumns; // for searching, filtering and sorting
+    private boolean searchDataOutdated = true;
 
-    private String text; // cache
+    private CsvRowIndex rowIndex; // rows are loaded lazily from the indexed file.
     private int clickedRowIdx = -1;
 
     public CsvEditor(EditorContext editorContext) {
         super("/editor/csv_editor.fxml", editorContext);
         super.fileType = SupportFileTypes.TYPE_CSV;
-        this.undoService = new UndoServiceImpl<>(o -> {
-            this.text = o;
-            this.doReload();
-            this.prepareSearchingEvent.push(null);
-            fileChangedEventHandler.onFileChanged(editorContext.getFileData());
-        }, s -> "%s[%d]".formatted(StringUtils.abbreviateMiddle(s, ".", 5), s.length()));
+        this.undoService = new DeltaUndoServiceImpl<>(changes -> {
+            this.revertChanges(changes);
+            this.updateSearchData(changes, true);
+            this.afterUndoOrRedo();
+        }, changes -> {
+            this.applyChanges(changes);
+            this.updateSearchData(changes, false);
+            this.afterUndoOrRedo();
+        });
         csvFormat = CSVFormat.DEFAULT.builder().build();
 
         this.refresh();
@@ -148,9 +160,9 @@ public class CsvEditor extends BaseEditor implements Initializable {
         tableView.setPlaceholder(new Label("No content of this CSV file"));
         tableView.setOnKeyReleased(keyEvent -> {
             log.debug("Key pressed: " + keyEvent.getCode());
-            if (keyEvent.getCode() == KeyCode.DELETE) {
-                tableView.setAllSelectedCells(EMPTY);
-                this.saveToCache();
+            if (keyEvent.getCode() == KeyCode.DELETE && !tableView.isFiltered()) {
+                this.clearSelectedCells();
+                this.commitChanges();
                 keyEvent.consume();
             }
         });
@@ -160,51 +172,96 @@ public class CsvEditor extends BaseEditor implements Initializable {
 
     @Override
     public void loadFile() throws IOException {
-        FileReader fileReader = new FileReader(editorContext.getFileData().getFile(), StandardCharsets.UTF_8);
-        this.text = IoUtils.readAllToString(fileReader);
-        this.undoService.push(this.text);
+        this.searchDataOutdated = true; // the data for searching is prepared again with the loaded rows.
+        this.rowIndex = new CsvRowIndex(editorContext.getFileData().getFile(), csvFormat);
         this.applyStyles();
         this.initTableView();
-        prepareSearchingEvent.subscribe(unused -> {
-            // todo only available for searching
-            int rowSize = tableView.getColumnSize(); // excludes index column.
-            if (csvNavigator == null) {
-                csvNavigator = new CsvNavigator(tableView.stream().toList(), rowSize);
+        this.outline();
+    }
+
+    // the data for searching is prepared only when searching at the first time, and then updated with changes.
+    private void prepareSearching() {
+        if (csvNavigator != null && !searchDataOutdated) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        CsvColumns.Builder builder = CsvColumns.builder(tableView.getColumnSize()); // excludes index column.
+        for (Row row : tableView.getAllRows()) {
+            builder.addRow(row.getData());
+        }
+        csvColumns = builder.build();
+        if (csvNavigator == null) {
+            csvNavigator = new CsvNavigator(csvColumns);
+        }
+        else {
+            csvNavigator.setData(csvColumns);
+        }
+        searchDataOutdated = false;
+        log.debug("Prepared %d rows for searching in %d ms".formatted(csvColumns.getRowCount(), System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Apply the changes (which have been applied to the table) to the data for searching, the changed rows are read
+     * from the table again.
+     *
+     * @param changes
+     * @param revert  whether the changes are reverted.
+     */
+    private void updateSearchData(List<CsvChange> changes, boolean revert) {
+        if (csvColumns == null || searchDataOutdated) {
+            return;
+        }
+        List<Integer> changedRowIds = new ArrayList<>();
+        for (CsvChange change : revert ? changes.reversed() : changes) {
+            if (change instanceof CellChange cc) {
+                changedRowIds.add(csvColumns.rowId(cc.row()));
             }
-            else {
-                csvNavigator.setData(tableView.stream().toList(), rowSize);
+            else if (change instanceof RowInsert ri) {
+                if (revert) csvColumns.deleteRow(ri.row());
+                else csvColumns.insertRow(ri.row(), null);
             }
-        });
-        this.outline();
+            else if (change instanceof RowDelete rd) {
+                if (revert) csvColumns.insertRow(rd.row(), rd.data());
+                else csvColumns.deleteRow(rd.row());
+            }
+            else if (change instanceof ColumnAppend) {
+                if (revert) csvColumns.removeLastColumn();
+                else csvColumns.appendColumn();
+            }
+            else if (change instanceof RowsReorder rr) {
+                csvColumns.reorderRows(rr.from(), revert ? rr.inverse() : rr.order());
+            }
+        }
+        ObservableList<Row> rows = tableView.getAllRows();
+        for (int id : changedRowIds) {
+            int row = id < 0 ? -1 : csvColumns.rowOf(id);
+            if (row >= 0) {
+                csvColumns.setRow(row, rows.get(row).getData());
+            }
+        }
+        if (changedRowIds.contains(-1) || csvColumns.getRowCount() != rows.size() || csvColumns.getColumnCount() != tableView.getColumnSize()) {
+            log.warn("Data for searching doesn't match the table, prepare it again");
+            searchDataOutdated = true;
+        }
+        else {
+            csvNavigator.setData(csvColumns); // the matches are dropped.
+        }
     }
 
     private void initTableView() throws IOException {
         commitEditCallback = event -> {
             if (event.getTablePosition() != null) {
                 this.onCellDataChanged(event.getTablePosition(), event.getNewValue());
-                Platform.runLater(this::saveToCache);
+                Platform.runLater(this::commitChanges);
             }
         };
-        StringReader stringReader = new StringReader(this.text);
-        CSVParser parsed = csvFormat.parse(stringReader);
-        List<CSVRecord> records = parsed.getRecords();
+        List<String> headers = rowIndex.getRowCount() > 0 ? rowIndex.readRows(0, 1).getFirst() : Collections.emptyList();
         Platform.runLater(() -> {
             // == init headers ==
-            // init data columns
-            boolean isNeedStubCol = CollectionUtils.isEmpty(records)
-                    || records.stream().anyMatch(r -> StringUtils.isNotBlank(r.get(r.size() - 1)));
-            if (!records.isEmpty()) {
-                // how many columns depends on the max size row.
-                Optional<CSVRecord> opt = records.stream().reduce((r1, r2) -> r1.size() > r2.size() ? r1 : r2);
-                int columns = opt.get().size();
-                CSVRecord headers = records.get(0);
-                for (int i = 0; i < columns; i++) {
-                    String header = EMPTY;
-                    if (i < headers.size()) {
-                        header = headers.get(i);
-                    }
-                    tableView.appendColumn(header);
-                }
+            // init data columns, how many columns depends on the max size row.
+            boolean isNeedStubCol = rowIndex.getRowCount() == 0 || rowIndex.isLastColumnNotBlank();
+            for (int i = 0; i < rowIndex.getMaxColumns(); i++) {
+                tableView.appendColumn(i < headers.size() ? headers.get(i) : EMPTY);
             }
             // init stub column if cells of last column contains non-blank content.
             if (isNeedStubCol) {
@@ -212,12 +269,9 @@ public class CsvEditor extends BaseEditor implements Initializable {
                 tableView.appendColumn(EMPTY);
             }
 
-            this.loadData(records);
-
-            // text content loaded from file might be not the same with generated,
-            // so it's necessary to reset the cached text to avoid redundant undo history.
-            this.text = rowsToCsv(tableView.getItems());
-            log.trace("cache: \n%s".formatted(this.text));
+            // rows are loaded only when they are displayed.
+            tableView.resetRows(new LazyRowList(rowIndex, tableView.getColumnSize()));
+            tableView.appendStubRow();
 
             // the cell factory will be used later.
             cellFactory = param -> {
@@ -255,7 +309,7 @@ public class CsvEditor extends BaseEditor implements Initializable {
                 });
                 // handler drag&drop files
                 textCell.setOnDragOver(dragEvent -> {
-                    if (CollectionUtils.isEmpty(dragEvent.getDragboard().getFiles())) {
+                    if (CollectionUtils.isEmpty(dragEvent.getDragboard().getFiles()) || tableView.isFiltered()) {
                         return;
                     }
                     Optional<String> optPath = super.getRelatedPathInCurrentWorkspace(dragEvent.getDragboard().getFiles().get(0));
@@ -275,7 +329,7 @@ public class CsvEditor extends BaseEditor implements Initializable {
                         Optional<String> optPath = super.getRelatedPathInCurrentWorkspace(file);
                         if (optPath.isPresent()) {
                             onCellDataChanged(textCell.getTableRow().getIndex(), textCell.getTableColumn(), optPath.get());
-                            saveToCache();
+                            commitChanges();
                         }
                         else {
                             log.warn("Link files not in same workspace are not supported yet");
@@ -291,6 +345,7 @@ public class CsvEditor extends BaseEditor implements Initializable {
                             TableColumn<Row, String> column = (TableColumn<Row, String>) columns.get(i);
                             column.setCellFactory(cellFactory);
                             column.setOnEditCommit(commitEditCallback);
+                            column.setContextMenu(this.createColumnContextMenu(column));
                         }
                     }
             );
@@ -317,7 +372,11 @@ public class CsvEditor extends BaseEditor implements Initializable {
             return; // avoid exception when undo editing from an empty row.
         }
         Row row = tableView.getItems().get(rowIdx);
+        String oldText = dataIdx < row.size() ? row.getData().get(dataIdx) : null;
         row.updateValue(dataIdx, newText);
+        if (!StringUtils.equals(oldText, newText)) {
+            pendingChanges.add(new CellChange(rowIdx, dataIdx, oldText, newText));
+        }
         if (rowIdx == 0) {
             column.setText(newText); // update text for any columns
         }
@@ -325,17 +384,51 @@ public class CsvEditor extends BaseEditor implements Initializable {
             if (rowIdx == tableView.getStubRowIdx()) {
                 log.debug("Add new stub row since the stub row is changed");
                 tableView.appendStubRowAndScrollToBottom();
+                pendingChanges.add(new RowInsert(tableView.getStubRowIdx()));
             }
             if (tableView.isStubColumn(column)) {
                 log.debug("Add new stub column since the stub column is changed");
-                TableColumn<Row, String> stubCol = tableView.appendColumn(EMPTY);
-                stubCol.setCellFactory(cellFactory);
-                stubCol.setOnEditCommit(commitEditCallback);
+                this.appendStubColumn();
+                pendingChanges.add(new ColumnAppend());
             }
         }
         tableView.refresh();
     }
 
+    private void appendStubColumn() {
+        TableColumn<Row, String> stubCol = tableView.appendColumn(EMPTY);
+        stubCol.setCellFactory(cellFactory);
+        stubCol.setOnEditCommit(commitEditCallback);
+        stubCol.setContextMenu(this.createColumnContextMenu(stubCol));
+    }
+
+    private void setCellValue(int rowIdx, int dataIdx, String value) {
+        tableView.getItems().get(rowIdx).updateValue(dataIdx, value);
+        if (rowIdx == 0 && dataIdx + 1 < tableView.getColumns().size()) {
+            tableView.getColumns().get(dataIdx + 1).setText(value);
+        }
+    }
+
+    private void clearSelectedCells() {
+        for (TablePosition pos : tableView.getSelectedCells()) {
+            List<String> data = tableView.getItems().get(pos.getRow()).getData();
+            int dataIdx = Math.max(0, pos.getColumn() - 1);
+            if (dataIdx < data.size() && !StringUtils.equals(data.get(dataIdx), EMPTY)) {
+                pendingChanges.add(new CellChange(pos.getRow(), dataIdx, data.get(dataIdx), EMPTY));
+            }
+        }
+        tableView.setAllSelectedCells(EMPTY);
+    }
+
+    private void deleteSelectedRows() {
+        // recorded from the last row, so that rows can be deleted again in order and inserted back in reversed order.
+        tableView.getSelectedRows().stream()
+                .filter(row -> row.getIndex() != tableView.getStubRowIdx())
+                .sorted(Comparator.comparingInt(Row::getIndex).reversed())
+                .forEach(row -> pendingChanges.add(new RowDelete(row.getIndex(), new ArrayList<>(row.getData()))));
+        tableView.deleteSelectedRows();
+    }
+
     @Override
     public void applyStyles() {
         Font defFont = FontConstants.DEFAULT_FONTS.get(FontConstants.KEY_CSV_EDITOR);
@@ -346,6 +439,7 @@ public class CsvEditor extends BaseEditor implements Initializable {
     @Override
     public void locate(Anchor anchor) {
         if (anchor instanceof CsvAnchor ca) {
+            this.clearFilter();
             log.debug("Select %d - %d".formatted(ca.getRow(), ca.getCol()));
             tableView.getSelectionModel().clearSelection();
             tableView.getSelectionModel().select(ca.getRow(), tableView.getColumns().get(ca.getCol()));
@@ -355,55 +449,6 @@ public class CsvEditor extends BaseEditor implements Initializable {
         }
     }
 
-    private void doReload() {
-        log.debug("Reload data");
-        tableView.getItems().clear();
-        // reload all data from cached text;
-        StringReader stringReader = new StringReader(this.text);
-        try {
-            CSVParser parsed = csvFormat.parse(stringReader);
-            List<CSVRecord> records = parsed.getRecords();
-            loadData(records);
-            tableView.refresh();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        log.debug("done");
-    }
-
-    // update data with updating table columns.
-    private void loadData(List<CSVRecord> records) {
-        // update column title with records.
-        ObservableList<TableColumn<Row, ?>> columns = tableView.getColumns();
-        if (!records.isEmpty()) {
-            CSVRecord headers = records.get(0);
-            List<String> headerList = headers.stream().toList();
-            for (int i = 0; i < headerList.size(); i++) {
-                String header = headerList.get(i);
-                if (i < columns.size() - 1) {
-                    columns.get(i + 1).setText(header);
-                }
-            }
-        }
-        else {
-            columns.forEach(col -> col.setText(EMPTY));
-        }
-        // init data content
-        List<Row> rows = new LinkedList<>();
-        for (CSVRecord record : records) {
-            log.trace("* " + record.stream().map("'%s'"::formatted).collect(Collectors.joining(",")));
-            Row newRow = ExtTableView.createRow(tableView.getColumnSize());
-            newRow.setIndex(records.indexOf(record));
-            for (int i = 0; i < record.size(); i++) {
-                newRow.getData().set(i, record.get(i));
-            }
-            rows.add(newRow);
-        }
-        tableView.appendRows(rows);
-        // stub row
-        tableView.appendStubRow();
-    }
-
     private ContextMenu createRowContextMenu() {
         rowContextMenu = new ContextMenu();
         MenuItem miInsertBefore = new MenuItem("Insert New Line Before");
@@ -422,8 +467,8 @@ public class CsvEditor extends BaseEditor implements Initializable {
         });
         miCut.setOnAction(event -> {
             this.copy();
-            tableView.setAllSelectedCells(EMPTY);
-            saveToCache();
+            this.clearSelectedCells();
+            commitChanges();
         });
         miCopy.setOnAction(event -> {
             this.copy();
@@ -432,11 +477,17 @@ public class CsvEditor extends BaseEditor implements Initializable {
             this.paste();
         });
         miDelete.setOnAction(event -> {
-            tableView.deleteSelectedRows();
-            saveToCache();
+            this.deleteSelectedRows();
+            commitChanges();
         });
         Clipboard clipboard = Clipboard.getSystemClipboard();
         miPaste.setDisable(!clipboard.hasContent(DataFormat.PLAIN_TEXT));
+        rowContextMenu.setOnShowing(event -> {
+            // filtered rows are read-only
+            for (MenuItem mi : List.of(miCut, miPaste, miInsertBefore, miInsertAfter, miDelete)) {
+                mi.setDisable(tableView.isFiltered() || (mi == miPaste && !clipboard.hasContent(DataFormat.PLAIN_TEXT)));
+            }
+        });
         rowContextMenu.getItems().addAll(miCut, miCopy, miPaste, miInsertBefore, miInsertAfter, miDelete);
         return rowContextMenu;
     }
@@ -464,14 +515,108 @@ public class CsvEditor extends BaseEditor implements Initializable {
             this.paste();
         });
         miDelete.setOnAction(event -> {
-            tableView.setAllSelectedCells(EMPTY);
+            this.clearSelectedCells();
+            commitChanges();
         });
         Clipboard clipboard = Clipboard.getSystemClipboard();
         miPaste.setDisable(!clipboard.hasContent(DataFormat.PLAIN_TEXT));
+        cellContextMenu.setOnShowing(event -> {
+            // filtered rows are read-only
+            for (MenuItem mi : List.of(miEdit, miCut, miPaste, miDelete)) {
+                mi.setDisable(tableView.isFiltered() || (mi == miPaste && !clipboard.hasContent(DataFormat.PLAIN_TEXT)));
+            }
+        });
         cellContextMenu.getItems().addAll(miEdit, miCut, miCopy, miPaste, new SeparatorMenuItem(), miDelete);
         return cellContextMenu;
     }
 
+    private ContextMenu createColumnContextMenu(TableColumn<Row, String> column) {
+        ContextMenu columnContextMenu = new ContextMenu();
+        MenuItem miSortAsc = new MenuItem("Sort Ascending", FontIconManager.getIns().getIcon(IconKey.SORT));
+        MenuItem miSortDesc = new MenuItem("Sort Descending");
+        MenuItem miFilter = new MenuItem("Filter Rows...", FontIconManager.getIns().getIcon(IconKey.SEARCH));
+        MenuItem miClearFilter = new MenuItem("Clear Filter");
+        miSortAsc.setOnAction(event -> {
+            this.sortRows(column, true);
+        });
+        miSortDesc.setOnAction(event -> {
+            this.sortRows(column, false);
+        });
+        miFilter.setOnAction(event -> {
+            this.filterRows(column);
+        });
+        miClearFilter.setOnAction(event -> {
+            this.clearFilter();
+        });
+        columnContextMenu.setOnShowing(event -> {
+            miClearFilter.setDisable(!tableView.isFiltered());
+        });
+        columnContextMenu.getItems().addAll(miSortAsc, miSortDesc, new SeparatorMenuItem(), miFilter, miClearFilter);
+        return columnContextMenu;
+    }
+
+    /**
+     * Sort the rows between the first row (as header) and the stub row by values of the column.
+     */
+    private void sortRows(TableColumn<Row, String> column, boolean ascending) {
+        this.clearFilter();
+        int dataIdx = tableView.getColumns().indexOf(column) - 1;
+        int from = 1;
+        int to = tableView.getStubRowIdx();
+        if (dataIdx < 0 || to - from < 2) {
+            return;
+        }
+        this.prepareSearching();
+        int[] sorted = csvColumns.sort(dataIdx, ascending, from, to);
+        int[] order = new int[sorted.length];
+        boolean moved = false;
+        for (int i = 0; i < sorted.length; i++) {
+            order[i] = sorted[i] - from;
+            moved |= order[i] != i;
+        }
+        if (moved) {
+            tableView.reorderRows(from, order);
+            pendingChanges.add(new RowsReorder(from, order));
+            this.commitChanges();
+        }
+    }
+
+    /**
+     * Show only the rows whose cell in the column contains the keyword, the first row (as header) is always shown.
+     */
+    private void filterRows(TableColumn<Row, String> column) {
+        int dataIdx = tableView.getColumns().indexOf(column) - 1;
+        if (dataIdx < 0) {
+            return;
+        }
+        Dialog<String> dialog = new TextDialogBuilder()
+                .owner(DialogFactory.DEFAULT_WINDOW)
+                .title("Filter Rows")
+                .content("Show rows whose column '%s' contains".formatted(StringUtils.defaultIfBlank(column.getText(), String.valueOf(dataIdx + 1))))
+                .text(StringUtils.defaultString(tableView.getFirstSelectedText()))
+                .width(400)
+                .build();
+        Optional<String> optKeyword = dialog.showAndWait();
+        if (optKeyword.isPresent() && StringUtils.isNotEmpty(optKeyword.get())) {
+            this.clearFilter();
+            this.prepareSearching();
+            BitSet matched = csvColumns.filter(dataIdx, optKeyword.get(), false);
+            matched.clear(tableView.getStubRowIdx());
+            int count = matched.get(0) ? matched.cardinality() - 1 : matched.cardinality();
+            if (tableView.getStubRowIdx() > 0) {
+                matched.set(0);
+            }
+            tableView.filterRows(matched.stream().toArray());
+            EventBus.getIns().notifyStatusMsg(editorContext.getFileData().getFile(), new StatusMsg("Filtered %d rows".formatted(count)));
+        }
+    }
+
+    private void clearFilter() {
+        if (tableView.clearFilter()) {
+            selectedCellPos = null; // the positions of selected cells were in filtered rows.
+        }
+    }
+
     @Override
     public boolean copy() {
         log.debug("Copy selected cells");
@@ -484,7 +629,7 @@ public class CsvEditor extends BaseEditor implements Initializable {
 
     @Override
     public boolean paste() {
-        if (tableView.isFocused()) {
+        if (tableView.isFocused() && !tableView.isFiltered()) {
             String text = ClipBoardUtils.textFromClipboard();
             if (StringUtils.isNotBlank(text) && !StringUtils.containsOnly(text, ", ")) {
                 try {
@@ -502,7 +647,7 @@ public class CsvEditor extends BaseEditor implements Initializable {
                             this.onCellDataChanged(startCell.getRow() + i, column, newValue);
                         }
                     }
-                    this.saveToCache();
+                    this.commitChanges();
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
@@ -514,11 +659,11 @@ public class CsvEditor extends BaseEditor implements Initializable {
     @Override
     public boolean cut() {
         log.debug("Cut first selected cell");
-        if (tableView.isFocused()) {
+        if (tableView.isFocused() && !tableView.isFiltered()) {
             String selectionText = getSelectionText();
             ClipBoardUtils.textToClipboard(selectionText);
-            tableView.setAllSelectedCells(EMPTY);
-            this.saveToCache();
+            this.clearSelectedCells();
+            this.commitChanges();
         }
         return false;
     }
@@ -529,7 +674,8 @@ public class CsvEditor extends BaseEditor implements Initializable {
             int newIdx = selectedRow.getIndex() + offset;
             if (newIdx >= 0 && newIdx < tableView.getItems().size()) {
                 tableView.insertNewRow(newIdx);
-                this.saveToCache();
+                pendingChanges.add(new RowInsert(newIdx));
+                this.commitChanges();
             }
         }
     }
@@ -546,9 +692,8 @@ public class CsvEditor extends BaseEditor implements Initializable {
     }
 
     private void search(String keyword, TextSearchOptions options, boolean reverse) {
-        if (csvNavigator == null) {
-            prepareSearchingEvent.push(null);
-        }
+        this.clearFilter();
+        this.prepareSearching();
         CellPos foundCellPos;
         if (selectedCellPos == null) {
             csvNavigator.moveCursor(reverse ? csvNavigator.getTotal() - 1 : 0); // reset the cursor
@@ -571,33 +716,53 @@ public class CsvEditor extends BaseEditor implements Initializable {
 
     @Override
     public void replaceSelection(String keywords, TextSearchOptions searchOptions, String replacement) {
+        if (tableView.isFiltered()) {
+            this.searchNext(keywords, searchOptions); // clear the filter before replacing.
+            return;
+        }
         BiFunction<String, String, Boolean> contains = searchOptions.isCaseSensitive() ? StringUtils::contains : StringUtils::containsIgnoreCase;
         String firstSelectedText = tableView.getFirstSelectedText();
         if (contains.apply(firstSelectedText, keywords)) {
             replacement = replacement == null ? EMPTY : replacement;
             TriFunction<String, String, String, String> replace = searchOptions.isCaseSensitive() ? StringUtils::replace : StringUtils::replaceIgnoreCase;
             String applied = replace.apply(firstSelectedText, keywords, replacement);
-            TablePosition<Row, String> pos = tableView.setFirstSelectedCell(applied);
+            TablePosition<Row, String> pos = tableView.getSelectedCells().getFirst();
             this.onCellDataChanged(pos.getRow(), pos.getTableColumn(), applied);
-            this.saveToCache();
+            this.commitChanges();
         }
         this.searchNext(keywords, searchOptions);
     }
 
     @Override
     public void replaceAll(String keywords, TextSearchOptions searchOptions, String replacement) {
-        // replace in cache
+        // replace in cells, the rows are loaded by windows.
+        this.clearFilter();
         BiFunction<String, String, Boolean> contains = searchOptions.isCaseSensitive() ? StringUtils::contains : StringUtils::containsIgnoreCase;
-        if (contains.apply(this.text, keywords)) {
-            TriFunction<String, String, String, String> replace = searchOptions.isCaseSensitive() ? StringUtils::replace : StringUtils::replaceIgnoreCase;
-            this.text = replace.apply(this.text, keywords, replacement);
-            this.emmitEventsSinceCacheChanged();
-            this.doReload();
+        TriFunction<String, String, String, String> replace = searchOptions.isCaseSensitive() ? StringUtils::replace : StringUtils::replaceIgnoreCase;
+        String rep = replacement == null ? EMPTY : replacement;
+        ObservableList<Row> rows = tableView.getItems();
+        for (int i = 0; i < rows.size(); i++) {
+            if (i == tableView.getStubRowIdx()) {
+                continue;
+            }
+            List<String> data = rows.get(i).getData();
+            for (int j = 0; j < data.size(); j++) {
+                String value = data.get(j);
+                if (value != null && contains.apply(value, keywords)) {
+                    String applied = replace.apply(value, keywords, rep);
+                    pendingChanges.add(new CellChange(i, j, value, applied));
+                    this.setCellValue(i, j, applied);
+                }
+            }
+        }
+        if (this.commitChanges()) {
+            tableView.refresh();
         }
     }
 
     @Override
     public void undo() {
+        this.clearFilter();
         this.undoService.undo();
         EventBus.getIns().notifyMenuStateChange(MenuTag.UNDO, this.undoService.isUndoAvailable())
                 .notifyMenuStateChange(MenuTag.REDO, this.undoService.isRedoAvailable());
@@ -605,6 +770,7 @@ public class CsvEditor extends BaseEditor implements Initializable {
 
     @Override
     public void redo() {
+        this.clearFilter();
         this.undoService.redo();
         EventBus.getIns().notifyMenuStateChange(MenuTag.UNDO, this.undoService.isUndoAvailable())
                 .notifyMenuStateChange(MenuTag.REDO, this.undoService.isRedoAvailable());
@@ -625,52 +791,150 @@ public class CsvEditor extends BaseEditor implements Initializable {
         return this.undoService.isRedoAvailable();
     }
 
-    private String rowsToCsv(ObservableList<Row> rows) {
-        log.debug("convert rows to csv without stub row %d and col %d".formatted(tableView.getStubRowIdx(), tableView.getStubColIdx()));
-        Optional<String> reduced = rows.stream()
-                .filter(row -> row.getIndex() != tableView.getStubRowIdx()) // exclude stub row
-                .map(row -> {
-                    return row.getData().stream().filter(e -> row.getData().indexOf(e) < tableView.getStubColIdx()) // exclude stub column
-                            .map(s -> s == null ? EMPTY : s).map(StringEscapeUtils::escapeCsv)
-                            .collect(Collectors.joining(","));
-                })
-                .reduce((s, s2) -> "%s\n%s".formatted(s, s2));
-        return reduced.orElse(EMPTY);
-    }
-
-    private boolean saveToCache() {
-        String csv = rowsToCsv(tableView.getItems());
-        if (!StringUtils.equals(csv, this.text)) {
-            log.debug("Save to cache:");
-            log.trace(csv);
-            this.text = csv;
-            this.emmitEventsSinceCacheChanged();
-            return true;
-        }
-        else {
-            log.debug("Nothing new to save to cache");
+    private String rowToCsv(Row row, int stubColIdx) {
+        List<String> data = row.getData();
+        return data.subList(0, Math.max(0, Math.min(data.size(), stubColIdx))).stream() // exclude stub column
+                .map(s -> s == null ? EMPTY : s).map(StringEscapeUtils::escapeCsv)
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Push the changes of current operation to undo history as one entry.
+     *
+     * @return true if anything is changed.
+     */
+    private boolean commitChanges() {
+        if (pendingChanges.isEmpty()) {
+            log.debug("Nothing changed");
+            return false;
         }
-        return false;
+        log.debug("Commit %d changes".formatted(pendingChanges.size()));
+        undoService.push(pendingChanges);
+        this.updateSearchData(pendingChanges, false);
+        pendingChanges = new ArrayList<>();
+        this.emmitEventsSinceChanged();
+        EventBus.getIns().notifyMenuStateChange(MenuTag.UNDO, this.undoService.isUndoAvailable());
+        return true;
     }
 
-    private void emmitEventsSinceCacheChanged() {
+    private void emmitEventsSinceChanged() {
         super.isChanged = true;
-        undoService.push(text);
-        prepareSearchingEvent.push(null);
-        EventBus.getIns().notifyMenuStateChange(MenuTag.UNDO, this.undoService.isUndoAvailable());
         fileChangedEventHandler.onFileChanged(editorContext.getFileData());
     }
 
+    private void applyChanges(List<CsvChange> changes) {
+        for (CsvChange change : changes) {
+            if (change instanceof CellChange cc) {
+                this.setCellValue(cc.row(), cc.col(), cc.newValue());
+            }
+            else if (change instanceof RowInsert ri) {
+                tableView.insertNewRow(ri.row());
+            }
+            else if (change instanceof RowDelete rd) {
+                tableView.removeRow(rd.row());
+            }
+            else if (change instanceof ColumnAppend) {
+                this.appendStubColumn();
+            }
+            else if (change instanceof RowsReorder rr) {
+                tableView.reorderRows(rr.from(), rr.order());
+            }
+        }
+    }
+
+    private void revertChanges(List<CsvChange> changes) {
+        for (CsvChange change : changes.reversed()) {
+            if (change instanceof CellChange cc) {
+                this.setCellValue(cc.row(), cc.col(), cc.oldValue());
+            }
+            else if (change instanceof RowInsert ri) {
+                tableView.removeRow(ri.row());
+            }
+            else if (change instanceof RowDelete rd) {
+                tableView.insertNewRow(rd.row()).setData(new ArrayList<>(rd.data()));
+            }
+            else if (change instanceof ColumnAppend) {
+                tableView.removeLastColumn();
+            }
+            else if (change instanceof RowsReorder rr) {
+                tableView.reorderRows(rr.from(), rr.inverse());
+            }
+        }
+    }
+
+    private void afterUndoOrRedo() {
+        tableView.refresh();
+        this.emmitEventsSinceChanged();
+    }
 
     @Override
     public void save() throws IOException {
-        log.info("Save cache to file: %s".formatted(editorContext.getFileData().getFile()));
-        FileUtils.write(editorContext.getFileData().getFile(),
-                super.convertByOs(this.text), StandardCharsets.UTF_8);
+        File file = editorContext.getFileData().getFile();
+        log.info("Save rows to file: %s".formatted(file));
+        // rows are written to a temp file first since they might be loaded from the file being saved,
+        // and then the temp file replaces the file, so that the file is never left half written.
+        File tempFile = File.createTempFile("." + file.getName() + "-", ".saving", file.getAbsoluteFile().getParentFile());
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+                this.writeRows(writer);
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // the file opened by the index might not be replaced on some systems (like Windows).
+                log.debug("Failed to replace file, retry after closing the index", e);
+                IOUtils.closeQuietly(rowIndex);
+                try {
+                    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException ex) {
+                    // the file is not changed, the rows are read from it as before.
+                    rowIndex = new CsvRowIndex(file, csvFormat);
+                    if (tableView.getAllRows() instanceof LazyRowList lazyRows) {
+                        lazyRows.reopen(rowIndex);
+                    }
+                    throw ex;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+        // the offsets of rows in file are changed.
+        IOUtils.closeQuietly(rowIndex);
+        rowIndex = new CsvRowIndex(file, csvFormat);
+        if (tableView.getAllRows() instanceof LazyRowList lazyRows && rowIndex.getRowCount() == lazyRows.size() - 1) {
+            lazyRows.rebase(rowIndex);
+        }
+        else {
+            log.warn("Reload rows since the rows in file don't match the rows in editor");
+            tableView.resetRows(new LazyRowList(rowIndex, tableView.getColumnSize()));
+            tableView.appendStubRow();
+            searchDataOutdated = true;
+        }
+        tableView.refresh();
         super.isChanged = false;
         fileSavedEventHandler.onFileSaved(this.editorContext.getFileData());
     }
 
+    private void writeRows(Writer writer) throws IOException {
+        ObservableList<Row> rows = tableView.getAllRows();
+        int stubRowIdx = tableView.getStubRowIdx();
+        int stubColIdx = tableView.getStubColIdx();
+        String lineSeparator = super.convertByOs(LINE_SEPARATOR);
+        boolean first = true;
+        for (int i = 0; i < rows.size(); i++) {
+            if (i == stubRowIdx) {
+                continue; // exclude stub row
+            }
+            if (!first) {
+                writer.write(lineSeparator);
+            }
+            String line = this.rowToCsv(rows.get(i), stubColIdx);
+            // empty line is skipped by parsing, quote the empty value to keep the row.
+            writer.write(line.isEmpty() ? "\"\"" : super.convertByOs(line));
+            first = false;
+        }
+    }
+
     @Override
     public void export() {
 
@@ -678,7 +942,7 @@ public class CsvEditor extends BaseEditor implements Initializable {
 
     @Override
     public void dispose() {
-
+        IOUtils.closeQuietly(rowIndex);
     }
 
     @Override
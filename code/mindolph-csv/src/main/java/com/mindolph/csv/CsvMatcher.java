@@ -3,20 +3,27 @@ package com.mindolph.csv;
 import com.mindolph.core.search.BaseSearchMatcher;
 import com.mindolph.core.search.MatchedItem;
 import com.mindolph.core.search.SearchParams;
+import com.mindolph.core.search.SearchUtils;
 import com.mindolph.core.util.FunctionUtils;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
 
 /**
+ * Records are parsed in streaming to match, the decoded cells are provided for the search index,
+ * so that only the CSV files that might contain the keyword are parsed.
+ *
  * @author mindolph.com@gmail.com
  * @since 1.3.4
  */
@@ -29,39 +36,53 @@ public class CsvMatcher extends BaseSearchMatcher {
     }
 
     @Override
-    public boolean matches(File file, SearchParams searchParams) {
-        super.matches(file, searchParams);
-
-        try {
-            String text = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
-            StringReader stringReader = new StringReader(text);
-            CSVParser parsed = csvFormat.parse(stringReader);
-            List<CSVRecord> records = parsed.getRecords();
-            boolean contains = false;
-            if (!records.isEmpty()) {
-                for (int i = 0; i < records.size(); i++) {
-                    CSVRecord record = records.get(i);
-                    for (int j = 0; j < record.size(); j++) {
-                        String cellText = record.get(j);
-                        if (FunctionUtils.textContains(searchParams.isCaseSensitive()).apply(cellText, searchParams.getKeywords())) {
-                            contains = true;
-                            if (returnContextEnabled) {
-                                MatchedItem mi = new MatchedItem(StringUtils.join(record.values(), " | "), new CsvAnchor(i, j + 1 )); // column + 1 because the Index column
-                                super.matched.add(mi);
-                                break; // stop read more cells because it's no need, just go to next row.
-                            }
+    public List<MatchedItem> matches(File file, SearchParams searchParams) {
+        BiFunction<String, String, Boolean> contains = FunctionUtils.textContains(searchParams.isCaseSensitive());
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+             CSVParser parsed = csvFormat.parse(reader)) {
+            List<MatchedItem> result = null;
+            int i = 0;
+            for (CSVRecord record : parsed) {
+                for (int j = 0; j < record.size(); j++) {
+                    String cellText = record.get(j);
+                    if (contains.apply(cellText, searchParams.getKeywords())) {
+                        if (result == null) {
+                            result = new ArrayList<>();
                         }
-                        else {
-                            System.out.println("Not match in " + cellText);
+                        if (!returnContextEnabled) {
+                            return result;
                         }
+                        MatchedItem mi = new MatchedItem(StringUtils.join(record.values(), " | "), new CsvAnchor(i, j + 1)); // column + 1 because the Index column
+                        result.add(mi);
+                        break; // stop read more cells because it's no need, just go to next row.
                     }
                 }
+                i++;
             }
-            return contains;
-        } catch (IOException e) {
+            return result;
+        } catch (IOException | UncheckedIOException e) {
             e.printStackTrace();
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * Decoded cells with spaces normalized like the keyword for index, because the raw text is escaped.
+     */
+    @Override
+    public String getIndexText(File file) throws IOException {
+        StringBuilder buf = new StringBuilder((int) Math.min(file.length(), 1024 * 1024));
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+             CSVParser parsed = csvFormat.parse(reader)) {
+            for (CSVRecord record : parsed) {
+                for (String cell : record) {
+                    buf.append(cell).append('\n');
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // thrown while iterating records
+        }
+        return SearchUtils.normalizeSpace(buf.toString());
     }
 }
@@ -1,42 +1,63 @@
 package com.mindolph.csv;
 
-import org.apache.commons.collections4.CollectionUtils;
+import com.mindolph.csv.CsvColumns.Matches;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.function.BiFunction;
 
 /**
+ * Locate cells by keyword from a cursor, the cells are matched by columns and the matches are kept
+ * until the keyword or data is changed, so that locating next or previous one just skips to the next matched row.
+ *
  * @author mindolph.com@gmail.com
+ * @see CsvColumns
  */
 public class CsvNavigator {
 
     private static final Logger log = LoggerFactory.getLogger(CsvNavigator.class);
 
-    private List<String> cells; // cells in total
-    private List<String> reversedCells;
+    private CsvColumns columns;
     private int rowSize;
     private int total;
     private Integer cursor = 0;
 
+    // matches of last keyword
+    private String lastKeyword;
+    private boolean lastCaseSensitive;
+    private Matches matches;
+
     public CsvNavigator(List<String> cells, int rowSize) {
         this.setData(cells, rowSize);
     }
 
+    /**
+     * @param columns
+     * @since 1.11
+     */
+    public CsvNavigator(CsvColumns columns) {
+        this.setData(columns);
+    }
+
     public void setData(List<String> cells, int rowSize) {
-        this.cells = cells;
-        this.rowSize = rowSize;
-        this.total = cells.size();
-        this.reversedCells = new LinkedList<>();
-        CollectionUtils.addAll(reversedCells, cells);
-        Collections.reverse(reversedCells); // reverse for search back
+        this.setData(CsvColumns.of(rowSize > 0 ? ListUtils.partition(cells, rowSize) : Collections.emptyList(), rowSize));
         log.trace("Initialized CSV navigator as [%s] with row size %d".formatted(StringUtils.join(cells, ","), rowSize));
     }
 
+    /**
+     * @param columns
+     * @since 1.11
+     */
+    public void setData(CsvColumns columns) {
+        this.columns = columns;
+        this.rowSize = columns.getColumnCount();
+        this.total = columns.getRowCount() * rowSize;
+        this.matches = null;
+    }
+
     public void moveCursor(int pos) {
         this.cursor = pos;
     }
@@ -60,34 +81,28 @@ public class CsvNavigator {
     }
 
     public CellPos locateNext(String keyword, boolean caseSensitive) {
-        int idx = this.locate(keyword, caseSensitive, false);
-        if (idx < 0) {
+        if (cursor < 0 || cursor >= total) {
             return null;
         }
-        return CellPos.fromIndexOfAll(idx, rowSize);
+        log.debug("locate from %d forward".formatted(cursor));
+        return this.match(keyword, caseSensitive).next(cursor / rowSize, cursor % rowSize);
     }
 
     public CellPos locatePrev(String keyword, boolean caseSensitive) {
-        int idx = this.locate(keyword, caseSensitive, true);
-        if (idx < 0) {
+        if (cursor < 0 || cursor >= total) {
             return null;
         }
-        return CellPos.fromIndexOfAll((total - idx - 1), rowSize);
+        log.debug("locate from %d backward".formatted(cursor));
+        return this.match(keyword, caseSensitive).prev(cursor / rowSize, cursor % rowSize);
     }
 
-    private int locate(String keyword, boolean caseSensitive, boolean reverse) {
-        log.debug("locate from %d %s".formatted(cursor, (reverse ? "backward" : "forward")));
-        BiFunction<String, String, Boolean> contains = caseSensitive ? StringUtils::contains : StringUtils::containsIgnoreCase;
-        for (int i = (reverse ? (total - cursor - 1) : cursor);
-             i < total;
-             i++) {
-            String s = (reverse ? reversedCells : cells).get(i);
-            if (contains.apply(s, keyword)) {
-                log.trace("at index: %d".formatted(i));
-                return i;
-            }
+    private Matches match(String keyword, boolean caseSensitive) {
+        if (matches == null || !StringUtils.equals(keyword, lastKeyword) || caseSensitive != lastCaseSensitive) {
+            matches = columns.match(keyword, caseSensitive);
+            lastKeyword = keyword;
+            lastCaseSensitive = caseSensitive;
         }
-        return -1;
+        return matches;
     }
 
     public int getTotal() {
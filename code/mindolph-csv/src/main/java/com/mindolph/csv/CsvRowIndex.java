@@ -0,0 +1,222 @@
+package com.mindolph.csv;
+
+import com.mindolph.base.control.LazyRowList;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Offsets of records in a CSV file, built by scanning the file in one pass without decoding,
+ * the records are parsed only when they are read by ranges.
+ * Line breaks in quoted values are respected and empty lines are skipped, as the parsing of commons-csv does,
+ * a value is quoted only if it starts with a quote.
+ * The file is read through a direct buffer instead of being memory-mapped, because a mapped file can't be
+ * overwritten on Windows until the mapping is garbage collected.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class CsvRowIndex implements LazyRowList.RowSource, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvRowIndex.class);
+
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    private final Path path;
+    private final CSVFormat csvFormat;
+    private final FileChannel channel;
+    private final long fileSize;
+
+    // start offsets of records, the last one is the file size.
+    private long[] offsets = new long[1024];
+    private int rowCount;
+    private int maxColumns;
+    private boolean lastColumnNotBlank;
+    // all rows parsed by fallback, null if not parsed.
+    private List<List<String>> allRows;
+
+    public CsvRowIndex(File file, CSVFormat csvFormat) throws IOException {
+        this.path = file.toPath();
+        this.csvFormat = csvFormat;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        long start = System.currentTimeMillis();
+        this.scan();
+        log.debug("Indexed %d rows of %d bytes in %d ms".formatted(rowCount, fileSize, System.currentTimeMillis() - start));
+    }
+
+    private void scan() throws IOException {
+        boolean atRecordStart = true;
+        boolean atFieldStart = false;
+        boolean inQuote = false;
+        boolean quoteClosed = false; // a quote is found in quoted value, it's either the end or an escaped quote.
+        int columns = 0;
+        boolean content = false;
+        ByteBuffer buf = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        long position = 0;
+        while (channel.read(buf, position) > 0) {
+            buf.flip();
+            int length = buf.limit();
+            for (int i = 0; i < length; i++) {
+                byte b = buf.get(i);
+                if (atRecordStart) {
+                    if (b == '\n' || b == '\r') {
+                        continue; // empty line
+                    }
+                    this.addOffset(position + i);
+                    atRecordStart = false;
+                    atFieldStart = true;
+                    columns = 1;
+                    content = false;
+                }
+                if (inQuote) {
+                    if (b == '"') {
+                        inQuote = false;
+                        quoteClosed = true;
+                    }
+                    else {
+                        content |= (b & 0xff) > ' ';
+                    }
+                    continue;
+                }
+                if (quoteClosed) {
+                    quoteClosed = false;
+                    if (b == '"') {
+                        inQuote = true; // "" in quoted value
+                        content = true;
+                        continue;
+                    }
+                }
+                if (b == '"' && atFieldStart) {
+                    inQuote = true; // quoted only if the quote is the first char of a value.
+                    atFieldStart = false;
+                }
+                else if (b == ',') {
+                    columns++;
+                    atFieldStart = true;
+                    content = false;
+                }
+                else if (b == '\n') {
+                    this.endRecord(columns, content);
+                    atRecordStart = true;
+                }
+                else {
+                    atFieldStart = false;
+                    content |= (b & 0xff) > ' ';
+                }
+            }
+            position += length;
+            buf.clear();
+        }
+        if (!atRecordStart) {
+            this.endRecord(columns, content);
+        }
+        offsets[rowCount] = fileSize;
+    }
+
+    private void addOffset(long offset) {
+        if (rowCount + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[rowCount++] = offset;
+    }
+
+    private void endRecord(int columns, boolean lastColumnContent) {
+        maxColumns = Math.max(maxColumns, columns);
+        lastColumnNotBlank |= lastColumnContent;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public List<List<String>> readRows(int from, int to) {
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+        long start = offsets[from];
+        ByteBuffer buf = ByteBuffer.allocate((int) (offsets[to] - start));
+        try {
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, start + buf.position()) < 0) {
+                    break;
+                }
+            }
+            String text = new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8);
+            List<List<String>> rows = new ArrayList<>(to - from);
+            try (CSVParser parser = csvFormat.parse(new StringReader(text))) {
+                for (CSVRecord record : parser) {
+                    rows.add(record.toList());
+                }
+            }
+            if (rows.size() != to - from) {
+                log.warn("Expect %d rows from %d but got %d, parse the whole file instead".formatted(to - from, from, rows.size()));
+                return this.parseAll().subList(from, to);
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parse the whole file as the fallback if the offsets don't match the parsing (e.g. the file is changed),
+     * the rows are kept for later reading.
+     *
+     * @throws IllegalStateException if the number of rows doesn't match the index either.
+     */
+    private List<List<String>> parseAll() throws IOException {
+        if (allRows == null) {
+            List<List<String>> rows = new ArrayList<>(rowCount);
+            try (CSVParser parser = csvFormat.parse(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+                for (CSVRecord record : parser) {
+                    rows.add(record.toList());
+                }
+            }
+            if (rows.size() != rowCount) {
+                throw new IllegalStateException("Expect %d rows but got %d, the file might be changed".formatted(rowCount, rows.size()));
+            }
+            allRows = rows;
+        }
+        return allRows;
+    }
+
+    /**
+     * @return max number of columns of all rows.
+     */
+    public int getMaxColumns() {
+        return maxColumns;
+    }
+
+    /**
+     * @return whether the last column of any row is not blank.
+     */
+    public boolean isLastColumnNotBlank() {
+        return lastColumnNotBlank;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,57 @@
+package com.mindolph.csv.undo;
+
+import java.util.List;
+
+/**
+ * Delta of CSV data for undo and redo, one user operation is recorded as a list of changes in order.
+ * The indexes of rows and columns are the ones at the time of change, columns are indexed from 0 in data.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public sealed interface CsvChange {
+
+    /**
+     * Value of a cell is changed.
+     */
+    record CellChange(int row, int col, String oldValue, String newValue) implements CsvChange {
+    }
+
+    /**
+     * An empty row is inserted.
+     */
+    record RowInsert(int row) implements CsvChange {
+    }
+
+    /**
+     * A row is deleted with its data.
+     */
+    record RowDelete(int row, List<String> data) implements CsvChange {
+    }
+
+    /**
+     * A stub column is appended to the end of columns.
+     */
+    record ColumnAppend() implements CsvChange {
+    }
+
+    /**
+     * Rows in range are moved, like sorting.
+     *
+     * @param from  index of the first row in range.
+     * @param order the old positions (relative to from) of rows at new positions.
+     */
+    record RowsReorder(int from, int[] order) implements CsvChange {
+
+        /**
+         * @return the order to move the rows back.
+         */
+        public int[] inverse() {
+            int[] inverse = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                inverse[order[i]] = i;
+            }
+            return inverse;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.mindolph.csv.undo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Undo service that keeps changes instead of states, undo reverts the change before current position,
+ * redo applies the change after current position again.
+ * The oldest changes are dropped when the history exceeds the limit.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class DeltaUndoServiceImpl<T> implements UndoService<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(DeltaUndoServiceImpl.class);
+
+    public static final int DEFAULT_MAX_HISTORY = 1000;
+
+    private final List<Command<T>> history = new ArrayList<>();
+    private int position = 0; // number of changes that are applied
+
+    private final Consumer<T> reverter;
+    private final Consumer<T> applier;
+    private final int maxHistory;
+
+    private final AtomicBoolean isPerforming = new AtomicBoolean(false);
+
+    public DeltaUndoServiceImpl(Consumer<T> reverter, Consumer<T> applier) {
+        this(reverter, applier, DEFAULT_MAX_HISTORY);
+    }
+
+    public DeltaUndoServiceImpl(Consumer<T> reverter, Consumer<T> applier, int maxHistory) {
+        this.reverter = reverter;
+        this.applier = applier;
+        this.maxHistory = maxHistory;
+    }
+
+    /**
+     * @param change the change that has been applied.
+     */
+    @Override
+    public void push(T change) {
+        history.subList(position, history.size()).clear();
+        history.add(new Command<>(change));
+        if (history.size() > maxHistory) {
+            history.removeFirst();
+        }
+        position = history.size();
+        log.debug("Pushed change, %d changes in history".formatted(history.size()));
+    }
+
+    @Override
+    public boolean undo() {
+        if (!isUndoAvailable()) {
+            return false;
+        }
+        log.debug("Undo to %d".formatted(position - 1));
+        isPerforming.set(true);
+        try {
+            reverter.accept(history.get(--position).getCommand());
+        } finally {
+            isPerforming.set(false);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean redo() {
+        if (!isRedoAvailable()) {
+            return false;
+        }
+        log.debug("Redo to %d".formatted(position + 1));
+        isPerforming.set(true);
+        try {
+            applier.accept(history.get(position++).getCommand());
+        } finally {
+            isPerforming.set(false);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isUndoAvailable() {
+        return position > 0;
+    }
+
+    @Override
+    public boolean isRedoAvailable() {
+        return position < history.size();
+    }
+
+    @Override
+    public T getNextUndo() {
+        return isUndoAvailable() ? history.get(position - 1).getCommand() : null;
+    }
+
+    @Override
+    public T getNextRedo() {
+        return isRedoAvailable() ? history.get(position).getCommand() : null;
+    }
+
+    @Override
+    public void forgetHistory() {
+        history.clear();
+        position = 0;
+    }
+
+    @Override
+    public boolean isPerforming() {
+        return isPerforming.get();
+    }
+}
@@ -0,0 +1,103 @@
+package com.mindolph.csv;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search, filter and sort over a CSV fixture of 1M rows, by columns or by scanning all cells as before.
+ *
+ * @author mindolph.com@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CsvColumnsBenchmark {
+
+    private static final String[] CITIES = {"Beijing", "Shanghai", "London", "Paris", "New York", "Tokyo", "Berlin", "Sydney"};
+
+    @Param({"1000000"})
+    private int rowCount;
+
+    @Param({"row-0999999", "tokyo"})
+    private String keyword;
+
+    private List<List<String>> rows;
+    private List<String> cells;
+    private CsvColumns columns;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CsvColumnsBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        rows = new ArrayList<>(rowCount);
+        cells = new ArrayList<>(rowCount * 5);
+        for (int i = 0; i < rowCount; i++) {
+            List<String> row = List.of("row-%07d".formatted(i), CITIES[random.nextInt(CITIES.length)],
+                    String.valueOf(random.nextInt(100000)), "note %d".formatted(random.nextInt(1000)), i % 2 == 0 ? "yes" : "no");
+            rows.add(row);
+            cells.addAll(row);
+        }
+        columns = CsvColumns.of(rows, 5);
+    }
+
+    @Benchmark
+    public CsvColumns buildColumns() {
+        return CsvColumns.of(rows, 5);
+    }
+
+    /**
+     * Locate the last matched cell by scanning all cells, as the navigator did before.
+     */
+    @Benchmark
+    public int scanCells() {
+        int found = -1;
+        for (int i = 0; i < cells.size(); i++) {
+            if (StringUtils.containsIgnoreCase(cells.get(i), keyword)) {
+                found = i;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public CellPos matchColumns() {
+        return columns.match(keyword, false).prev(rowCount - 1, 4);
+    }
+
+    @Benchmark
+    public CellPos locateNextMatched() {
+        // the matches are kept by navigator, so only the first locating matches all cells.
+        CsvColumns.Matches matches = columns.match(keyword, false);
+        CellPos pos = matches.next(0, 0);
+        for (int i = 0; i < 100 && pos != null; i++) {
+            CellPos next = matches.next(pos.getRowIdx() + 1, 0);
+            pos = next == null ? pos : next;
+        }
+        return pos;
+    }
+
+    @Benchmark
+    public BitSet filterColumn() {
+        return columns.filter(1, keyword, false);
+    }
+
+    @Benchmark
+    public int[] sortColumn() {
+        return columns.sort(2, true, 1, rowCount);
+    }
+}
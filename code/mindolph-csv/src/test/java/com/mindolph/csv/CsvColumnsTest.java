@@ -0,0 +1,123 @@
+package com.mindolph.csv;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class CsvColumnsTest {
+
+    private final CsvColumns columns = CsvColumns.of(List.of(
+            Arrays.asList("name", "size", "note"),
+            Arrays.asList("banana", "10", "Yellow"),
+            Arrays.asList("apple", "9", null),
+            Arrays.asList("cherry", "100", "red"),
+            Arrays.asList("Apple", "x", "green apple")
+    ), 3);
+
+    @Test
+    public void match() {
+        CsvColumns.Matches matches = columns.match("apple", false);
+        Assertions.assertEquals(new CellPos(2, 0), matches.next(0, 0));
+        Assertions.assertEquals(new CellPos(4, 0), matches.next(2, 1));
+        Assertions.assertEquals(new CellPos(4, 2), matches.next(4, 1));
+        Assertions.assertNull(matches.next(4, 3));
+        Assertions.assertEquals(new CellPos(4, 0), matches.prev(4, 1));
+        Assertions.assertEquals(new CellPos(2, 0), matches.prev(3, 2));
+        Assertions.assertNull(matches.prev(1, 2));
+        Assertions.assertEquals(new CellPos(4, 0), columns.match("Apple", true).next(0, 0));
+        Assertions.assertTrue(columns.match("grape", false).isEmpty());
+    }
+
+    @Test
+    public void filter() {
+        Assertions.assertEquals(BitSet.valueOf(new long[]{0b10100}), columns.filter(0, "APP", false));
+        Assertions.assertTrue(columns.filter(2, "apple", true).get(4));
+        Assertions.assertFalse(columns.filter(2, "", false).get(2)); // null never matches
+    }
+
+    @Test
+    public void sort() {
+        Assertions.assertArrayEquals(new int[]{4, 2, 1, 3}, columns.sort(0, true, 1, 5));
+        Assertions.assertArrayEquals(new int[]{3, 1, 2, 4}, columns.sort(0, false, 1, 5));
+        // numbers are before texts and ordered by values.
+        Assertions.assertArrayEquals(new int[]{2, 1, 3, 4}, columns.sort(1, true, 1, 5));
+        // null is always the last.
+        Assertions.assertArrayEquals(new int[]{4, 3, 1, 2}, columns.sort(2, true, 1, 5));
+        Assertions.assertArrayEquals(new int[]{1, 3, 4, 2}, columns.sort(2, false, 1, 5));
+    }
+
+    @Test
+    public void widerRows() {
+        CsvColumns wider = CsvColumns.of(List.of(List.of("a"), List.of("b", "c")), 1);
+        Assertions.assertEquals(2, wider.getColumnCount());
+        Assertions.assertNull(wider.get(0, 1));
+        Assertions.assertEquals("c", wider.get(1, 1));
+    }
+
+    @Test
+    public void changes() {
+        List<List<String>> rows = new ArrayList<>(List.of(
+                Arrays.asList("name", "size"),
+                Arrays.asList("banana", "10"),
+                Arrays.asList("apple", "9"),
+                Arrays.asList("cherry", "100")));
+        CsvColumns changed = CsvColumns.of(rows, 2);
+        Assertions.assertEquals(BitSet.valueOf(new long[]{0b100}), changed.filter(0, "apple", false)); // postings built
+
+        changed.setRow(1, Arrays.asList("pineapple", "10"));
+        rows.set(1, Arrays.asList("pineapple", "10"));
+        changed.insertRow(2, Arrays.asList("grape", "8"));
+        rows.add(2, Arrays.asList("grape", "8"));
+        changed.insertRow(5, null);
+        rows.add(5, Arrays.asList(null, null));
+        changed.deleteRow(3);
+        rows.remove(3);
+        changed.reorderRows(1, new int[]{2, 0, 1});
+        rows.addAll(1, List.of(rows.remove(3), rows.remove(1), rows.remove(1)));
+        changed.appendColumn();
+        changed.setRow(0, Arrays.asList("name", "size", "note"));
+        rows.set(0, Arrays.asList("name", "size", "note"));
+
+        CsvColumns built = CsvColumns.of(rows, 3);
+        Assertions.assertEquals(built.getRowCount(), changed.getRowCount());
+        Assertions.assertEquals(built.getColumnCount(), changed.getColumnCount());
+        for (int r = 0; r < built.getRowCount(); r++) {
+            for (int c = 0; c < built.getColumnCount(); c++) {
+                Assertions.assertEquals(built.get(r, c), changed.get(r, c));
+            }
+        }
+        for (String keyword : List.of("apple", "e", "1", "note")) {
+            for (int c = 0; c < built.getColumnCount(); c++) {
+                Assertions.assertEquals(built.filter(c, keyword, false), changed.filter(c, keyword, false));
+            }
+        }
+        Assertions.assertArrayEquals(built.sort(0, true, 1, 4), changed.sort(0, true, 1, 4));
+        Assertions.assertArrayEquals(built.sort(1, false, 1, 4), changed.sort(1, false, 1, 4));
+        changed.removeLastColumn();
+        Assertions.assertEquals(2, changed.getColumnCount());
+    }
+
+    @Test
+    public void matchWithNgramIndex() {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < CsvColumns.NGRAM_INDEX_THRESHOLD * 4; i++) {
+            rows.add(List.of("value %d of row".formatted(i), "ROW-%04d".formatted(i)));
+        }
+        CsvColumns indexed = CsvColumns.of(rows, 2);
+        for (int i = 0; i < CsvColumns.NGRAM_INDEX_AFTER_SCANS; i++) {
+            Assertions.assertEquals(1, indexed.filter(0, "value 1000 ", false).cardinality()); // before indexed
+        }
+        Assertions.assertEquals(1, indexed.filter(0, "value 1000 ", false).cardinality());
+        Assertions.assertEquals(10, indexed.filter(1, "row-010", false).cardinality());
+        Assertions.assertEquals(0, indexed.filter(1, "row-010", true).cardinality());
+        Assertions.assertEquals(new CellPos(1000, 1), indexed.match("W-1000", true).next(0, 0));
+        Assertions.assertTrue(indexed.match("xyz", false).isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package com.mindolph.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class CsvRowIndexTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void index() throws IOException {
+        File file = new File(tempDir, "test.csv");
+        String text = "a,b\r\n\r\n\"multi\nline\",\"with \"\"quotes\"\", and comma\"\n\nc,d,\n中文,e,f";
+        Files.writeString(file.toPath(), text, StandardCharsets.UTF_8);
+        try (CsvRowIndex index = new CsvRowIndex(file, CSVFormat.DEFAULT)) {
+            Assertions.assertEquals(4, index.getRowCount());
+            Assertions.assertEquals(3, index.getMaxColumns());
+            Assertions.assertTrue(index.isLastColumnNotBlank());
+            Assertions.assertEquals(List.of("a", "b"), index.readRows(0, 1).getFirst());
+            List<List<String>> rows = index.readRows(1, 4);
+            Assertions.assertEquals(3, rows.size());
+            Assertions.assertEquals(List.of("multi\nline", "with \"quotes\", and comma"), rows.get(0));
+            Assertions.assertEquals(List.of("c", "d", ""), rows.get(1));
+            Assertions.assertEquals(List.of("中文", "e", "f"), rows.get(2));
+        }
+    }
+
+    @Test
+    public void quoteInValue() throws IOException {
+        File file = new File(tempDir, "quote.csv");
+        // the quotes not at the start of values are literal.
+        Files.writeString(file.toPath(), "5\" disk,a\"b\nc,\"\"\"x\"\"\"\n\"y\",z\n", StandardCharsets.UTF_8);
+        try (CsvRowIndex index = new CsvRowIndex(file, CSVFormat.DEFAULT)) {
+            Assertions.assertEquals(3, index.getRowCount());
+            Assertions.assertEquals(List.of("c", "\"x\""), index.readRows(1, 2).getFirst());
+            Assertions.assertEquals(List.of(List.of("5\" disk", "a\"b"), List.of("c", "\"x\""), List.of("y", "z")), index.readRows(0, 3));
+        }
+    }
+
+    @Test
+    public void fileChanged() throws IOException {
+        File file = new File(tempDir, "changed.csv");
+        Files.writeString(file.toPath(), "a\nb\nc\n", StandardCharsets.UTF_8);
+        try (CsvRowIndex index = new CsvRowIndex(file, CSVFormat.DEFAULT)) {
+            Files.writeString(file.toPath(), "\"a\nb\"\n", StandardCharsets.UTF_8);
+            Assertions.assertThrows(IllegalStateException.class, () -> index.readRows(0, 3));
+        }
+    }
+
+    @Test
+    public void lastColumnBlank() throws IOException {
+        File file = new File(tempDir, "blank.csv");
+        Files.writeString(file.toPath(), "a,\nb, \n", StandardCharsets.UTF_8);
+        try (CsvRowIndex index = new CsvRowIndex(file, CSVFormat.DEFAULT)) {
+            Assertions.assertEquals(2, index.getRowCount());
+            Assertions.assertEquals(2, index.getMaxColumns());
+            Assertions.assertFalse(index.isLastColumnNotBlank());
+        }
+    }
+}
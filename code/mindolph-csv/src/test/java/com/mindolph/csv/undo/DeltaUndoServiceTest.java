@@ -0,0 +1,65 @@
+package com.mindolph.csv.undo;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class DeltaUndoServiceTest {
+
+    private UndoService<Integer> undoService;
+    private int value;
+
+    @BeforeEach
+    public void setup() {
+        value = 0;
+        undoService = new DeltaUndoServiceImpl<>(delta -> value -= delta, delta -> value += delta, 3);
+    }
+
+    private void change(int delta) {
+        value += delta;
+        undoService.push(delta);
+    }
+
+    @Test
+    public void undoRedo() {
+        Assertions.assertFalse(undoService.isUndoAvailable());
+        Assertions.assertFalse(undoService.isRedoAvailable());
+        change(1);
+        change(10);
+        Assertions.assertEquals(Integer.valueOf(10), undoService.getNextUndo());
+        Assertions.assertTrue(undoService.undo());
+        Assertions.assertEquals(1, value);
+        Assertions.assertEquals(Integer.valueOf(10), undoService.getNextRedo());
+        Assertions.assertTrue(undoService.undo());
+        Assertions.assertEquals(0, value);
+        Assertions.assertFalse(undoService.undo());
+        Assertions.assertTrue(undoService.redo());
+        Assertions.assertEquals(1, value);
+
+        // redo history is dropped by new change.
+        change(100);
+        Assertions.assertFalse(undoService.isRedoAvailable());
+        Assertions.assertTrue(undoService.undo());
+        Assertions.assertTrue(undoService.undo());
+        Assertions.assertEquals(0, value);
+        Assertions.assertTrue(undoService.redo());
+        Assertions.assertTrue(undoService.redo());
+        Assertions.assertEquals(101, value);
+    }
+
+    @Test
+    public void maxHistory() {
+        for (int i = 1; i <= 5; i++) {
+            change(i);
+        }
+        int undone = 0;
+        while (undoService.undo()) {
+            undone++;
+        }
+        Assertions.assertEquals(3, undone);
+        Assertions.assertEquals(1 + 2, value);
+    }
+}
@@ -5,11 +5,12 @@ import com.mindolph.base.constant.IconKey;
 import com.mindolph.base.event.EventBus;
 import com.mindolph.base.event.OpenFileEvent;
 import com.mindolph.core.WorkspaceManager;
-import com.mindolph.core.util.Comparators;
 import com.mindolph.core.meta.WorkspaceList;
 import com.mindolph.core.meta.WorkspaceMeta;
 import com.mindolph.core.model.FileMeta;
 import com.mindolph.core.model.NodeData;
+import com.mindolph.core.search.FileNameIndex;
+import com.mindolph.core.search.SearchService;
 import com.mindolph.fx.control.FileFilterButtonGroup;
 import com.mindolph.fx.util.DisplayUtils;
 import com.mindolph.mfx.dialog.BaseDialogController;
@@ -34,8 +35,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.mindolph.core.constant.SceneStatePrefs.MINDOLPH_NAVIGATE_KEYWORD;
 import static com.mindolph.core.constant.SceneStatePrefs.MINDOLPH_NAVIGATE_OPTIONS;
@@ -60,6 +61,14 @@ public class GotoFileDialog extends BaseDialogController<Void> {
 
     private WorkspaceList workspaceList;
 
+    // order: folder, file name
+    private static final Comparator<FileNameIndex.Match> SORTING_IN_ALPHABET =
+            Comparator.comparing((FileNameIndex.Match match) -> !match.folder())
+                    .thenComparing(match -> match.file().getName());
+
+    // results of last searching for each workspace.
+    private final Map<File, FileNameIndex.Result> lastResults = new ConcurrentHashMap<>();
+
     private final FxPreferences fxPreferences = FxPreferences.getInstance();
 
     public GotoFileDialog() {
@@ -82,7 +91,7 @@ public class GotoFileDialog extends BaseDialogController<Void> {
         EventStream<Change<String>> textChanged = EventStreams.changesOf(tfKeywords.textProperty());
         EventStream<Change<String>> optionChanged = EventStreams.changesOf(fileFilterButtonGroup.selectedFileTypeProperty());
         EventStream<Tuple2<Change<String>, Change<String>>> combine = EventStreams.combine(textChanged, optionChanged);
-        combine.pausable().reduceSuccessions((tuple2, tuple22) -> tuple22, Duration.ofMillis(400))
+        combine.pausable().reduceSuccessions((tuple2, tuple22) -> tuple22, Duration.ofMillis(200))
                 .subscribe(tuple2 -> {
                     searchFiles(StringUtils.trim(tfKeywords.getText()), fileFilterButtonGroup.getSelectedFileType());
                 });
@@ -167,32 +176,34 @@ public class GotoFileDialog extends BaseDialogController<Void> {
         boolean listedInAlphabet = tbSort.isSelected();
         listView.getItems().clear();
         if (StringUtils.isNotBlank(keyword)) {
+            String fileExt = FILE_OPTION_ALL.equals(fileTypeName) ? null : fileTypeName;
+            List<WorkspaceMeta> workspaces = WorkspaceManager.getIns().getWorkspaceList().getProjects();
             AsyncUtils.fxAsync(() -> {
-                List<File> allMatchFiles = new ArrayList<>();
-                for (WorkspaceMeta workspace : WorkspaceManager.getIns().getWorkspaceList().getProjects()) {
+                // since a sub-folder in workspace can be a new workspace for now,
+                // there must be duplicate items for searching files across workspaces.
+                Map<File, FileNameIndex.Match> allMatches = new HashMap<>();
+                for (WorkspaceMeta workspace : workspaces) {
                     File workspaceDir = new File(workspace.getBaseDirPath());
-                    List<File> foundFiles = WorkspaceManager.getIns().findDirsAndFilesByKeyword(workspaceDir, keyword,
-                            FILE_OPTION_ALL.equals(fileTypeName) ? null : fileTypeName);
-                    log.debug("found %d from %s".formatted(foundFiles.size(), workspace.getBaseDirPath()));
-                    allMatchFiles.addAll(foundFiles);
-                }
-                return allMatchFiles;
-            }, allMatchFiles -> {
-                if (!allMatchFiles.isEmpty()) {
-                    if (listedInAlphabet) {
-                        allMatchFiles.sort(Comparators.NAVIGATION_FILENAME_COMPARATOR);
-                    }
-                    else {
-                        allMatchFiles.sort(Comparators.NAVIGATION_DEFAULT_COMPARATOR);
-                    }
-                    // since a sub-folder in workspace can be a new workspace for now,
-                    // there must be duplicate items for searching files across workspaces.
-                    allMatchFiles = allMatchFiles.stream().distinct().toList();
-                    for (File foundFile : allMatchFiles) {
-                        log.debug("Matched file: " + foundFile);
-                        WorkspaceMeta workspaceMeta = WorkspaceManager.getIns().getWorkspaceList().matchByFilePath(foundFile.getPath());
-                        listView.getItems().add(new FileMeta(new File(workspaceMeta.getBaseDirPath()), foundFile));
+                    // the result of last keyword is refined if the keyword is extended from it.
+                    FileNameIndex.Result result = SearchService.getIns().searchFileNames(workspaceDir, keyword, fileExt, lastResults.get(workspaceDir));
+                    lastResults.put(workspaceDir, result);
+                    log.debug("found %d from %s".formatted(result.getMatches().size(), workspace.getBaseDirPath()));
+                    for (FileNameIndex.Match match : result.getMatches()) {
+                        allMatches.merge(match.file(), match, (m1, m2) -> m1.score() >= m2.score() ? m1 : m2);
                     }
+                }
+                List<FileNameIndex.Match> sorted = new ArrayList<>(allMatches.values());
+                sorted.sort(listedInAlphabet ? SORTING_IN_ALPHABET : FileNameIndex.Match.RANKING);
+                return sorted;
+            }, allMatches -> {
+                if (!keyword.equals(StringUtils.trim(tfKeywords.getText()))) {
+                    return; // outdated since the keyword has been changed.
+                }
+                if (!allMatches.isEmpty()) {
+                    listView.getItems().addAll(allMatches.stream().map(match -> {
+                        WorkspaceMeta workspaceMeta = WorkspaceManager.getIns().getWorkspaceList().matchByFilePath(match.file().getPath());
+                        return new FileMeta(new File(workspaceMeta.getBaseDirPath()), match.file());
+                    }).toList());
                     fxPreferences.savePreference(MINDOLPH_NAVIGATE_KEYWORD, keyword);
                     fxPreferences.savePreference(MINDOLPH_NAVIGATE_OPTIONS, fileTypeName);
                 }
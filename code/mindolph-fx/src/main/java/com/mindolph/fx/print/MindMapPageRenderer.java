@@ -0,0 +1,221 @@
+package com.mindolph.fx.print;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.base.graphic.CanvasGraphicsWrapper;
+import com.mindolph.mindmap.MindMapConfig;
+import com.mindolph.mindmap.MindMapContext;
+import com.mindolph.mindmap.gfx.MindMapCanvas;
+import com.mindolph.mindmap.model.TopicNode;
+import javafx.application.Platform;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Render pages of a mind map for printing, the mind map is laid out only once (for each scale and page size) and
+ * each page is drawn with only the elements intersecting it (found by the element index).
+ * <p>
+ * Pages for previewing are rendered lazily in a background thread and kept in a bounded (LRU) cache of page images,
+ * the cache holds at least all pages of the layout, so the repainting for a rendered page never requests an evicted page again.
+ * The drawing commands are issued to a canvas that is never attached to a scene, so only the snapshot is taken
+ * in the FX application thread.
+ *
+ * @author mindolph.com@gmail.com
+ * @see MindMapPrintable
+ * @since 1.11
+ */
+public class MindMapPageRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(MindMapPageRenderer.class);
+
+    private static final int MIN_CACHE_CAPACITY = 24;
+
+    private static final ExecutorService renderExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "print-page-renderer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final MindMap<TopicNode> model;
+    private final MindMapConfig config;
+    private final MindMapContext mindMapContext = new MindMapContext();
+
+    // guards the layout and the page canvas, it's never held while waiting for the FX application thread.
+    private final Object lock = new Object();
+    private CanvasGraphicsWrapper pageGraphics;
+    private MindMapCanvas mmCanvas;
+    // page that the canvas is drawn with currently.
+    private Rectangle2D drawnPage;
+    // increased for every layout, the pages rendered for previous layout are dropped.
+    private int generation = 0;
+    // not less than the count of pages of current layout.
+    private int cacheCapacity = MIN_CACHE_CAPACITY;
+
+    private final Map<Rectangle2D, WritableImage> pageCache = new LinkedHashMap<>(MIN_CACHE_CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Rectangle2D, WritableImage> eldest) {
+            return size() > cacheCapacity;
+        }
+    };
+    // pages being rendered in background.
+    private final Set<Rectangle2D> pendingPages = new HashSet<>();
+
+    private Runnable onPageRendered;
+
+    public MindMapPageRenderer(MindMap<TopicNode> model, MindMapConfig config) {
+        this.model = model;
+        this.config = config;
+    }
+
+    /**
+     * Layout the mind map for the scale and page size, all rendered pages are dropped.
+     *
+     * @param scale
+     * @param pageWidth
+     * @param pageHeight
+     * @return dimension of the whole diagram.
+     */
+    public Dimension2D layout(double scale, double pageWidth, double pageHeight) {
+        synchronized (lock) {
+            generation++;
+            pageCache.clear();
+            pendingPages.clear();
+            mindMapContext.setScale(scale);
+            Canvas canvas = new Canvas(Math.ceil(pageWidth), Math.ceil(pageHeight));
+            pageGraphics = new CanvasGraphicsWrapper(canvas);
+            mmCanvas = new MindMapCanvas(pageGraphics, config, mindMapContext);
+            drawnPage = null;
+            Dimension2D size = mmCanvas.layoutFullDiagramWithCenteringToPaper(model, null);
+            cacheCapacity = MIN_CACHE_CAPACITY;
+            if (size != null) {
+                // same as the pages split by the printable.
+                long pageCount = (long) (size.getWidth() / pageWidth + 1) * (long) (size.getHeight() / pageHeight + 1);
+                cacheCapacity = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_CACHE_CAPACITY, pageCount));
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Get the image of page for previewing, it's rendered in background if not yet and the listener set by
+     * {@link #setOnPageRendered(Runnable)} will be notified when it's done.
+     *
+     * @param page bounds of the page in diagram.
+     * @return null if the page is not rendered yet or it's empty.
+     */
+    public WritableImage getPageImage(Rectangle2D page) {
+        if (isEmpty(page)) {
+            return null;
+        }
+        int requestGeneration;
+        synchronized (lock) {
+            WritableImage image = pageCache.get(page);
+            if (image != null || !pendingPages.add(page)) {
+                return image;
+            }
+            requestGeneration = generation;
+        }
+        renderExecutor.execute(() -> this.renderInBackground(page, requestGeneration));
+        return null;
+    }
+
+    /**
+     * Render the page synchronously (if it's not cached), must be called in FX application thread.
+     *
+     * @param page bounds of the page in diagram.
+     * @return null if the page is empty.
+     */
+    public WritableImage renderPage(Rectangle2D page) {
+        if (isEmpty(page)) {
+            return null;
+        }
+        synchronized (lock) {
+            WritableImage image = pageCache.get(page);
+            if (image == null) {
+                this.drawPage(page);
+                image = this.snapshot(page);
+                pageCache.put(page, image);
+            }
+            return image;
+        }
+    }
+
+    private static boolean isEmpty(Rectangle2D page) {
+        return page.getWidth() < 1 || page.getHeight() < 1;
+    }
+
+    private void renderInBackground(Rectangle2D page, int requestGeneration) {
+        synchronized (lock) {
+            if (requestGeneration != generation) {
+                return;
+            }
+            this.drawPage(page);
+        }
+        CompletableFuture<Void> snapshotDone = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            boolean rendered = false;
+            synchronized (lock) {
+                // the canvas might have been laid out again, or drawn for another page by renderPage().
+                if (requestGeneration == generation) {
+                    if (page.equals(drawnPage)) {
+                        pendingPages.remove(page);
+                        pageCache.put(page, this.snapshot(page));
+                        rendered = true;
+                    }
+                    else {
+                        // still pending, render it again.
+                        renderExecutor.execute(() -> this.renderInBackground(page, requestGeneration));
+                    }
+                }
+            }
+            snapshotDone.complete(null);
+            if (rendered && onPageRendered != null) {
+                onPageRendered.run();
+            }
+        });
+        // the canvas can't be drawn for next page before the snapshot is taken.
+        snapshotDone.join();
+    }
+
+    private void drawPage(Rectangle2D page) {
+        long start = System.currentTimeMillis();
+        GraphicsContext gc = pageGraphics.getCanvas().getGraphicsContext2D();
+        gc.save();
+        try {
+            gc.clearRect(0, 0, pageGraphics.getCanvas().getWidth(), pageGraphics.getCanvas().getHeight());
+            pageGraphics.translate(-page.getMinX(), -page.getMinY()); // translate to the page
+            pageGraphics.setClipBounds(page); // elements out of the page are culled.
+            mmCanvas.drawOnGraphicsForConfiguration(model, false, null);
+        } finally {
+            gc.restore();
+        }
+        drawnPage = page;
+        if (log.isTraceEnabled()) log.trace("Page %s drawn in %dms".formatted(page, System.currentTimeMillis() - start));
+    }
+
+    private WritableImage snapshot(Rectangle2D page) {
+        SnapshotParameters params = new SnapshotParameters();
+        params.setViewport(new Rectangle2D(0, 0, page.getWidth(), page.getHeight()));
+        return pageGraphics.getCanvas().snapshot(params, null);
+    }
+
+    /**
+     * @param onPageRendered called in FX application thread when a page is rendered in background.
+     */
+    public void setOnPageRendered(Runnable onPageRendered) {
+        this.onPageRendered = onPageRendered;
+    }
+}
@@ -1,11 +1,7 @@
 package com.mindolph.fx.print;
 
 import com.igormaznitsa.mindmap.model.MindMap;
-import com.mindolph.base.util.GeometryConvertUtils;
-import com.mindolph.mindmap.MindMapContext;
-import com.mindolph.mindmap.gfx.MindMapCanvas;
 import com.mindolph.mindmap.MindMapConfig;
-import com.mindolph.base.graphic.CanvasGraphicsWrapper;
 import com.mindolph.mfx.util.DimensionUtils;
 import com.mindolph.mindmap.model.TopicNode;
 import com.mindolph.mindmap.theme.MindMapTheme;
@@ -13,7 +9,6 @@ import javafx.geometry.Dimension2D;
 import javafx.geometry.Rectangle2D;
 import javafx.print.PageLayout;
 import javafx.scene.Node;
-import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.WritableImage;
@@ -33,13 +28,11 @@ public class MindMapPrintable extends BasePrintable {
     private final MindMap<TopicNode> model;
     private final MindMapConfig cfg;
     private Dimension2D diagramDimension;
-    private final MindMapCanvas mmCanvas ;
-    private final MindMapContext mindMapContext;
+    private final MindMapPageRenderer pageRenderer;
 
     public MindMapPrintable(MindMap<TopicNode> model, PageLayout pageLayout) {
         super.pageLayout = pageLayout;
         this.model = model;
-        this.mindMapContext = new MindMapContext();
 
         cfg = new MindMapConfig();
         MindMapTheme theme = cfg.getTheme();
@@ -62,7 +55,7 @@ public class MindMapPrintable extends BasePrintable {
         theme.setConnectorWidth(2.0f);
         theme.setPaperMargins(2);
 
-        mmCanvas = new MindMapCanvas(new CanvasGraphicsWrapper(new Canvas()), cfg, mindMapContext);
+        pageRenderer = new MindMapPageRenderer(model, cfg);
 
         this.update(pageLayout, new PrintOptions());
     }
@@ -70,8 +63,8 @@ public class MindMapPrintable extends BasePrintable {
     @Override
     public void update(PageLayout pageLayout, PrintOptions printOptions) {
         super.update(pageLayout, printOptions);
-        mindMapContext.setScale(super.actualScale);
-        diagramDimension = mmCanvas.layoutFullDiagramWithCenteringToPaper(model, null);
+        // laid out only once for all pages.
+        diagramDimension = pageRenderer.layout(super.actualScale, printableWidth, printableHeight);
         log.debug("mind map dimension: %s".formatted(DimensionUtils.dimensionInStr(diagramDimension)));
         pagesH = (int) (this.diagramDimension.getWidth() / printableWidth + 1);
         pagesV = (int) (this.diagramDimension.getHeight() / printableHeight + 1);
@@ -85,38 +78,43 @@ public class MindMapPrintable extends BasePrintable {
                 int h = i;
                 int v = j;
                 pages[i][j] = new PrintPage() {
-                    private Canvas pageCanvas;
-
                     @Override
                     public void print(GraphicsContext gc) {
-                        double drawX = h * printableWidth;
-                        double drawY = v * printableHeight;
-                        double drawWidth = (drawX + printableWidth) < diagramDimension.getWidth() ? printableWidth : diagramDimension.getWidth() - drawX;
-                        double drawHeight = (drawY + printableHeight) < diagramDimension.getHeight() ? printableHeight : diagramDimension.getHeight() - drawY;
-                        // Draw page area in new canvas(dimension limited) TODO should be optimized for performance.
-                        pageCanvas = new Canvas(drawWidth, drawHeight);
-                        CanvasGraphicsWrapper pageGc = new CanvasGraphicsWrapper(pageCanvas);
-                        pageGc.translate(-drawX, -drawY); // translate to current page
-                        pageGc.setClipBounds(new Rectangle2D(drawX, drawY, drawWidth, drawHeight)); // set drawing area in mind map
-                        MindMapCanvas mmc = new MindMapCanvas(pageGc, cfg, mindMapContext);
-                        mmc.layoutFullDiagramWithCenteringToPaper(model, GeometryConvertUtils.rectangle2Bounds(pageGc.getClipBounds()));
-                        mmc.drawOnGraphicsForConfiguration(model,false, null);
-                        SnapshotParameters params = new SnapshotParameters();
-                        WritableImage snapshot = pageGc.getCanvas().snapshot(params, null);
-                        // Draw the content from the page canvas to the main canvas.
-                        gc.drawImage(snapshot, 0, 0, drawWidth, drawHeight,
-                                0, 0, drawWidth, drawHeight);
+                        // rendered lazily, the page is blank until it's rendered.
+                        WritableImage image = pageRenderer.getPageImage(getPageBounds());
+                        if (image != null) {
+                            gc.drawImage(image, 0, 0);
+                        }
                     }
 
                     @Override
                     public Node getPageCanvas() {
+                        Rectangle2D pageBounds = getPageBounds();
+                        Canvas pageCanvas = new Canvas(pageBounds.getWidth(), pageBounds.getHeight());
+                        WritableImage image = pageRenderer.renderPage(pageBounds);
+                        if (image != null) {
+                            pageCanvas.getGraphicsContext2D().drawImage(image, 0, 0);
+                        }
                         return pageCanvas;
                     }
+
+                    private Rectangle2D getPageBounds() {
+                        double drawX = h * printableWidth;
+                        double drawY = v * printableHeight;
+                        double drawWidth = (drawX + printableWidth) < diagramDimension.getWidth() ? printableWidth : diagramDimension.getWidth() - drawX;
+                        double drawHeight = (drawY + printableHeight) < diagramDimension.getHeight() ? printableHeight : diagramDimension.getHeight() - drawY;
+                        return new Rectangle2D(drawX, drawY, drawWidth, drawHeight);
+                    }
                 };
             }
         }
     }
 
+    @Override
+    public void setOnPageRendered(Runnable onPageRendered) {
+        pageRenderer.setOnPageRendered(onPageRendered);
+    }
+
     @Override
     protected double getWidth() {
         return diagramDimension.getWidth();
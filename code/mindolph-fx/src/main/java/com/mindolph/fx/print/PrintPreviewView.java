@@ -40,6 +40,7 @@ public class PrintPreviewView extends BaseScalableView {
     public PrintPreviewView(Printable printable) {
         this.printable = printable;
         this.pageLayout = printable.getPageLayout();
+        this.printable.setOnPageRendered(this::repaint);
         this.calculateDimension();
     }
 
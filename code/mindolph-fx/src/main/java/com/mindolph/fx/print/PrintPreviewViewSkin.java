@@ -2,6 +2,7 @@ package com.mindolph.fx.print;
 
 import com.mindolph.base.control.BaseScalableViewSkin;
 import javafx.geometry.Dimension2D;
+import javafx.geometry.Rectangle2D;
 import javafx.print.PageLayout;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
@@ -46,10 +47,16 @@ public class PrintPreviewViewSkin extends BaseScalableViewSkin<PrintPreviewView>
         gc.fillRect(0, 0, originalDimension.getWidth(), originalDimension.getHeight());
         gc.scale(scale, scale);
 
+        Rectangle2D viewport = this.control.getViewportRectangle();
         int x = INTERVAL_X;
         for (PrintPage[] pages : allPages) {
             int y = INTERVAL_Y;  // return to new line
             for (PrintPage p : pages) {
+                // pages out of viewport are not drawn (and not rendered for lazy rendering printable).
+                if (!viewport.intersects(x * scale, y * scale, (pageWidth + SHADOW_X) * scale, (pageHeight + SHADOW_Y) * scale)) {
+                    y += INTERVAL_Y + pageHeight;
+                    continue;
+                }
                 // translate to a page start position
                 gc.translate(x, y);
 
@@ -19,4 +19,13 @@ public interface Printable {
      PageLayout getPageLayout();
 
      void update(PageLayout pageLayout, PrintOptions printOptions);
+
+     /**
+      * For printables that render pages lazily, the listener is called in FX application thread when a page is rendered.
+      *
+      * @param onPageRendered
+      * @since 1.11
+      */
+     default void setOnPageRendered(Runnable onPageRendered) {
+     }
 }
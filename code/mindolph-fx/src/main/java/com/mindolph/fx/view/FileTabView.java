@@ -12,6 +12,7 @@ import com.mindolph.base.event.FileActivatedEvent;
 import com.mindolph.base.event.NotificationType;
 import com.mindolph.core.config.EditorConfig;
 import com.mindolph.core.model.NodeData;
+import com.mindolph.core.search.SearchService;
 import com.mindolph.core.util.FileNameUtils;
 import com.mindolph.fx.TabManager;
 import com.mindolph.fx.editor.EditorFactory;
@@ -226,6 +227,7 @@ public class FileTabView extends BaseView {
                 });
                 editor.setFileSavedEventHandler(savedFileData -> {
                     log.info("File %s saved.".formatted(savedFileData.getFile()));
+                    SearchService.getIns().notifyFileChanged(savedFileData.getFile());
                     Tab curTab = getCurrentTab();
                     curTab.setText(fileData.getName());
                     // curTab.setStyle("-fx-font-size: 14"); seams not work for default font
@@ -5,6 +5,7 @@ import com.mindolph.base.FontIconManager;
 import com.mindolph.base.constant.IconKey;
 import com.mindolph.base.control.MTreeView;
 import com.mindolph.base.event.EventBus;
+import com.mindolph.base.event.OutlineChange;
 import com.mindolph.core.model.OutlineItemData;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -16,7 +17,7 @@ import org.slf4j.LoggerFactory;
 import org.swiftboot.collections.tree.Node;
 import org.swiftboot.collections.tree.Tree;
 
-import java.util.Optional;
+import java.util.*;
 
 /**
  * @see OutlineItemData
@@ -32,6 +33,8 @@ public class OutlineView extends BaseView {
 
     // data tree for outline of one file.
     private Tree tree;
+    // items of the tree in document order, null if they are not loaded from the tree yet.
+    private List<Entry> entries;
 
     public OutlineView() {
         super("/view/outline_view.fxml", false);
@@ -70,8 +73,16 @@ public class OutlineView extends BaseView {
         });
 
         EventBus.getIns().subscribeOutline(tree -> {
-            this.tree = tree;
-            this.refresh();
+            // run later since the events are emitted in threads.
+            this.runInFxThread(() -> {
+                this.tree = tree;
+                this.entries = null;
+                this.refresh();
+            });
+        });
+
+        EventBus.getIns().subscribeOutlineChange(change -> {
+            this.runInFxThread(() -> this.applyChange(change));
         });
 
         super.activeProperty().addListener((observable, oldValue, newValue) -> {
@@ -82,17 +93,87 @@ public class OutlineView extends BaseView {
 
     }
 
+    private void runInFxThread(Runnable runnable) {
+        if (Platform.isFxApplicationThread()) {
+            runnable.run();
+        }
+        else {
+            Platform.runLater(runnable);
+        }
+    }
+
     private void refresh() {
-        // run later since the events are emitted in threads.
         if (!super.getActive()) return; // avoid unnecessary refreshing.
-        Platform.runLater(() -> {
-            treeView.removeAll();
-            if (tree != null && tree.getRootNode() != null) {
-                treeView.setRoot(rootItem);
-                loadOutlineTreeNode(rootItem, tree.getRootNode());
+        if (entries == null) {
+            this.reload();
+        }
+    }
+
+    private void reload() {
+        treeView.removeAll();
+        entries = new ArrayList<>();
+        if (tree != null && tree.getRootNode() != null) {
+            treeView.setRoot(rootItem);
+            loadOutlineTreeNode(rootItem, tree.getRootNode());
+        }
+        else {
+            log.debug("No outline for this document");
+        }
+    }
+
+    /**
+     * Apply changes to the items in place, only the items whose children are changed are updated.
+     *
+     * @param change
+     */
+    private void applyChange(OutlineChange change) {
+        if (change.tree() != tree) {
+            return; // the change is for an outline that is not displayed.
+        }
+        if (entries == null) {
+            this.reload();
+        }
+        boolean structureChanged = false;
+        for (OutlineChange.Op op : change.ops()) {
+            if (op instanceof OutlineChange.Update update) {
+                entries.get(update.index()).item.setValue(update.data());
+            }
+            else if (op instanceof OutlineChange.Replace replace) {
+                entries.subList(replace.index(), replace.index() + replace.removeCount()).clear();
+                List<Entry> inserted = new ArrayList<>(replace.items().size());
+                for (OutlineChange.Item item : replace.items()) {
+                    TreeItem<OutlineItemData> treeItem = new TreeItem<>(item.data());
+                    treeItem.setExpanded(true);
+                    inserted.add(new Entry(treeItem, item.level()));
+                }
+                entries.addAll(replace.index(), inserted);
+                structureChanged = true;
+            }
+        }
+        if (structureChanged) {
+            this.relink();
+        }
+    }
+
+    /**
+     * Re-organize the items by their levels, like the outline tree is built.
+     */
+    private void relink() {
+        Map<TreeItem<OutlineItemData>, List<TreeItem<OutlineItemData>>> childrenMap = new HashMap<>();
+        childrenMap.put(rootItem, new ArrayList<>());
+        Deque<Entry> ancestors = new ArrayDeque<>();
+        for (Entry entry : entries) {
+            while (!ancestors.isEmpty() && ancestors.peek().level >= entry.level) {
+                ancestors.pop();
             }
-            else {
-                log.debug("No outline for this document");
+            TreeItem<OutlineItemData> parent = ancestors.isEmpty() ? rootItem : ancestors.peek().item;
+            childrenMap.get(parent).add(entry.item);
+            childrenMap.put(entry.item, new ArrayList<>());
+            ancestors.push(entry);
+        }
+        childrenMap.forEach((parent, children) -> {
+            if (!parent.getChildren().equals(children)) {
+                parent.getChildren().setAll(children);
             }
         });
     }
@@ -109,7 +190,11 @@ public class OutlineView extends BaseView {
             TreeItem<OutlineItemData> childTreeItem = new TreeItem<>((OutlineItemData) node.getData());
             childTreeItem.setExpanded(true);
             treeItem.getChildren().add(childTreeItem);
+            entries.add(new Entry(childTreeItem, node.getLevel()));
             this.loadOutlineTreeNode(childTreeItem, node);
         }
     }
+
+    private record Entry(TreeItem<OutlineItemData> item, int level) {
+    }
 }
@@ -14,7 +14,6 @@ import com.mindolph.fx.control.FileFilterButtonGroup;
 import com.mindolph.fx.control.FileTreeView;
 import com.mindolph.fx.control.FileTreeView.FileTreeViewData;
 import com.mindolph.mfx.preference.FxPreferences;
-import com.mindolph.mfx.util.AsyncUtils;
 import com.mindolph.mfx.util.FxmlUtils;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -30,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static com.mindolph.core.constant.SceneStatePrefs.MINDOLPH_FIND_FILES_KEYWORD;
 
@@ -68,7 +68,9 @@ public class SearchResultPane extends AnchorPane {
 
     private SearchParams searchParams;
 
-    private List<FoundFile> foundFiles;
+    // the running search, it's cancelled if a new search starts or this pane is closed.
+    private CompletableFuture<List<FoundFile>> searching;
+    private int searchGeneration = 0; // to ignore the results from superseded searches.
 
     public SearchResultPane() {
         FxmlUtils.loadUri("/view/search_result_pane.fxml", this);
@@ -112,6 +114,12 @@ public class SearchResultPane extends AnchorPane {
         Platform.runLater(() -> {
             tfKeywords.requestFocus();
         });
+        sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (newScene == null && searching != null) {
+                log.debug("Search result pane is closed, cancel searching");
+                searching.cancel(false);
+            }
+        });
     }
 
     public void init(SearchParams searchParams) {
@@ -147,7 +155,7 @@ public class SearchResultPane extends AnchorPane {
     }
 
     /**
-     * Do the searching asynchronously.
+     * Do the searching asynchronously, the found files are displayed as soon as they are found.
      */
     private void reSearch() {
         log.debug("reSearch()");
@@ -155,33 +163,58 @@ public class SearchResultPane extends AnchorPane {
         if (StringUtils.isBlank(keyword)) {
             return;
         }
+        if (searching != null) {
+            searching.cancel(false);
+        }
+        rootItem.getChildren().clear();
+        label.setText("Searching...");
         progressIndicator.setVisible(true);
         IOFileFilter newFileFilter = searchParams.getSearchFilter();
-        AsyncUtils.fxAsync(() -> {
-            foundFiles = SearchService.getIns().searchInFilesIn(searchParams.getSearchInDir(), newFileFilter, searchParams);
-        }, () -> {
+        int generation = ++searchGeneration;
+        CompletableFuture<List<FoundFile>> future = SearchService.getIns().searchInFilesAsync(searchParams.getSearchInDir(), newFileFilter, searchParams,
+                foundFile -> Platform.runLater(() -> {
+                    if (generation == searchGeneration) this.addFoundFile(foundFile);
+                }));
+        searching = future;
+        future.whenComplete((foundFiles, throwable) -> Platform.runLater(() -> {
+            if (generation != searchGeneration) {
+                return; // superseded by new search
+            }
             progressIndicator.setVisible(false);
-            FxPreferences.getInstance().savePreference(MINDOLPH_FIND_FILES_KEYWORD, keyword);
-            this.updateSearchResult();
-        });
+            if (foundFiles != null) {
+                FxPreferences.getInstance().savePreference(MINDOLPH_FIND_FILES_KEYWORD, keyword);
+                label.setText("Found %d files.".formatted(foundFiles.size()));
+            }
+            else if (!future.isCancelled()) {
+                label.setText("Search failed.");
+            }
+        }));
     }
 
-    private void updateSearchResult() {
-//        label.setText("Found %d files in folder %s".formatted(foundFiles.size(), searchParams.getSearchInDir()));
-        label.setText("Found %d files.".formatted(foundFiles.size()));
-        rootItem.getChildren().clear();
-        for (FoundFile foundFile : foundFiles) {
-            TreeItem<FileTreeViewData> item = new TreeItem<>(new FileTreeViewData(true, foundFile.getFile()));
-            item.setExpanded(true);
-//            item.setValue(file);
-            rootItem.getChildren().add(item);
-            if (CollectionUtils.isNotEmpty(foundFile.getInfos())) {
-                for (MatchedItem info : foundFile.getInfos()) {
-                    TreeItem<FileTreeViewData> infoNode = new TreeItem<>(new FileTreeViewData(false, foundFile.getFile(), info));
-                    item.getChildren().add(infoNode);
-                }
+    /**
+     * Add found file to the result tree, keep the files in order of path since they are found in parallel.
+     *
+     * @param foundFile
+     */
+    private void addFoundFile(FoundFile foundFile) {
+        TreeItem<FileTreeViewData> item = new TreeItem<>(new FileTreeViewData(true, foundFile.getFile()));
+        item.setExpanded(true);
+        if (CollectionUtils.isNotEmpty(foundFile.getInfos())) {
+            for (MatchedItem info : foundFile.getInfos()) {
+                TreeItem<FileTreeViewData> infoNode = new TreeItem<>(new FileTreeViewData(false, foundFile.getFile(), info));
+                item.getChildren().add(infoNode);
             }
         }
+        List<TreeItem<FileTreeViewData>> children = rootItem.getChildren();
+        int low = 0;
+        int high = children.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (children.get(mid).getValue().getFile().compareTo(foundFile.getFile()) < 0) low = mid + 1;
+            else high = mid;
+        }
+        children.add(low, item);
+        label.setText("Found %d files...".formatted(children.size()));
     }
 
 }
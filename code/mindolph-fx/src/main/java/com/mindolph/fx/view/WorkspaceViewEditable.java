@@ -14,6 +14,7 @@ import com.mindolph.base.event.OpenFileEvent;
 import com.mindolph.base.util.MindolphFileUtils;
 import com.mindolph.base.util.RegionUtils;
 import com.mindolph.core.WorkspaceManager;
+import com.mindolph.core.WorkspaceWatcher;
 import com.mindolph.core.config.WorkspaceConfig;
 import com.mindolph.core.constant.NodeType;
 import com.mindolph.core.constant.SceneStatePrefs;
@@ -64,9 +65,11 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -285,6 +288,7 @@ public class WorkspaceViewEditable extends BaseView implements EventHandler<Acti
         EventBus.getIns()
                 // for "save as"
                 .subscribeNewFileToWorkspace(file -> {
+                    SearchService.getIns().notifyFileChanged(file);
                     NodeData newFileData = new NodeData(file);
                     newFileData.setWorkspaceData(activeWorkspaceData);
                     if (activeWorkspaceData.getFile().equals(file.getParentFile())) {
@@ -299,6 +303,7 @@ public class WorkspaceViewEditable extends BaseView implements EventHandler<Acti
                     this.loadWorkspaces(WorkspaceManager.getIns().getWorkspaceList());
                 })
                 .subscribeWorkspaceClosed(closedWorkspaceMeta -> {
+                    WorkspaceManager.getIns().unwatchWorkspace(new File(closedWorkspaceMeta.getBaseDirPath()));
                     // TODO refactor?
                     if (closedWorkspaceMeta.getBaseDirPath().equals(activeWorkspaceData.getFile().getPath())) {
                         activeWorkspaceData = null;
@@ -306,7 +311,10 @@ public class WorkspaceViewEditable extends BaseView implements EventHandler<Acti
                     }
                     SceneRestore.getInstance().saveScene(WorkspaceManager.getIns().getWorkspaceList());
                     this.loadWorkspaces(WorkspaceManager.getIns().getWorkspaceList());
-                });
+                })
+                // keep the search index up to date
+                .subscribeFilePathChanged(event -> SearchService.getIns().notifyFileMoved(event.getNodeData().getFile(), event.getNewFile()))
+                .subscribeDeletedFile(nodeData -> SearchService.getIns().notifyFileDeleted(nodeData.getFile()));
         SearchService.getIns().registerMatcher(TYPE_MIND_MAP, new MindMapTextMatcher(true));
         SearchService.getIns().registerMatcher(TYPE_CSV, new CsvMatcher(true));
         SearchService.getIns().registerFileLinkMatcher(TYPE_MIND_MAP, new FileLinkMindMapSearchMatcher());
@@ -454,6 +462,8 @@ public class WorkspaceViewEditable extends BaseView implements EventHandler<Acti
         if (selectedData != null) {
             if (selectedData.isWorkspace()) {
                 rootItem.getChildren().remove(selectedTreeItem);
+                // drop all snapshots to load the workspace from disk.
+                WorkspaceManager.getIns().unwatchWorkspace(selectedData.getFile());
                 WorkspaceMeta meta = new WorkspaceMeta(selectedData.getFile().getPath());
                 this.loadWorkspace(meta);
             }
@@ -468,6 +478,7 @@ public class WorkspaceViewEditable extends BaseView implements EventHandler<Acti
      */
     public void reloadFolder(TreeItem<NodeData> treeItem, NodeData folderData) {
         log.debug("reload folder: %s".formatted(folderData.getFile()));
+        WorkspaceManager.getIns().invalidateFolder(folderData.getFile());
         List<NodeData> childrenData = WorkspaceManager.getIns().loadFolder(folderData, workspaceConfig);
         this.populateTreeNode(treeItem, childrenData);
         treeView.select(treeItem);
@@ -483,6 +494,9 @@ public class WorkspaceViewEditable extends BaseView implements EventHandler<Acti
         NodeData workspaceData = new NodeData(NodeType.WORKSPACE, new File(workspaceMeta.getBaseDirPath()));
         workspaceData.setWorkspaceData(workspaceData);
         rootItem.setValue(workspaceData);
+        // the watcher is reused if the workspace has been loaded before, so the folders are listed from snapshots.
+        WorkspaceManager.getIns().watchWorkspace(workspaceData.getFile(), workspaceConfig,
+                changes -> Platform.runLater(() -> this.applyFolderChanges(changes)));
         List<NodeData> childrenData = WorkspaceManager.getIns().loadWorkspace(workspaceData, workspaceConfig);
         Platform.runLater(() -> {
             this.populateTreeNode(rootItem, childrenData);
@@ -498,6 +512,48 @@ public class WorkspaceViewEditable extends BaseView implements EventHandler<Acti
         });
     }
 
+    /**
+     * Apply the changes of folders made externally (like a git checkout) to the tree,
+     * the changes of folders not loaded to the tree are ignored since they will be loaded from snapshots.
+     *
+     * @param changes
+     */
+    private void applyFolderChanges(List<WorkspaceWatcher.FolderChange> changes) {
+        for (WorkspaceWatcher.FolderChange change : changes) {
+            change.removed().forEach(file -> SearchService.getIns().notifyFileDeleted(file));
+            change.added().forEach(file -> SearchService.getIns().notifyFileChanged(file));
+            if (activeWorkspaceData == null) {
+                continue;
+            }
+            File folder = change.folder();
+            TreeItem<NodeData> folderItem = activeWorkspaceData.getFile().equals(folder) ? rootItem : this.findTreeItemByFile(folder);
+            if (folderItem == null) {
+                continue; // not in the active workspace or not loaded yet.
+            }
+            log.debug("folder changed externally: %s, %d added, %d removed".formatted(folder, change.added().size(), change.removed().size()));
+            Set<File> removed = new HashSet<>(change.removed());
+            folderItem.getChildren().removeIf(treeItem -> removed.contains(treeItem.getValue().getFile()));
+            Set<File> existing = folderItem.getChildren().stream().map(treeItem -> treeItem.getValue().getFile()).collect(Collectors.toSet());
+            for (File file : change.added()) {
+                if (!existing.add(file)) {
+                    continue; // created by this app
+                }
+                NodeData nodeData = new NodeData(file.isDirectory() ? NodeType.FOLDER : NodeType.FILE, file);
+                nodeData.setWorkspaceData(activeWorkspaceData);
+                if (nodeData.isFolder()) {
+                    TreeItem<NodeData> newFolderItem = this.addFolder(folderItem, nodeData);
+                    if (folderItem == rootItem || folderItem.isExpanded()) {
+                        // pre-load like the other visible folders.
+                        this.populateTreeNode(newFolderItem, WorkspaceManager.getIns().loadFolder(nodeData, workspaceConfig));
+                    }
+                }
+                else {
+                    this.addFile(folderItem, nodeData);
+                }
+            }
+        }
+    }
+
     /**
      * @param parent       The tree node populate children to
      * @param childrenData
@@ -865,6 +921,7 @@ public class WorkspaceViewEditable extends BaseView implements EventHandler<Acti
                 NodeData nodeData = new NodeData(newFile);
                 nodeData.setWorkspaceData(selectedData.getWorkspaceData());
                 this.addFileAndSelect(selectedTreeItem, nodeData);
+                SearchService.getIns().notifyFileChanged(newFile);
                 EventBus.getIns().notifyOpenFile(new OpenFileEvent(newFile));
             });
         }
@@ -1189,6 +1246,7 @@ public class WorkspaceViewEditable extends BaseView implements EventHandler<Acti
         NodeData newFileData = new NodeData(cloneFile);
         newFileData.setWorkspaceData(activeWorkspaceData);
         addFile(folderTreeItem, newFileData);
+        SearchService.getIns().notifyFileChanged(cloneFile);
         treeView.refresh();
     }
 
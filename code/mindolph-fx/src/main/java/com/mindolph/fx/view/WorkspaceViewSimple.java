@@ -22,9 +22,8 @@ import org.slf4j.LoggerFactory;
 import org.swiftboot.collections.tree.Node;
 import org.swiftboot.collections.tree.Tree;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.io.File;
+import java.util.*;
 import java.util.function.Consumer;
 
 import static com.mindolph.base.constant.Comparators.SORTING_TREE_ITEMS;
@@ -160,19 +159,79 @@ public class WorkspaceViewSimple extends BaseView {
     private void asyncCreateWorkspaceSubTree(WorkspaceMeta workspaceMeta) {
         new Thread(() -> {
             log.debug("start a new thread to load workspace: %s".formatted(workspaceMeta.getBaseDirPath()));
+            // render the snapshot of last loading first (if exists), and then reconcile it with the loaded tree.
+            Tree snapshotTree = WorkspaceManager.getIns().loadWorkspaceSnapshot(workspaceConfig, workspaceMeta);
+            TreeItem<NodeData> snapshotItem = snapshotTree == null ? null : this.renderWorkspace(workspaceMeta, snapshotTree);
             Tree tree = WorkspaceManager.getIns().loadWorkspaceRecursively(workspaceConfig, workspaceMeta);
-            Node workspaceNode = tree.getRootNode();
-            rootItem = new TreeItem<>((NodeData) workspaceNode.getData());
-
-            Platform.runLater(() -> {
-                this.loadTreeNode(workspaceNode, rootItem);
-                treeView.setRoot(rootItem);
-                log.debug("workspace loaded: " + workspaceMeta.getBaseDirPath());
-                EventBus.getIns().notifyWorkspaceLoaded(rootItem);
-            });
+            if (snapshotTree == null) {
+                this.renderWorkspace(workspaceMeta, tree);
+            }
+            else {
+                Platform.runLater(() -> {
+                    if (treeView.getRoot() != snapshotItem) {
+                        // another workspace (or reloading) is rendered during the loading.
+                        log.debug("workspace %s is replaced, skip reconciling".formatted(workspaceMeta.getBaseDirPath()));
+                        return;
+                    }
+                    this.mergeTreeNode(tree.getRootNode(), snapshotItem);
+                    log.debug("workspace reconciled: " + workspaceMeta.getBaseDirPath());
+                });
+            }
         }, "Workspace Load Thread").start();
     }
 
+    private TreeItem<NodeData> renderWorkspace(WorkspaceMeta workspaceMeta, Tree tree) {
+        Node workspaceNode = tree.getRootNode();
+        rootItem = new TreeItem<>((NodeData) workspaceNode.getData());
+        TreeItem<NodeData> workspaceItem = rootItem;
+        Platform.runLater(() -> {
+            this.loadTreeNode(workspaceNode, workspaceItem);
+            treeView.setRoot(workspaceItem);
+            log.debug("workspace loaded: " + workspaceMeta.getBaseDirPath());
+            EventBus.getIns().notifyWorkspaceLoaded(workspaceItem);
+        });
+        return workspaceItem;
+    }
+
+    /**
+     * Update the tree items with the loaded tree data, the existing tree items are kept (with their expansion and selection).
+     *
+     * @param parentNode
+     * @param parent
+     */
+    private void mergeTreeNode(Node parentNode, TreeItem<NodeData> parent) {
+        Map<File, NodeData> childrenData = new HashMap<>();
+        for (Node childNode : parentNode.getChildren()) {
+            NodeData nodeData = (NodeData) childNode.getData();
+            childrenData.put(nodeData.getFile(), nodeData);
+        }
+        parent.getChildren().removeIf(treeItem -> {
+            NodeData nodeData = childrenData.get(treeItem.getValue().getFile());
+            return nodeData == null || nodeData.isFolder() != treeItem.getValue().isFolder();
+        });
+        Map<File, TreeItem<NodeData>> existingItems = new HashMap<>();
+        for (TreeItem<NodeData> treeItem : parent.getChildren()) {
+            existingItems.put(treeItem.getValue().getFile(), treeItem);
+        }
+        for (Node childNode : parentNode.getChildren()) {
+            NodeData nodeData = (NodeData) childNode.getData();
+            TreeItem<NodeData> existing = existingItems.get(nodeData.getFile());
+            if (existing != null) {
+                if (nodeData.isFolder()) {
+                    this.mergeTreeNode(childNode, existing); // recursive
+                }
+            }
+            else if (nodeData.isFolder()) {
+                TreeItem<NodeData> folderItem = this.addFolder(parent, nodeData);
+                folderItem.setExpanded(this.expandAllAsDefault);
+                this.loadTreeNode(childNode, folderItem);
+            }
+            else if (nodeData.isFile() && !this.excludeFiles) {
+                this.addFile(parent, nodeData);
+            }
+        }
+    }
+
     /**
      * Load tree data recursively.
      *
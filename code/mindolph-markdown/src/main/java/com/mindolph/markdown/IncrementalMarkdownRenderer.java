@@ -0,0 +1,242 @@
+package com.mindolph.markdown;
+
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.ast.Reference;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Render markdown to HTML by top-level blocks, and for changed text, only the blocks around the change
+ * are parsed and rendered again, the other blocks are reused with their HTML.
+ * The re-parsing starts from the block before the change and extends to the following blocks
+ * until one of them is parsed exactly as before (like an opened code fence might swallow the rest of text).
+ * Documents with link reference definitions are always parsed and rendered fully, because
+ * the references affect blocks anywhere, so are the documents with duplicated headings, because the ids of
+ * headings are numbered through the whole document.
+ * Not thread-safe, all methods are supposed to be called in one background thread.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class IncrementalMarkdownRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalMarkdownRenderer.class);
+
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+
+    private String lastText;
+    private List<Block> blocks = Collections.emptyList();
+    private boolean hasReference;
+    private boolean hasDuplicatedHeading;
+    private long idSequence;
+
+    public IncrementalMarkdownRenderer(Parser parser, HtmlRenderer renderer) {
+        this.parser = parser;
+        this.renderer = renderer;
+    }
+
+    /**
+     * Let next update render the whole text.
+     */
+    public void reset() {
+        this.lastText = null;
+        this.blocks = Collections.emptyList();
+    }
+
+    /**
+     * @param text
+     * @return null if the text is not changed since last update.
+     */
+    public Update update(String text) {
+        if (lastText == null || hasReference || hasDuplicatedHeading) {
+            return this.updateAll(text);
+        }
+        if (lastText.equals(text)) {
+            return null;
+        }
+        int oldLength = lastText.length();
+        int max = Math.min(oldLength, text.length());
+        int prefix = 0;
+        while (prefix < max && lastText.charAt(prefix) == text.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix && lastText.charAt(oldLength - 1 - suffix) == text.charAt(text.length() - 1 - suffix)) {
+            suffix++;
+        }
+        int changeEnd = oldLength - suffix; // in old text
+        int delta = text.length() - oldLength;
+
+        // the block before the changed one is parsed again too, the change might join them.
+        int first = 0;
+        while (first < blocks.size() && blocks.get(first).end() < prefix) {
+            first++;
+        }
+        int from = Math.max(0, first - 1);
+        int to = from;
+        while (to < blocks.size() && blocks.get(to).start() <= changeEnd) {
+            to++;
+        }
+        int regionStart = from == 0 ? 0 : blocks.get(from - 1).end();
+        int step = 1;
+        while (true) {
+            // the block at 'to' is the one expected to be parsed as before.
+            Block sync = to < blocks.size() ? blocks.get(to) : null;
+            int regionEnd = sync == null ? text.length() : sync.end() + delta;
+            List<Block> parsed = this.parse(text, regionStart, regionEnd);
+            if (parsed == null) {
+                return this.updateAll(text); // reference found.
+            }
+            if (sync != null) {
+                Block last = parsed.isEmpty() ? null : parsed.get(parsed.size() - 1);
+                if (last == null || last.start() != sync.start() + delta || !last.source().equals(sync.source())) {
+                    to = Math.min(blocks.size(), to + step);
+                    step *= 2;
+                    continue;
+                }
+                parsed.remove(parsed.size() - 1);
+            }
+            for (int i = from; i < to; i++) {
+                if (blocks.get(i).reference()) {
+                    return this.updateAll(text);
+                }
+            }
+            List<Block> newBlocks = new ArrayList<>(blocks.size() - (to - from) + parsed.size());
+            newBlocks.addAll(blocks.subList(0, from));
+            newBlocks.addAll(parsed);
+            for (int i = to; i < blocks.size(); i++) {
+                newBlocks.add(blocks.get(i).shift(delta));
+            }
+            if (hasDuplicatedHeading(newBlocks)) {
+                return this.updateAll(text); // the ids of headings in the parsed blocks are numbered without others.
+            }
+            List<Block> removed = List.copyOf(blocks.subList(from, to));
+            String afterId = from == 0 ? null : blocks.get(from - 1).id();
+            log.trace("Re-rendered %d blocks for %d changed blocks".formatted(parsed.size(), removed.size()));
+            this.lastText = text;
+            this.blocks = newBlocks;
+            return new Update(newBlocks, false, removed, afterId, parsed);
+        }
+    }
+
+    private Update updateAll(String text) {
+        Document document = parser.parse(text);
+        List<Block> newBlocks = new ArrayList<>();
+        hasReference = false;
+        for (Node node : document.getChildren()) {
+            boolean reference = node instanceof Reference;
+            hasReference |= reference;
+            newBlocks.add(this.createBlock(text, 0, node, reference));
+        }
+        hasDuplicatedHeading = hasDuplicatedHeading(newBlocks);
+        this.lastText = text;
+        this.blocks = newBlocks;
+        return new Update(newBlocks, true, Collections.emptyList(), null, newBlocks);
+    }
+
+    private static boolean hasDuplicatedHeading(List<Block> blocks) {
+        Set<String> headings = new HashSet<>();
+        for (Block block : blocks) {
+            for (String heading : block.headings()) {
+                if (!headings.add(heading)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return blocks in the region, or null if any link reference definition is found.
+     */
+    private List<Block> parse(String text, int regionStart, int regionEnd) {
+        Document document = parser.parse(text.substring(regionStart, regionEnd));
+        List<Block> result = new ArrayList<>();
+        for (Node node : document.getChildren()) {
+            if (node instanceof Reference) {
+                return null;
+            }
+            result.add(this.createBlock(text, regionStart, node, false));
+        }
+        return result;
+    }
+
+    private Block createBlock(String text, int offset, Node node, boolean reference) {
+        int start = offset + node.getStartOffset();
+        int end = offset + node.getEndOffset();
+        List<String> headings = new ArrayList<>(0);
+        collectHeadings(node, headings);
+        return new Block("md-block-" + (++idSequence), start, end, text.substring(start, end), renderer.render(node), reference, headings);
+    }
+
+    // the headings are compared by letters and digits, which covers the headings that have the same id.
+    private static void collectHeadings(Node node, List<String> headings) {
+        if (node instanceof Heading heading) {
+            headings.add(heading.getText().toString().toLowerCase().replaceAll("[^\\p{L}\\p{Nd}]", ""));
+            return;
+        }
+        for (Node child : node.getChildren()) {
+            collectHeadings(child, headings);
+        }
+    }
+
+    /**
+     * Top-level block of markdown.
+     *
+     * @param id        unique id for the element of this block in preview.
+     * @param start     start offset in text.
+     * @param end       end offset in text.
+     * @param source
+     * @param html      rendered HTML.
+     * @param reference whether it's a link reference definition.
+     * @param headings  headings in this block, for checking duplicated headings.
+     */
+    public record Block(String id, int start, int end, String source, String html, boolean reference,
+                        List<String> headings) {
+
+        Block shift(int delta) {
+            return delta == 0 ? this : new Block(id, start + delta, end + delta, source, html, reference, headings);
+        }
+
+        /**
+         * @return HTML in an element with the id of this block.
+         */
+        public String wrappedHtml() {
+            return "<div id=\"%s\" class=\"md-block\">%s</div>".formatted(id, html);
+        }
+    }
+
+    /**
+     * Blocks that are changed by an update.
+     *
+     * @param blocks   all blocks after update.
+     * @param full     whether all blocks are rendered again.
+     * @param removed  blocks that are removed (or replaced) from previous blocks.
+     * @param afterId  id of the block that inserted blocks follow, null for the head.
+     * @param inserted new blocks.
+     */
+    public record Update(List<Block> blocks, boolean full, List<Block> removed, String afterId, List<Block> inserted) {
+
+        /**
+         * @return HTML of all blocks without wrapping.
+         */
+        public String html() {
+            StringBuilder buf = new StringBuilder();
+            for (Block block : blocks) {
+                buf.append(block.html());
+            }
+            return buf.toString();
+        }
+    }
+}
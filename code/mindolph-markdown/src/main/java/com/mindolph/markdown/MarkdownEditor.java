@@ -20,6 +20,8 @@ import com.mindolph.core.constant.SupportFileTypes;
 import com.mindolph.core.search.TextLocation;
 import com.mindolph.core.template.HtmlBuilder;
 import com.mindolph.core.util.FileNameUtils;
+import com.mindolph.markdown.IncrementalMarkdownRenderer.Block;
+import com.mindolph.markdown.IncrementalMarkdownRenderer.Update;
 import com.mindolph.mfx.dialog.DialogFactory;
 import com.mindolph.mfx.dialog.impl.TextBlockDialog;
 import com.mindolph.mfx.util.BoundsUtils;
@@ -34,6 +36,7 @@ import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.ast.KeepType;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.MutableDataSet;
+import javafx.concurrent.Worker;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Bounds;
@@ -66,7 +69,6 @@ import org.swiftboot.util.ClasspathResourceUtils;
 import org.swiftboot.util.IoUtils;
 import org.swiftboot.util.PathUtils;
 import org.swiftboot.util.UrlUtils;
-import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.events.EventTarget;
 import org.w3c.dom.html.HTMLAnchorElement;
@@ -86,6 +88,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import static com.mindolph.base.constant.FontConstants.KEY_MD_EDITOR;
 import static com.mindolph.base.constant.FontConstants.KEY_MD_EDITOR_MONO;
@@ -103,6 +107,8 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
     public static final String URL_MARKUP = "[%s](%s)";
     public static final String IMG_MARKUP = "![%s](%s)";
 
+    public static final int DEFAULT_PREVIEW_DELAY_IN_MILLIS = 300;
+
 
     private static final String initScrollScript = """
             function initScrollPos(){
@@ -110,6 +116,35 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
             }
             """;
 
+    // replace the elements of changed blocks without reloading the page.
+    private static final String patchScript = """
+            function patchBlocks(removedIds, afterId, html) {
+                const parent = document.querySelector('article');
+                const after = afterId ? document.getElementById(afterId) : null;
+                if (!parent || (afterId && !after)) {
+                    throw 'block not found: ' + afterId;
+                }
+                if (removedIds) {
+                    removedIds.split(',').forEach(id => {
+                        const e = document.getElementById(id);
+                        if (e) e.remove();
+                    });
+                }
+                const template = document.createElement('template');
+                template.innerHTML = html;
+                template.content.querySelectorAll('a').forEach(link => {
+                    link.onmouseenter = () => {
+                        window.hoverListener.onHover(link.href);
+                    }
+                    link.onclick = () => {
+                        window.clickListener.onFileLinkClicked(link.href);
+                    }
+                    link.target='_blank';
+                });
+                parent.insertBefore(template.content, after ? after.nextSibling : parent.firstChild);
+            }
+            """;
+
 
     @FXML
     private AnchorPane panePreview;
@@ -124,12 +159,20 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
     @FXML
     private WebView webView;
     private WebEngine webEngine;
-    private String html;
+    // the preview page is being loaded, patches can't be applied.
+    private boolean pageLoading;
+    private Update previewUpdate;
     private ContextMenu contextMenu;
 
     // markdown parser and renderer
     private final Parser parser;
     private final HtmlRenderer renderer;
+    // used only in the thread of threadPoolService.
+    private final IncrementalMarkdownRenderer incrementalRenderer;
+    // the latest text to preview, older ones are dropped if not rendered yet.
+    private final AtomicReference<String> pendingText = new AtomicReference<>();
+    private final EventSource<String> previewSource = new EventSource<>();
+    private Callback<Object, Void> previewCallback;
 
     // used to force refresh resource in page like images.
     private String timestamp;
@@ -177,7 +220,10 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
         });
 
         webEngine.documentProperty().addListener((observable, oldValue, newValue) -> {
-            if (newValue != null) interceptLinks(newValue);
+            if (newValue != null) interceptLinks(newValue.getElementsByTagName("a"));
+        });
+        webEngine.getLoadWorker().stateProperty().addListener((observable, oldValue, newValue) -> {
+            pageLoading = newValue == Worker.State.SCHEDULED || newValue == Worker.State.RUNNING;
         });
 
         contextMenu = createContextMenu();
@@ -205,8 +251,31 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
 
         parser = Parser.builder(options).build();
         renderer = HtmlRenderer.builder(options).build();
+        incrementalRenderer = new IncrementalMarkdownRenderer(parser, renderer);
         // this.refresh();// to set up the font
 
+        // coalesce the text changes in a short time, only the latest one is previewed.
+        int previewDelay = fxPreferences.getPreference(PREF_KEY_MD_PREVIEW_DELAY, DEFAULT_PREVIEW_DELAY_IN_MILLIS);
+        previewSource.reduceSuccessions((s1, s2) -> s2, Duration.ofMillis(previewDelay))
+                .subscribe(text -> {
+                    pendingText.set(text);
+                    threadPoolService.execute(() -> {
+                        String pending = pendingText.getAndSet(null);
+                        if (pending == null) {
+                            return; // rendered by previous task.
+                        }
+                        try {
+                            Update update = incrementalRenderer.update(pending);
+                            if (update != null) {
+                                previewCallback.call(update);
+                            }
+                        } catch (Exception e) {
+                            log.error("Failed to render markdown", e);
+                            incrementalRenderer.reset();
+                        }
+                    });
+                });
+
         scrollEventCode.reduceSuccessions((s1, s2) -> s2, Duration.ofMillis(100))
                 .subscribe(newY -> {
                     scrollEventPreview.suspenderOf(scrollEventCode.suppressible().suppressible());
@@ -323,8 +392,7 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
         }
     }
 
-    private void interceptLinks(Document document) {
-        NodeList linkNodeList = document.getElementsByTagName("a");
+    private void interceptLinks(NodeList linkNodeList) {
         for (int i = 0; i < linkNodeList.getLength(); i++) {
             org.w3c.dom.Node item = linkNodeList.item(i);
             EventTarget eventTarget = (EventTarget) item;
@@ -376,18 +444,9 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
             return;
         }
 
-//        Executors.newSingleThreadExecutor().submit(() -> {
-        // MutableDataSet options = new MutableDataSet();
-        // uncomment to set optional extensions
-        // options.set(Parser.EXTENSIONS, Arrays.asList(TablesExtension.create(), StrikethroughExtension.create()));
-
-        // uncomment to convert soft-breaks to hard breaks
-        // options.set(HtmlRenderer.SOFT_BREAK, "<br />\n");
-
-        Node document = parser.parse(codeArea.getText());
-        String html = renderer.render(document);
-        callback.call(html);
-//        });
+        // parsed and rendered in background, see the subscriber of previewSource.
+        this.previewCallback = callback;
+        previewSource.push(text);
     }
 
     private ContextMenu createContextMenu() {
@@ -414,6 +473,7 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
         miRefresh.setOnAction(e -> {
             timestamp = String.valueOf(System.currentTimeMillis());
             webEngine.load("about:blank");
+            threadPoolService.execute(incrementalRenderer::reset);
             refresh(codeArea.getText());
         });
         miExportHtml.setOnAction(e -> {
@@ -458,7 +518,7 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
                 WritableImage snapshot = canvasWebView.snapshot(null, null);
                 FxImageUtils.dumpImage(snapshot);
             });
-            canvasWebView.getEngine().loadContent(html);
+            canvasWebView.getEngine().loadContent(getHtml());
         });
         miExportPdf.setOnAction(event -> {
             File file = editorContext.getFileData().getFile();
@@ -471,7 +531,7 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
                     try {
                         String sansFontFilePath = fxPreferences.getPreferenceAlias(PREF_KEY_MD_SANS_FONT_FILE, PREF_KEY_MD_FONT_FILE_PDF, String.class);
                         String monoFontFilePath = fxPreferences.getPreference(PREF_KEY_MD_MONO_FONT_FILE, String.class);
-                        String finalHtml = new HtmlBuilder(html)
+                        String finalHtml = new HtmlBuilder(getHtml())
                                 .title(editorContext.getFileData().getName())
                                 .absoluteUri(editorContext.getFileData().getFile().getParentFile())
                                 .css("style/markdown_export_pdf.css")
@@ -523,8 +583,21 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
 
     @Override
     protected void render(Object renderObject) {
+        Update update = (Update) renderObject;
+        previewUpdate = update;
+        if (webEngine == null) {
+            return;
+        }
+        if (!update.full() && !pageLoading) {
+            try {
+                this.patch(update);
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to patch markdown preview, reload it", e);
+            }
+        }
         log.info("Load markdown html to web view");
-        html = (String) renderObject;
+        String html = update.blocks().stream().map(Block::wrappedHtml).collect(Collectors.joining());
 
         String finalScript = RegExUtils.replaceAll(initScrollScript, "\\$\\{xPos\\}", String.valueOf(currentScrollH));
         finalScript = RegExUtils.replaceAll(finalScript, "\\$\\{yPos\\}", String.valueOf(currentScrollV));
@@ -533,19 +606,48 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
                 .title(editorContext.getFileData().getName())
                 .absoluteUri(editorContext.getFileData().getFile().getParentFile())
                 .css("style/markdown_preview_github.css")
-                .script(finalScript, "initScrollPos")
+                .script(finalScript + patchScript, "initScrollPos")
                 .markdown("markdown-body")
                 .build(timestamp);
 
 //        System.out.println(finalHtml);
 
         log.info("markdown rendered as html done with length: %d".formatted(finalHtml.length()));
-        if (webEngine != null) {
-            webEngine.loadContent(finalHtml);
-        }
+        pageLoading = true;
+        webEngine.loadContent(finalHtml);
         log.debug("after calling webengine loading html");
     }
 
+    /**
+     * Replace the elements of changed blocks in the preview page, the scroll position is kept.
+     *
+     * @param update
+     */
+    private void patch(Update update) {
+        String removedIds = update.removed().stream().map(Block::id).collect(Collectors.joining(","));
+        String html = update.inserted().stream().map(Block::wrappedHtml).collect(Collectors.joining());
+        if (StringUtils.isNotEmpty(html)) {
+            // resolve the image paths like the whole page.
+            html = new HtmlBuilder(html)
+                    .absoluteUri(editorContext.getFileData().getFile().getParentFile())
+                    .build(timestamp);
+            html = StringUtils.defaultIfEmpty(StringUtils.substringBetween(html, "<body>", "</body>"), html);
+        }
+        JSObject window = (JSObject) webEngine.executeScript("window");
+        window.call("patchBlocks", removedIds, update.afterId(), html);
+        log.debug("Patched markdown preview with %d blocks replaced by %d blocks".formatted(update.removed().size(), update.inserted().size()));
+        for (Block block : update.inserted()) {
+            org.w3c.dom.Element element = webEngine.getDocument().getElementById(block.id());
+            if (element != null) {
+                interceptLinks(element.getElementsByTagName("a"));
+            }
+        }
+    }
+
+    private String getHtml() {
+        return previewUpdate == null ? StringUtils.EMPTY : previewUpdate.html();
+    }
+
     @Override
     protected void afterRender() {
     }
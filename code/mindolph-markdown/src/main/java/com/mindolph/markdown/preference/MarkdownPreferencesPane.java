@@ -1,10 +1,12 @@
 package com.mindolph.markdown.preference;
 
 import com.mindolph.base.control.BasePrefsPane;
+import com.mindolph.markdown.MarkdownEditor;
 import com.mindolph.mfx.dialog.DialogFactory;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
+import javafx.scene.control.Spinner;
 import javafx.scene.control.TextField;
 import javafx.stage.FileChooser;
 import org.apache.commons.lang3.StringUtils;
@@ -26,6 +28,8 @@ public class MarkdownPreferencesPane extends BasePrefsPane implements Initializa
     private TextField tfMonoFontFile;
     @FXML
     private Button btnSelectMono;
+    @FXML
+    private Spinner<Integer> spPreviewDelay;
 
     public MarkdownPreferencesPane() {
         super("/preference/markdown_preferences_pane.fxml");
@@ -34,6 +38,7 @@ public class MarkdownPreferencesPane extends BasePrefsPane implements Initializa
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         super.initialize(location, resources);
+        super.bindSpinner(spPreviewDelay, 50, 3000, 50, PREF_KEY_MD_PREVIEW_DELAY, MarkdownEditor.DEFAULT_PREVIEW_DELAY_IN_MILLIS);
         String sansFontFilePath = fxPreferences.getPreferenceAlias(PREF_KEY_MD_SANS_FONT_FILE, PREF_KEY_MD_FONT_FILE_PDF, String.class);
         String monoFontFilePath = fxPreferences.getPreference(PREF_KEY_MD_MONO_FONT_FILE, String.class);
         File sansFontFile = new File(sansFontFilePath);
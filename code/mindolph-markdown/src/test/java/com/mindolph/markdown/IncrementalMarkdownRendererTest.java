@@ -0,0 +1,78 @@
+package com.mindolph.markdown;
+
+import com.mindolph.markdown.IncrementalMarkdownRenderer.Update;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class IncrementalMarkdownRendererTest {
+
+    private final MutableDataSet options = new MutableDataSet();
+    private final Parser parser = Parser.builder(options).build();
+    private final HtmlRenderer renderer = HtmlRenderer.builder(options).build();
+
+    @Test
+    public void update() {
+        IncrementalMarkdownRenderer incrementalRenderer = new IncrementalMarkdownRenderer(parser, renderer);
+        String text = "# Title\n\nparagraph 1\n\n- item 1\n- item 2\n\nparagraph 2\n";
+        Update update = incrementalRenderer.update(text);
+        Assertions.assertTrue(update.full());
+        Assertions.assertEquals(4, update.blocks().size());
+        Assertions.assertNull(incrementalRenderer.update(text));
+
+        // only the changed block and the one before it are rendered again.
+        String lastId = update.blocks().get(3).id();
+        text = text.replace("paragraph 1", "paragraph one");
+        update = incrementalRenderer.update(text);
+        assertUpdate(text, update);
+        Assertions.assertEquals(2, update.inserted().size());
+        Assertions.assertEquals(lastId, update.blocks().get(3).id());
+
+        // blocks are joined.
+        text = text.replace("paragraph one\n\n", "paragraph one\n");
+        update = incrementalRenderer.update(text);
+        assertUpdate(text, update);
+
+        // the code fence swallows all following blocks.
+        text = text.replace("paragraph one", "```\nparagraph one");
+        update = incrementalRenderer.update(text);
+        assertUpdate(text, update);
+        Assertions.assertEquals(2, update.blocks().size());
+
+        // link reference definition makes full rendering.
+        text = "[link]: https://mindolph.com\n\n" + text;
+        update = incrementalRenderer.update(text);
+        Assertions.assertTrue(update.full());
+        Assertions.assertEquals(renderer.render(parser.parse(text)), update.html());
+    }
+
+    @Test
+    public void duplicatedHeadings() {
+        MutableDataSet options = new MutableDataSet().set(HtmlRenderer.GENERATE_HEADER_ID, true);
+        Parser parser = Parser.builder(options).build();
+        HtmlRenderer renderer = HtmlRenderer.builder(options).build();
+        IncrementalMarkdownRenderer incrementalRenderer = new IncrementalMarkdownRenderer(parser, renderer);
+        String text = "# Title\n\nparagraph 1\n\n# Other\n\nparagraph 2\n";
+        incrementalRenderer.update(text);
+
+        // the ids of duplicated headings are numbered through the whole document.
+        text = text.replace("# Other", "# Title");
+        Update update = incrementalRenderer.update(text);
+        Assertions.assertTrue(update.full());
+        Assertions.assertEquals(renderer.render(parser.parse(text)), update.html());
+        text = text.replace("paragraph 2", "paragraph two");
+        update = incrementalRenderer.update(text);
+        Assertions.assertTrue(update.full());
+        Assertions.assertEquals(renderer.render(parser.parse(text)), update.html());
+    }
+
+    private void assertUpdate(String text, Update update) {
+        Assertions.assertFalse(update.full());
+        Assertions.assertEquals(renderer.render(parser.parse(text)), update.html());
+    }
+}
@@ -23,11 +23,10 @@ import com.mindolph.mindmap.I18n;
 import com.mindolph.mindmap.MindMapConfig;
 import com.mindolph.mindmap.extension.api.BaseExportExtension;
 import com.mindolph.mindmap.extension.api.ExtensionContext;
-import com.mindolph.mindmap.gfx.MindMapCanvas;
+import com.mindolph.mindmap.gfx.TiledMindMapRenderer;
 import com.mindolph.mindmap.model.TopicNode;
 import com.mindolph.mindmap.util.DialogUtils;
 import com.mindolph.mindmap.util.MindMapUtils;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
@@ -36,7 +35,6 @@ import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.attribute.FileTime;
@@ -55,16 +53,17 @@ public final class PNGImageExporter extends BaseExportExtension {
     }
 
 
-    private Image makeImage(ExtensionContext context, List<Boolean> options) throws IOException {
+    private TiledMindMapRenderer makeRenderer(ExtensionContext context) {
         MindMapConfig newConfig = new MindMapConfig(context.getMindMapConfig());
         newConfig.getTheme().setDrawBackground(this.flagDrawBackground);
-        return MindMapCanvas.renderMindMapAsImage(context.getModel(), newConfig, flagExpandAllNodes);
+        return TiledMindMapRenderer.create(context.getModel(), newConfig, flagExpandAllNodes);
     }
 
     @Override
     public void doExportToClipboard(ExtensionContext context, List<Boolean> options) throws IOException {
-        Image image = makeImage(context, options);
-        if (image != null) {
+        TiledMindMapRenderer renderer = makeRenderer(context);
+        if (renderer != null) {
+            Image image = renderer.renderImage();
             ClipboardContent content = new ClipboardContent();
             content.putImage(image);
             Clipboard.getSystemClipboard().setContent(content);
@@ -87,9 +86,9 @@ public final class PNGImageExporter extends BaseExportExtension {
             this.flagExpandAllNodes = options.get(0);
             this.flagDrawBackground = options.get(1);
         }
-        Image image = makeImage(context, options);
+        TiledMindMapRenderer renderer = makeRenderer(context);
 
-        if (image == null) {
+        if (renderer == null) {
             if (out == null) {
                 log.error("Can't render map as image");
                 DialogFactory.errDialog(I18n.getIns().getString("PNGImageExporter.msgErrorDuringRendering"));
@@ -100,11 +99,6 @@ public final class PNGImageExporter extends BaseExportExtension {
             }
         }
 
-        ByteArrayOutputStream buff = new ByteArrayOutputStream(128000);
-        ImageIO.write(SwingFXUtils.fromFXImage(image, null), "png", buff);
-
-        byte[] imageData = buff.toByteArray();
-
         File fileToSave = null;
         if (out == null) {
             fileToSave = DialogUtils.selectFileToSaveForFileFilter(
@@ -119,13 +113,16 @@ public final class PNGImageExporter extends BaseExportExtension {
         }
         if (out != null) {
             try {
-                IOUtils.write(imageData, out);
-                Files.setLastModifiedTime(fileToSave.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+                // the image is rendered and encoded strip by strip directly to the output.
+                renderer.writePng(out, true);
             } finally {
                 if (fileToSave != null) {
                     IOUtils.closeQuietly(out);
                 }
             }
+            if (fileToSave != null) {
+                Files.setLastModifiedTime(fileToSave.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+            }
         }
     }
 
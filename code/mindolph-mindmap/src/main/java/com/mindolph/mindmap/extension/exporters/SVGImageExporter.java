@@ -21,7 +21,7 @@ import com.mindolph.base.FontIconManager;
 import com.mindolph.base.constant.IconKey;
 import com.mindolph.base.constant.StrokeType;
 import com.mindolph.base.graphic.Graphics;
-import com.mindolph.base.util.GeometryConvertUtils;
+import com.mindolph.base.graphic.StringBoundsCache;
 import com.mindolph.mfx.util.AwtConvertUtils;
 import com.mindolph.mfx.util.FontUtils;
 import com.mindolph.mfx.util.FxImageUtils;
@@ -31,6 +31,7 @@ import com.mindolph.mindmap.MindMapContext;
 import com.mindolph.mindmap.extension.api.BaseExportExtension;
 import com.mindolph.mindmap.extension.api.ExtensionContext;
 import com.mindolph.mindmap.gfx.MindMapCanvas;
+import com.mindolph.mindmap.model.BaseElement;
 import com.mindolph.mindmap.model.TopicNode;
 import com.mindolph.mindmap.theme.MindMapTheme;
 import com.mindolph.mindmap.util.DialogUtils;
@@ -49,7 +50,6 @@ import javafx.scene.text.FontPosture;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,8 +67,6 @@ import java.text.DecimalFormatSymbols;
 import java.util.List;
 import java.util.*;
 
-import static com.mindolph.mindmap.MindMapCalculateHelper.calculateSizeOfMapInPixels;
-
 public class SVGImageExporter extends BaseExportExtension {
 
     protected static final String FONT_CLASS_NAME = "mindMapTitleFont";
@@ -83,7 +81,8 @@ public class SVGImageExporter extends BaseExportExtension {
         }
     };
     private static final Logger LOGGER = LoggerFactory.getLogger(SVGImageExporter.class);
-    private static final String SVG_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<!-- Generated by Mindolph SVG exporter https://github.com/mindolph/Mindolph -->\n<svg version=\"1.1\" baseProfile=\"tiny\" id=\"svg-root\" width=\"%d%%\" height=\"%d%%\" viewBox=\"0 0 %s %s\" xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">";
+    // no baseProfile="tiny" since the styles are declared in style sheet which is not supported by the Tiny profile.
+    private static final String SVG_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<!-- Generated by Mindolph SVG exporter https://github.com/mindolph/Mindolph -->\n<svg version=\"1.1\" id=\"svg-root\" width=\"%d%%\" height=\"%d%%\" viewBox=\"0 0 %s %s\" xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">";
     private static final String NEXT_LINE = "\n";
     private static final DecimalFormat DOUBLE;
     private boolean flagExpandAllNodes = false;
@@ -137,7 +136,15 @@ public class SVGImageExporter extends BaseExportExtension {
     }
 
 
-    private String makeContent(ExtensionContext context, List<Boolean> options) throws IOException {
+    /**
+     * Layout the mind map once and stream the SVG document to the writer.
+     *
+     * @param context
+     * @param options
+     * @param writer
+     * @throws IOException
+     */
+    private void writeContent(ExtensionContext context, List<Boolean> options, Writer writer) throws IOException {
         if (options != null) {
             this.flagExpandAllNodes = options.get(0);
             this.flagDrawBackground = options.get(1);
@@ -161,45 +168,56 @@ public class SVGImageExporter extends BaseExportExtension {
 
         theme.setDrawBackground(this.flagDrawBackground);
 
-        MindMapContext mindMapContext = new MindMapContext();
-        Dimension2D blockSize = calculateSizeOfMapInPixels(workMap, newConfig, mindMapContext, flagExpandAllNodes);
-        if (blockSize == null) {
-            return SVG_HEADER + "</svg>";
-        }
-
-        StringBuilder buffer = new StringBuilder(16384);
-        buffer.append(String.format(SVG_HEADER, 100, 100, dbl2str(blockSize.getWidth()), dbl2str(blockSize.getHeight()))).append(NEXT_LINE);
-        buffer.append(prepareStylePart(buffer, newConfig)).append(NEXT_LINE);
-
+        // style classes are prefixed by the hash of model to avoid collisions with other SVGs in the same HTML page,
+        // and the same model is always exported to the same content.
+        SVGWriter out = new SVGWriter(writer, "mm%08x-".formatted(context.getModel().packToString().hashCode()));
         BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
         Graphics2D g = image.createGraphics();
-        Graphics gfx = new SVGMMGraphics(buffer, g);
-
-        gfx.setClip(0, 0, Math.round(blockSize.getWidth()), Math.round(blockSize.getHeight()));
+        SVGMMGraphics gfx = new SVGMMGraphics(out, g);
         try {
-            MindMapCanvas mindMapCanvas = new MindMapCanvas(gfx, newConfig, mindMapContext);
-            mindMapCanvas.layoutFullDiagramWithCenteringToPaper(workMap, GeometryConvertUtils.dimension2DToBounds(blockSize));
+            // laid out only once, the elements are drawn with the graphics they are calculated with.
+            MindMapCanvas mindMapCanvas = new MindMapCanvas(gfx, newConfig, new MindMapContext());
+            Dimension2D blockSize = null;
+            if (mindMapCanvas.calculateElementSizes(workMap)) {
+                if (flagExpandAllNodes) {
+                    ((BaseElement) workMap.getRoot().getPayload()).collapseOrExpandAllChildren(false);
+                    mindMapCanvas.calculateElementSizes(workMap);
+                }
+                blockSize = mindMapCanvas.layoutFullDiagramWithCenteringToPaper(workMap, null);
+            }
+            if (blockSize == null) {
+                out.write(SVG_HEADER.formatted(100, 100, "0", "0")).write("</svg>");
+                out.flush();
+                return;
+            }
+            out.write(SVG_HEADER.formatted(100, 100, dbl2str(blockSize.getWidth()), dbl2str(blockSize.getHeight()))).write(NEXT_LINE);
+            out.write(prepareStylePart(newConfig)).write(NEXT_LINE);
+            gfx.setClip(0, 0, Math.round(blockSize.getWidth()), Math.round(blockSize.getHeight()));
             mindMapCanvas.drawOnGraphicsForConfiguration(workMap, false, null);
+            // the style classes are collected while drawing.
+            out.writeStyleClasses();
+            out.write("</svg>");
+            out.flush();
+            LOGGER.debug("SVG written with %d style classes".formatted(out.getStyleClassCount()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         } finally {
             gfx.dispose();
+            g.dispose();
         }
-        buffer.append("</svg>");
-
-        return buffer.toString();
     }
 
     @Override
     public void doExportToClipboard(ExtensionContext context, List<Boolean> options) throws IOException {
-        String text = makeContent(context, options);
+        StringWriter text = new StringWriter(16384);
+        writeContent(context, options, text);
         ClipboardContent cc = new ClipboardContent();
-        cc.putString(text);
+        cc.putString(text.toString());
         javafx.scene.input.Clipboard.getSystemClipboard().setContent(cc);
     }
 
     @Override
     public void doExport(ExtensionContext context, List<Boolean> options, String exportFileName, OutputStream out) throws IOException {
-        String text = makeContent(context, options);
-
         File fileToSave = null;
         if (out == null) {
             fileToSave = DialogUtils.selectFileToSaveForFileFilter(
@@ -208,22 +226,26 @@ public class SVGImageExporter extends BaseExportExtension {
                     I18n.getIns().getString("SvgExporter.filterDescription"),
                     exportFileName);
             fileToSave = MindMapUtils.checkFileAndExtension(fileToSave, ".svg");
-            out = fileToSave == null ? null : new BufferedOutputStream(new FileOutputStream(fileToSave, false));
+            out = fileToSave == null ? null : new FileOutputStream(fileToSave, false);
         }
         if (out != null) {
             try {
-                IOUtils.write(text, out, "UTF-8");
-                Files.setLastModifiedTime(fileToSave.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+                // streamed to the output without holding the whole document in memory.
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+                writeContent(context, options, writer);
             } finally {
                 if (fileToSave != null) {
                     IOUtils.closeQuietly(out);
                 }
             }
+            if (fileToSave != null) {
+                Files.setLastModifiedTime(fileToSave.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+            }
         }
     }
 
 
-    private String prepareStylePart(StringBuilder buffer, MindMapConfig config) {
+    private String prepareStylePart(MindMapConfig config) {
         return """
                 <style>
                 @font-face {
@@ -351,45 +373,78 @@ public class SVGImageExporter extends BaseExportExtension {
 
     private static final class SVGMMGraphics implements Graphics {
 
-        private static final DecimalFormat OPACITY = new DecimalFormat("#.##");
-        private final StringBuilder buffer;
+        private static final DecimalFormat OPACITY = new DecimalFormat("#.##", DecimalFormatSymbols.getInstance(Locale.US));
+        // measured by AWT font metrics, which are different from JavaFX, so not shared with the canvas.
+        private static final StringBoundsCache STRING_BOUNDS_CACHE = new StringBoundsCache(4096);
+        private final SVGWriter out;
         private final Graphics2D context;
         private double translateX;
         private double translateY;
         private float strokeWidth = 1.0f;
         private StrokeType strokeType = StrokeType.SOLID;
 
-        private SVGMMGraphics(StringBuilder buffer, Graphics2D context) {
-            this.buffer = buffer;
+        private SVGMMGraphics(SVGWriter out, Graphics2D context) {
+            this.out = out;
             this.context = (Graphics2D) context.create();
         }
 
-
         private static String svgRgb(Color color) {
-            return String.format("rgb(%s,%s,%s)", color.getRed() * 255, color.getGreen() * 255, color.getBlue() * 255);
+            return "#%02x%02x%02x".formatted(Math.round(color.getRed() * 255), Math.round(color.getGreen() * 255), Math.round(color.getBlue() * 255));
+        }
+
+        /**
+         * Write the class attribute of the style, the same combination of stroke and fill shares one CSS class.
+         *
+         * @param stroke     null for no stroke.
+         * @param fill       null for not specified.
+         * @param fillNone   whether to fill with none if fill is null.
+         * @param extraClass other class to be applied, nullable.
+         */
+        private void printStyleClass(Color stroke, Color fill, boolean fillNone, String extraClass) {
+            StyleKey key = stroke == null
+                    ? new StyleKey(null, 0, null, fill, fillNone)
+                    : new StyleKey(stroke, this.strokeWidth, this.strokeType, fill, fillNone);
+            String styleClass = this.out.styleClass(key, () -> styleDeclarations(key));
+            this.out.write(" class=\"");
+            if (extraClass != null) {
+                this.out.write(extraClass).write(' ');
+            }
+            this.out.write(styleClass).write('"');
         }
 
-        private void printFillOpacity(Color color) {
-            if (color.getOpacity() < 1) {
-                this.buffer.append(" fill-opacity=\"").append(OPACITY.format(color.getOpacity())).append("\" ");
+        private static String styleDeclarations(StyleKey key) {
+            StringBuilder buf = new StringBuilder();
+            if (key.stroke != null) {
+                buf.append("stroke:").append(svgRgb(key.stroke)).append(";stroke-width:").append(dbl2str(key.strokeWidth)).append(';');
+                if (key.stroke.getOpacity() < 1) {
+                    buf.append("stroke-opacity:").append(OPACITY.format(key.stroke.getOpacity())).append(';');
+                }
+                switch (key.strokeType) {
+                    case SOLID:
+                        buf.append("stroke-linecap:round;");
+                        break;
+                    case DASHES:
+                        buf.append("stroke-linecap:butt;stroke-dasharray:").append(dbl2str(key.strokeWidth * 3.0f)).append(',').append(dbl2str(key.strokeWidth)).append(';');
+                        break;
+                    case DOTS:
+                        buf.append("stroke-linecap:butt;stroke-dasharray:").append(dbl2str(key.strokeWidth)).append(',').append(dbl2str(key.strokeWidth * 2.0f)).append(';');
+                        break;
+                }
+            }
+            if (key.fill != null) {
+                buf.append("fill:").append(svgRgb(key.fill)).append(';');
+                if (key.fill.getOpacity() < 1) {
+                    buf.append("fill-opacity:").append(OPACITY.format(key.fill.getOpacity())).append(';');
+                }
             }
+            else if (key.fillNone) {
+                buf.append("fill:none;");
+            }
+            return buf.toString();
         }
 
-        private void printStrokeData(Color color) {
-            this.buffer.append(" stroke=\"").append(svgRgb(color))
-                    .append("\" stroke-width=\"").append(dbl2str(this.strokeWidth)).append("\"");
-
-            switch (this.strokeType) {
-                case SOLID:
-                    this.buffer.append(" stroke-linecap=\"round\"");
-                    break;
-                case DASHES:
-                    this.buffer.append(" stroke-linecap=\"butt\" stroke-dasharray=\"").append(dbl2str(this.strokeWidth * 3.0f)).append(',').append(dbl2str(this.strokeWidth)).append("\"");
-                    break;
-                case DOTS:
-                    this.buffer.append(" stroke-linecap=\"butt\" stroke-dasharray=\"").append(dbl2str(this.strokeWidth)).append(',').append(dbl2str(this.strokeWidth * 2.0f)).append("\"");
-                    break;
-            }
+        private void printPoint(double x, double y) {
+            this.out.write(this.translateX + x).write(' ').write(this.translateY + y);
         }
 
         @Override
@@ -399,13 +454,16 @@ public class SVGImageExporter extends BaseExportExtension {
 
         @Override
         public Rectangle2D getStringBounds(String str) {
-            if (str.isEmpty()) {
-                return AwtConvertUtils.awtRectangle2D2Rectangle2D(this.context.getFontMetrics().getStringBounds("", this.context));
-            }
-            else {
-                TextLayout textLayout = new TextLayout(str, this.context.getFont(), this.context.getFontRenderContext());
-                return new Rectangle2D(0, -textLayout.getAscent(), textLayout.getAdvance(), textLayout.getAscent() + textLayout.getDescent() + textLayout.getLeading());
-            }
+            java.awt.Font font = this.context.getFont();
+            return STRING_BOUNDS_CACHE.getBounds(font.getFamily(), font.getSize2D(), String.valueOf(font.getStyle()), str, () -> {
+                if (str.isEmpty()) {
+                    return AwtConvertUtils.awtRectangle2D2Rectangle2D(this.context.getFontMetrics().getStringBounds("", this.context));
+                }
+                else {
+                    TextLayout textLayout = new TextLayout(str, font, this.context.getFontRenderContext());
+                    return new Rectangle2D(0, -textLayout.getAscent(), textLayout.getAdvance(), textLayout.getAscent() + textLayout.getDescent() + textLayout.getLeading());
+                }
+            });
         }
 
         @Override
@@ -415,7 +473,7 @@ public class SVGImageExporter extends BaseExportExtension {
 
         @Override
         public Graphics copy() {
-            SVGMMGraphics result = new SVGMMGraphics(this.buffer, this.context);
+            SVGMMGraphics result = new SVGMMGraphics(this.out, this.context);
             result.translateX = this.translateX;
             result.translateY = this.translateY;
             result.strokeType = this.strokeType;
@@ -481,63 +539,35 @@ public class SVGImageExporter extends BaseExportExtension {
 
         @Override
         public void drawLine(double startX, double startY, double endX, double endY, Color color) {
-            this.buffer.append("<line x1=\"").append(dbl2str(startX + this.translateX))
-                    .append("\" y1=\"").append(dbl2str(startY + this.translateY))
-                    .append("\" x2=\"").append(dbl2str(endX + this.translateX))
-                    .append("\" y2=\"").append(dbl2str(endY + this.translateY)).append("\" ");
+            this.out.write("<line").attr("x1", startX + this.translateX).attr("y1", startY + this.translateY)
+                    .attr("x2", endX + this.translateX).attr("y2", endY + this.translateY);
             if (color != null) {
-                printStrokeData(color);
-                printFillOpacity(color);
+                printStyleClass(color, null, false, null);
             }
-            this.buffer.append("/>").append(NEXT_LINE);
+            this.out.write("/>").write(NEXT_LINE);
         }
 
         @Override
         public void drawString(String text, double x, double y, Color color) {
-            this.buffer.append("<text x=\"").append(dbl2str(this.translateX + x)).append("\" y=\"").append(dbl2str(this.translateY + y)).append('\"');
-            if (color != null) {
-                this.buffer.append(" fill=\"").append(svgRgb(color)).append("\"");
-                printFillOpacity(color);
-            }
-            this.buffer.append(' ');
-            this.buffer.append("class=\"").append(FONT_CLASS_NAME).append('\"');
-            this.buffer.append('>').append(StringEscapeUtils.escapeXml(text)).append("</text>").append(NEXT_LINE);
+            this.out.write("<text").attr("x", this.translateX + x).attr("y", this.translateY + y);
+            printStyleClass(null, color, false, FONT_CLASS_NAME);
+            this.out.write('>').writeEscaped(text).write("</text>").write(NEXT_LINE);
         }
 
         @Override
         public void drawFontIcon(Font font, String iconText, double x, double y, Color fill) {
             this.setFont(font);
-            this.buffer.append("<text x=\"").append(dbl2str(this.translateX + x)).append("\" y=\"").append(dbl2str(this.translateY + y)).append('\"');
-            if (fill != null) {
-                this.buffer.append(" fill=\"").append(svgRgb(fill)).append("\"");
-                printFillOpacity(fill);
-            }
-            this.buffer.append(' ');
-            this.buffer.append("class=\"").append(StringUtils.deleteWhitespace(this.context.getFont().getName())).append('\"');
-            String icon = "&#" + (int)iconText.charAt(0) + ";";
-            this.buffer.append('>').append(icon).append("</text>").append(NEXT_LINE);
+            this.out.write("<text").attr("x", this.translateX + x).attr("y", this.translateY + y);
+            printStyleClass(null, fill, false, StringUtils.deleteWhitespace(this.context.getFont().getName()));
+            this.out.write(">&#").write(String.valueOf((int) iconText.charAt(0))).write(";</text>").write(NEXT_LINE);
         }
 
         @Override
         public void drawRect(double x, double y, double width, double height, Color border, Color fill) {
-            this.buffer.append("<rect x=\"").append(dbl2str(this.translateX + x))
-                    .append("\" y=\"").append(dbl2str(translateY + y))
-                    .append("\" width=\"").append(dbl2str(width))
-                    .append("\" height=\"").append(dbl2str(height))
-                    .append("\" ");
-            if (border != null) {
-                printStrokeData(border);
-            }
-
-            if (fill == null) {
-                this.buffer.append(" fill=\"none\"");
-            }
-            else {
-                this.buffer.append(" fill=\"").append(svgRgb(fill)).append("\"");
-                printFillOpacity(fill);
-            }
-
-            this.buffer.append("/>").append(NEXT_LINE);
+            this.out.write("<rect").attr("x", this.translateX + x).attr("y", translateY + y)
+                    .attr("width", width).attr("height", height);
+            printStyleClass(border, fill, true, null);
+            this.out.write("/>").write(NEXT_LINE);
         }
 
         @Override
@@ -547,110 +577,87 @@ public class SVGImageExporter extends BaseExportExtension {
 
         @Override
         public void draw(Shape shape, Color border, Color fill) {
-            if (shape instanceof Rectangle) {
-                Rectangle rect = (Rectangle) shape;
-                this.buffer.append("<rect x=\"").append(dbl2str(this.translateX + rect.getX()))
-                        .append("\" y=\"").append(dbl2str(translateY + rect.getY()))
-                        .append("\" width=\"").append(dbl2str(rect.getWidth()))
-                        .append("\" height=\"").append(dbl2str(rect.getHeight()))
-                        .append("\" rx=\"").append(dbl2str(rect.getArcWidth() / 2.0d))
-                        .append("\" ry=\"").append(dbl2str(rect.getArcHeight() / 2.0d))
-                        .append("\" ");
-
+            if (shape instanceof Rectangle rect) {
+                this.out.write("<rect").attr("x", this.translateX + rect.getX()).attr("y", translateY + rect.getY())
+                        .attr("width", rect.getWidth()).attr("height", rect.getHeight())
+                        .attr("rx", rect.getArcWidth() / 2.0d).attr("ry", rect.getArcHeight() / 2.0d);
             }
             else if (shape instanceof Path path) {
-                double[] data = new double[6];
-                this.buffer.append("<path d=\"");
+                this.out.write("<path d=\"");
                 boolean nofirst = false;
                 for (PathElement e : path.getElements()) {
                     if (nofirst) {
-                        this.buffer.append(' ');
+                        this.out.write(' ');
                     }
-                    if (e instanceof MoveTo) {
-                        this.buffer.append("M ").append(dbl2str(this.translateX + ((MoveTo) e).getX())).append(' ').append(dbl2str(this.translateY + ((MoveTo) e).getY()));
+                    if (e instanceof MoveTo moveTo) {
+                        this.out.write("M ");
+                        printPoint(moveTo.getX(), moveTo.getY());
                     }
-                    else if (e instanceof LineTo) {
-                        this.buffer.append("L ").append(dbl2str(this.translateX + ((LineTo) e).getX())).append(' ').append(dbl2str(this.translateY + ((LineTo) e).getY()));
+                    else if (e instanceof LineTo lineTo) {
+                        this.out.write("L ");
+                        printPoint(lineTo.getX(), lineTo.getY());
                     }
-                    else if (e instanceof CubicCurveTo) {
+                    else if (e instanceof CubicCurveTo curveTo) {
                         // todo the order of the control points should be tested.
-                        this.buffer.append("C ")
-                                .append(dbl2str(this.translateX + ((CubicCurveTo) e).getX())).append(' ').append(dbl2str(this.translateY + ((CubicCurveTo) e).getY())).append(',')
-                                .append(dbl2str(this.translateX + ((CubicCurveTo) e).getControlX1())).append(' ').append(dbl2str(this.translateY + ((CubicCurveTo) e).getControlY1())).append(',')
-                                .append(dbl2str(this.translateX + ((CubicCurveTo) e).getControlX2())).append(' ').append(dbl2str(this.translateY + ((CubicCurveTo) e).getControlY2()));
+                        this.out.write("C ");
+                        printPoint(curveTo.getX(), curveTo.getY());
+                        this.out.write(',');
+                        printPoint(curveTo.getControlX1(), curveTo.getControlY1());
+                        this.out.write(',');
+                        printPoint(curveTo.getControlX2(), curveTo.getControlY2());
                     }
-                    else if (e instanceof QuadCurveTo) {
+                    else if (e instanceof QuadCurveTo curveTo) {
                         // todo the order of the control points should be tested.
-                        this.buffer.append("Q ")
-                                .append(dbl2str(this.translateX + ((QuadCurveTo) e).getX())).append(' ').append(dbl2str(this.translateY + ((QuadCurveTo) e).getY())).append(',')
-                                .append(dbl2str(this.translateX + ((QuadCurveTo) e).getControlX())).append(' ').append(dbl2str(this.translateY + ((QuadCurveTo) e).getControlY()));
+                        this.out.write("Q ");
+                        printPoint(curveTo.getX(), curveTo.getY());
+                        this.out.write(',');
+                        printPoint(curveTo.getControlX(), curveTo.getControlY());
                     }
                     else if (e instanceof ClosePath) {
-                        this.buffer.append("Z");
+                        this.out.write('Z');
                     }
                     else {
                         LOGGER.warn("Unexpected path segment type");
                     }
                     nofirst = true;
                 }
-                this.buffer.append("\" ");
+                this.out.write('"');
             }
             else {
                 LOGGER.warn("Detected unexpected shape : " + shape.getClass().getName());
+                return;
             }
-
-            if (border != null) {
-                printStrokeData(border);
-            }
-
-            if (fill == null) {
-                this.buffer.append(" fill=\"none\"");
-            }
-            else {
-                this.buffer.append(" fill=\"").append(svgRgb(fill)).append("\"");
-                printFillOpacity(fill);
-            }
-
-            this.buffer.append("/>").append(NEXT_LINE);
+            printStyleClass(border, fill, true, null);
+            this.out.write("/>").write(NEXT_LINE);
         }
 
         @Override
         public void drawCurve(double startX, double startY, double endX, double endY, Color color) {
-            this.buffer.append("<path d=\"M").append(dbl2str(startX + this.translateX)).append(',').append(startY + this.translateY)
-                    .append(" C").append(dbl2str(startX))
-                    .append(',').append(dbl2str(endY))
-                    .append(' ').append(dbl2str(startX))
-                    .append(',').append(dbl2str(endY))
-                    .append(' ').append(dbl2str(endX))
-                    .append(',').append(dbl2str(endY))
-                    .append("\" fill=\"none\"");
-
-            if (color != null) {
-                printStrokeData(color);
-            }
-            this.buffer.append(" />").append(NEXT_LINE);
+            this.out.write("<path d=\"M").write(startX + this.translateX).write(',').write(startY + this.translateY)
+                    .write(" C").write(startX)
+                    .write(',').write(endY)
+                    .write(' ').write(startX)
+                    .write(',').write(endY)
+                    .write(' ').write(endX)
+                    .write(',').write(endY)
+                    .write('"');
+            printStyleClass(color, null, true, null);
+            this.out.write("/>").write(NEXT_LINE);
         }
 
         @Override
         public void drawBezier(double startX, double startY, double endX, double endY, Color color) {
-            String s = """
-                    <path d="M %s %s Q %s %s, %s %s T %s %s" 
-                    """;
             double c1x = startX + (endX - startX) / 2;
             double c1y = startY;
             double c2x = startX + (endX - startX) / 2;
             double c2y = startY + (endY - startY) / 2;
-            String formatted = s.formatted(
-                    dbl2str(startX), dbl2str(startY),
-                    dbl2str(c1x), dbl2str(c1y),
-                    dbl2str(c2x), dbl2str(c2y),
-                    dbl2str(endX), dbl2str(endY)
-            );
-            this.buffer.append(formatted);
-            if (color != null) {
-                printStrokeData(color);
-            }
-            this.buffer.append(" fill=\"none\"/>").append(NEXT_LINE);
+            this.out.write("<path d=\"M ").write(startX).write(' ').write(startY)
+                    .write(" Q ").write(c1x).write(' ').write(c1y)
+                    .write(", ").write(c2x).write(' ').write(c2y)
+                    .write(" T ").write(endX).write(' ').write(endY)
+                    .write('"');
+            printStyleClass(color, null, true, null);
+            this.out.write("/>").write(NEXT_LINE);
         }
 
         @Override
@@ -660,25 +667,9 @@ public class SVGImageExporter extends BaseExportExtension {
             double cx = x + this.translateX + rx;
             double cy = y + this.translateY + ry;
 
-            this.buffer.append("<ellipse cx=\"").append(dbl2str(cx))
-                    .append("\" cy=\"").append(dbl2str(cy))
-                    .append("\" rx=\"").append(dbl2str(rx))
-                    .append("\" ry=\"").append(dbl2str(ry))
-                    .append("\" ");
-
-            if (border != null) {
-                printStrokeData(border);
-            }
-
-            if (fill == null) {
-                this.buffer.append(" fill=\"none\"");
-            }
-            else {
-                this.buffer.append(" fill=\"").append(svgRgb(fill)).append("\"");
-                printFillOpacity(fill);
-            }
-
-            this.buffer.append("/>").append(NEXT_LINE);
+            this.out.write("<ellipse").attr("cx", cx).attr("cy", cy).attr("rx", rx).attr("ry", ry);
+            printStyleClass(border, fill, true, null);
+            this.out.write("/>").write(NEXT_LINE);
         }
 
         @Override
@@ -691,9 +682,11 @@ public class SVGImageExporter extends BaseExportExtension {
             if (image != null) {
                 try {
                     String s = FxImageUtils.imageToBase64(image);
-                    this.buffer.append("<image width=\"").append(width).append("\" height=\"").append(height).append("\" x=\"").append(dbl2str(this.translateX + x)).append("\" y=\"").append(dbl2str(this.translateY + y)).append("\" xlink:href=\"data:image/png;base64,");
-                    this.buffer.append(s);
-                    this.buffer.append("\"/>").append(NEXT_LINE);
+                    this.out.write("<image").attr("width", width).attr("height", height)
+                            .attr("x", this.translateX + x).attr("y", this.translateY + y)
+                            .write(" xlink:href=\"data:image/png;base64,").write(s).write("\"/>").write(NEXT_LINE);
+                } catch (UncheckedIOException ex) {
+                    throw ex;
                 } catch (Exception ex) {
                     LOGGER.error("Can't place image for error", ex);
                 }
@@ -709,5 +702,11 @@ public class SVGImageExporter extends BaseExportExtension {
         public void setOpacity(double opacity) {
             // TODO
         }
+
+        /**
+         * Combination of stroke and fill that shares one CSS class.
+         */
+        private record StyleKey(Color stroke, float strokeWidth, StrokeType strokeType, Color fill, boolean fillNone) {
+        }
     }
 }
@@ -0,0 +1,172 @@
+package com.mindolph.mindmap.extension.exporters;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Write SVG content to a (buffered) writer directly, numbers are formatted with at most 3 decimals without
+ * allocating strings, and the styles (fill, stroke and so on) of elements are registered as CSS classes,
+ * so that the repeated combinations are written only once in the style sheet. The class names are prefixed per document,
+ * so they don't collide with others when several documents are embedded in one page.
+ * <p>
+ * The {@link IOException} from the writer is thrown as {@link UncheckedIOException} since the drawing methods don't
+ * declare it.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+final class SVGWriter {
+
+    private final Writer writer;
+    private final String classPrefix;
+    // digits of number in reverse order.
+    private final char[] digits = new char[20];
+    private final Map<Object, StyleClass> styleClasses = new LinkedHashMap<>();
+
+    /**
+     * @param writer
+     * @param classPrefix prefix of the names of CSS classes, must be a valid CSS identifier.
+     */
+    SVGWriter(Writer writer, String classPrefix) {
+        this.writer = writer;
+        this.classPrefix = classPrefix;
+    }
+
+    SVGWriter write(String str) {
+        try {
+            writer.write(str);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    SVGWriter write(char c) {
+        try {
+            writer.write(c);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Write number rounded to 3 decimals, without trailing zeros.
+     *
+     * @param value
+     * @return
+     */
+    SVGWriter write(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return this.write('0');
+        }
+        long scaled = Math.round(value * 1000);
+        if (scaled < 0) {
+            this.write('-');
+            scaled = -scaled;
+        }
+        int fraction = (int) (scaled % 1000);
+        this.writeLong(scaled / 1000);
+        if (fraction != 0) {
+            this.write('.');
+            this.write((char) ('0' + fraction / 100));
+            if (fraction % 100 != 0) {
+                this.write((char) ('0' + fraction / 10 % 10));
+                if (fraction % 10 != 0) {
+                    this.write((char) ('0' + fraction % 10));
+                }
+            }
+        }
+        return this;
+    }
+
+    private void writeLong(long value) {
+        int count = 0;
+        do {
+            digits[count++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (count > 0) {
+            this.write(digits[--count]);
+        }
+    }
+
+    /**
+     * Write an attribute with number value, like {@code x="12.5"} with a leading space.
+     *
+     * @param name
+     * @param value
+     * @return
+     */
+    SVGWriter attr(String name, double value) {
+        return this.write(' ').write(name).write("=\"").write(value).write('"');
+    }
+
+    /**
+     * Write text with XML special chars escaped.
+     *
+     * @param text
+     * @return
+     */
+    SVGWriter writeEscaped(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> this.write("&lt;");
+                case '>' -> this.write("&gt;");
+                case '&' -> this.write("&amp;");
+                case '"' -> this.write("&quot;");
+                case '\'' -> this.write("&apos;");
+                default -> this.write(c);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Get the CSS class for a style, the class is registered at the first time.
+     *
+     * @param key          identifies the style, must implement equals() and hashCode().
+     * @param declarations supplies CSS declarations of the style (like "fill:#ffffff;") if it's not registered yet.
+     * @return name of the CSS class.
+     */
+    String styleClass(Object key, Supplier<String> declarations) {
+        StyleClass styleClass = styleClasses.get(key);
+        if (styleClass == null) {
+            styleClass = new StyleClass(classPrefix + styleClasses.size(), declarations.get());
+            styleClasses.put(key, styleClass);
+        }
+        return styleClass.name;
+    }
+
+    int getStyleClassCount() {
+        return styleClasses.size();
+    }
+
+    /**
+     * Write a style sheet of all registered classes, it applies to the whole document wherever it's placed,
+     * so it can be written after all the elements.
+     */
+    void writeStyleClasses() {
+        this.write("<style>\n");
+        for (StyleClass styleClass : styleClasses.values()) {
+            this.write('.').write(styleClass.name).write('{').write(styleClass.declarations).write("}\n");
+        }
+        this.write("</style>\n");
+    }
+
+    void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record StyleClass(String name, String declarations) {
+    }
+}
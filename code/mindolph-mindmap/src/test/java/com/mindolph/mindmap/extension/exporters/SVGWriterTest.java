@@ -0,0 +1,59 @@
+package com.mindolph.mindmap.extension.exporters;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class SVGWriterTest {
+
+    @Test
+    public void numbers() {
+        Assertions.assertEquals("0", format(0));
+        Assertions.assertEquals("0", format(-0.0001));
+        Assertions.assertEquals("12", format(12.0));
+        Assertions.assertEquals("12.5", format(12.5));
+        Assertions.assertEquals("-3.05", format(-3.05));
+        Assertions.assertEquals("0.001", format(0.0012));
+        Assertions.assertEquals("1.235", format(1.23456));
+        Assertions.assertEquals("1000", format(999.9999));
+        Assertions.assertEquals("9007199254740", format(9007199254740.0));
+        Assertions.assertEquals("0", format(Double.NaN));
+    }
+
+    @Test
+    public void attributesAndText() {
+        StringWriter text = new StringWriter();
+        SVGWriter out = new SVGWriter(text, "t-");
+        out.write("<text").attr("x", 1.5).attr("y", -2).write('>').writeEscaped("a<b & \"c\"").write("</text>");
+        out.flush();
+        Assertions.assertEquals("<text x=\"1.5\" y=\"-2\">a&lt;b &amp; &quot;c&quot;</text>", text.toString());
+    }
+
+    @Test
+    public void styleClasses() {
+        StringWriter text = new StringWriter();
+        SVGWriter out = new SVGWriter(text, "t-");
+        Assertions.assertEquals("t-0", out.styleClass("white", () -> "fill:#ffffff;"));
+        Assertions.assertEquals("t-1", out.styleClass("black", () -> "fill:#000000;"));
+        // registered style is not declared again.
+        Assertions.assertEquals("t-0", out.styleClass("white", () -> {
+            throw new IllegalStateException();
+        }));
+        Assertions.assertEquals(2, out.getStyleClassCount());
+        out.writeStyleClasses();
+        out.flush();
+        Assertions.assertEquals("<style>\n.t-0{fill:#ffffff;}\n.t-1{fill:#000000;}\n</style>\n", text.toString());
+    }
+
+    private static String format(double value) {
+        StringWriter text = new StringWriter();
+        SVGWriter out = new SVGWriter(text, "t-");
+        out.write(value);
+        out.flush();
+        return text.toString();
+    }
+}
@@ -2,6 +2,7 @@ package com.mindolph.plantuml;
 
 import com.mindolph.base.ShortcutManager;
 import com.mindolph.base.control.HighlightCodeArea;
+import com.mindolph.base.control.ParagraphHighlighter.Block;
 import com.mindolph.core.constant.SupportFileTypes;
 import com.mindolph.plantuml.constant.ShortcutConstants;
 import javafx.scene.input.KeyEvent;
@@ -36,6 +37,8 @@ public class PlantUmlCodeArea extends HighlightCodeArea {
                         + "|(?<KEYWORD>" + KEYWORD_PATTERN + ")"
                 , Pattern.MULTILINE);
 
+        super.setMultiLineBlocks(new Block("/'", "'/", "comment"));
+
         super.addFeatures(HELPER, TAB_INDENT, QUOTE, DOUBLE_QUOTE, AUTO_INDENT);
 
         // comment or uncomment for plantuml.
@@ -45,11 +48,6 @@ public class PlantUmlCodeArea extends HighlightCodeArea {
         Nodes.addInputMap(this, comment);
     }
 
-    @Override
-    public void refresh() {
-        this.setStyleSpans(0, computeHighlighting(this.getText()));
-    }
-
     @Override
     protected StyleSpans<Collection<String>> computeHighlighting(String text) {
         Matcher matcher = pattern.matcher(text);
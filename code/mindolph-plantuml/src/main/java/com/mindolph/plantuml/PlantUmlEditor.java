@@ -9,9 +9,9 @@ import com.mindolph.base.event.EventBus;
 import com.mindolph.base.event.StatusMsg;
 import com.mindolph.base.util.CssUtils;
 import com.mindolph.core.constant.SupportFileTypes;
-import com.mindolph.core.constant.TextConstants;
 import com.mindolph.core.search.TextLocation;
 import com.mindolph.mfx.dialog.DialogFactory;
+import com.mindolph.plantuml.PlantUmlRenderer.PageRender;
 import javafx.application.Platform;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.fxml.FXML;
@@ -23,7 +23,6 @@ import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.MouseButton;
 import javafx.stage.FileChooser;
 import javafx.util.Callback;
-import net.sourceforge.plantuml.BlockUml;
 import net.sourceforge.plantuml.FileFormat;
 import net.sourceforge.plantuml.FileFormatOption;
 import net.sourceforge.plantuml.SourceStringReader;
@@ -37,7 +36,6 @@ import org.swiftboot.util.IoUtils;
 import org.swiftboot.util.TextUtils;
 
 import javax.imageio.ImageIO;
-import javax.swing.*;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -48,6 +46,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -75,6 +74,13 @@ public class PlantUmlEditor extends BasePreviewEditor implements Initializable {
 
     private final Indicator indicator = new Indicator();
 
+    private final PlantUmlRenderer renderer = PlantUmlRenderer.getIns();
+    // sources of pages of current text.
+    private List<String> pages;
+    private final List<Future<?>> pendingRenders = new ArrayList<>();
+    // increased for each preview refreshing to drop the outdated renderings.
+    private long renderGeneration;
+
     public PlantUmlEditor(EditorContext editorContext) {
         super("/editor/plant_uml_editor.fxml", editorContext, false);
         super.fileType = SupportFileTypes.TYPE_PLANTUML;
@@ -167,18 +173,21 @@ public class PlantUmlEditor extends BasePreviewEditor implements Initializable {
     }
 
     private String convertPageToString(FileFormat fileFormat) {
-        String theText = codeArea.getText();
-        SourceStringReader reader = new SourceStringReader(theText, "UTF-8");
+        if (pages == null || indicator.page >= pages.size()) {
+            return null;
+        }
+        // only the current page is parsed.
+        String pageSource = pages.get(indicator.page);
         ByteArrayOutputStream utfBuffer = new ByteArrayOutputStream();
         try {
             if (fileFormat == null) {
                 // return original plantuml code if no target
-                BlockUml blockUml = reader.getBlocks().get(indicator.page);
-                return StringUtils.join(blockUml.getDefinition(true), TextConstants.LINE_SEPARATOR);
+                return StringUtils.stripEnd(pageSource, null);
             }
             else {
+                SourceStringReader reader = new SourceStringReader(pageSource, "UTF-8");
                 DiagramDescription description = reader
-                        .outputImage(utfBuffer, indicator.page, new FileFormatOption(fileFormat, false));
+                        .outputImage(utfBuffer, 0, new FileFormatOption(fileFormat, false));
                 String result = utfBuffer.toString(StandardCharsets.UTF_8);
                 Pattern pattern = Pattern.compile("java\\.lang\\.\\S+?Exception");
                 Matcher matcher = pattern.matcher(result);
@@ -228,78 +237,71 @@ public class PlantUmlEditor extends BasePreviewEditor implements Initializable {
 
     @Override
     public void refreshPreview(String text, Callback<Object, Void> previewConsumer) {
+        pages = PlantUmlRenderer.splitPages(text);
         indicator.reset();
-        log.debug("Current page: %d".formatted(indicator.page));
-
-        // The FileFormat uses AWT resources, so it should be run in Swing thread, otherwise it will be blocked.
-        SwingUtilities.invokeLater(() -> {
-            SourceStringReader reader = new SourceStringReader(codeArea.getText());
-
-            // retrieve title info from all pages.
-            indicator.pageTitles.clear();
-            for (BlockUml block : reader.getBlocks()) {
-                // Show error image if error occurs, but continue next page
-                String errMsg = StringUtils.trim(block.getDiagram().getWarningOrError());
-                if (StringUtils.contains(errMsg, "(Error)")) {
-                    log.debug("encounter error in this plantuml");
-                    indicator.addPageTitle(errMsg);
-                    int curPage = reader.getBlocks().indexOf(block);
-                    indicator.errPages.add(curPage);
-                    log.debug("Found error for page: %d".formatted(curPage));
-                    if (curPage != indicator.page) {
-                        log.debug("skip because not current page");
-                        continue; // only one error be handled
-                    }
-                    log.debug("Generate error image for page: %d".formatted(curPage));
-                    try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-                        DiagramDescription diagramDescription = reader.outputImage(os, curPage);
-                        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(os.toByteArray());
-                        image = new Image(byteArrayInputStream);
-                        byteArrayInputStream.close();
-                        Platform.runLater(() -> {
-                            EventBus.getIns().notifyStatusMsg(editorContext.getFileData().getFile(),
-                                    new StatusMsg("Something wrong with your code in page %d".formatted(curPage + 1),
-                                            "See the description", image));
-                        });
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                }
-                else {
-                    indicator.addPageTitle(this.extractDiagramTitle(block.getDefinition(false)));
-                }
+        indicator.totalPages = pages.size();
+        for (int i = 0; i < pages.size(); i++) {
+            // error of page is known only if it has been rendered.
+            String error = renderer.getCachedError(pages.get(i));
+            if (error != null) {
+                indicator.errPages.add(i);
+                indicator.addPageTitle(error);
             }
-            indicator.totalPages = reader.getBlocks().size();
-            indicator.fitPage();
-            log.debug("total pages %d, current page %d, error page count %d".formatted(indicator.totalPages, indicator.page, indicator.errPages.size()));
-            if (indicator.isEmpty()) {
-                return;// this is en empty file
+            else {
+                indicator.addPageTitle(this.extractDiagramTitle(pages.get(i).lines().toList()));
             }
-
-            if (!indicator.isCurrentPageError()) {
-                Platform.runLater(() -> {
-                    String title = indicator.page < indicator.pageTitles.size() ? indicator.pageTitles.get(indicator.page) : StringUtils.EMPTY;
-                    EventBus.getIns().notifyStatusMsg(editorContext.getFileData().getFile(),
-                            new StatusMsg("Page %d/%d: %s".formatted(indicator.page + 1, indicator.totalPages, title)));
-                });
-                log.trace(String.valueOf(reader.generateDiagramDescription()));
-                try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-                    DiagramDescription diagramDescription = reader.outputImage(os, indicator.page);
-                    if (diagramDescription != null) {
-                        log.debug(diagramDescription.getDescription());
-                        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(os.toByteArray());
-                        image = new Image(byteArrayInputStream);
-                        byteArrayInputStream.close();
-                        previewConsumer.call(image);
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+        }
+        indicator.fitPage();
+        log.debug("total pages %d, current page %d".formatted(indicator.totalPages, indicator.page));
+
+        // the renderings for previous text or page are not needed any more.
+        pendingRenders.forEach(future -> future.cancel(false));
+        pendingRenders.clear();
+        long generation = ++renderGeneration;
+        if (indicator.isEmpty()) {
+            return;// this is en empty file
+        }
+        int page = indicator.page;
+        String source = pages.get(page);
+        PageRender cached = renderer.getCached(source);
+        if (cached != null) {
+            this.onPageRendered(generation, page, cached, previewConsumer);
+        }
+        else {
+            pendingRenders.add(renderer.render(source, render ->
+                    Platform.runLater(() -> this.onPageRendered(generation, page, render, previewConsumer))));
+        }
+        // pre-render the neighbour pages for paging.
+        for (int neighbour : new int[]{page + 1, page - 1}) {
+            if (neighbour >= 0 && neighbour < pages.size() && renderer.getCached(pages.get(neighbour)) == null) {
+                pendingRenders.add(renderer.render(pages.get(neighbour), null));
             }
-            else {
-                previewConsumer.call(null);
+        }
+    }
+
+    private void onPageRendered(long generation, int page, PageRender render, Callback<Object, Void> previewConsumer) {
+        if (generation != renderGeneration) {
+            return; // superseded
+        }
+        image = new Image(new ByteArrayInputStream(render.image()));
+        if (render.isError()) {
+            log.debug("Found error for page: %d".formatted(page));
+            if (!indicator.errPages.contains(page)) {
+                indicator.errPages.add(page);
+                indicator.pageTitles.set(page, render.error());
             }
-        });
+            EventBus.getIns().notifyStatusMsg(editorContext.getFileData().getFile(),
+                    new StatusMsg("Something wrong with your code in page %d".formatted(page + 1),
+                            "See the description", image));
+            previewConsumer.call(null);
+        }
+        else {
+            String title = page < indicator.pageTitles.size() ? indicator.pageTitles.get(page) : StringUtils.EMPTY;
+            EventBus.getIns().notifyStatusMsg(editorContext.getFileData().getFile(),
+                    new StatusMsg("Page %d/%d: %s".formatted(page + 1, indicator.totalPages, title)));
+            log.debug(render.description());
+            previewConsumer.call(image);
+        }
     }
 
     private String extractDiagramTitle(List<String> lines) {
@@ -351,8 +353,8 @@ public class PlantUmlEditor extends BasePreviewEditor implements Initializable {
         log.debug("extract outline title for heading:%s".formatted(heading));
         // extract title by cutting the diagram code block.
         int startPos = codeArea.getAbsolutePosition(location.getEndRow(), location.getEndCol());
-        int endPos = nextBlockLocation == null ? codeArea.getText().length() : codeArea.getAbsolutePosition(nextBlockLocation.getStartRow(), nextBlockLocation.getStartCol());
-        String block = StringUtils.substring(codeArea.getText(), startPos, endPos);
+        int endPos = nextBlockLocation == null ? codeArea.getLength() : codeArea.getAbsolutePosition(nextBlockLocation.getStartRow(), nextBlockLocation.getStartCol());
+        String block = startPos < endPos ? codeArea.getText(startPos, endPos) : StringUtils.EMPTY;
         try {
             List<String> lines = IoUtils.readToStringList(new ByteArrayInputStream(block.getBytes(StandardCharsets.UTF_8)));
             String title =  this.extractDiagramTitle(lines);
@@ -368,6 +370,8 @@ public class PlantUmlEditor extends BasePreviewEditor implements Initializable {
     @Override
     public void dispose() {
         super.dispose();
+        renderGeneration++;
+        pendingRenders.forEach(future -> future.cancel(false));
         image = null;
         previewPane.setImage(null);
     }
@@ -0,0 +1,305 @@
+package com.mindolph.plantuml;
+
+import com.mindolph.base.util.MindolphFileUtils;
+import net.sourceforge.plantuml.BlockUml;
+import net.sourceforge.plantuml.SourceStringReader;
+import net.sourceforge.plantuml.core.DiagramDescription;
+import net.sourceforge.plantuml.version.Version;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static com.mindolph.core.constant.TextConstants.LINE_SEPARATOR;
+
+/**
+ * Render PlantUML pages to PNG images in a small thread pool, the rendered pages are cached by the hash of
+ * their source (trailing blanks of lines are ignored) in memory and on disk, shared by all editors.
+ * Pages that include other files are not cached because the included files might be changed, neither are the pages
+ * rendered with error, because the error might be caused by the environment (like the path of Graphviz), only their
+ * error messages are kept in memory for showing in page titles.
+ *
+ * @author mindolph.com@gmail.com
+ * @since 1.11
+ */
+public class PlantUmlRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(PlantUmlRenderer.class);
+
+    private static final int POOL_SIZE = 2;
+    private static final long MAX_MEMORY_CACHE_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_DISK_CACHE_FILES = 1000;
+    private static final int MAX_DESCRIPTION_LENGTH = 2000;
+    private static final int MAX_CACHED_ERRORS = 256;
+
+    private static final Pattern INCLUDE_PATTERN = Pattern.compile("^\\s*!(include|import)", Pattern.MULTILINE);
+
+    private static PlantUmlRenderer ins;
+
+    private final ExecutorService renderPool = Executors.newFixedThreadPool(POOL_SIZE, r -> {
+        Thread t = new Thread(r, "plantuml-render");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final File cacheDir;
+    private final Map<String, PageRender> memoryCache = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryCacheBytes;
+    // error messages of pages rendered with error.
+    private final Map<String, String> errorCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED_ERRORS;
+        }
+    };
+    private int diskWrites;
+
+    public static synchronized PlantUmlRenderer getIns() {
+        if (ins == null) {
+            ins = new PlantUmlRenderer(new File(MindolphFileUtils.getTempDir(), "plantuml"));
+        }
+        return ins;
+    }
+
+    PlantUmlRenderer(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Split text into sources of pages, each is from a '@start' line to an '@end' line.
+     *
+     * @param text
+     * @return
+     */
+    public static List<String> splitPages(String text) {
+        List<String> pages = new ArrayList<>();
+        StringBuilder page = null;
+        for (String line : text.split(LINE_SEPARATOR, -1)) {
+            String trimmed = line.trim();
+            if (page == null) {
+                if (trimmed.startsWith("@start")) {
+                    page = new StringBuilder(line).append(LINE_SEPARATOR);
+                }
+            }
+            else {
+                page.append(line).append(LINE_SEPARATOR);
+                if (trimmed.startsWith("@end")) {
+                    pages.add(page.toString());
+                    page = null;
+                }
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * @param source source of one page.
+     * @return the rendered page in memory cache, null if not rendered yet.
+     */
+    public PageRender getCached(String source) {
+        String key = cacheKey(source);
+        if (key == null) {
+            return null;
+        }
+        synchronized (memoryCache) {
+            return memoryCache.get(key);
+        }
+    }
+
+    /**
+     * @param source source of one page.
+     * @return error message of the page if it was rendered with error last time, null if no error or not rendered yet.
+     */
+    public String getCachedError(String source) {
+        String key = cacheKey(source);
+        if (key == null) {
+            return null;
+        }
+        synchronized (errorCache) {
+            return errorCache.get(key);
+        }
+    }
+
+    /**
+     * Render one page in background if it's not cached.
+     *
+     * @param source   source of one page.
+     * @param callback called in background thread with the rendered page, null for pre-rendering.
+     * @return future to cancel the rendering if it's not needed any more.
+     */
+    public Future<?> render(String source, Consumer<PageRender> callback) {
+        return renderPool.submit(() -> {
+            String key = cacheKey(source);
+            PageRender render = key == null ? null : this.loadCache(key);
+            if (render == null) {
+                render = this.renderPage(source);
+                if (key != null) {
+                    synchronized (errorCache) {
+                        if (render.isError()) {
+                            errorCache.put(key, render.error());
+                        }
+                        else {
+                            errorCache.remove(key);
+                        }
+                    }
+                    if (!render.isError()) {
+                        this.saveCache(key, render);
+                    }
+                }
+            }
+            if (callback != null) {
+                callback.accept(render);
+            }
+        });
+    }
+
+    private PageRender renderPage(String source) {
+        long start = System.currentTimeMillis();
+        SourceStringReader reader = new SourceStringReader(source);
+        String error = null;
+        List<BlockUml> blocks = reader.getBlocks();
+        if (!blocks.isEmpty()) {
+            String errMsg = StringUtils.trim(blocks.getFirst().getDiagram().getWarningOrError());
+            if (StringUtils.contains(errMsg, "(Error)")) {
+                error = errMsg;
+            }
+        }
+        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            DiagramDescription diagramDescription = reader.outputImage(os, 0);
+            String description = diagramDescription == null ? StringUtils.EMPTY
+                    : StringUtils.abbreviate(StringUtils.defaultString(diagramDescription.getDescription()), MAX_DESCRIPTION_LENGTH);
+            log.debug("Rendered plantuml page in %d ms: %s".formatted(System.currentTimeMillis() - start, description));
+            return new PageRender(os.toByteArray(), description, error);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private PageRender loadCache(String key) {
+        synchronized (memoryCache) {
+            PageRender render = memoryCache.get(key);
+            if (render != null) {
+                return render;
+            }
+        }
+        File file = new File(cacheDir, key);
+        if (!file.exists()) {
+            return null;
+        }
+        PageRender render;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            String description = in.readUTF();
+            String error = in.readUTF();
+            byte[] image = new byte[in.readInt()];
+            in.readFully(image);
+            render = new PageRender(image, description, StringUtils.isEmpty(error) ? null : error);
+        } catch (IOException e) {
+            log.warn("Failed to load cached plantuml page: %s".formatted(file), e);
+            return null;
+        }
+        this.putMemoryCache(key, render);
+        file.setLastModified(System.currentTimeMillis()); // for evicting least recently used.
+        return render;
+    }
+
+    private void saveCache(String key, PageRender render) {
+        this.putMemoryCache(key, render);
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            return;
+        }
+        File file = new File(cacheDir, key);
+        File tempFile = null;
+        // written to a temp file and then moved, so that the file is never seen half written by other editors.
+        try {
+            tempFile = File.createTempFile(key, ".tmp", cacheDir);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeUTF(render.description());
+                out.writeUTF(StringUtils.defaultString(render.error()));
+                out.writeInt(render.image().length);
+                out.write(render.image());
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to cache plantuml page: %s".formatted(file), e);
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            return;
+        }
+        synchronized (this) {
+            if (++diskWrites % 50 == 0) {
+                this.evictDiskCache();
+            }
+        }
+    }
+
+    private void putMemoryCache(String key, PageRender render) {
+        synchronized (memoryCache) {
+            PageRender old = memoryCache.put(key, render);
+            memoryCacheBytes += render.image().length - (old == null ? 0 : old.image().length);
+            Iterator<PageRender> it = memoryCache.values().iterator();
+            while (memoryCacheBytes > MAX_MEMORY_CACHE_BYTES && memoryCache.size() > 1 && it.hasNext()) {
+                memoryCacheBytes -= it.next().image().length;
+                it.remove();
+            }
+        }
+    }
+
+    private void evictDiskCache() {
+        File[] files = cacheDir.listFiles();
+        if (files == null || files.length <= MAX_DISK_CACHE_FILES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - MAX_DISK_CACHE_FILES; i++) {
+            files[i].delete();
+        }
+        log.debug("Evicted %d cached plantuml pages".formatted(files.length - MAX_DISK_CACHE_FILES));
+    }
+
+    /**
+     * @return null if the source should not be cached.
+     */
+    static String cacheKey(String source) {
+        if (INCLUDE_PATTERN.matcher(source).find()) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Version.versionString().getBytes(StandardCharsets.UTF_8));
+            for (String line : source.split(LINE_SEPARATOR)) {
+                digest.update((byte) '\n');
+                digest.update(StringUtils.stripEnd(line, null).getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Rendered page.
+     *
+     * @param image       PNG image, it's the error image if error exists.
+     * @param description
+     * @param error       error message, null if no error.
+     */
+    public record PageRender(byte[] image, String description, String error) {
+
+        public boolean isError() {
+            return error != null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.mindolph.plantuml;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class PlantUmlRendererTest {
+
+    @Test
+    public void splitPages() {
+        String text = """
+                ' comment out of page
+                @startuml
+                Alice -> Bob
+                @enduml
+
+                  @startmindmap
+                * root
+                  @endmindmap
+                @startuml
+                unfinished
+                """;
+        List<String> pages = PlantUmlRenderer.splitPages(text);
+        Assertions.assertEquals(2, pages.size());
+        Assertions.assertEquals("@startuml\nAlice -> Bob\n@enduml\n", pages.get(0));
+        Assertions.assertEquals("  @startmindmap\n* root\n  @endmindmap\n", pages.get(1));
+    }
+
+    @Test
+    public void cacheKey() {
+        String key = PlantUmlRenderer.cacheKey("@startuml\nAlice -> Bob\n@enduml\n");
+        Assertions.assertNotNull(key);
+        Assertions.assertEquals(key, PlantUmlRenderer.cacheKey("@startuml  \nAlice -> Bob\t\n@enduml"));
+        Assertions.assertNotEquals(key, PlantUmlRenderer.cacheKey("@startuml\nAlice -> Bob: hi\n@enduml\n"));
+        Assertions.assertNull(PlantUmlRenderer.cacheKey("@startuml\n!include common.puml\nAlice -> Bob\n@enduml\n"));
+    }
+}